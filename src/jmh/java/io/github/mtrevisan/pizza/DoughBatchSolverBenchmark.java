@@ -0,0 +1,101 @@
+/**
+ * Copyright (c) 2020 Mauro Trevisan
+ *
+ * Permission is hereby granted, free of charge, to any person
+ * obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without
+ * restriction, including without limitation the rights to use,
+ * copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the
+ * Software is furnished to do so, subject to the following
+ * conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES
+ * OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+ * WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ */
+package io.github.mtrevisan.pizza;
+
+import io.github.mtrevisan.pizza.yeasts.SaccharomycesCerevisiaeCECT10131Yeast;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.time.Duration;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+
+/**
+ * Scaling of the batch solver with the number of threads.
+ * <p>
+ * Run with `mvn -P benchmark test-compile exec:exec -Djmh.benchmarks=DoughBatchSolverBenchmark`.
+ * </p>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class DoughBatchSolverBenchmark{
+
+	private static final int JOBS = 10_000;
+
+
+	@Param({"1", "2", "4", "8"})
+	private int parallelism;
+
+	private DoughBatchSolver solver;
+	private List<DoughBatchSolver.Job> jobs;
+
+
+	@Setup(Level.Trial)
+	public void setup() throws DoughException{
+		final Dough dough = Dough.create(new SaccharomycesCerevisiaeCECT10131Yeast())
+			.addPureWater(0.65)
+			.addSalt(0.016);
+		jobs = new ArrayList<>(JOBS);
+		for(int i = 0; i < JOBS; i ++){
+			final LeaveningStage stage1 = LeaveningStage.create(24. + (i % 8), Duration.ofHours(4l));
+			final LeaveningStage stage2 = LeaveningStage.create(27., Duration.ofHours(4l));
+			final Procedure procedure = Procedure.create(new LeaveningStage[]{stage1, stage2}, 1.5, 1,
+				Duration.ZERO, new Duration[]{Duration.ZERO, Duration.ZERO}, Duration.ZERO, LocalTime.NOON);
+			jobs.add(DoughBatchSolver.Job.create(dough, procedure));
+		}
+
+		solver = DoughBatchSolver.create(parallelism);
+	}
+
+	@TearDown(Level.Trial)
+	public void tearDown(){
+		solver.shutdown();
+	}
+
+
+	@Benchmark
+	public List<DoughBatchSolver.Result> solve(){
+		return solver.solve(jobs);
+	}
+
+}
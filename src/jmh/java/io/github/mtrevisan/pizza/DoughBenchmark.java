@@ -0,0 +1,160 @@
+/**
+ * Copyright (c) 2020 Mauro Trevisan
+ *
+ * Permission is hereby granted, free of charge, to any person
+ * obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without
+ * restriction, including without limitation the rights to use,
+ * copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the
+ * Software is furnished to do so, subject to the following
+ * conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES
+ * OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+ * WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ */
+package io.github.mtrevisan.pizza;
+
+import io.github.mtrevisan.pizza.yeasts.YeastModelAbstract;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.time.Duration;
+import java.time.LocalTime;
+import java.util.concurrent.TimeUnit;
+
+
+/**
+ * Benchmarks for the yeast solver and the ingredients calculation.
+ * <p>
+ * Run with `mvn -P benchmark test-compile exec:exec` (the GC profiler is always active to report the allocation rate).
+ * </p>
+ */
+@State(Scope.Thread)
+@BenchmarkMode({Mode.Throughput, Mode.AverageTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class DoughBenchmark{
+
+	/** Total leavening duration [hrs], split evenly between the stages. */
+	private static final int LEAVENING_DURATION = 8;
+	private static final double[] STAGE_TEMPERATURES = {27., 24., 29., 25.};
+	private static final double DOUGH_WEIGHT = 741.3;
+
+
+	@Param({"1", "2", "4"})
+	private int stageCount;
+	@Param({"0", "3", "6"})
+	private int foldCount;
+	@Param({"SaccharomycesCerevisiaeCECT10131Yeast", "SaccharomycesCerevisiaeAverageYeast", "LactobacillusPlantarumYeast"})
+	private String yeastModel;
+	@Param({"BRENT", "NEWTON"})
+	private YeastSolverType solverType;
+
+	private Dough dough;
+	private Ingredients ingredients;
+	private Procedure procedure;
+	//same as `procedure`, with the target stage 0.5 °C warmer
+	private Procedure changedProcedure;
+	private boolean changed;
+
+
+	@Setup(Level.Trial)
+	public void setup() throws ReflectiveOperationException, DoughException, YeastException{
+		final YeastModelAbstract model = (YeastModelAbstract)Class.forName(YeastModelAbstract.class.getPackageName() + "." + yeastModel)
+			.getConstructor()
+			.newInstance();
+
+		ingredients = new Ingredients()
+			.withIngredientsTemperature(16.7)
+			.withDoughTemperature(27.)
+			.withWater(0.02)
+			.withFlour(Flour.create(260.))
+			.withYeast(YeastType.INSTANT_DRY)
+			.withSugar(SugarType.SUCROSE)
+			.withFat(0.913);
+		dough = Dough.create(model)
+			.addWater(0.65, ingredients)
+			.addSugar(0.003, ingredients)
+			.addSalt(0.016)
+			.addFat(0.016, ingredients)
+			.withAtmosphericPressure(1012.1)
+			.withYeastSolverType(solverType);
+
+		procedure = createProcedure(0.);
+		changedProcedure = createProcedure(0.5);
+
+		//fail fast if the procedure cannot be solved, and prime the yeast for the ingredients benchmark
+		dough.calculateYeast(changedProcedure);
+		dough.calculateYeast(procedure);
+	}
+
+	private Procedure createProcedure(final double targetStageTemperatureChange) throws DoughException{
+		final LeaveningStage[] stages = new LeaveningStage[stageCount];
+		final Duration[] stagesWork = new Duration[stageCount];
+		for(int i = 0; i < stageCount; i ++){
+			stages[i] = LeaveningStage.create(STAGE_TEMPERATURES[i % STAGE_TEMPERATURES.length]
+				+ (i == stageCount - 1? targetStageTemperatureChange: 0.), Duration.ofHours(LEAVENING_DURATION / stageCount));
+			stagesWork[i] = Duration.ZERO;
+		}
+		final StretchAndFoldStage[] stretchAndFoldStages = new StretchAndFoldStage[foldCount];
+		for(int i = 0; i < foldCount; i ++)
+			stretchAndFoldStages[i] = StretchAndFoldStage.create(Duration.ofMinutes(30l))
+				.withVolumeDecrease(0.05);
+		return Procedure.create(stages, 1.5, stageCount - 1, Duration.ofMinutes(10l), stagesWork, Duration.ofMinutes(15l),
+				LocalTime.of(20, 0))
+			.withStretchAndFoldStages(stretchAndFoldStages);
+	}
+
+
+	@Benchmark
+	public double calculateYeast() throws YeastException{
+		dough.calculateYeast(procedure);
+		return dough.yeast;
+	}
+
+	/** Re-solve alternating between two slightly different procedures, as when a parameter is tweaked interactively. */
+	@Benchmark
+	public double recalculateYeast() throws DoughException, YeastException{
+		changed = !changed;
+		return dough.recalculateYeast(changed? changedProcedure: procedure);
+	}
+
+	/** All the partial derivatives of the yeast, to be compared with one `calculateYeast` per perturbed parameter. */
+	@Benchmark
+	public YeastSensitivity calculateYeastSensitivity() throws DoughException{
+		return dough.calculateYeastSensitivity(procedure);
+	}
+
+	@Benchmark
+	public Recipe calculateIngredients(){
+		return dough.calculateIngredients(ingredients, DOUGH_WEIGHT);
+	}
+
+	@Benchmark
+	public double ingredientsFactor(){
+		return dough.ingredientsFactor(STAGE_TEMPERATURES[0]);
+	}
+
+}
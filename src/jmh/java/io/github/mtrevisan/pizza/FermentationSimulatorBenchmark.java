@@ -0,0 +1,118 @@
+/**
+ * Copyright (c) 2020 Mauro Trevisan
+ *
+ * Permission is hereby granted, free of charge, to any person
+ * obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without
+ * restriction, including without limitation the rights to use,
+ * copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the
+ * Software is furnished to do so, subject to the following
+ * conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES
+ * OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+ * WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ */
+package io.github.mtrevisan.pizza;
+
+import io.github.mtrevisan.pizza.yeasts.SaccharomycesCerevisiaeCECT10131Yeast;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.time.Duration;
+import java.time.LocalTime;
+import java.util.concurrent.TimeUnit;
+
+
+/**
+ * Benchmarks for the simulation of a two-day fermentation at one-minute resolution, and for the time to reach its target.
+ * <p>
+ * Run with `mvn -P benchmark test-compile exec:exec -Djmh.benchmarks=FermentationSimulatorBenchmark`.
+ * </p>
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class FermentationSimulatorBenchmark{
+
+	/** Total leavening duration [hrs], split evenly between the stages. */
+	private static final int LEAVENING_DURATION = 48;
+	private static final double[] STAGE_TEMPERATURES = {24., 5., 5., 22.};
+
+
+	@Param({"1", "4"})
+	private int stageCount;
+
+	private Dough dough;
+	private Procedure procedure;
+	private FermentationSimulator simulator;
+	private double[] times;
+	private double[] volumeExpansionRatios;
+
+
+	@Setup(Level.Trial)
+	public void setup() throws DoughException, YeastException{
+		dough = Dough.create(new SaccharomycesCerevisiaeCECT10131Yeast())
+			.addPureWater(0.65)
+			.addSalt(0.025);
+		final LeaveningStage[] stages = new LeaveningStage[stageCount];
+		final Duration[] stagesWork = new Duration[stageCount];
+		for(int i = 0; i < stageCount; i ++){
+			stages[i] = LeaveningStage.create(STAGE_TEMPERATURES[stageCount == 1? 0: i],
+				Duration.ofHours(LEAVENING_DURATION / stageCount));
+			stagesWork[i] = Duration.ZERO;
+		}
+		procedure = Procedure.create(stages, 2., stageCount - 1, Duration.ofMinutes(10l), stagesWork,
+				Duration.ofMinutes(15l), LocalTime.of(20, 0))
+			.withStretchAndFoldStages(new StretchAndFoldStage[]{
+				StretchAndFoldStage.create(Duration.ofMinutes(30l)).withVolumeDecrease(0.05),
+				StretchAndFoldStage.create(Duration.ofMinutes(30l)).withVolumeDecrease(0.05)
+			});
+		dough.calculateYeast(procedure);
+
+		simulator = dough.simulateFermentation(procedure);
+		times = new double[simulator.getSampleCount()];
+		volumeExpansionRatios = new double[times.length];
+	}
+
+
+	@Benchmark
+	public double[] simulateIntoBuffers(){
+		simulator.simulate(0, times, volumeExpansionRatios);
+		return volumeExpansionRatios;
+	}
+
+	@Benchmark
+	public void simulateIntoSink(final Blackhole blackhole){
+		simulator.simulate((time, volumeExpansionRatio) -> blackhole.consume(volumeExpansionRatio));
+	}
+
+	@Benchmark
+	public double timeToTarget() throws DoughException, YeastException{
+		return dough.calculateTimeToTarget(procedure, dough.yeast);
+	}
+
+}
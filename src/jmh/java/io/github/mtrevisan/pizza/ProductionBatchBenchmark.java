@@ -0,0 +1,103 @@
+/**
+ * Copyright (c) 2020 Mauro Trevisan
+ *
+ * Permission is hereby granted, free of charge, to any person
+ * obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without
+ * restriction, including without limitation the rights to use,
+ * copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the
+ * Software is furnished to do so, subject to the following
+ * conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES
+ * OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+ * WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ */
+package io.github.mtrevisan.pizza;
+
+import io.github.mtrevisan.pizza.yeasts.SaccharomycesCerevisiaeCECT10131Yeast;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.time.Duration;
+import java.time.LocalTime;
+import java.util.concurrent.TimeUnit;
+
+
+/**
+ * Benchmarks for a production shift made of many order lines of a few dough weights.
+ * <p>
+ * Run with `mvn -P benchmark test-compile exec:exec -Djmh.benchmarks=ProductionBatchBenchmark`.
+ * </p>
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ProductionBatchBenchmark{
+
+	private static final double[] DOUGH_WEIGHTS = {180., 250., 280., 900.};
+
+
+	@Param({"100", "5000"})
+	private int lines;
+
+	private ProductionBatch batch;
+
+
+	@Setup(Level.Trial)
+	public void setup() throws DoughException{
+		final Ingredients ingredients = new Ingredients()
+			.withIngredientsTemperature(16.7)
+			.withDoughTemperature(27.)
+			.withWater(0.02)
+			.withFlour(Flour.create(260.))
+			.withYeast(YeastType.INSTANT_DRY)
+			.withSugar(SugarType.SUCROSE)
+			.withFat(0.913);
+		final Dough dough = Dough.create(new SaccharomycesCerevisiaeCECT10131Yeast())
+			.addWater(0.65, ingredients)
+			.addSugar(0.003, ingredients)
+			.addSalt(0.016)
+			.addFat(0.016, ingredients)
+			.withAtmosphericPressure(1012.1);
+		final LeaveningStage[] stages = {
+			LeaveningStage.create(35., Duration.ofHours(6l)),
+			LeaveningStage.create(35., Duration.ofHours(1l))
+		};
+		final Procedure procedure = Procedure.create(stages, 1.8, 0, Duration.ofMinutes(10l),
+			new Duration[]{Duration.ofMinutes(10l), Duration.ZERO}, Duration.ofMinutes(15l), LocalTime.of(20, 0));
+
+		batch = dough.createProductionBatch(ingredients, procedure);
+		for(int i = 0; i < lines; i ++)
+			batch.withOrder(1 + i % 5, DOUGH_WEIGHTS[i % DOUGH_WEIGHTS.length]);
+	}
+
+
+	@Benchmark
+	public ProductionBatch.Result calculate() throws DoughException, YeastException{
+		return batch.calculate();
+	}
+
+}
@@ -0,0 +1,112 @@
+/**
+ * Copyright (c) 2020 Mauro Trevisan
+ *
+ * Permission is hereby granted, free of charge, to any person
+ * obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without
+ * restriction, including without limitation the rights to use,
+ * copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the
+ * Software is furnished to do so, subject to the following
+ * conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES
+ * OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+ * WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ */
+package io.github.mtrevisan.pizza;
+
+import io.github.mtrevisan.pizza.yeasts.SaccharomycesCerevisiaeCECT10131Yeast;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.time.Duration;
+import java.time.LocalTime;
+import java.util.concurrent.TimeUnit;
+
+
+/**
+ * Benchmarks for the yeast calculation of a fridge cooling curve, given as a temperature profile and as a staircase of constant stages.
+ * <p>
+ * Run with `mvn -P benchmark test-compile exec:exec -Djmh.benchmarks=TemperatureProfileBenchmark`.
+ * </p>
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class TemperatureProfileBenchmark{
+
+	/** Cooling from 24 °C to 4 °C in 3 hrs, 21 hrs at 4 °C, warming up to 22 °C in 2 hrs. */
+	private static final Duration[] FRIDGE_TIMES = {Duration.ZERO, Duration.ofHours(3l), Duration.ofHours(24l), Duration.ofHours(26l)};
+	private static final double[] FRIDGE_TEMPERATURES = {24., 4., 4., 22.};
+
+
+	/** Number of constant stages approximating the profile. */
+	@Param({"13", "52"})
+	private int stageCount;
+
+	private Dough dough;
+	private Procedure profileProcedure;
+	private Procedure staircaseProcedure;
+
+
+	@Setup(Level.Trial)
+	public void setup() throws DoughException, YeastException{
+		dough = Dough.create(new SaccharomycesCerevisiaeCECT10131Yeast())
+			.addPureWater(0.65)
+			.addSalt(0.025);
+
+		final TemperatureProfile profile = TemperatureProfile.createPiecewiseLinear(FRIDGE_TIMES, FRIDGE_TEMPERATURES);
+		profileProcedure = Procedure.create(new LeaveningStage[]{LeaveningStage.create(profile)}, 0.5, 0, Duration.ZERO,
+			new Duration[]{Duration.ZERO}, Duration.ZERO, LocalTime.NOON);
+
+		final LeaveningStage[] stages = new LeaveningStage[stageCount];
+		final Duration[] stagesWork = new Duration[stageCount];
+		final Duration stageDuration = profile.getDuration().dividedBy(stageCount);
+		for(int i = 0; i < stageCount; i ++){
+			final double middle = (stageDuration.toMinutes() * i + stageDuration.toMinutes() / 2.) / 60.;
+			stages[i] = LeaveningStage.create(profile.temperature(middle), stageDuration);
+			stagesWork[i] = Duration.ZERO;
+		}
+		staircaseProcedure = Procedure.create(stages, 0.5, stageCount - 1, Duration.ZERO, stagesWork, Duration.ZERO, LocalTime.NOON);
+
+		//fail fast if a procedure cannot be solved
+		dough.calculateYeast(profileProcedure);
+		dough.calculateYeast(staircaseProcedure);
+	}
+
+
+	@Benchmark
+	public double profile() throws YeastException{
+		dough.calculateYeast(profileProcedure);
+		return dough.yeast;
+	}
+
+	@Benchmark
+	public double staircase() throws YeastException{
+		dough.calculateYeast(staircaseProcedure);
+		return dough.yeast;
+	}
+
+}
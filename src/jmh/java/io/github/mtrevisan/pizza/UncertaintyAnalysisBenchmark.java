@@ -0,0 +1,103 @@
+/**
+ * Copyright (c) 2020 Mauro Trevisan
+ *
+ * Permission is hereby granted, free of charge, to any person
+ * obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without
+ * restriction, including without limitation the rights to use,
+ * copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the
+ * Software is furnished to do so, subject to the following
+ * conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES
+ * OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+ * WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ */
+package io.github.mtrevisan.pizza;
+
+import io.github.mtrevisan.pizza.yeasts.LactobacillusPlantarumYeast;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.time.Duration;
+import java.time.LocalTime;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+
+
+/**
+ * Benchmarks for a Monte Carlo uncertainty analysis of 10 000 samples over a three-stage procedure.
+ * <p>
+ * Run with `mvn -P benchmark test-compile exec:exec -Djmh.benchmarks=UncertaintyAnalysisBenchmark`.
+ * </p>
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class UncertaintyAnalysisBenchmark{
+
+	private static final int SAMPLES = 10_000;
+
+
+	@Param({"1", "4"})
+	private int parallelism;
+
+	private Dough dough;
+	private UncertaintyAnalysis analysis;
+
+
+	@Setup(Level.Trial)
+	public void setup() throws DoughException, YeastException{
+		dough = Dough.create(new LactobacillusPlantarumYeast())
+			.addPureWater(0.65)
+			.addSalt(0.025);
+		final LeaveningStage[] stages = {
+			LeaveningStage.create(30., Duration.ofHours(3l)).withVolumeDecrease(0.05),
+			LeaveningStage.create(4., Duration.ofHours(24l)).withVolumeDecrease(0.05),
+			LeaveningStage.create(25., Duration.ofHours(3l))
+		};
+		final Duration[] stagesWork = {Duration.ZERO, Duration.ZERO, Duration.ZERO};
+		final Procedure procedure = Procedure.create(stages, 1.2, 2, Duration.ofMinutes(10l), stagesWork,
+			Duration.ofMinutes(15l), LocalTime.of(20, 0));
+		dough.calculateYeast(procedure);
+
+		analysis = dough.analyzeUncertainty(procedure)
+			.withSamples(SAMPLES)
+			.withStageTemperatureUncertainty(0.5, 1.5, 0.5)
+			.withPool(new ForkJoinPool(parallelism));
+	}
+
+
+	@Benchmark
+	public UncertaintyAnalysis.Distribution calculateYeast(){
+		return analysis.calculateYeast();
+	}
+
+	@Benchmark
+	public UncertaintyAnalysis.Distribution calculateTimeToTarget() throws DoughException{
+		return analysis.calculateTimeToTarget(dough.yeast);
+	}
+
+}
@@ -0,0 +1,116 @@
+/**
+ * Copyright (c) 2020 Mauro Trevisan
+ *
+ * Permission is hereby granted, free of charge, to any person
+ * obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without
+ * restriction, including without limitation the rights to use,
+ * copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the
+ * Software is furnished to do so, subject to the following
+ * conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES
+ * OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+ * WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ */
+package io.github.mtrevisan.pizza;
+
+import io.github.mtrevisan.pizza.yeasts.SaccharomycesCerevisiaeCECT10131Yeast;
+import io.github.mtrevisan.pizza.yeasts.YeastModelAbstract;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.LocalTime;
+import java.util.concurrent.TimeUnit;
+
+
+/**
+ * Yeast lookup into the memory mapped atlas versus the exact solver.
+ * <p>
+ * Run with `mvn -P benchmark test-compile exec:exec -Djmh.benchmarks=YeastAtlasBenchmark`.
+ * </p>
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class YeastAtlasBenchmark{
+
+	private final YeastModelAbstract yeastModel = new SaccharomycesCerevisiaeCECT10131Yeast();
+	private Path file;
+	private YeastAtlas atlas;
+	private Dough dough;
+	private Procedure procedure;
+	//kept as fields to avoid constant folding
+	private double temperature = 23.3;
+	private Duration duration = Duration.ofMinutes(655l);
+	private double water = 0.63;
+	private double salt = 0.013;
+
+
+	@Setup(Level.Trial)
+	public void setup() throws DoughException, IOException{
+		file = Files.createTempFile("yeast-atlas", ".bin");
+		final DoughBatchSolver solver = DoughBatchSolver.create();
+		try{
+			YeastAtlasGenerator.generate(file, 1.5, YeastAtlasGenerator.AXES, new YeastModelAbstract[]{yeastModel}, solver);
+		}
+		finally{
+			solver.shutdown();
+		}
+		atlas = YeastAtlas.load(file);
+
+		dough = Dough.create(yeastModel)
+			.addPureWater(water)
+			.addSalt(salt);
+		final LeaveningStage stage = LeaveningStage.create(temperature, duration);
+		procedure = Procedure.create(new LeaveningStage[]{stage}, 1.5, 0,
+			Duration.ZERO, new Duration[]{Duration.ZERO}, Duration.ZERO, LocalTime.NOON);
+		if(Double.isNaN(lookup()))
+			throw new IllegalStateException("Benchmark point is not covered by the atlas");
+	}
+
+	@TearDown(Level.Trial)
+	public void tearDown() throws IOException{
+		atlas = null;
+		Files.deleteIfExists(file);
+	}
+
+
+	@Benchmark
+	public double lookup(){
+		return atlas.yeast(yeastModel, temperature, duration, water, salt);
+	}
+
+	@Benchmark
+	public double solve() throws YeastException{
+		dough.calculateYeast(procedure);
+		return dough.yeast;
+	}
+
+}
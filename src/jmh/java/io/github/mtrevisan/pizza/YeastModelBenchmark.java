@@ -0,0 +1,92 @@
+/**
+ * Copyright (c) 2020 Mauro Trevisan
+ *
+ * Permission is hereby granted, free of charge, to any person
+ * obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without
+ * restriction, including without limitation the rights to use,
+ * copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the
+ * Software is furnished to do so, subject to the following
+ * conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES
+ * OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+ * WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ */
+package io.github.mtrevisan.pizza;
+
+import io.github.mtrevisan.pizza.yeasts.YeastModelAbstract;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+
+/**
+ * Benchmarks for the Gompertz model of the yeasts.
+ * <p>
+ * Run with `mvn -P benchmark test-compile exec:exec -Djmh.benchmarks=YeastModelBenchmark`.
+ * </p>
+ */
+@State(Scope.Thread)
+@BenchmarkMode({Mode.Throughput, Mode.AverageTime})
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class YeastModelBenchmark{
+
+	@Param({"SaccharomycesCerevisiaeCECT10131Yeast", "SaccharomycesCerevisiaeAverageYeast", "LactobacillusPlantarumYeast"})
+	private String yeastModel;
+	@Param({"false", "true"})
+	private boolean fast;
+
+	private YeastModelAbstract model;
+	//kept as fields to avoid constant folding
+	private double time = 5.;
+	private double lambda = 0.8;
+	private double alpha = 2.97;
+	private double temperature = 27.;
+	private double ingredientsFactor = 0.98;
+
+
+	@Setup(Level.Trial)
+	public void setup() throws ReflectiveOperationException{
+		model = (YeastModelAbstract)Class.forName(YeastModelAbstract.class.getPackageName() + "." + yeastModel)
+			.getConstructor()
+			.newInstance();
+		if(fast)
+			model = model.toFastMaximumSpecificGrowth();
+	}
+
+
+	@Benchmark
+	public double volumeExpansionRatio(){
+		return model.volumeExpansionRatio(time, lambda, alpha, temperature, ingredientsFactor);
+	}
+
+	@Benchmark
+	public double maximumSpecificGrowth(){
+		return model.maximumSpecificGrowth(temperature);
+	}
+
+}
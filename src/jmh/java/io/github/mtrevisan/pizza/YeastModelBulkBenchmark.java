@@ -0,0 +1,112 @@
+/**
+ * Copyright (c) 2020 Mauro Trevisan
+ *
+ * Permission is hereby granted, free of charge, to any person
+ * obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without
+ * restriction, including without limitation the rights to use,
+ * copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the
+ * Software is furnished to do so, subject to the following
+ * conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES
+ * OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+ * WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ */
+package io.github.mtrevisan.pizza;
+
+import io.github.mtrevisan.pizza.yeasts.SaccharomycesCerevisiaeCECT10131Yeast;
+import io.github.mtrevisan.pizza.yeasts.YeastModelAbstract;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+
+/**
+ * Benchmarks for the bulk evaluation of the Gompertz model of the yeasts, against the equivalent scalar loops.
+ * <p>
+ * Run with `mvn -P benchmark test-compile exec:exec -Djmh.benchmarks=YeastModelBulkBenchmark`.
+ * </p>
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"--add-modules", "jdk.incubator.vector"})
+public class YeastModelBulkBenchmark{
+
+	@Param({"16", "1024", "65536"})
+	private int size;
+
+	private final YeastModelAbstract model = new SaccharomycesCerevisiaeCECT10131Yeast();
+	//kept as fields to avoid constant folding
+	private double lambda = 0.8;
+	private double alpha = 2.97;
+	private double temperature = 27.;
+	private double ingredientsFactor = 0.98;
+
+	private double[] times;
+	private double[] temperatures;
+	private double[] out;
+
+
+	@Setup(Level.Trial)
+	public void setup(){
+		times = new double[size];
+		temperatures = new double[size];
+		out = new double[size];
+		for(int i = 0; i < size; i ++){
+			times[i] = 24. * i / size;
+			temperatures[i] = 4. + 36. * i / size;
+		}
+	}
+
+
+	@Benchmark
+	public double[] scalarVolumeExpansionRatio(){
+		for(int i = 0; i < size; i ++)
+			out[i] = model.volumeExpansionRatio(times[i], lambda, alpha, temperature, ingredientsFactor);
+		return out;
+	}
+
+	@Benchmark
+	public double[] bulkVolumeExpansionRatio(){
+		model.volumeExpansionRatio(times, lambda, alpha, temperature, ingredientsFactor, out);
+		return out;
+	}
+
+	@Benchmark
+	public double[] scalarMaximumSpecificGrowth(){
+		for(int i = 0; i < size; i ++)
+			out[i] = model.maximumSpecificGrowth(temperatures[i]);
+		return out;
+	}
+
+	@Benchmark
+	public double[] bulkMaximumSpecificGrowth(){
+		model.maximumSpecificGrowth(temperatures, out);
+		return out;
+	}
+
+}
@@ -0,0 +1,92 @@
+/**
+ * Copyright (c) 2020 Mauro Trevisan
+ *
+ * Permission is hereby granted, free of charge, to any person
+ * obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without
+ * restriction, including without limitation the rights to use,
+ * copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the
+ * Software is furnished to do so, subject to the following
+ * conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES
+ * OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+ * WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ */
+package io.github.mtrevisan.pizza;
+
+import io.github.mtrevisan.pizza.yeasts.YeastModelAbstract;
+import io.github.mtrevisan.pizza.yeasts.YeastModels;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+
+/**
+ * Benchmarks for a call site that sees every yeast model of {@link YeastModels}, as in a service handling requests for any of them.
+ * <p>
+ * Run with `mvn -P benchmark test-compile exec:exec -Djmh.benchmarks=YeastModelDispatchBenchmark`.
+ * </p>
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class YeastModelDispatchBenchmark{
+
+	private YeastModelAbstract[] models;
+	//kept as fields to avoid constant folding
+	private double time = 5.;
+	private double lambda = 0.8;
+	private double alpha = 2.97;
+	private double temperature = 27.;
+	private double ingredientsFactor = 0.98;
+
+
+	@Setup(Level.Trial)
+	public void setup(){
+		models = YeastModels.names()
+			.stream()
+			.map(YeastModels::create)
+			.toArray(YeastModelAbstract[]::new);
+	}
+
+
+	@Benchmark
+	public double volumeExpansionRatio(){
+		double sum = 0.;
+		for(final YeastModelAbstract model : models)
+			sum += model.volumeExpansionRatio(time, lambda, alpha, temperature, ingredientsFactor);
+		return sum;
+	}
+
+	@Benchmark
+	public double maximumSpecificGrowth(){
+		double sum = 0.;
+		for(final YeastModelAbstract model : models)
+			sum += model.maximumSpecificGrowth(temperature);
+		return sum;
+	}
+
+}
@@ -26,16 +26,12 @@ package io.github.mtrevisan.pizza;
 
 import io.github.mtrevisan.pizza.utils.Helper;
 import io.github.mtrevisan.pizza.yeasts.YeastModelAbstract;
-import org.apache.commons.math3.analysis.UnivariateFunction;
-import org.apache.commons.math3.analysis.solvers.BaseUnivariateSolver;
-import org.apache.commons.math3.analysis.solvers.BracketingNthOrderBrentSolver;
-import org.apache.commons.math3.exception.NoBracketingException;
-import org.apache.commons.math3.exception.TooManyEvaluationsException;
+import org.apache.commons.math3.analysis.differentiation.DerivativeStructure;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import java.time.Duration;
 import java.time.LocalTime;
+import java.util.Arrays;
 
 
 public final class Dough{
@@ -148,10 +144,13 @@ public final class Dough{
 	 *
 	 * @see #calculateYeast(Procedure)
 	 */
-	private static final double SOLVER_YEAST_MAX = 1.;
-	private static final int SOLVER_EVALUATIONS_MAX = 100;
+	static final double SOLVER_YEAST_MAX = 1.;
+	static final int SOLVER_EVALUATIONS_MAX = 100;
 
-	private static final double DOUGH_WEIGHT_PRECISION = 0.001;
+	/** Particle density of wheat flour [kg/l]. */
+	private static final double FLOUR_DENSITY = 1.45;
+	/** Density of fat [kg/l]. */
+	private static final double FAT_DENSITY = 0.915;
 
 	//densities: http://www.fao.org/3/a-ap815e.pdf
 	//plot graphs: http://www.shodor.org/interactivate/activities/SimplePlot/
@@ -160,8 +159,8 @@ public final class Dough{
 	//regression: http://www.colby.edu/chemistry/PChem/scripts/lsfitpl.html
 
 
-	//accuracy is ±0.001%
-	private final BaseUnivariateSolver<UnivariateFunction> solverYeast = new BracketingNthOrderBrentSolver(0.000_01, 5);
+	private final YeastSolver solverYeast = YeastSolver.create();
+	private YeastSolverType yeastSolverType = YeastSolverType.BRENT;
 
 
 	private final YeastModelAbstract yeastModel;
@@ -182,8 +181,16 @@ public final class Dough{
 	/** Atmospheric pressure [hPa]. */
 	private double atmosphericPressure = ONE_ATMOSPHERE;
 
+	/** Cache of the solved yeast quantities. */
+	private YeastCache yeastCache;
+	/** Precomputed yeast quantities, consulted before solving. */
+	private YeastAtlas yeastAtlas;
+	private DoughMetricsListener metricsListener = DoughMetricsListener.NONE;
+
 	/** Yeast quantity [% w/w]. */
 	double yeast;
+	/** Number of linear segments evaluated by the last ingredients calculation. */
+	private int ingredientsEvaluations;
 
 
 	public static Dough create(final YeastModelAbstract yeastModel) throws DoughException{
@@ -197,6 +204,22 @@ public final class Dough{
 		this.yeastModel = yeastModel;
 	}
 
+	private Dough(final Dough dough){
+		yeastModel = dough.yeastModel;
+		sugar = dough.sugar;
+		fat = dough.fat;
+		salt = dough.salt;
+		water = dough.water;
+		waterChlorineDioxide = dough.waterChlorineDioxide;
+		waterPH = dough.waterPH;
+		waterFixedResidue = dough.waterFixedResidue;
+		atmosphericPressure = dough.atmosphericPressure;
+		yeastCache = dough.yeastCache;
+		yeastAtlas = dough.yeastAtlas;
+		yeastSolverType = dough.yeastSolverType;
+		metricsListener = dough.metricsListener;
+	}
+
 
 	/**
 	 * @param sugar	Sugar quantity w.r.t. flour [% w/w].
@@ -336,12 +359,85 @@ public final class Dough{
 		return this;
 	}
 
+	/**
+	 * @param yeastCache	Cache of the solved yeast quantities (can be shared between doughs).
+	 * @return	This instance.
+	 */
+	public Dough withYeastCache(final YeastCache yeastCache){
+		this.yeastCache = yeastCache;
+
+		return this;
+	}
+
+	/**
+	 * @param yeastSolverType	Root finder used to calculate the yeast quantity.
+	 * @return	This instance.
+	 */
+	public Dough withYeastSolverType(final YeastSolverType yeastSolverType){
+		if(yeastSolverType == null)
+			throw new IllegalArgumentException("Yeast solver type must be valued");
+
+		this.yeastSolverType = yeastSolverType;
+
+		return this;
+	}
+
+	/**
+	 * NOTE: the atlas gives an approximated yeast quantity, do not set it (or set it to {@code null}) to have full precision.
+	 *
+	 * @param yeastAtlas	Precomputed yeast quantities, used whenever the dough and the procedure are covered by it.
+	 * @return	This instance.
+	 */
+	public Dough withYeastAtlas(final YeastAtlas yeastAtlas){
+		this.yeastAtlas = yeastAtlas;
+
+		return this;
+	}
+
+	/**
+	 * @param metricsListener	Listener of the yeast and ingredients calculations (can be shared between doughs), or
+	 * 	{@link DoughMetricsListener#NONE} to not collect metrics.
+	 * @return	This instance.
+	 */
+	public Dough withMetricsListener(final DoughMetricsListener metricsListener){
+		if(metricsListener == null)
+			throw new IllegalArgumentException("Metrics listener must be valued");
+
+		this.metricsListener = metricsListener;
+
+		return this;
+	}
+
 	/**
 	 * @see <a href="https://www.ncbi.nlm.nih.gov/pmc/articles/PMC6333755/">Stratford, Steels, Novodvorska, Archer, Avery. Extreme Osmotolerance and Halotolerance in Food-Relevant Yeasts and the Role of Glycerol-Dependent Cell Individuality. 2018.</a>
 	 *
 	 * @throws DoughException	If validation fails.
 	 */
-	private void validate() throws DoughException{
+	void validate() throws DoughException{
+		final DoughEvents.Validation event = new DoughEvents.Validation();
+		event.begin();
+		String outcome = DoughEvents.OUTCOME_FAILURE;
+		try{
+			validateComposition();
+			outcome = DoughEvents.OUTCOME_SUCCESS;
+		}
+		finally{
+			event.complete(yeastModel, outcome);
+		}
+	}
+
+	/**
+	 * Validate the data of a yeast calculation, the ingredients aside.
+	 *
+	 * @param procedure	The recipe procedure.
+	 * @throws DoughException	If validation fails.
+	 */
+	void validate(final Procedure procedure) throws DoughException{
+		validate();
+		procedure.validate(yeastModel);
+	}
+
+	private void validateComposition() throws DoughException{
 		if(water < HYDRATION_MIN || water > HYDRATION_MAX)
 			throw DoughException.create("Hydration [% w/w] must be between {} and {}%",
 				Helper.round(HYDRATION_MIN * 100., 1), Helper.round(HYDRATION_MAX * 100., 1));
@@ -371,19 +467,77 @@ public final class Dough{
 			throw new IllegalArgumentException("Ingredients must be valued");
 		if(procedure == null)
 			throw new IllegalArgumentException("Procedure must be valued");
+
+		final DoughEvents.RecipeCreation event = new DoughEvents.RecipeCreation();
+		event.begin();
+		String outcome = DoughEvents.OUTCOME_FAILURE;
+		try{
+			ingredients.validateDoughWeight();
+			yeast = prepareRecipe(ingredients, procedure, solverYeast);
+
+			//calculate ingredients:
+			final double doughWeight = calculateDoughWeight(ingredients, yeast);
+			final Recipe recipe = calculateIngredients(ingredients, doughWeight);
+
+			//calculate times:
+			final Recipe scheduledRecipe = scheduleRecipe(recipe, procedure);
+			outcome = DoughEvents.OUTCOME_SUCCESS;
+			return scheduledRecipe;
+		}
+		finally{
+			event.stages = procedure.leaveningStages.length;
+			event.evaluations = solverYeast.getEvaluations();
+			event.complete(yeastModel, outcome);
+		}
+	}
+
+	/**
+	 * @param ingredients	The recipe ingredients.
+	 * @param procedure	The recipe procedure.
+	 * @return	The production batch, to be filled with orders and calculated.
+	 */
+	public ProductionBatch createProductionBatch(final Ingredients ingredients, final Procedure procedure){
+		if(ingredients == null)
+			throw new IllegalArgumentException("Ingredients must be valued");
+		if(procedure == null)
+			throw new IllegalArgumentException("Procedure must be valued");
+
+		return ProductionBatch.create(this, ingredients, procedure, () -> solverYeast);
+	}
+
+	/**
+	 * Take a snapshot of this dough, whose calculations can be done concurrently.
+	 *
+	 * @return	The engine.
+	 * @throws DoughException	If validation fails.
+	 */
+	public DoughEngine toEngine() throws DoughException{
+		validate();
+
+		return DoughEngine.create(new Dough(this), yeastModel);
+	}
+
+	/**
+	 * Validate the data and calculate the yeast, the part of a recipe that does not depend on the dough weight.
+	 * <p>
+	 * NOTE: this instance is not modified.
+	 * </p>
+	 *
+	 * @param ingredients	The recipe ingredients.
+	 * @param procedure	The recipe procedure.
+	 * @param solver	The solver to be used.
+	 * @return	The yeast quantity [% w/w].
+	 */
+	double prepareRecipe(final Ingredients ingredients, final Procedure procedure, final YeastSolver solver)
+			throws DoughException, YeastException{
 		validate();
 		ingredients.validate(yeastModel);
 		procedure.validate(yeastModel);
 
-		//calculate yeast:
-		calculateYeast(procedure);
-
-		//calculate ingredients:
-		//FIXME
-final double doughWeight = 741.3;
-		final Recipe recipe = calculateIngredients(ingredients, doughWeight);
+		return solveYeast(procedure, solver);
+	}
 
-		//calculate times:
+	static Recipe scheduleRecipe(final Recipe recipe, final Procedure procedure){
 		LocalTime last = procedure.timeToBake.minus(procedure.seasoning);
 		recipe.withSeasoningInstant(last);
 		final LocalTime[][] stageStartEndInstants = new LocalTime[procedure.stagesWork.length][2];
@@ -393,10 +547,8 @@ final double doughWeight = 741.3;
 			last = last.minus(procedure.leaveningStages[i].duration);
 			stageStartEndInstants[i][0] = last;
 		}
-		recipe.withStageStartEndInstants(stageStartEndInstants)
+		return recipe.withStageStartEndInstants(stageStartEndInstants)
 			.withDoughMakingInstant(last.minus(procedure.doughMaking));
-
-		return recipe;
 	}
 
 	/**
@@ -406,79 +558,282 @@ final double doughWeight = 741.3;
 	 * @param procedure	Data for procedure.
 	 */
 	void calculateYeast(final Procedure procedure) throws YeastException{
+		yeast = solveYeast(procedure, solverYeast);
+	}
+
+	/**
+	 * Re-calculate the yeast quantity after a small change of the procedure (or of the dough), starting from the last one calculated.
+	 *
+	 * @param procedure	Data for procedure.
+	 * @return	The yeast quantity [% w/w].
+	 * @see #recalculateYeast(Procedure, double)
+	 */
+	public double recalculateYeast(final Procedure procedure) throws DoughException, YeastException{
+		return recalculateYeast(procedure, yeast);
+	}
+
+	/**
+	 * Re-calculate the yeast quantity after a small change of the procedure (or of the dough), starting from a previous solution.
+	 * <p>
+	 * The search starts from a narrow bracket around the previous solution, widened only if needed, so a small change costs a few
+	 * evaluations of the objective instead of a search over the whole range.
+	 * </p>
+	 *
+	 * @param procedure	Data for procedure.
+	 * @param previousYeast	The previous yeast quantity [% w/w] (if not positive, the search is done over the whole range).
+	 * @return	The yeast quantity [% w/w].
+	 * @throws DoughException	If validation fails.
+	 */
+	public double recalculateYeast(final Procedure procedure, final double previousYeast) throws DoughException, YeastException{
+		validate(procedure);
+
+		yeast = solveYeast(procedure, solverYeast, previousYeast);
+		return yeast;
+	}
+
+	/**
+	 * Simulate the volume expansion ratio over the whole procedure, with the yeast quantity last calculated.
+	 *
+	 * @param procedure	Data for procedure, the same used to calculate the yeast.
+	 * @return	The simulator.
+	 * @throws DoughException	If the yeast quantity was not calculated.
+	 */
+	public FermentationSimulator simulateFermentation(final Procedure procedure) throws DoughException{
+		if(yeast <= 0.)
+			throw DoughException.create("Yeast quantity must be calculated before simulating the fermentation");
+
+		return FermentationSimulator.create(this, yeastModel, procedure, yeast);
+	}
+
+	/**
+	 * Calculate the time at which the target volume expansion ratio of the procedure is reached with the given yeast quantity.
+	 * <p>
+	 * The stages last as planned, except the last one that is assumed to last until the target is reached (the target stage of the
+	 * procedure is not considered).
+	 * </p>
+	 *
+	 * @param procedure	Data for procedure.
+	 * @param yeast	Quantity of yeast [% w/w].
+	 * @return	The time from the start of the first leavening stage [hrs].
+	 * @throws DoughException	If validation fails.
+	 * @throws YeastException	If the target volume expansion ratio is never reached.
+	 */
+	public double calculateTimeToTarget(final Procedure procedure, final double yeast) throws DoughException, YeastException{
+		if(yeast <= 0. || yeast > SOLVER_YEAST_MAX)
+			throw DoughException.create("Yeast [% w/w] must be between 0 and {}%", Helper.round(SOLVER_YEAST_MAX * 100., 1));
+		validate(procedure);
+
+		final double time = FermentationSimulator.create(this, yeastModel, procedure, yeast)
+			.timeToVolumeExpansionRatio(procedure.targetDoughVolumeExpansionRatio);
+		if(Double.isNaN(time))
+			throw YeastException.create("The given yeast quantity will never be able to produce the given expansion ratio");
+
+		return time;
+	}
+
+	/**
+	 * Calculate the sensitivity of the yeast quantity last calculated to the temperature of each stage, the hydration, the salt, and the
+	 * atmospheric pressure.
+	 * <p>
+	 * All the partial derivatives are obtained in a single evaluation of the objective (no other yeast calculation is needed).
+	 * </p>
+	 *
+	 * @param procedure	Data for procedure, the same used to calculate the yeast.
+	 * @return	The sensitivity report.
+	 * @throws DoughException	If the yeast quantity was not calculated.
+	 */
+	public YeastSensitivity calculateYeastSensitivity(final Procedure procedure) throws DoughException{
+		if(yeast <= 0.)
+			throw DoughException.create("Yeast quantity must be calculated before calculating its sensitivity");
+
+		return YeastSensitivity.create(this, yeastModel, procedure, yeast);
+	}
+
+	/**
+	 * Propagate the uncertainties of the yeast model parameters and of the stage temperatures to the yeast quantity, or to the time to
+	 * reach the target volume expansion ratio.
+	 *
+	 * @param procedure	Data for procedure.
+	 * @return	The analysis, to be configured and run.
+	 */
+	public UncertaintyAnalysis analyzeUncertainty(final Procedure procedure){
+		return UncertaintyAnalysis.create(this, yeastModel, procedure);
+	}
+
+	/**
+	 * @return	The number of evaluations of the objective done by the last yeast calculation (zero if the yeast quantity was not searched
+	 * 	for).
+	 */
+	public int getYeastEvaluations(){
+		return solverYeast.getEvaluations();
+	}
+
+	/**
+	 * @return	The number of linear segments evaluated by the last ingredients calculation.
+	 */
+	public int getIngredientsEvaluations(){
+		return ingredientsEvaluations;
+	}
+
+	/**
+	 * Find the initial yeast able to obtain a given volume expansion ratio after a series of consecutive stages at a given duration at
+	 * temperature.
+	 * <p>
+	 * NOTE: this instance is not modified, so it can be shared between threads as long as each one uses its own solver.
+	 * </p>
+	 *
+	 * @param procedure	Data for procedure.
+	 * @param solver	The solver to be used.
+	 * @return	The yeast quantity [% w/w].
+	 */
+	double solveYeast(final Procedure procedure, final YeastSolver solver) throws YeastException{
+		return solveYeast(procedure, solver, Double.NaN);
+	}
+
+	/**
+	 * @param procedure	Data for procedure.
+	 * @param solver	The solver to be used.
+	 * @param previousYeast	The previous yeast quantity to start the search from [% w/w], or {@link Double#NaN}.
+	 * @return	The yeast quantity [% w/w].
+	 */
+	double solveYeast(final Procedure procedure, final YeastSolver solver, final double previousYeast) throws YeastException{
+		final DoughEvents.YeastCalculation event = new DoughEvents.YeastCalculation();
+		if(metricsListener == DoughMetricsListener.NONE && !event.isEnabled())
+			return lookupOrSearchYeast(procedure, solver, previousYeast);
+
+		event.begin();
+		final long start = System.nanoTime();
 		try{
-			final UnivariateFunction f = yeast -> {
-				final double alpha = maximumRelativeVolumeExpansionRatio(yeast);
-				double lambda = estimatedLag(yeast);
-				LeaveningStage currentStage = procedure.leaveningStages[0];
-				double volumeExpansionRatio = 0.;
-				Duration duration = Duration.ZERO;
-				if(procedure.targetVolumeExpansionRatioAtLeaveningStage > 0){
-					int stretchAndFoldIndex = 0;
-					Duration stretchAndFoldDuration = Duration.ZERO;
-					for(int i = 1; i < procedure.leaveningStages.length; i ++){
-						final LeaveningStage previousStage = procedure.leaveningStages[i - 1];
-						duration = duration.plus(previousStage.duration);
-						currentStage = procedure.leaveningStages[i];
-
-						//avoid modifying `lambda` if the temperature is the same
-						double currentVolume = 0.;
-						if(previousStage.temperature != currentStage.temperature){
-							final double ingredientsFactor = ingredientsFactor(previousStage.temperature);
-							final double previousVolume = yeastModel.volumeExpansionRatio(duration.toMinutes() / 60., lambda, alpha,
-								previousStage.temperature, ingredientsFactor);
-							lambda = Math.max(lambda - previousStage.duration.toMinutes() / 60., 0.);
-							currentVolume = yeastModel.volumeExpansionRatio(duration.toMinutes() / 60., lambda, alpha, currentStage.temperature,
-								ingredientsFactor);
-
-							volumeExpansionRatio += previousVolume - currentVolume;
-						}
-						//account for stage volume decrease
-						volumeExpansionRatio -= currentVolume * previousStage.volumeDecrease;
-
-						//apply stretch&fold volume reduction:
-						double stretchAndFoldVolumeDecrease = 0.;
-						while(procedure.stretchAndFoldStages != null && stretchAndFoldIndex < procedure.stretchAndFoldStages.length){
-							final StretchAndFoldStage stretchAndFoldStage = procedure.stretchAndFoldStages[stretchAndFoldIndex];
-							if(stretchAndFoldDuration.plus(stretchAndFoldStage.lapse).compareTo(duration) > 0)
-								break;
-
-							stretchAndFoldIndex ++;
-							stretchAndFoldDuration = stretchAndFoldDuration.plus(stretchAndFoldStage.lapse);
-
-							final double ingredientsFactor = ingredientsFactor(currentStage.temperature);
-							final double volumeAtStretchAndFold = yeastModel.volumeExpansionRatio(duration.minus(previousStage.duration)
-								.plus(stretchAndFoldDuration).toMinutes() / 60., lambda, alpha, currentStage.temperature, ingredientsFactor);
-							stretchAndFoldVolumeDecrease += (volumeAtStretchAndFold - stretchAndFoldVolumeDecrease)
-								* stretchAndFoldStage.volumeDecrease;
-						}
-						volumeExpansionRatio -= stretchAndFoldVolumeDecrease;
-
-						//early exit if target volume expansion ratio references an inner stage
-						if(i == procedure.targetVolumeExpansionRatioAtLeaveningStage)
-							break;
-					}
-				}
+			return lookupOrSearchYeast(procedure, solver, previousYeast);
+		}
+		finally{
+			final long time = System.nanoTime() - start;
+			final YeastOutcome outcome = solver.getOutcome();
+			if(outcome != null && metricsListener != DoughMetricsListener.NONE)
+				metricsListener.yeastCalculated(yeastModel, outcome, solver.getEvaluations(), solver.getResidual(), time);
+
+			event.stages = procedure.leaveningStages.length;
+			event.evaluations = solver.getEvaluations();
+			event.complete(yeastModel, (outcome != null? outcome.name(): DoughEvents.OUTCOME_FAILURE));
+		}
+	}
 
-				final double ingredientsFactor = ingredientsFactor(currentStage.temperature);
-				if(ingredientsFactor == 0.)
-					return Double.POSITIVE_INFINITY;
+	private double lookupOrSearchYeast(final Procedure procedure, final YeastSolver solver, final double previousYeast)
+			throws YeastException{
+		solver.resetEvaluations();
 
-				//NOTE: last `stage.volumeDecrease` is NOT taken into consideration!
-				volumeExpansionRatio += yeastModel.volumeExpansionRatio(duration.plus(currentStage.duration).toMinutes() / 60., lambda,
-					alpha, currentStage.temperature, ingredientsFactor);
-				return volumeExpansionRatio * (1. - currentStage.volumeDecrease) - procedure.targetDoughVolumeExpansionRatio;
-			};
-			yeast = solverYeast.solve(SOLVER_EVALUATIONS_MAX, f, 0., SOLVER_YEAST_MAX);
+		final double atlasYeast = lookupYeastAtlas(procedure);
+		if(!Double.isNaN(atlasYeast)){
+			solver.resetEvaluations(YeastOutcome.ATLAS);
+			return atlasYeast;
 		}
-		catch(final NoBracketingException e){
-			throw YeastException.create("No yeast quantity will ever be able to produce the given expansion ratio");
+
+		final double[] fingerprint = (yeastCache != null? fingerprint(procedure): null);
+		if(fingerprint == null)
+			return searchYeast(procedure, solver, previousYeast);
+
+		final YeastCache.Key key = new YeastCache.Key(yeastModel.getParametersIdentity(), fingerprint);
+		final Double cachedYeast = yeastCache.get(key);
+		if(cachedYeast != null){
+			solver.resetEvaluations(YeastOutcome.CACHE);
+			return cachedYeast;
+		}
+
+		final double yeast = searchYeast(procedure, solver, previousYeast);
+		yeastCache.put(key, yeast);
+		return yeast;
+	}
+
+	/**
+	 * @param procedure	Data for procedure.
+	 * @return	The yeast quantity interpolated from the atlas [% w/w], or {@link Double#NaN} if the dough or the procedure are not covered.
+	 */
+	private double lookupYeastAtlas(final Procedure procedure){
+		//the atlas is built with pure water and a single plain leavening stage
+		if(yeastAtlas == null || sugar != 0. || fat != 0. || waterChlorineDioxide != 0. || waterFixedResidue != 0.
+				|| Math.abs(waterPH - PURE_WATER_PH) > 0.000_001 || atmosphericPressure != ONE_ATMOSPHERE
+				|| yeastModel.isFastMaximumSpecificGrowth())
+			return Double.NaN;
+		if(procedure.leaveningStages.length != 1 || procedure.leaveningStages[0].volumeDecrease > 0.
+				|| procedure.leaveningStages[0].temperatureProfile != null
+				|| procedure.stretchAndFoldStages != null && procedure.stretchAndFoldStages.length > 0
+				|| procedure.targetDoughVolumeExpansionRatio != yeastAtlas.getTargetVolumeExpansionRatio())
+			return Double.NaN;
+
+		final LeaveningStage stage = procedure.leaveningStages[0];
+		return yeastAtlas.yeast(yeastModel, stage.temperature, stage.duration, water, salt);
+	}
+
+	/**
+	 * @param procedure	Data for procedure.
+	 * @return	The values that determine the yeast quantity, in a canonical order, `null` if the procedure cannot be identified by values
+	 * 	(a stage has a temperature given by a function).
+	 */
+	private double[] fingerprint(final Procedure procedure){
+		int temperatureProfileValues = 0;
+		for(final LeaveningStage stage : procedure.leaveningStages)
+			if(stage.temperatureProfile != null){
+				final double[] profileFingerprint = stage.temperatureProfile.fingerprint();
+				if(profileFingerprint == null)
+					return null;
+
+				//length plus values
+				temperatureProfileValues += 1 + profileFingerprint.length;
+			}
+		final int stretchAndFoldStages = (procedure.stretchAndFoldStages != null? procedure.stretchAndFoldStages.length: 0);
+		final double[] values = new double[11 + procedure.leaveningStages.length * 3 + temperatureProfileValues
+			+ stretchAndFoldStages * 2];
+		int index = 0;
+		values[index ++] = sugar;
+		values[index ++] = fat;
+		values[index ++] = salt;
+		values[index ++] = water;
+		values[index ++] = waterChlorineDioxide;
+		values[index ++] = waterPH;
+		values[index ++] = waterFixedResidue;
+		values[index ++] = atmosphericPressure;
+		values[index ++] = procedure.targetDoughVolumeExpansionRatio;
+		values[index ++] = procedure.targetVolumeExpansionRatioAtLeaveningStage;
+		//each solver gives a slightly different yeast quantity (within the accuracy)
+		values[index ++] = yeastSolverType.ordinal();
+		for(final LeaveningStage stage : procedure.leaveningStages){
+			values[index ++] = stage.temperature;
+			values[index ++] = stage.duration.toNanos();
+			values[index ++] = stage.volumeDecrease;
+			if(stage.temperatureProfile != null){
+				final double[] profileFingerprint = stage.temperatureProfile.fingerprint();
+				values[index ++] = profileFingerprint.length;
+				System.arraycopy(profileFingerprint, 0, values, index, profileFingerprint.length);
+				index += profileFingerprint.length;
+			}
 		}
-		catch(final TooManyEvaluationsException e){
-			throw YeastException.create("Cannot calculate yeast quantity, try increasing maximum number of evaluations in the solver");
+		for(int i = 0; i < stretchAndFoldStages; i ++){
+			final StretchAndFoldStage stage = procedure.stretchAndFoldStages[i];
+			values[index ++] = stage.lapse.toNanos();
+			values[index ++] = stage.volumeDecrease;
 		}
+		return values;
 	}
 
+	/**
+	 * Find the initial yeast with another yeast model, without looking into the atlas or the cache.
+	 *
+	 * @param procedure	Data for procedure.
+	 * @param yeastModel	The yeast model.
+	 * @param solver	The solver to be used.
+	 * @param previousYeast	The previous yeast quantity to start the search from [% w/w], or {@link Double#NaN}.
+	 * @return	The yeast quantity [% w/w].
+	 */
+	double solveYeast(final Procedure procedure, final YeastModelAbstract yeastModel, final YeastSolver solver,
+			final double previousYeast) throws YeastException{
+		return solver.solve(ProcedurePlan.compile(this, yeastModel, procedure), yeastSolverType, previousYeast);
+	}
+
+	private double searchYeast(final Procedure procedure, final YeastSolver solver, final double previousYeast) throws YeastException{
+		return solveYeast(procedure, yeastModel, solver, previousYeast);
+	}
+
+
 	/**
 	 * Maximum relative volume expansion ratio.
 	 *
@@ -487,12 +842,21 @@ final double doughWeight = 741.3;
 	 * @param yeast	Quantity of yeast [% w/w].
 	 * @return	The estimated lag [hrs].
 	 */
-	double maximumRelativeVolumeExpansionRatio(final double yeast){
+	static double maximumRelativeVolumeExpansionRatio(final double yeast){
 		//FIXME this formula is for 36±1 °C
 		//vertex must be at 1.1%
 		return (yeast < 0.011? 24_546. * (0.022 - yeast) * yeast: 2.97);
 	}
 
+	/**
+	 * @param yeast	Quantity of yeast [% w/w].
+	 * @return	The derivative of the maximum relative volume expansion ratio w.r.t. the yeast quantity.
+	 * @see #maximumRelativeVolumeExpansionRatio(double)
+	 */
+	static double maximumRelativeVolumeExpansionRatioDerivative(final double yeast){
+		return (yeast < 0.011? 24_546. * (0.022 - 2. * yeast): 0.);
+	}
+
 	/**
 	 * @see <a href="https://mohagheghsho.ir/wp-content/uploads/2020/01/Description-of-leavening-of-bread.pdf">Description of leavening of bread dough with mathematical modelling</a>
 	 * @see <a href="https://meridian.allenpress.com/jfp/article/71/7/1412/172677/Individual-Effects-of-Sodium-Potassium-Calcium-and">Bautista-Gallego, Arroyo-López, Durán-Quintana, Garrido-Fernández. Individual Effects of Sodium, Potassium, Calcium, and Magnesium Chloride Salts on Lactobacillus pentosus and Saccharomyces cerevisiae Growth. 2008.</a>
@@ -501,14 +865,38 @@ final double doughWeight = 741.3;
 	 * @return	The estimated lag [hrs].
 	 */
 	public double estimatedLag(final double yeast){
-		//transform [% w/w] to [g/l]
-		final double s = fractionOverTotal(salt * 10.);
-		final double saltLag = Math.log(1. + Math.exp(0.494 * (s - 84.)));
+		return estimatedYeastLag(yeast) + estimatedSaltLag();
+	}
 
+	/**
+	 * @see <a href="https://mohagheghsho.ir/wp-content/uploads/2020/01/Description-of-leavening-of-bread.pdf">Description of leavening of bread dough with mathematical modelling</a>
+	 *
+	 * @param yeast	Quantity of yeast [% w/w].
+	 * @return	The estimated lag due to the yeast quantity [hrs].
+	 */
+	static double estimatedYeastLag(final double yeast){
 		//FIXME this formula is for 36±1 °C
-		final double lag = (yeast > 0.? 0.0068 * Math.pow(yeast, -0.937): Double.POSITIVE_INFINITY);
+		return (yeast > 0.? 0.0068 * Math.pow(yeast, -0.937): Double.POSITIVE_INFINITY);
+	}
 
-		return lag + saltLag;
+	/**
+	 * @param yeast	Quantity of yeast [% w/w].
+	 * @return	The derivative of the lag due to the yeast quantity w.r.t. the yeast quantity [hrs].
+	 * @see #estimatedYeastLag(double)
+	 */
+	static double estimatedYeastLagDerivative(final double yeast){
+		return (yeast > 0.? -0.937 * 0.0068 * Math.pow(yeast, -1.937): Double.NEGATIVE_INFINITY);
+	}
+
+	/**
+	 * @see <a href="https://meridian.allenpress.com/jfp/article/71/7/1412/172677/Individual-Effects-of-Sodium-Potassium-Calcium-and">Bautista-Gallego, Arroyo-López, Durán-Quintana, Garrido-Fernández. Individual Effects of Sodium, Potassium, Calcium, and Magnesium Chloride Salts on Lactobacillus pentosus and Saccharomyces cerevisiae Growth. 2008.</a>
+	 *
+	 * @return	The estimated lag due to salt [hrs].
+	 */
+	double estimatedSaltLag(){
+		//transform [% w/w] to [g/l]
+		final double s = fractionOverTotal(salt * 10.);
+		return Math.log(1. + Math.exp(0.494 * (s - 84.)));
 	}
 
 	/**
@@ -535,7 +923,7 @@ final double doughWeight = 741.3;
 	 * @param temperature	Temperature [°C].
 	 * @return	Factor to be applied to maximum specific growth rate.
 	 */
-	private double ingredientsFactor(final double temperature){
+	double ingredientsFactor(final double temperature){
 		final double kSugar = sugarFactor(temperature);
 		final double kFat = fatFactor();
 		final double kSalt = saltFactor();
@@ -677,30 +1065,213 @@ final double doughWeight = 741.3;
 		return value / (1. + water);
 	}
 
-	private Recipe calculateIngredients(final Ingredients ingredients, final double doughWeight){
+
+	/**
+	 * @param parameters	Number of free parameters.
+	 * @param index	Index of the hydration among the free parameters (salt and atmospheric pressure follow).
+	 * @return	The hydration [% w/w], salt [% w/w], and atmospheric pressure [hPa] as free parameters.
+	 */
+	DerivativeStructure[] sensitivityParameters(final int parameters, final int index){
+		return new DerivativeStructure[]{
+			new DerivativeStructure(parameters, 1, index, water),
+			new DerivativeStructure(parameters, 1, index + 1, salt),
+			new DerivativeStructure(parameters, 1, index + 2, atmosphericPressure)
+		};
+	}
+
+	/**
+	 * Same as {@link #estimatedSaltLag()}, with hydration and salt as free parameters.
+	 *
+	 * @param water	Hydration [% w/w].
+	 * @param salt	Salt quantity [% w/w].
+	 * @return	The estimated lag due to salt [hrs].
+	 */
+	DerivativeStructure estimatedSaltLag(final DerivativeStructure water, final DerivativeStructure salt){
+		final DerivativeStructure s = salt.multiply(10.).divide(water.add(1.));
+		return s.subtract(84.).multiply(0.494).exp().add(1.).log();
+	}
+
+	/**
+	 * Same as {@link #ingredientsFactor(double)} restricted to the factors depending on temperature, with temperature as free parameter.
+	 *
+	 * @param temperature	Temperature [°C].
+	 * @return	Factor to be applied to maximum specific growth rate.
+	 */
+	DerivativeStructure temperatureFactor(final DerivativeStructure temperature){
+		return sugarFactor(temperature).multiply(waterPHFactor(temperature));
+	}
+
+	/**
+	 * Same as {@link #ingredientsFactor(double)} restricted to the factors not depending on temperature, with hydration, salt, and
+	 * atmospheric pressure as free parameters.
+	 *
+	 * @param water	Hydration [% w/w].
+	 * @param salt	Salt quantity [% w/w].
+	 * @param atmosphericPressure	Atmospheric pressure [hPa].
+	 * @return	Factor to be applied to maximum specific growth rate.
+	 */
+	DerivativeStructure compositionFactor(final DerivativeStructure water, final DerivativeStructure salt,
+			final DerivativeStructure atmosphericPressure){
+		final DerivativeStructure kHydration = waterFactor(water)
+			.multiply(waterChlorineDioxideFactor(water))
+			.multiply(waterFixedResidueFactor());
+		return saltFactor(salt)
+			.multiply(kHydration)
+			.multiply(atmosphericPressureFactor(atmosphericPressure))
+			.multiply(fatFactor());
+	}
+
+	/** @see #sugarFactor(double) */
+	private DerivativeStructure sugarFactor(final DerivativeStructure temperature){
+		final double basePH = 5.4;
+		final double baseSugar = 20. / 1000.;
+		final DerivativeStructure baseMu = temperature.multiply(-0.00375 + 0.000025 * baseSugar)
+			.add(0.3945 + (-0.00407 + 0.0000096 * baseSugar) * baseSugar + (0.003 - 0.00002 * baseSugar) * basePH);
+
+		return temperature.multiply(-0.00375 + 0.000025 * sugar)
+			.add(0.3945 + (-0.00407 + 0.0000096 * sugar) * sugar + (0.003 - 0.00002 * sugar) * waterPH)
+			.divide(baseMu);
+	}
+
+	/** @see #saltFactor() */
+	private static DerivativeStructure saltFactor(final DerivativeStructure salt){
+		final DerivativeStructure x = salt.multiply(11.7362);
+		final DerivativeStructure a = (Double.isInfinite(Math.exp(x.getValue()))?
+			x.multiply(-0.0256).add(1.):
+			x.exp().add(1.).log().multiply(-0.0256).add(1.));
+		final DerivativeStructure b = salt.divide(salt.multiply(-0.2725).add(87.5679));
+		return a.multiply(b).exp();
+	}
+
+	/** @see #waterFactor() */
+	private static DerivativeStructure waterFactor(final DerivativeStructure water){
+		if(HYDRATION_MIN <= water.getValue() && water.getValue() < HYDRATION_MAX){
+			DerivativeStructure result = water.getField().getZero();
+			for(int i = WATER_COEFFICIENTS.length - 1; i >= 0; i --)
+				result = result.multiply(water).add(WATER_COEFFICIENTS[i]);
+			return result;
+		}
+		return water.getField().getZero();
+	}
+
+	/** @see #waterChlorineDioxideFactor() */
+	private DerivativeStructure waterChlorineDioxideFactor(final DerivativeStructure water){
+		final DerivativeStructure factor = water.divide(water.add(1.))
+			.multiply(-waterChlorineDioxide / WATER_CHLORINE_DIOXIDE_MAX)
+			.add(1.);
+		return (factor.getValue() > 0.? factor: water.getField().getZero());
+	}
+
+	/** @see #waterPHFactor(double) */
+	private DerivativeStructure waterPHFactor(final DerivativeStructure temperature){
+		final double basePH = 5.4;
+		final double baseSugar = 20. / 1000.;
+		final DerivativeStructure baseMu = temperature.multiply(-0.026125 + 0.0095 * basePH)
+			.add(0.22 + (0.42625 + (-0.301 + 0.052 * basePH) * basePH) + (0.00011 - 0.00004 * basePH) * baseSugar);
+
+		final DerivativeStructure factor = temperature.multiply(-0.026125 + 0.0095 * waterPH)
+			.add(0.22 + (0.42625 + (-0.301 + 0.052 * waterPH) * waterPH) + (0.00011 - 0.00004 * waterPH) * sugar)
+			.divide(baseMu);
+		return (factor.getValue() > 0.? factor: temperature.getField().getZero());
+	}
+
+	/** @see #atmosphericPressureFactor() */
+	private static DerivativeStructure atmosphericPressureFactor(final DerivativeStructure atmosphericPressure){
+		if(atmosphericPressure.getValue() >= ATMOSPHERIC_PRESSURE_MAX)
+			return atmosphericPressure.getField().getZero();
+
+		final DerivativeStructure p = atmosphericPressure.divide(Math.pow(10_000., 2.));
+		//NOTE: `pow` is not differentiable in zero, where the factor is flat anyway
+		return (p.getValue() > 0.? p.pow(PRESSURE_FACTOR_M).multiply(-PRESSURE_FACTOR_K).add(1.): atmosphericPressure.getField().getOne());
+	}
+
+	/**
+	 * @param ingredients	The recipe ingredients.
+	 * @param yeast	Yeast quantity [% w/w].
+	 * @return	The dough weight, either the given one or the one filling the pan up to the target pizza height [g].
+	 */
+	double calculateDoughWeight(final Ingredients ingredients, final double yeast){
+		if(ingredients.doughWeight != null)
+			return ingredients.doughWeight;
+
+		final double temperature = (ingredients.doughTemperature != null? ingredients.doughTemperature: ingredients.ingredientsTemperature);
+		//[cm²] * [cm] * [kg/l] = [g]
+		return ingredients.panArea * ingredients.targetPizzaHeight * doughDensity(temperature, yeast);
+	}
+
+	/**
+	 * @param temperature	Dough temperature [°C].
+	 * @param yeast	Yeast quantity [% w/w].
+	 * @return	The density of the (unleavened) dough [kg/l].
+	 */
+	double doughDensity(final double temperature, final double yeast){
+		final double brineDensity = Water.brineDensity(Water.pureWaterDensity(temperature), water, salt, sugar, temperature);
+		//NOTE: yeast is accounted as flour
 		final double totalFraction = 1. + water + sugar + yeast + salt + fat;
-		double totalFlour = doughWeight / totalFraction;
-		double yeast, flour, water, sugar, fat, salt,
-			difference;
+		final double volume = (1. + yeast) / FLOUR_DENSITY + (water + salt + sugar) / brineDensity + fat / FAT_DENSITY;
+		return totalFraction / volume;
+	}
+
+	Recipe calculateIngredients(final Ingredients ingredients, final double doughWeight){
+		final int[] evaluations = new int[1];
+		final Recipe recipe = calculateIngredients(ingredients, doughWeight, yeast, evaluations);
+		ingredientsEvaluations = evaluations[0];
+		return recipe;
+	}
+
+	/**
+	 * NOTE: this instance is not modified.
+	 *
+	 * @param ingredients	The recipe ingredients.
+	 * @param doughWeight	Dough weight [g].
+	 * @param yeast	Yeast quantity [% w/w].
+	 * @param evaluations	Where to store the number of linear segments evaluated, can be {@code null}.
+	 * @return	The recipe, without times.
+	 */
+	Recipe calculateIngredients(final Ingredients ingredients, final double doughWeight, final double yeast, final int[] evaluations){
+		final DoughEvents.IngredientsCalculation event = new DoughEvents.IngredientsCalculation();
+		if(metricsListener == DoughMetricsListener.NONE && !event.isEnabled())
+			return computeIngredients(ingredients, doughWeight, yeast, evaluations);
+
+		final int[] iterations = (evaluations != null? evaluations: new int[1]);
+		event.begin();
+		final long start = System.nanoTime();
+		final Recipe recipe = computeIngredients(ingredients, doughWeight, yeast, iterations);
+		final long time = System.nanoTime() - start;
+		if(metricsListener != DoughMetricsListener.NONE)
+			metricsListener.ingredientsCalculated(iterations[0], time);
+
+		event.iterations = iterations[0];
+		event.complete(yeastModel, DoughEvents.OUTCOME_SUCCESS);
+		return recipe;
+	}
+
+	private Recipe computeIngredients(final Ingredients ingredients, final double doughWeight, final double yeast,
+			final int[] evaluations){
+		//every ingredient is a non-decreasing, piecewise-linear function of the total flour (the corrections are linear in the flour, the
+		//only non-linearity being the clamping to zero of water and salt), so the total flour is found exactly walking through the
+		//linear pieces
+		final double yeastCoefficient = yeast / (ingredients.yeastType.factor * ingredients.rawYeast);
+		final double flourCoefficient = 1. - yeastCoefficient * (1. - ingredients.rawYeast);
+		final double sugarCoefficient = this.sugar / (ingredients.sugarType.factor * ingredients.sugarContent);
+		final double fatCoefficient = Math.max(this.fat - calculateFatCorrection(ingredients, flourCoefficient), 0.)
+			/ ingredients.fatContent;
 		final double waterCorrection = calculateWaterCorrection(ingredients);
-		do{
-			yeast = totalFlour * this.yeast / (ingredients.yeastType.factor * ingredients.rawYeast);
-			flour = totalFlour - yeast * (1. - ingredients.rawYeast);
-			water = Math.max(totalFlour * this.water - waterCorrection, 0.);
-			sugar = totalFlour * this.sugar / (ingredients.sugarType.factor * ingredients.sugarContent);
-			final double fatCorrection = calculateFatCorrection(ingredients, flour);
-			fat = Math.max(totalFlour * this.fat - fatCorrection, 0.) / ingredients.fatContent;
-			final double saltCorrection = calculateSaltCorrection(ingredients, flour);
-			salt = Math.max(totalFlour * this.salt - saltCorrection, 0.);
-
-			//refine approximation:
-			final double calculatedDough = flour + water + yeast + sugar + salt + fat;
-			difference = doughWeight - calculatedDough;
-			totalFlour += difference * 0.6;
-		}while(Math.abs(difference) > DOUGH_WEIGHT_PRECISION);
-
-		//calculate water temperature:
-		final Double waterTemperature = (ingredients.doughTemperature != null && ingredients.ingredientsTemperature != null?
+		final double saltCorrection = calculateSaltCorrection(ingredients, 0.);
+		final double saltCoefficient = this.salt - (calculateSaltCorrection(ingredients, flourCoefficient) - saltCorrection);
+		final double totalFlour = solvePiecewiseLinear(yeastCoefficient + flourCoefficient + sugarCoefficient + fatCoefficient,
+			new double[]{this.water, saltCoefficient}, new double[]{waterCorrection, saltCorrection}, doughWeight, evaluations);
+
+		final double yeastWeight = totalFlour * yeastCoefficient;
+		final double flour = totalFlour * flourCoefficient;
+		final double water = Math.max(totalFlour * this.water - waterCorrection, 0.);
+		final double sugar = totalFlour * sugarCoefficient;
+		final double fat = totalFlour * fatCoefficient;
+		final double salt = Math.max(totalFlour * saltCoefficient - saltCorrection, 0.);
+
+		//calculate water temperature (none if the water is clamped to zero):
+		final Double waterTemperature = (ingredients.doughTemperature != null && ingredients.ingredientsTemperature != null
+				&& water > 0.?
 			(doughWeight * ingredients.doughTemperature - (doughWeight - water) * ingredients.ingredientsTemperature) / water:
 			null);
 		if(waterTemperature != null && waterTemperature >= yeastModel.getTemperatureMax())
@@ -710,12 +1281,63 @@ final double doughWeight = 741.3;
 		return Recipe.create()
 			.withFlour(flour)
 			.withWater(water, waterTemperature)
-			.withYeast(yeast)
+			.withYeast(yeastWeight)
 			.withSugar(sugar)
 			.withFat(fat)
 			.withSalt(salt);
 	}
 
+	/**
+	 * Solve {@code slope * x + Σ max(slopes[i] * x - intercepts[i], 0) = target} for {@code x ≥ 0}.
+	 * <p>
+	 * The left-hand side is continuous and increasing, so the solution lies in exactly one of its linear pieces, that are visited from
+	 * the origin onward.
+	 * </p>
+	 *
+	 * @param evaluations	Where to store the number of linear pieces evaluated, can be {@code null}.
+	 */
+	private static double solvePiecewiseLinear(final double slope, final double[] slopes, final double[] intercepts, final double target,
+			final int[] evaluations){
+		//breakpoints (where a clamped term becomes active), in increasing order
+		final int terms = slopes.length;
+		final double[] breakpoints = new double[terms];
+		for(int i = 0; i < terms; i ++)
+			breakpoints[i] = (slopes[i] > 0.? Math.max(intercepts[i] / slopes[i], 0.): Double.POSITIVE_INFINITY);
+		final double[] sortedBreakpoints = breakpoints.clone();
+		Arrays.sort(sortedBreakpoints);
+
+		int pieces = 0;
+		double start = 0.;
+		double x = 0.;
+		for(int segment = 0; segment <= terms; segment ++){
+			final double end = (segment < terms? sortedBreakpoints[segment]: Double.POSITIVE_INFINITY);
+			if(end <= start && segment < terms)
+				continue;
+
+			pieces ++;
+			//linear piece `a * x - b` valid in [start, end]
+			double a = slope;
+			double b = 0.;
+			for(int i = 0; i < terms; i ++){
+				if(breakpoints[i] <= start){
+					a += slopes[i];
+					b += intercepts[i];
+				}
+				else if(slopes[i] <= 0.)
+					//constant term (never crossing zero)
+					b -= Math.max(-intercepts[i], 0.);
+			}
+			x = (target + b) / a;
+			if(x <= end)
+				break;
+
+			start = end;
+		}
+		if(evaluations != null)
+			evaluations[0] = pieces;
+		return x;
+	}
+
 	private double calculateWaterCorrection(final Ingredients ingredients){
 		double waterCorrection = 0.;
 		if(ingredients.correctForIngredients)
@@ -0,0 +1,254 @@
+/**
+ * Copyright (c) 2020 Mauro Trevisan
+ *
+ * Permission is hereby granted, free of charge, to any person
+ * obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without
+ * restriction, including without limitation the rights to use,
+ * copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the
+ * Software is furnished to do so, subject to the following
+ * conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES
+ * OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+ * WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ */
+package io.github.mtrevisan.pizza;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+
+/**
+ * Solve the yeast quantity of many (dough, procedure) couples in parallel.
+ * <p>
+ * Each worker thread of the pool uses its own solver, results are returned in input order, and the failure of a single item does not
+ * abort the whole batch.<br />
+ * Each job is validated as a single dough is, an invalid one failing with its {@link DoughException} before being solved.<br />
+ * The doughs are not modified, so the same instance can be shared between jobs (as long as it is not modified during the solve).
+ * </p>
+ */
+public final class DoughBatchSolver{
+
+	/** Number of jobs under which the work is no longer split. */
+	private static final int SPLIT_THRESHOLD = 16;
+
+
+	private final ForkJoinPool pool;
+	private final ThreadLocal<YeastSolver> solvers = ThreadLocal.withInitial(YeastSolver::create);
+
+
+	/**
+	 * @return	A batch solver that uses all the available processors.
+	 */
+	public static DoughBatchSolver create(){
+		return create(Runtime.getRuntime().availableProcessors());
+	}
+
+	/**
+	 * @param parallelism	The parallelism level.
+	 * @return	A batch solver that uses the given number of threads.
+	 */
+	public static DoughBatchSolver create(final int parallelism){
+		if(parallelism <= 0)
+			throw new IllegalArgumentException("Parallelism must be positive");
+
+		return new DoughBatchSolver(new ForkJoinPool(parallelism));
+	}
+
+	/**
+	 * @param pool	The pool to run the solver into.
+	 * @return	A batch solver that uses the given pool.
+	 */
+	public static DoughBatchSolver create(final ForkJoinPool pool){
+		Objects.requireNonNull(pool, "Pool must be valued");
+
+		return new DoughBatchSolver(pool);
+	}
+
+	private DoughBatchSolver(final ForkJoinPool pool){
+		this.pool = pool;
+	}
+
+
+	/**
+	 * @param jobs	The jobs to be solved.
+	 * @return	The list of results, in the same order of the jobs.
+	 */
+	public List<Result> solve(final Stream<Job> jobs){
+		return solve(jobs.collect(Collectors.toList()));
+	}
+
+	/**
+	 * @param jobs	The jobs to be solved.
+	 * @return	The list of results, in the same order of the jobs.
+	 */
+	public List<Result> solve(final List<Job> jobs){
+		if(jobs == null || jobs.isEmpty())
+			return Collections.emptyList();
+
+		final Job[] input = jobs.toArray(Job[]::new);
+		final Result[] output = new Result[input.length];
+		pool.invoke(new SolveAction(input, output, 0, input.length));
+		return Collections.unmodifiableList(Arrays.asList(output));
+	}
+
+	/**
+	 * Shuts down the underlying pool.
+	 */
+	public void shutdown(){
+		pool.shutdown();
+	}
+
+
+	private Result solve(final Job job){
+		try{
+			job.dough.validate(job.procedure);
+		}
+		catch(final DoughException | RuntimeException e){
+			return Result.failure(e, 0);
+		}
+
+		final YeastSolver solver = solvers.get();
+		try{
+			final double yeast = job.dough.solveYeast(job.procedure, solver);
+			return Result.success(yeast, solver.getEvaluations());
+		}
+		catch(final YeastException | RuntimeException e){
+			return Result.failure(e, solver.getEvaluations());
+		}
+	}
+
+
+	private final class SolveAction extends RecursiveAction{
+
+		private final Job[] input;
+		private final Result[] output;
+		private final int from;
+		private final int to;
+
+
+		SolveAction(final Job[] input, final Result[] output, final int from, final int to){
+			this.input = input;
+			this.output = output;
+			this.from = from;
+			this.to = to;
+		}
+
+		@Override
+		protected void compute(){
+			if(to - from <= SPLIT_THRESHOLD){
+				for(int i = from; i < to; i ++)
+					output[i] = solve(input[i]);
+			}
+			else{
+				final int middle = (from + to) >>> 1;
+				invokeAll(new SolveAction(input, output, from, middle), new SolveAction(input, output, middle, to));
+			}
+		}
+
+	}
+
+
+	public static final class Job{
+
+		final Dough dough;
+		final Procedure procedure;
+
+
+		/**
+		 * @param dough	The dough.
+		 * @param procedure	The procedure.
+		 * @return	The job.
+		 */
+		public static Job create(final Dough dough, final Procedure procedure){
+			if(dough == null)
+				throw new IllegalArgumentException("Dough must be valued");
+			if(procedure == null)
+				throw new IllegalArgumentException("Procedure must be valued");
+
+			return new Job(dough, procedure);
+		}
+
+		private Job(final Dough dough, final Procedure procedure){
+			this.dough = dough;
+			this.procedure = procedure;
+		}
+
+	}
+
+
+	public static final class Result{
+
+		/** Yeast quantity [% w/w]. */
+		private final double yeast;
+		private final Exception error;
+		/** Number of evaluations of the objective. */
+		private final int evaluations;
+
+
+		private static Result success(final double yeast, final int evaluations){
+			return new Result(yeast, null, evaluations);
+		}
+
+		private static Result failure(final Exception error, final int evaluations){
+			return new Result(Double.NaN, error, evaluations);
+		}
+
+		private Result(final double yeast, final Exception error, final int evaluations){
+			this.yeast = yeast;
+			this.error = error;
+			this.evaluations = evaluations;
+		}
+
+		/**
+		 * @return	Whether the job was solved.
+		 */
+		public boolean isSuccess(){
+			return (error == null);
+		}
+
+		/**
+		 * @return	Yeast quantity [% w/w], or {@link Double#NaN} if the job has failed.
+		 */
+		public double getYeast(){
+			return yeast;
+		}
+
+		/**
+		 * @return	The number of evaluations of the objective done by the solver (zero if the yeast quantity was not searched for).
+		 */
+		public int getEvaluations(){
+			return evaluations;
+		}
+
+		/**
+		 * @return	The cause of the failure, or {@code null} if the job was solved.
+		 */
+		public Exception getError(){
+			return error;
+		}
+
+		@Override
+		public String toString(){
+			return (isSuccess()? "yeast: " + yeast: "error: " + error.getMessage());
+		}
+
+	}
+
+}
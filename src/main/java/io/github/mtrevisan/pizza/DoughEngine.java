@@ -0,0 +1,193 @@
+/**
+ * Copyright (c) 2020 Mauro Trevisan
+ *
+ * Permission is hereby granted, free of charge, to any person
+ * obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without
+ * restriction, including without limitation the rights to use,
+ * copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the
+ * Software is furnished to do so, subject to the following
+ * conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES
+ * OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+ * WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ */
+package io.github.mtrevisan.pizza;
+
+import io.github.mtrevisan.pizza.utils.Helper;
+import io.github.mtrevisan.pizza.yeasts.YeastModelAbstract;
+
+
+/**
+ * Immutable snapshot of a dough, whose calculations can be done by many threads at once.
+ * <p>
+ * The composition of the dough is copied when the engine is created (see {@link Dough#toEngine()}), so later changes to the originating
+ * dough are not seen; each thread uses its own solver, and the results are returned instead of being stored.<br />
+ * NOTE: the (immutable) yeast model, the cache and the atlas are shared with the originating dough; ingredients and procedures must not
+ * be modified while used by a calculation.
+ * </p>
+ */
+public final class DoughEngine{
+
+	/** Dough specification, never modified. */
+	private final Dough dough;
+	private final YeastModelAbstract yeastModel;
+	private final ThreadLocal<YeastSolver> solvers = ThreadLocal.withInitial(YeastSolver::create);
+
+
+	/**
+	 * @param dough	The dough specification, not to be shared.
+	 * @param yeastModel	The yeast model.
+	 * @return	The engine.
+	 */
+	static DoughEngine create(final Dough dough, final YeastModelAbstract yeastModel){
+		return new DoughEngine(dough, yeastModel);
+	}
+
+	private DoughEngine(final Dough dough, final YeastModelAbstract yeastModel){
+		this.dough = dough;
+		this.yeastModel = yeastModel;
+	}
+
+
+	/**
+	 * Find the initial yeast able to obtain a given volume expansion ratio after a series of consecutive stages at a given duration at
+	 * temperature.
+	 *
+	 * @param procedure	Data for procedure.
+	 * @return	The yeast quantity [% w/w].
+	 * @throws DoughException	If the procedure is not valid for the yeast model.
+	 */
+	public double calculateYeast(final Procedure procedure) throws DoughException, YeastException{
+		if(procedure == null)
+			throw new IllegalArgumentException("Procedure must be valued");
+		procedure.validate(yeastModel);
+
+		return dough.solveYeast(procedure, solvers.get());
+	}
+
+	/**
+	 * Re-calculate the yeast quantity after a small change of the procedure, starting from a previous solution.
+	 *
+	 * @param procedure	Data for procedure.
+	 * @param previousYeast	The previous yeast quantity [% w/w] (if not positive, the search is done over the whole range).
+	 * @return	The yeast quantity [% w/w].
+	 * @throws DoughException	If the procedure is not valid for the yeast model.
+	 * @see Dough#recalculateYeast(Procedure, double)
+	 */
+	public double recalculateYeast(final Procedure procedure, final double previousYeast) throws DoughException, YeastException{
+		if(procedure == null)
+			throw new IllegalArgumentException("Procedure must be valued");
+		procedure.validate(yeastModel);
+
+		return dough.solveYeast(procedure, solvers.get(), previousYeast);
+	}
+
+	/**
+	 * @param ingredients	The recipe ingredients.
+	 * @param procedure	The recipe procedure.
+	 * @return	The recipe.
+	 */
+	public Recipe createRecipe(final Ingredients ingredients, final Procedure procedure) throws DoughException, YeastException{
+		if(ingredients == null)
+			throw new IllegalArgumentException("Ingredients must be valued");
+		if(procedure == null)
+			throw new IllegalArgumentException("Procedure must be valued");
+
+		final YeastSolver solver = solvers.get();
+		final DoughEvents.RecipeCreation event = new DoughEvents.RecipeCreation();
+		event.begin();
+		String outcome = DoughEvents.OUTCOME_FAILURE;
+		try{
+			ingredients.validateDoughWeight();
+			final double yeast = dough.prepareRecipe(ingredients, procedure, solver);
+
+			final double doughWeight = dough.calculateDoughWeight(ingredients, yeast);
+			final Recipe recipe = dough.calculateIngredients(ingredients, doughWeight, yeast, null);
+
+			final Recipe scheduledRecipe = Dough.scheduleRecipe(recipe, procedure);
+			outcome = DoughEvents.OUTCOME_SUCCESS;
+			return scheduledRecipe;
+		}
+		finally{
+			event.stages = procedure.leaveningStages.length;
+			event.evaluations = solver.getEvaluations();
+			event.complete(yeastModel, outcome);
+		}
+	}
+
+	/**
+	 * @param ingredients	The recipe ingredients.
+	 * @param procedure	The recipe procedure.
+	 * @return	The production batch, to be filled with orders and calculated (by a single thread).
+	 */
+	public ProductionBatch createProductionBatch(final Ingredients ingredients, final Procedure procedure){
+		if(ingredients == null)
+			throw new IllegalArgumentException("Ingredients must be valued");
+		if(procedure == null)
+			throw new IllegalArgumentException("Procedure must be valued");
+
+		return ProductionBatch.create(dough, ingredients, procedure, solvers::get);
+	}
+
+	/**
+	 * Simulate the volume expansion ratio over the whole procedure.
+	 *
+	 * @param procedure	Data for procedure.
+	 * @param yeast	Quantity of yeast [% w/w].
+	 * @return	The simulator.
+	 */
+	public FermentationSimulator simulateFermentation(final Procedure procedure, final double yeast) throws DoughException{
+		validateYeast(yeast);
+
+		return FermentationSimulator.create(dough, yeastModel, procedure, yeast);
+	}
+
+	/**
+	 * @param procedure	Data for procedure.
+	 * @param yeast	Quantity of yeast [% w/w].
+	 * @return	The time from the start of the first leavening stage [hrs].
+	 * @throws YeastException	If the target volume expansion ratio is never reached.
+	 * @see Dough#calculateTimeToTarget(Procedure, double)
+	 */
+	public double calculateTimeToTarget(final Procedure procedure, final double yeast) throws DoughException, YeastException{
+		return dough.calculateTimeToTarget(procedure, yeast);
+	}
+
+	/**
+	 * @param procedure	Data for procedure, the same used to calculate the yeast.
+	 * @param yeast	Quantity of yeast [% w/w], as calculated for the procedure.
+	 * @return	The sensitivity report.
+	 * @see Dough#calculateYeastSensitivity(Procedure)
+	 */
+	public YeastSensitivity calculateYeastSensitivity(final Procedure procedure, final double yeast) throws DoughException{
+		validateYeast(yeast);
+
+		return YeastSensitivity.create(dough, yeastModel, procedure, yeast);
+	}
+
+	/**
+	 * @param procedure	Data for procedure.
+	 * @return	The analysis, to be configured and run.
+	 * @see Dough#analyzeUncertainty(Procedure)
+	 */
+	public UncertaintyAnalysis analyzeUncertainty(final Procedure procedure){
+		return dough.analyzeUncertainty(procedure);
+	}
+
+	private static void validateYeast(final double yeast) throws DoughException{
+		if(yeast <= 0. || yeast > Dough.SOLVER_YEAST_MAX)
+			throw DoughException.create("Yeast [% w/w] must be between 0 and {}%", Helper.round(Dough.SOLVER_YEAST_MAX * 100., 1));
+	}
+
+}
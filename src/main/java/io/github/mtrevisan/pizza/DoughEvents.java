@@ -0,0 +1,129 @@
+/**
+ * Copyright (c) 2020 Mauro Trevisan
+ *
+ * Permission is hereby granted, free of charge, to any person
+ * obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without
+ * restriction, including without limitation the rights to use,
+ * copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the
+ * Software is furnished to do so, subject to the following
+ * conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES
+ * OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+ * WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ */
+package io.github.mtrevisan.pizza;
+
+import io.github.mtrevisan.pizza.yeasts.YeastModelAbstract;
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+
+/**
+ * Java Flight Recorder events of the phases of a recipe calculation, to correlate a slow recipe with the GC and CPU activity.
+ * <p>
+ * The events are named {@code io.github.mtrevisan.pizza.*} and can be enabled, disabled, or given a threshold through the JFR settings
+ * like any other event (e.g. {@code io.github.mtrevisan.pizza.YeastCalculation#threshold=10 ms} in a {@code .jfc} file).<br />
+ * When no recording is running, or the event is disabled, {@code begin} and {@link DoughEvent#complete(YeastModelAbstract, String)} do
+ * nothing; an event never escapes the method that creates it, so the JIT can also remove its allocation.
+ * </p>
+ */
+final class DoughEvents{
+
+	static final String OUTCOME_SUCCESS = "SUCCESS";
+	static final String OUTCOME_FAILURE = "FAILURE";
+
+
+	private DoughEvents(){}
+
+
+	@Category("Pizza")
+	@StackTrace(false)
+	abstract static class DoughEvent extends Event{
+
+		@Label("Yeast Model")
+		String yeastModel;
+
+		@Label("Outcome")
+		@Description("SUCCESS or FAILURE, or how the yeast quantity was obtained")
+		String outcome;
+
+
+		/**
+		 * End the event and commit it, if enabled and over the threshold.
+		 *
+		 * @param yeastModel	The yeast model.
+		 * @param outcome	The outcome.
+		 */
+		final void complete(final YeastModelAbstract yeastModel, final String outcome){
+			end();
+			if(shouldCommit()){
+				this.yeastModel = yeastModel.toString();
+				this.outcome = outcome;
+				commit();
+			}
+		}
+
+	}
+
+	@Name("io.github.mtrevisan.pizza.DoughValidation")
+	@Label("Dough Validation")
+	@Description("Validation of the dough composition")
+	static final class Validation extends DoughEvent{}
+
+	@Name("io.github.mtrevisan.pizza.YeastCalculation")
+	@Label("Yeast Calculation")
+	@Description("Calculation of the yeast quantity, from the atlas, the cache, or the solver")
+	static final class YeastCalculation extends DoughEvent{
+
+		@Label("Stages")
+		@Description("Number of leavening stages")
+		int stages;
+
+		@Label("Evaluations")
+		@Description("Number of evaluations of the objective by the solver")
+		int evaluations;
+
+	}
+
+	@Name("io.github.mtrevisan.pizza.IngredientsCalculation")
+	@Label("Ingredients Calculation")
+	@Description("Calculation of the quantity of each ingredient for a dough weight")
+	static final class IngredientsCalculation extends DoughEvent{
+
+		@Label("Iterations")
+		@Description("Number of linear segments evaluated to find the total flour")
+		int iterations;
+
+	}
+
+	@Name("io.github.mtrevisan.pizza.RecipeCreation")
+	@Label("Recipe Creation")
+	@Description("Whole calculation of a recipe: validation, yeast, ingredients, and times")
+	static final class RecipeCreation extends DoughEvent{
+
+		@Label("Stages")
+		@Description("Number of leavening stages")
+		int stages;
+
+		@Label("Evaluations")
+		@Description("Number of evaluations of the objective by the solver")
+		int evaluations;
+
+	}
+
+}
@@ -0,0 +1,163 @@
+/**
+ * Copyright (c) 2020 Mauro Trevisan
+ *
+ * Permission is hereby granted, free of charge, to any person
+ * obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without
+ * restriction, including without limitation the rights to use,
+ * copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the
+ * Software is furnished to do so, subject to the following
+ * conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES
+ * OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+ * WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ */
+package io.github.mtrevisan.pizza;
+
+import io.github.mtrevisan.pizza.utils.LogLinearHistogram;
+import io.github.mtrevisan.pizza.yeasts.YeastModelAbstract;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+
+/**
+ * Metrics of the calculations done by one or more doughs: how each yeast quantity was obtained, the evaluations of the objective and
+ * the convergence residual of each search, the iterations of each ingredients calculation, and the time taken.
+ * <p>
+ * It can be shared between doughs and threads; the metrics are read through a {@link #snapshot() snapshot}.
+ * </p>
+ */
+public final class DoughMetrics implements DoughMetricsListener{
+
+	/** Unit of the recorded residuals (the histogram holds integer values). */
+	public static final double RESIDUAL_UNIT = 1.e-9;
+
+	private static final YeastOutcome[] OUTCOMES = YeastOutcome.values();
+
+
+	private final AtomicLongArray outcomes = new AtomicLongArray(OUTCOMES.length);
+	/** [ns] */
+	private final LogLinearHistogram yeastTimes = LogLinearHistogram.create();
+	private final LogLinearHistogram yeastEvaluations = LogLinearHistogram.create();
+	/** [{@link #RESIDUAL_UNIT}] */
+	private final LogLinearHistogram yeastResiduals = LogLinearHistogram.create();
+	/** [ns] */
+	private final LogLinearHistogram ingredientsTimes = LogLinearHistogram.create();
+	private final LogLinearHistogram ingredientsIterations = LogLinearHistogram.create();
+
+
+	public static DoughMetrics create(){
+		return new DoughMetrics();
+	}
+
+	private DoughMetrics(){}
+
+
+	@Override
+	public void yeastCalculated(final YeastModelAbstract yeastModel, final YeastOutcome outcome, final int evaluations,
+			final double residual, final long time){
+		outcomes.incrementAndGet(outcome.ordinal());
+		yeastTimes.record(time);
+		if(outcome.isSearched())
+			yeastEvaluations.record(evaluations);
+		if(!Double.isNaN(residual))
+			yeastResiduals.record(Math.round(residual / RESIDUAL_UNIT));
+	}
+
+	@Override
+	public void ingredientsCalculated(final int iterations, final long time){
+		ingredientsTimes.record(time);
+		ingredientsIterations.record(iterations);
+	}
+
+	/**
+	 * @return	A copy of the current metrics.
+	 */
+	public Snapshot snapshot(){
+		final long[] outcomeCounts = new long[OUTCOMES.length];
+		for(int i = 0; i < OUTCOMES.length; i ++)
+			outcomeCounts[i] = outcomes.get(i);
+		return new Snapshot(outcomeCounts, yeastTimes.snapshot(), yeastEvaluations.snapshot(), yeastResiduals.snapshot(),
+			ingredientsTimes.snapshot(), ingredientsIterations.snapshot());
+	}
+
+
+	/** Immutable metrics. */
+	public static final class Snapshot{
+
+		private final long[] outcomes;
+		private final LogLinearHistogram.Snapshot yeastTimes;
+		private final LogLinearHistogram.Snapshot yeastEvaluations;
+		private final LogLinearHistogram.Snapshot yeastResiduals;
+		private final LogLinearHistogram.Snapshot ingredientsTimes;
+		private final LogLinearHistogram.Snapshot ingredientsIterations;
+
+
+		private Snapshot(final long[] outcomes, final LogLinearHistogram.Snapshot yeastTimes,
+				final LogLinearHistogram.Snapshot yeastEvaluations, final LogLinearHistogram.Snapshot yeastResiduals,
+				final LogLinearHistogram.Snapshot ingredientsTimes, final LogLinearHistogram.Snapshot ingredientsIterations){
+			this.outcomes = outcomes;
+			this.yeastTimes = yeastTimes;
+			this.yeastEvaluations = yeastEvaluations;
+			this.yeastResiduals = yeastResiduals;
+			this.ingredientsTimes = ingredientsTimes;
+			this.ingredientsIterations = ingredientsIterations;
+		}
+
+		/**
+		 * @param outcome	The outcome.
+		 * @return	The number of yeast calculations with the given outcome.
+		 */
+		public long getYeastOutcomes(final YeastOutcome outcome){
+			return outcomes[outcome.ordinal()];
+		}
+
+		/**
+		 * @return	The time taken by each yeast calculation [ns].
+		 */
+		public LogLinearHistogram.Snapshot getYeastTimes(){
+			return yeastTimes;
+		}
+
+		/**
+		 * @return	The number of evaluations of the objective of each search of the yeast quantity (calculations that did not run the
+		 * 	solver are not recorded).
+		 */
+		public LogLinearHistogram.Snapshot getYeastEvaluations(){
+			return yeastEvaluations;
+		}
+
+		/**
+		 * @return	The convergence residual of each successful search of the yeast quantity [{@link #RESIDUAL_UNIT}].
+		 */
+		public LogLinearHistogram.Snapshot getYeastResiduals(){
+			return yeastResiduals;
+		}
+
+		/**
+		 * @return	The time taken by each ingredients calculation [ns].
+		 */
+		public LogLinearHistogram.Snapshot getIngredientsTimes(){
+			return ingredientsTimes;
+		}
+
+		/**
+		 * @return	The number of linear segments evaluated by each ingredients calculation.
+		 */
+		public LogLinearHistogram.Snapshot getIngredientsIterations(){
+			return ingredientsIterations;
+		}
+
+	}
+
+}
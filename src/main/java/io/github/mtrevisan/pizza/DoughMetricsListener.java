@@ -0,0 +1,68 @@
+/**
+ * Copyright (c) 2020 Mauro Trevisan
+ *
+ * Permission is hereby granted, free of charge, to any person
+ * obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without
+ * restriction, including without limitation the rights to use,
+ * copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the
+ * Software is furnished to do so, subject to the following
+ * conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES
+ * OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+ * WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ */
+package io.github.mtrevisan.pizza;
+
+import io.github.mtrevisan.pizza.yeasts.YeastModelAbstract;
+
+
+/**
+ * Listener of the calculations done by a {@link Dough}, to collect metrics.
+ * <p>
+ * Every method does nothing by default. When the listener of a dough is {@link #NONE} (the default), the calculations are not timed
+ * at all, so they cost nothing.<br />
+ * NOTE: the same listener is called by all the threads calculating with the same dough (e.g. through a {@link DoughEngine}), so an
+ * implementation must be thread-safe.
+ * </p>
+ *
+ * @see DoughMetrics
+ */
+public interface DoughMetricsListener{
+
+	/** The listener that does nothing. */
+	DoughMetricsListener NONE = new DoughMetricsListener(){};
+
+
+	/**
+	 * Called after each calculation of the yeast quantity, successful or not.
+	 *
+	 * @param yeastModel	The yeast model.
+	 * @param outcome	How the yeast quantity was obtained, or why it could not be.
+	 * @param evaluations	The number of evaluations of the objective (zero if the solver was not run).
+	 * @param residual	The absolute difference between the volume expansion ratio reached with the yeast quantity found and the target
+	 * 	one, {@link Double#NaN} if the solver did not converge or was not run.
+	 * @param time	The time taken [ns].
+	 */
+	default void yeastCalculated(final YeastModelAbstract yeastModel, final YeastOutcome outcome, final int evaluations,
+		final double residual, final long time){}
+
+	/**
+	 * Called after each calculation of the ingredients.
+	 *
+	 * @param iterations	The number of linear segments evaluated to find the total flour.
+	 * @param time	The time taken [ns].
+	 */
+	default void ingredientsCalculated(final int iterations, final long time){}
+
+}
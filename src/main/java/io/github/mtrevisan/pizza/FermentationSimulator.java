@@ -0,0 +1,318 @@
+/**
+ * Copyright (c) 2020 Mauro Trevisan
+ *
+ * Permission is hereby granted, free of charge, to any person
+ * obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without
+ * restriction, including without limitation the rights to use,
+ * copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the
+ * Software is furnished to do so, subject to the following
+ * conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES
+ * OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+ * WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ */
+package io.github.mtrevisan.pizza;
+
+import io.github.mtrevisan.pizza.yeasts.YeastModelAbstract;
+
+import java.time.Duration;
+import java.util.Arrays;
+
+
+/**
+ * Simulator of the dough volume expansion ratio over a whole procedure, for a given yeast quantity.
+ * <p>
+ * The volume is accumulated exactly as done in the calculation of the yeast (stage temperature switches, volume decrease at the end
+ * of each stage, stretch &amp; fold punches), but for every stage of the procedure, so the curve reaches the target volume expansion
+ * ratio at the end of the target stage (before its volume decrease).<br />
+ * As in the calculation of the yeast, the stretch &amp; fold punches are accounted for at the end of the stage they fall into, and a stage
+ * with a temperature profile grows at the constant rate that gives the same overall growth.<br />
+ * Everything that does not depend on the time is computed once at creation; samples are then produced into caller-supplied buffers
+ * or pushed to a {@link SampleSink}, without any allocation.
+ * </p>
+ * <p>
+ * The time is measured in hours from the start of the first leavening stage; a sample falling exactly at the end of a stage belongs to
+ * that stage (the volume decreases and the temperature switch take effect right after it).
+ * </p>
+ * <p>
+ * NOTE: an instance can be shared between threads.
+ * </p>
+ */
+public final class FermentationSimulator{
+
+	/** Receiver of the simulated samples. */
+	@FunctionalInterface
+	public interface SampleSink{
+
+		/**
+		 * @param time	Time from the start of the first leavening stage [hrs].
+		 * @param volumeExpansionRatio	Volume expansion ratio (∆V / V).
+		 */
+		void accept(double time, double volumeExpansionRatio);
+
+	}
+
+
+	private static final Duration STEP_DEFAULT = Duration.ofMinutes(1l);
+	private static final double MILLIS_PER_HOUR = 3_600_000.;
+
+
+	/** Maximum relative volume expansion ratio. */
+	private final double alpha;
+
+	/** Time at the start of each stage [hrs]. */
+	private final double[] stageStart;
+	/** Lag during each stage [hrs]. */
+	private final double[] stageLag;
+	/** Specific growth rate during each stage [hrs^-1]. */
+	private final double[] stageSpecificGrowth;
+	/** Volume expansion ratio accumulated by the previous stages. */
+	private final double[] stageOffset;
+
+	/** Time after which each stretch &amp; fold reduces the volume (the end of the stage it is accounted for in) [hrs]. */
+	private final double[] stretchAndFoldTime;
+	/** Volume expansion ratio removed by each stretch &amp; fold. */
+	private final double[] stretchAndFoldDecrease;
+
+	private final long durationMillis;
+	private long stepMillis = STEP_DEFAULT.toMillis();
+
+
+	/**
+	 * @param dough	The dough.
+	 * @param yeastModel	The yeast model.
+	 * @param procedure	The procedure.
+	 * @param yeast	Quantity of yeast [% w/w].
+	 * @return	The simulator.
+	 */
+	static FermentationSimulator create(final Dough dough, final YeastModelAbstract yeastModel, final Procedure procedure,
+			final double yeast){
+		return new FermentationSimulator(dough, yeastModel, procedure, yeast);
+	}
+
+	private FermentationSimulator(final Dough dough, final YeastModelAbstract yeastModel, final Procedure procedure,
+			final double yeast){
+		final LeaveningStage[] stages = procedure.leaveningStages;
+		final StretchAndFoldStage[] stretchAndFoldStages = (procedure.stretchAndFoldStages != null?
+			procedure.stretchAndFoldStages: new StretchAndFoldStage[0]);
+
+		alpha = Dough.maximumRelativeVolumeExpansionRatio(yeast);
+		stageStart = new double[stages.length];
+		stageLag = new double[stages.length];
+		stageSpecificGrowth = new double[stages.length];
+		stageOffset = new double[stages.length];
+		final double[] foldTime = new double[stretchAndFoldStages.length];
+		final double[] foldDecrease = new double[stretchAndFoldStages.length];
+
+		final double[][] growthFactors = new double[stages.length][];
+		for(int i = 0; i < stages.length; i ++)
+			growthFactors[i] = stages[i].growthFactors(dough, yeastModel);
+
+		double lambda = Dough.estimatedYeastLag(yeast) + dough.estimatedSaltLag();
+		double volumeExpansionRatio = 0.;
+		stageLag[0] = lambda;
+		stageSpecificGrowth[0] = growthFactors[0][0] * growthFactors[0][1];
+		Duration duration = Duration.ZERO;
+		int stretchAndFoldIndex = 0;
+		Duration stretchAndFoldDuration = Duration.ZERO;
+		for(int i = 1; i < stages.length; i ++){
+			final LeaveningStage previousStage = stages[i - 1];
+			final LeaveningStage currentStage = stages[i];
+			duration = duration.plus(previousStage.duration);
+			final double transitionTime = duration.toMinutes() / 60.;
+
+			double currentVolume = 0.;
+			if(!previousStage.hasSameTemperature(currentStage)){
+				final double previousIngredientsFactor = growthFactors[i - 1][0];
+				final double previousVolume = YeastModelAbstract.volumeExpansionRatio(transitionTime, lambda, alpha,
+					previousIngredientsFactor * growthFactors[i - 1][1]);
+				lambda = Math.max(lambda - previousStage.duration.toMinutes() / 60., 0.);
+				currentVolume = YeastModelAbstract.volumeExpansionRatio(transitionTime, lambda, alpha,
+					previousIngredientsFactor * growthFactors[i][1]);
+
+				volumeExpansionRatio += previousVolume - currentVolume;
+			}
+			volumeExpansionRatio -= currentVolume * previousStage.volumeDecrease;
+
+			final double currentSpecificGrowth = growthFactors[i][0] * growthFactors[i][1];
+			double stretchAndFoldVolumeDecrease = 0.;
+			while(stretchAndFoldIndex < stretchAndFoldStages.length){
+				final StretchAndFoldStage stretchAndFoldStage = stretchAndFoldStages[stretchAndFoldIndex];
+				if(stretchAndFoldDuration.plus(stretchAndFoldStage.lapse).compareTo(duration) > 0)
+					break;
+
+				stretchAndFoldDuration = stretchAndFoldDuration.plus(stretchAndFoldStage.lapse);
+
+				final double time = duration.minus(previousStage.duration)
+					.plus(stretchAndFoldDuration).toMinutes() / 60.;
+				final double volumeAtStretchAndFold = YeastModelAbstract.volumeExpansionRatio(time, lambda, alpha,
+					currentSpecificGrowth);
+				final double decrease = (volumeAtStretchAndFold - stretchAndFoldVolumeDecrease) * stretchAndFoldStage.volumeDecrease;
+				stretchAndFoldVolumeDecrease += decrease;
+				foldTime[stretchAndFoldIndex] = transitionTime;
+				foldDecrease[stretchAndFoldIndex] = decrease;
+				stretchAndFoldIndex ++;
+			}
+
+			stageStart[i] = transitionTime;
+			stageLag[i] = lambda;
+			stageSpecificGrowth[i] = currentSpecificGrowth;
+			stageOffset[i] = volumeExpansionRatio;
+		}
+		//NOTE: as in the yeast calculation, the stretch & fold stages after the start of the last stage are not taken into consideration
+		stretchAndFoldTime = Arrays.copyOf(foldTime, stretchAndFoldIndex);
+		stretchAndFoldDecrease = Arrays.copyOf(foldDecrease, stretchAndFoldIndex);
+
+		durationMillis = duration.plus(stages[stages.length - 1].duration).toMillis();
+	}
+
+	/**
+	 * @param step	Time between two consecutive samples (defaults to one minute).
+	 * @return	The instance.
+	 */
+	public FermentationSimulator withStep(final Duration step) throws DoughException{
+		if(step == null || step.toMillis() <= 0l)
+			throw DoughException.create("Step should be present and at least one millisecond");
+
+		stepMillis = step.toMillis();
+
+		return this;
+	}
+
+	/**
+	 * @return	Overall duration of the leavening stages [hrs].
+	 */
+	public double getDuration(){
+		return durationMillis / MILLIS_PER_HOUR;
+	}
+
+	/**
+	 * @return	Number of samples produced by a whole simulation (the first at time zero, the last not after the end of the procedure).
+	 */
+	public int getSampleCount(){
+		return (int)(durationMillis / stepMillis) + 1;
+	}
+
+	/**
+	 * @param time	Time from the start of the first leavening stage [hrs].
+	 * @return	The volume expansion ratio (∆V / V) at the given time.
+	 */
+	public double volumeExpansionRatio(final double time){
+		int stage = 0;
+		while(stage + 1 < stageStart.length && time > stageStart[stage + 1])
+			stage ++;
+		double stretchAndFoldDecrease = 0.;
+		for(int i = 0; i < stretchAndFoldTime.length && stretchAndFoldTime[i] < time; i ++)
+			stretchAndFoldDecrease += this.stretchAndFoldDecrease[i];
+		return volumeExpansionRatio(time, stage, stretchAndFoldDecrease);
+	}
+
+	private double volumeExpansionRatio(final double time, final int stage, final double stretchAndFoldDecrease){
+		return stageOffset[stage] + YeastModelAbstract.volumeExpansionRatio(time, stageLag[stage], alpha, stageSpecificGrowth[stage])
+			- stretchAndFoldDecrease;
+	}
+
+	/**
+	 * Find the first time at which the given volume expansion ratio is reached.
+	 * <p>
+	 * The last stage is assumed to last until the volume expansion ratio is reached.<br />
+	 * Within a stage the volume is a single Gompertz curve shifted by the volume accumulated before, so the stage that reaches the
+	 * volume expansion ratio is found looking at the end of each stage, then the time is found inverting its curve in closed form.
+	 * </p>
+	 *
+	 * @param volumeExpansionRatio	Volume expansion ratio (∆V / V).
+	 * @return	The time from the start of the first leavening stage [hrs], {@link Double#NaN} if the volume expansion ratio is never
+	 * 	reached.
+	 */
+	public double timeToVolumeExpansionRatio(final double volumeExpansionRatio){
+		int stretchAndFoldIndex = 0;
+		double stretchAndFoldDecrease = 0.;
+		for(int stage = 0; stage < stageStart.length; stage ++){
+			final double start = stageStart[stage];
+			while(stretchAndFoldIndex < stretchAndFoldTime.length && stretchAndFoldTime[stretchAndFoldIndex] <= start)
+				stretchAndFoldDecrease += this.stretchAndFoldDecrease[stretchAndFoldIndex ++];
+
+			//volume expansion ratio the curve of this stage has to reach
+			final double volume = volumeExpansionRatio - stageOffset[stage] + stretchAndFoldDecrease;
+			final double lambda = stageLag[stage];
+			final double mu = stageSpecificGrowth[stage];
+			if(start > 0. && volume <= YeastModelAbstract.volumeExpansionRatio(start, lambda, alpha, mu))
+				//already reached at the start of the stage
+				return start;
+			if(stage + 1 < stageStart.length
+					&& volume > YeastModelAbstract.volumeExpansionRatio(stageStart[stage + 1], lambda, alpha, mu))
+				continue;
+
+			final double time = YeastModelAbstract.timeToVolumeExpansionRatio(volume, lambda, alpha, mu);
+			if(!Double.isNaN(time))
+				return Math.max(time, start);
+		}
+		return Double.NaN;
+	}
+
+	/**
+	 * Push all the samples of the procedure to the given sink, in order of time.
+	 *
+	 * @param sink	The receiver of the samples.
+	 */
+	public void simulate(final SampleSink sink){
+		final int sampleCount = getSampleCount();
+		int stage = 0;
+		int stretchAndFoldIndex = 0;
+		double stretchAndFoldDecrease = 0.;
+		for(int sample = 0; sample < sampleCount; sample ++){
+			final double time = sample * stepMillis / MILLIS_PER_HOUR;
+			while(stage + 1 < stageStart.length && time > stageStart[stage + 1])
+				stage ++;
+			while(stretchAndFoldIndex < stretchAndFoldTime.length && stretchAndFoldTime[stretchAndFoldIndex] < time)
+				stretchAndFoldDecrease += this.stretchAndFoldDecrease[stretchAndFoldIndex ++];
+
+			sink.accept(time, volumeExpansionRatio(time, stage, stretchAndFoldDecrease));
+		}
+	}
+
+	/**
+	 * Store the samples starting from the given one into the given buffers, as many as they can hold.
+	 * <p>
+	 * A long simulation can be read in chunks by calling this method repeatedly with the same buffers, advancing `fromSample` by the
+	 * returned count each time.
+	 * </p>
+	 *
+	 * @param fromSample	Index of the first sample to produce.
+	 * @param times	Buffer to store the times into [hrs].
+	 * @param volumeExpansionRatios	Buffer, as long as `times`, to store the volume expansion ratios (∆V / V) into.
+	 * @return	The number of samples stored, zero if there are no more samples.
+	 */
+	public int simulate(final int fromSample, final double[] times, final double[] volumeExpansionRatios){
+		final int count = Math.max(Math.min(getSampleCount() - fromSample, times.length), 0);
+		if(count == 0)
+			return 0;
+
+		int stage = 0;
+		int stretchAndFoldIndex = 0;
+		double stretchAndFoldDecrease = 0.;
+		for(int sample = 0; sample < count; sample ++){
+			final double time = (fromSample + sample) * stepMillis / MILLIS_PER_HOUR;
+			while(stage + 1 < stageStart.length && time > stageStart[stage + 1])
+				stage ++;
+			while(stretchAndFoldIndex < stretchAndFoldTime.length && stretchAndFoldTime[stretchAndFoldIndex] < time)
+				stretchAndFoldDecrease += this.stretchAndFoldDecrease[stretchAndFoldIndex ++];
+
+			times[sample] = time;
+			volumeExpansionRatios[sample] = volumeExpansionRatio(time, stage, stretchAndFoldDecrease);
+		}
+		return count;
+	}
+
+}
@@ -36,6 +36,10 @@ public class Ingredients{
 	Double doughTemperature;
 	/** Desired pizza height [cm]. */
 	Double targetPizzaHeight;
+	/** Area of the pan [cm²]. */
+	Double panArea;
+	/** Desired dough weight [g], overrides the one calculated from the pan. */
+	Double doughWeight;
 
 	/** Whether to correct for ingredients' content in fat/salt/water. */
 	boolean correctForIngredients;
@@ -116,6 +120,26 @@ public class Ingredients{
 		return this;
 	}
 
+	/**
+	 * @param panArea	Area of the pan [cm²].
+	 * @return	The instance.
+	 */
+	public Ingredients withPanArea(final double panArea){
+		this.panArea = panArea;
+
+		return this;
+	}
+
+	/**
+	 * @param doughWeight	Desired dough weight [g].
+	 * @return	The instance.
+	 */
+	public Ingredients withDoughWeight(final double doughWeight){
+		this.doughWeight = doughWeight;
+
+		return this;
+	}
+
 	public Ingredients withCorrectForIngredients(){
 		correctForIngredients = true;
 
@@ -281,4 +305,19 @@ public class Ingredients{
 				Helper.round(yeastModel.getTemperatureMin(), 1), Helper.round(yeastModel.getTemperatureMax(), 1));
 	}
 
+	void validateDoughWeight() throws DoughException{
+		if(doughWeight != null){
+			if(doughWeight <= 0.)
+				throw DoughException.create("Dough weight [g] must be positive");
+		}
+		else{
+			if(panArea == null || targetPizzaHeight == null)
+				throw DoughException.create("Missing dough weight, or pan area and target pizza height");
+			if(panArea <= 0. || targetPizzaHeight <= 0.)
+				throw DoughException.create("Pan area [cm²] and target pizza height [cm] must be positive");
+			if(doughTemperature == null && ingredientsTemperature == null)
+				throw DoughException.create("Missing dough or ingredients temperature, needed to calculate the dough density");
+		}
+	}
+
 }
@@ -25,6 +25,7 @@
 package io.github.mtrevisan.pizza;
 
 import io.github.mtrevisan.pizza.utils.Helper;
+import io.github.mtrevisan.pizza.yeasts.YeastModelAbstract;
 
 import java.time.Duration;
 
@@ -35,8 +36,10 @@ public final class LeaveningStage{
 	public static final double VOLUME_DECREASE_CUT_DEFAULT = 0.4187;
 
 
-	/** Leavening temperature [°C]. */
+	/** Leavening temperature [°C], the time-weighted mean one if the stage has a temperature profile. */
 	final double temperature;
+	/** Temperature profile, `null` if the temperature is constant. */
+	final TemperatureProfile temperatureProfile;
 	/** Leavening duration [hrs]. */
 	final Duration duration;
 	/** Volume decrease after leavening stage [% v/v]. */
@@ -52,14 +55,47 @@ public final class LeaveningStage{
 		return new LeaveningStage(temperature, duration);
 	}
 
+	/**
+	 * @param temperatureProfile	Leavening temperature profile, its duration is the duration of the stage.
+	 * @return	The instance.
+	 */
+	public static LeaveningStage create(final TemperatureProfile temperatureProfile) throws DoughException{
+		if(temperatureProfile == null)
+			throw DoughException.create("Temperature profile should be present");
+
+		return new LeaveningStage(temperatureProfile);
+	}
+
 	private LeaveningStage(final double temperature, final Duration duration) throws DoughException{
 		if(duration == null || duration.isNegative() || duration.isZero())
 			throw DoughException.create("Duration should be present and non-negative");
 
 		this.temperature = temperature;
+		temperatureProfile = null;
 		this.duration = duration;
 	}
 
+	private LeaveningStage(final TemperatureProfile temperatureProfile){
+		temperature = temperatureProfile.getTemperatureMean();
+		this.temperatureProfile = temperatureProfile;
+		duration = temperatureProfile.getDuration();
+	}
+
+	private LeaveningStage(final LeaveningStage stage, final double temperatureChange){
+		temperatureProfile = (stage.temperatureProfile != null? stage.temperatureProfile.shift(temperatureChange): null);
+		temperature = (temperatureProfile != null? temperatureProfile.getTemperatureMean(): stage.temperature + temperatureChange);
+		duration = stage.duration;
+		volumeDecrease = stage.volumeDecrease;
+	}
+
+	/**
+	 * @param temperatureChange	Change of temperature [°C].
+	 * @return	A copy of this stage, with the temperature (or every temperature of the profile) changed by the given amount.
+	 */
+	LeaveningStage shift(final double temperatureChange){
+		return new LeaveningStage(this, temperatureChange);
+	}
+
 	/**
 	 * @param volumeDecrease	Volume decrease after leavening stage [% v/v].
 	 * @return	The instance.
@@ -73,9 +109,41 @@ public final class LeaveningStage{
 		return this;
 	}
 
+	double getTemperatureMin(){
+		return (temperatureProfile != null? temperatureProfile.getTemperatureMin(): temperature);
+	}
+
+	double getTemperatureMax(){
+		return (temperatureProfile != null? temperatureProfile.getTemperatureMax(): temperature);
+	}
+
+	/**
+	 * @param other	Another stage.
+	 * @return	Whether the two stages have the same constant temperature.
+	 */
+	boolean hasSameTemperature(final LeaveningStage other){
+		return (temperatureProfile == null && other.temperatureProfile == null && temperature == other.temperature);
+	}
+
+	/**
+	 * @param dough	The dough.
+	 * @param yeastModel	The yeast model.
+	 * @return	The ingredients factor (at index 0) and the maximum specific growth (at index 1) [hrs^-1] over the stage; for a temperature
+	 * 	profile they are the ones giving the same mean specific growth of the profile.
+	 */
+	double[] growthFactors(final Dough dough, final YeastModelAbstract yeastModel){
+		if(temperatureProfile == null)
+			return new double[]{dough.ingredientsFactor(temperature), yeastModel.maximumSpecificGrowth(temperature)};
+
+		final double[] meanSpecificGrowth = temperatureProfile.meanSpecificGrowth(dough, yeastModel);
+		final double ingredientsFactor = (meanSpecificGrowth[1] > 0.? meanSpecificGrowth[0] / meanSpecificGrowth[1]:
+			dough.ingredientsFactor(temperature));
+		return new double[]{ingredientsFactor, meanSpecificGrowth[1]};
+	}
+
 	@Override
 	public String toString(){
-		return getClass().getSimpleName() + "{" + temperature + " °C for " + Helper.round(duration.toMinutes() / 60., 2)
+		return getClass().getSimpleName() + "{" + (temperatureProfile != null? temperatureProfile + ", mean ": "") + temperature + " °C for " + Helper.round(duration.toMinutes() / 60., 2)
 			+ " hrs" + (volumeDecrease > 0.? ", volume decrease " + Helper.round(volumeDecrease * 100., 1) + "%": "")
 			+ "}";
 	}
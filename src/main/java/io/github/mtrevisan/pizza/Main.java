@@ -24,6 +24,187 @@
  */
 package io.github.mtrevisan.pizza;
 
+import io.github.mtrevisan.pizza.service.RecipeBatchRunner;
+import io.github.mtrevisan.pizza.service.RecipeServer;
+import io.github.mtrevisan.pizza.service.RecipeService;
+import io.github.mtrevisan.pizza.utils.Json;
+import io.github.mtrevisan.pizza.yeasts.YeastModelRegistry;
 
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.time.format.DateTimeParseException;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Locale;
+
+
+/**
+ * Start the recipe service, run a batch of recipe jobs, or answer a single request.
+ * <p>
+ * Run with `java -jar pizza-shaded.jar [--bind address] [--enable-reload] [port [yeast-models]]` (the default port is 8080) to start
+ * the service, listening on the loopback interface only unless an address is given (e.g. {@code 0.0.0.0} for all the interfaces), the
+ * yeast models being loaded from the given JSON file (see {@link YeastModelRegistry}) and, if enabled, reloaded with a {@code POST} to
+ * {@value RecipeServer#ENDPOINT_RELOAD}, or with
+ * `java -jar pizza-shaded.jar batch [options] [input [output]]` to process a file of jobs, where the options are
+ * `--format jsonl|csv` (by default from the extension of the input, JSONL otherwise), `--endpoint /recipe|/yeast|/time-to-rise`
+ * (the default is /recipe), `--parallelism n` (the default is the number of processors), and `--in-flight n` (the default is four jobs
+ * per thread); the standard input and output are used if not given (or given as `-`).
+ * </p>
+ * <p>
+ * Run with `java -jar pizza-shaded.jar recipe|yeast|time-to-rise [request]` to answer a single JSON request (from the standard input
+ * if not given) on the standard output, the exit status being 1 on error. For the shortest startup, build with `mvn -P cds package` and
+ * run with `java -XX:SharedArchiveFile=target/pizza.jsa -XX:TieredStopAtLevel=1 -jar target/pizza-1.0-SNAPSHOT-shaded.jar recipe`, or
+ * build a native image with `mvn -P native package`.
+ * </p>
+ *
+ * @see RecipeServer
+ * @see RecipeBatchRunner
+ * @see RecipeService
+ */
 public class Main{
+
+	private static final int PORT_DEFAULT = 8080;
+	private static final int YEAST_CACHE_SIZE = 10_000;
+	private static final String COMMAND_BATCH = "batch";
+	private static final String[] COMMANDS_SINGLE = {"recipe", "yeast", "time-to-rise"};
+	private static final String STANDARD_STREAM = "-";
+	private static final int BUFFER_SIZE = 1 << 16;
+
+
+	public static void main(final String[] args) throws IOException{
+		if(args.length > 0 && COMMAND_BATCH.equals(args[0])){
+			runBatch(args);
+			return;
+		}
+		if(args.length > 0 && Arrays.asList(COMMANDS_SINGLE).contains(args[0])){
+			if(!runSingle(args))
+				System.exit(1);
+			return;
+		}
+
+		runServer(args);
+	}
+
+	private static void runServer(final String[] args) throws IOException{
+		String bindAddress = null;
+		boolean reloadEnabled = false;
+		int port = PORT_DEFAULT;
+		String yeastModelsFile = null;
+		int positionals = 0;
+		for(int i = 0; i < args.length; i ++){
+			switch(args[i]){
+				case "--bind" -> bindAddress = optionValue(args, ++ i);
+				case "--enable-reload" -> reloadEnabled = true;
+				default -> {
+					if(positionals == 0)
+						port = Integer.parseInt(args[i]);
+					else if(positionals == 1)
+						yeastModelsFile = args[i];
+					else
+						throw new IllegalArgumentException("Unexpected argument " + args[i]);
+					positionals ++;
+				}
+			}
+		}
+		final InetSocketAddress address = (bindAddress != null
+			? new InetSocketAddress(bindAddress, port)
+			: new InetSocketAddress(InetAddress.getLoopbackAddress(), port));
+		final YeastModelRegistry yeastModels = (yeastModelsFile != null
+			? YeastModelRegistry.load(Paths.get(yeastModelsFile))
+			: YeastModelRegistry.create());
+
+		//must be set before the first server is created
+		if(System.getProperty(RecipeServer.NO_DELAY_PROPERTY) == null)
+			System.setProperty(RecipeServer.NO_DELAY_PROPERTY, Boolean.TRUE.toString());
+		final RecipeServer server = RecipeServer.create(address,
+			RecipeService.create(YeastCache.create(YEAST_CACHE_SIZE), yeastModels, DoughMetrics.create()));
+		if(reloadEnabled)
+			server.withReloadEnabled();
+		server.start();
+		Runtime.getRuntime().addShutdownHook(new Thread(server::stop));
+	}
+
+	private static void runBatch(final String[] args) throws IOException{
+		String format = null;
+		String endpoint = RecipeService.ENDPOINT_RECIPE;
+		int parallelism = Runtime.getRuntime().availableProcessors();
+		int inFlight = -1;
+		String input = STANDARD_STREAM;
+		String output = STANDARD_STREAM;
+		int files = 0;
+		for(int i = 1; i < args.length; i ++){
+			switch(args[i]){
+				case "--format" -> format = optionValue(args, ++ i);
+				case "--endpoint" -> endpoint = optionValue(args, ++ i);
+				case "--parallelism" -> parallelism = Integer.parseInt(optionValue(args, ++ i));
+				case "--in-flight" -> inFlight = Integer.parseInt(optionValue(args, ++ i));
+				default -> {
+					if(files == 0)
+						input = args[i];
+					else if(files == 1)
+						output = args[i];
+					else
+						throw new IllegalArgumentException("Unexpected argument " + args[i]);
+					files ++;
+				}
+			}
+		}
+		if(format == null)
+			format = (input.toLowerCase(Locale.ROOT).endsWith(".csv")? "csv": "jsonl");
+
+		final RecipeBatchRunner runner = (inFlight > 0
+			? RecipeBatchRunner.create(RecipeService.create(), endpoint, parallelism, inFlight)
+			: RecipeBatchRunner.create(RecipeService.create(), endpoint, parallelism));
+		try(
+				final BufferedReader reader = (STANDARD_STREAM.equals(input)
+					? new BufferedReader(new InputStreamReader(System.in, StandardCharsets.UTF_8), BUFFER_SIZE)
+					: Files.newBufferedReader(Paths.get(input), StandardCharsets.UTF_8));
+				final Writer writer = (STANDARD_STREAM.equals(output)
+					? new BufferedWriter(new OutputStreamWriter(System.out, StandardCharsets.UTF_8), BUFFER_SIZE)
+					: Files.newBufferedWriter(Paths.get(output), StandardCharsets.UTF_8))){
+			runner.run(reader, RecipeBatchRunner.Format.valueOf(format.toUpperCase(Locale.ROOT)), writer);
+		}
+	}
+
+	private static boolean runSingle(final String[] args) throws IOException{
+		if(args.length > 2)
+			throw new IllegalArgumentException("Unexpected argument " + args[2]);
+
+		final byte[] input = (args.length > 1 && !STANDARD_STREAM.equals(args[1])
+			? Files.readAllBytes(Paths.get(args[1]))
+			: System.in.readAllBytes());
+		Object response;
+		boolean success;
+		try{
+			//one request only: no cache
+			response = RecipeService.create(null)
+				.handle("/" + args[0], Json.parse(new String(input, StandardCharsets.UTF_8)));
+			success = true;
+		}
+		catch(final DoughException | YeastException | IllegalArgumentException | DateTimeParseException e){
+			response = Collections.singletonMap("error", e.getMessage());
+			success = false;
+		}
+
+		System.out.write((Json.write(response) + "\n").getBytes(StandardCharsets.UTF_8));
+		System.out.flush();
+		return success;
+	}
+
+	private static String optionValue(final String[] args, final int index){
+		if(index >= args.length)
+			throw new IllegalArgumentException("Missing value of option " + args[index - 1]);
+
+		return args[index];
+	}
+
 }
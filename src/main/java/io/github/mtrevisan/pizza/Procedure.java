@@ -88,6 +88,25 @@ public final class Procedure{
 		this.seasoning = seasoning;
 	}
 
+	private Procedure(final Procedure procedure, final LeaveningStage[] leaveningStages){
+		this.leaveningStages = leaveningStages;
+		targetDoughVolumeExpansionRatio = procedure.targetDoughVolumeExpansionRatio;
+		targetVolumeExpansionRatioAtLeaveningStage = procedure.targetVolumeExpansionRatioAtLeaveningStage;
+		stretchAndFoldStages = procedure.stretchAndFoldStages;
+		timeToBake = procedure.timeToBake;
+		doughMaking = procedure.doughMaking;
+		stagesWork = procedure.stagesWork;
+		seasoning = procedure.seasoning;
+	}
+
+	/**
+	 * @param leaveningStages	Data for stages, as many as the ones of this procedure.
+	 * @return	A copy of this procedure with the given stages.
+	 */
+	Procedure withLeaveningStages(final LeaveningStage[] leaveningStages){
+		return new Procedure(this, leaveningStages);
+	}
+
 	/**
 	 * @param stretchAndFoldStages	Stretch & Fold stages.
 	 * @return	This instance.
@@ -113,11 +132,14 @@ public final class Procedure{
 	public void validate(final YeastModelAbstract yeastModel) throws DoughException{
 		if(leaveningStages == null)
 			throw DoughException.create("Missing leavening stage(s)");
-		for(final LeaveningStage stage : leaveningStages)
-			if(stage.temperature < yeastModel.getTemperatureMin() || stage.temperature > yeastModel.getTemperatureMax())
+		for(final LeaveningStage stage : leaveningStages){
+			final double temperatureMin = stage.getTemperatureMin();
+			final double temperatureMax = stage.getTemperatureMax();
+			if(temperatureMin < yeastModel.getTemperatureMin() || temperatureMax > yeastModel.getTemperatureMax())
 				throw DoughException.create("Stage temperature [°C] must be between {} and {} °C, was {} °C",
 					Helper.round(yeastModel.getTemperatureMin(), 1), Helper.round(yeastModel.getTemperatureMax(), 1),
-					Helper.round(stage.temperature, 1));
+					Helper.round(temperatureMin < yeastModel.getTemperatureMin()? temperatureMin: temperatureMax, 1));
+		}
 		if(targetDoughVolumeExpansionRatio <= 0.)
 			throw DoughException.create("Target volume expansion ratio [% v/v] must be positive");
 	}
@@ -0,0 +1,303 @@
+/**
+ * Copyright (c) 2020 Mauro Trevisan
+ *
+ * Permission is hereby granted, free of charge, to any person
+ * obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without
+ * restriction, including without limitation the rights to use,
+ * copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the
+ * Software is furnished to do so, subject to the following
+ * conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES
+ * OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+ * WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ */
+package io.github.mtrevisan.pizza;
+
+import io.github.mtrevisan.pizza.utils.DifferentiableFunction;
+import io.github.mtrevisan.pizza.yeasts.YeastModelAbstract;
+import org.apache.commons.math3.analysis.UnivariateFunction;
+
+import java.time.Duration;
+
+
+/**
+ * Procedure compiled against a dough, used as objective function by the yeast solver.
+ * <p>
+ * Everything that does not depend on the yeast quantity (stage times, stretch &amp; fold times, specific growth rates corrected by the
+ * ingredients factor, integrated over the temperature profiles, salt lag) is computed once, so that each evaluation is a loop over primitive arrays with no allocation.<br />
+ * The operations are the same (and in the same order) as the ones done on the original procedure, so the results are numerically
+ * identical.<br />
+ * The first derivative w.r.t. the yeast quantity is available in closed form, for derivative-based solvers.
+ * </p>
+ * <p>
+ * NOTE: an instance cannot be shared between threads.
+ * </p>
+ */
+final class ProcedurePlan implements UnivariateFunction, DifferentiableFunction{
+
+	/** Number of stage transitions to be walked through before the target stage. */
+	private final int transitions;
+	/** Time at the start of each stage after the first [hrs]. */
+	private final double[] transitionTime;
+	/** Duration of the stage before each transition [hrs]. */
+	private final double[] previousStageDuration;
+	/** Whether the temperature changes at each transition. */
+	private final boolean[] temperatureChange;
+	/** Specific growth rate of the previous stage [hrs^-1]. */
+	private final double[] previousSpecificGrowth;
+	/** Specific growth rate of the current stage, corrected with the ingredients factor of the previous stage [hrs^-1]. */
+	private final double[] currentSpecificGrowth;
+	/** Volume decrease at the end of the previous stage [% v/v]. */
+	private final double[] previousVolumeDecrease;
+	/** Index (exclusive) of the last stretch &amp; fold to be applied at each transition. */
+	private final int[] stretchAndFoldEnd;
+
+	/** Time of each stretch &amp; fold [hrs]. */
+	private final double[] stretchAndFoldTime;
+	/** Specific growth rate of each stretch &amp; fold [hrs^-1]. */
+	private final double[] stretchAndFoldSpecificGrowth;
+	/** Volume decrease of each stretch &amp; fold [% v/v]. */
+	private final double[] stretchAndFoldVolumeDecrease;
+
+	/** Time at the end of the target stage [hrs]. */
+	private final double targetTime;
+	/** Specific growth rate of the target stage [hrs^-1]. */
+	private final double targetSpecificGrowth;
+	/** Volume decrease at the end of the target stage [% v/v]. */
+	private final double targetVolumeDecrease;
+	/** Whether the ingredients completely inhibit the growth in the target stage. */
+	private final boolean targetInhibited;
+	private final double targetVolumeExpansionRatio;
+
+	/** Lag due to salt [hrs]. */
+	private final double saltLag;
+
+	/** Derivative w.r.t. the yeast quantity of the last volume expansion ratio calculated along with its derivative. */
+	private double volumeExpansionRatioDerivative;
+
+
+	/**
+	 * @param dough	The dough.
+	 * @param yeastModel	The yeast model.
+	 * @param procedure	The procedure.
+	 * @return	The compiled procedure.
+	 */
+	static ProcedurePlan compile(final Dough dough, final YeastModelAbstract yeastModel, final Procedure procedure){
+		return new ProcedurePlan(dough, yeastModel, procedure);
+	}
+
+	private ProcedurePlan(final Dough dough, final YeastModelAbstract yeastModel, final Procedure procedure){
+		final LeaveningStage[] stages = procedure.leaveningStages;
+		final StretchAndFoldStage[] stretchAndFoldStages = (procedure.stretchAndFoldStages != null?
+			procedure.stretchAndFoldStages: new StretchAndFoldStage[0]);
+
+		transitions = procedure.targetVolumeExpansionRatioAtLeaveningStage;
+		transitionTime = new double[transitions];
+		previousStageDuration = new double[transitions];
+		temperatureChange = new boolean[transitions];
+		previousSpecificGrowth = new double[transitions];
+		currentSpecificGrowth = new double[transitions];
+		previousVolumeDecrease = new double[transitions];
+		stretchAndFoldEnd = new int[transitions];
+		final double[] foldTime = new double[stretchAndFoldStages.length];
+		final double[] foldSpecificGrowth = new double[stretchAndFoldStages.length];
+		final double[] foldVolumeDecrease = new double[stretchAndFoldStages.length];
+		//ingredients factor and maximum specific growth of each stage up to the target one (integrated once for temperature profiles)
+		final double[][] growthFactors = new double[transitions + 1][];
+		for(int i = 0; i <= transitions; i ++)
+			growthFactors[i] = stages[i].growthFactors(dough, yeastModel);
+
+		LeaveningStage currentStage = stages[0];
+		Duration duration = Duration.ZERO;
+		int stretchAndFoldIndex = 0;
+		Duration stretchAndFoldDuration = Duration.ZERO;
+		for(int i = 1; i <= transitions; i ++){
+			final int t = i - 1;
+			final LeaveningStage previousStage = stages[i - 1];
+			duration = duration.plus(previousStage.duration);
+			currentStage = stages[i];
+
+			transitionTime[t] = duration.toMinutes() / 60.;
+			previousStageDuration[t] = previousStage.duration.toMinutes() / 60.;
+			temperatureChange[t] = !previousStage.hasSameTemperature(currentStage);
+			final double previousIngredientsFactor = growthFactors[i - 1][0];
+			previousSpecificGrowth[t] = previousIngredientsFactor * growthFactors[i - 1][1];
+			currentSpecificGrowth[t] = previousIngredientsFactor * growthFactors[i][1];
+			previousVolumeDecrease[t] = previousStage.volumeDecrease;
+
+			final double currentIngredientsFactor = growthFactors[i][0];
+			while(stretchAndFoldIndex < stretchAndFoldStages.length){
+				final StretchAndFoldStage stretchAndFoldStage = stretchAndFoldStages[stretchAndFoldIndex];
+				if(stretchAndFoldDuration.plus(stretchAndFoldStage.lapse).compareTo(duration) > 0)
+					break;
+
+				stretchAndFoldDuration = stretchAndFoldDuration.plus(stretchAndFoldStage.lapse);
+
+				foldTime[stretchAndFoldIndex] = duration.minus(previousStage.duration)
+					.plus(stretchAndFoldDuration).toMinutes() / 60.;
+				foldSpecificGrowth[stretchAndFoldIndex] = currentIngredientsFactor * growthFactors[i][1];
+				foldVolumeDecrease[stretchAndFoldIndex] = stretchAndFoldStage.volumeDecrease;
+				stretchAndFoldIndex ++;
+			}
+			stretchAndFoldEnd[t] = stretchAndFoldIndex;
+		}
+		stretchAndFoldTime = foldTime;
+		stretchAndFoldSpecificGrowth = foldSpecificGrowth;
+		stretchAndFoldVolumeDecrease = foldVolumeDecrease;
+
+		final double targetIngredientsFactor = growthFactors[transitions][0];
+		targetInhibited = (targetIngredientsFactor == 0.);
+		targetTime = duration.plus(currentStage.duration).toMinutes() / 60.;
+		targetSpecificGrowth = targetIngredientsFactor * growthFactors[transitions][1];
+		targetVolumeDecrease = currentStage.volumeDecrease;
+		targetVolumeExpansionRatio = procedure.targetDoughVolumeExpansionRatio;
+
+		saltLag = dough.estimatedSaltLag();
+	}
+
+
+	/**
+	 * @param yeast	Quantity of yeast [% w/w].
+	 * @return	The difference between the volume expansion ratio reached at the end of the target stage and the target one.
+	 */
+	@Override
+	public double value(final double yeast){
+		if(targetInhibited)
+			return Double.POSITIVE_INFINITY;
+
+		final double alpha = Dough.maximumRelativeVolumeExpansionRatio(yeast);
+		double lambda = Dough.estimatedYeastLag(yeast) + saltLag;
+		double volumeExpansionRatio = 0.;
+		int stretchAndFoldIndex = 0;
+		for(int t = 0; t < transitions; t ++){
+			//avoid modifying `lambda` if the temperature is the same
+			double currentVolume = 0.;
+			if(temperatureChange[t]){
+				final double previousVolume = YeastModelAbstract.volumeExpansionRatio(transitionTime[t], lambda, alpha,
+					previousSpecificGrowth[t]);
+				lambda = Math.max(lambda - previousStageDuration[t], 0.);
+				currentVolume = YeastModelAbstract.volumeExpansionRatio(transitionTime[t], lambda, alpha, currentSpecificGrowth[t]);
+
+				volumeExpansionRatio += previousVolume - currentVolume;
+			}
+			//account for stage volume decrease
+			volumeExpansionRatio -= currentVolume * previousVolumeDecrease[t];
+
+			//apply stretch&fold volume reduction:
+			double stretchAndFoldVolumeDecrease = 0.;
+			for(; stretchAndFoldIndex < stretchAndFoldEnd[t]; stretchAndFoldIndex ++){
+				final double volumeAtStretchAndFold = YeastModelAbstract.volumeExpansionRatio(stretchAndFoldTime[stretchAndFoldIndex],
+					lambda, alpha, stretchAndFoldSpecificGrowth[stretchAndFoldIndex]);
+				stretchAndFoldVolumeDecrease += (volumeAtStretchAndFold - stretchAndFoldVolumeDecrease)
+					* this.stretchAndFoldVolumeDecrease[stretchAndFoldIndex];
+			}
+			volumeExpansionRatio -= stretchAndFoldVolumeDecrease;
+		}
+
+		//NOTE: last `stage.volumeDecrease` is NOT taken into consideration!
+		volumeExpansionRatio += YeastModelAbstract.volumeExpansionRatio(targetTime, lambda, alpha, targetSpecificGrowth);
+		return volumeExpansionRatio * (1. - targetVolumeDecrease) - targetVolumeExpansionRatio;
+	}
+
+	/**
+	 * @param yeast	Quantity of yeast [% w/w].
+	 * @param valueAndDerivative	Array where to store the difference between the volume expansion ratio reached at the end of the
+	 * 	target stage and the target one (at index 0), and its derivative w.r.t. the yeast quantity (at index 1).
+	 */
+	@Override
+	public void evaluate(final double yeast, final double[] valueAndDerivative){
+		if(targetInhibited){
+			valueAndDerivative[0] = Double.POSITIVE_INFINITY;
+			valueAndDerivative[1] = 0.;
+			return;
+		}
+
+		final double alpha = Dough.maximumRelativeVolumeExpansionRatio(yeast);
+		final double alphaDerivative = Dough.maximumRelativeVolumeExpansionRatioDerivative(yeast);
+		double lambda = Dough.estimatedYeastLag(yeast) + saltLag;
+		double lambdaDerivative = Dough.estimatedYeastLagDerivative(yeast);
+		double volumeExpansionRatio = 0.;
+		double derivative = 0.;
+		int stretchAndFoldIndex = 0;
+		for(int t = 0; t < transitions; t ++){
+			double currentVolume = 0.;
+			double currentVolumeDerivative = 0.;
+			if(temperatureChange[t]){
+				final double previousVolume = volumeExpansionRatio(transitionTime[t], lambda, alpha, previousSpecificGrowth[t],
+					lambdaDerivative, alphaDerivative);
+				final double previousVolumeDerivative = volumeExpansionRatioDerivative;
+				//the lag stops depending on the yeast once it is clamped to zero
+				if(lambda - previousStageDuration[t] <= 0.)
+					lambdaDerivative = 0.;
+				lambda = Math.max(lambda - previousStageDuration[t], 0.);
+				currentVolume = volumeExpansionRatio(transitionTime[t], lambda, alpha, currentSpecificGrowth[t], lambdaDerivative,
+					alphaDerivative);
+				currentVolumeDerivative = volumeExpansionRatioDerivative;
+
+				volumeExpansionRatio += previousVolume - currentVolume;
+				derivative += previousVolumeDerivative - currentVolumeDerivative;
+			}
+			volumeExpansionRatio -= currentVolume * previousVolumeDecrease[t];
+			derivative -= currentVolumeDerivative * previousVolumeDecrease[t];
+
+			double stretchAndFoldVolumeDecrease = 0.;
+			double stretchAndFoldVolumeDecreaseDerivative = 0.;
+			for(; stretchAndFoldIndex < stretchAndFoldEnd[t]; stretchAndFoldIndex ++){
+				final double volumeAtStretchAndFold = volumeExpansionRatio(stretchAndFoldTime[stretchAndFoldIndex], lambda, alpha,
+					stretchAndFoldSpecificGrowth[stretchAndFoldIndex], lambdaDerivative, alphaDerivative);
+				stretchAndFoldVolumeDecrease += (volumeAtStretchAndFold - stretchAndFoldVolumeDecrease)
+					* this.stretchAndFoldVolumeDecrease[stretchAndFoldIndex];
+				stretchAndFoldVolumeDecreaseDerivative += (volumeExpansionRatioDerivative - stretchAndFoldVolumeDecreaseDerivative)
+					* this.stretchAndFoldVolumeDecrease[stretchAndFoldIndex];
+			}
+			volumeExpansionRatio -= stretchAndFoldVolumeDecrease;
+			derivative -= stretchAndFoldVolumeDecreaseDerivative;
+		}
+
+		volumeExpansionRatio += volumeExpansionRatio(targetTime, lambda, alpha, targetSpecificGrowth, lambdaDerivative, alphaDerivative);
+		derivative += volumeExpansionRatioDerivative;
+		valueAndDerivative[0] = volumeExpansionRatio * (1. - targetVolumeDecrease) - targetVolumeExpansionRatio;
+		valueAndDerivative[1] = derivative * (1. - targetVolumeDecrease);
+	}
+
+	/**
+	 * Same as {@link YeastModelAbstract#volumeExpansionRatio(double, double, double, double)}, also storing the derivative w.r.t. the
+	 * yeast quantity into {@link #volumeExpansionRatioDerivative}.
+	 *
+	 * @param time	Time [hrs].
+	 * @param lambda	Time during lag phase [hrs].
+	 * @param alpha	Maximum relative volume expansion ratio.
+	 * @param mu	Specific growth rate [hrs^-1].
+	 * @param lambdaDerivative	Derivative of the lag w.r.t. the yeast quantity.
+	 * @param alphaDerivative	Derivative of the maximum relative volume expansion ratio w.r.t. the yeast quantity.
+	 * @return	Volume expansion ratio (∆V / V).
+	 */
+	private double volumeExpansionRatio(final double time, final double lambda, final double alpha, final double mu,
+			final double lambdaDerivative, final double alphaDerivative){
+		volumeExpansionRatioDerivative = 0.;
+		if(!(alpha > 0. && time > 0.))
+			return 0.;
+
+		//V = α · exp(-exp(u)), u = μ · e · (λ - t) / α + 1
+		final double u = mu * Math.E * (lambda - time) / alpha + 1.;
+		final double expU = Math.exp(u);
+		final double expMinusExpU = Math.exp(-expU);
+		if(expMinusExpU > 0.)
+			//dV/dy = ∂V/∂α · dα/dy + ∂V/∂λ · dλ/dy
+			volumeExpansionRatioDerivative = expMinusExpU * ((1. + expU * (u - 1.)) * alphaDerivative
+				- mu * Math.E * expU * lambdaDerivative);
+		return alpha * expMinusExpU;
+	}
+
+}
@@ -0,0 +1,239 @@
+/**
+ * Copyright (c) 2020 Mauro Trevisan
+ *
+ * Permission is hereby granted, free of charge, to any person
+ * obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without
+ * restriction, including without limitation the rights to use,
+ * copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the
+ * Software is furnished to do so, subject to the following
+ * conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES
+ * OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+ * WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ */
+package io.github.mtrevisan.pizza;
+
+import io.github.mtrevisan.pizza.utils.Helper;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.function.Supplier;
+
+
+/**
+ * The doughs of a production shift, made of many order lines (e.g. 180 balls of 250 g and 40 trays of 900 g) sharing the same
+ * ingredients and procedure.
+ * <p>
+ * The yeast is solved once for the whole batch, then each distinct dough weight is split into its ingredients; the totals of every
+ * ingredient (the bill of materials) are accumulated in the same pass.
+ * </p>
+ */
+public final class ProductionBatch{
+
+	private static final int LINES_INITIAL_CAPACITY = 8;
+
+
+	private final Dough dough;
+	private final Ingredients ingredients;
+	private final Procedure procedure;
+	private final Supplier<YeastSolver> solver;
+
+	/** Number of pieces of each order line. */
+	private int[] quantities = new int[LINES_INITIAL_CAPACITY];
+	/** Dough weight of a single piece of each order line [g]. */
+	private double[] doughWeights = new double[LINES_INITIAL_CAPACITY];
+	private int lines;
+
+
+	/**
+	 * @param dough	The dough.
+	 * @param ingredients	The recipe ingredients.
+	 * @param procedure	The recipe procedure.
+	 * @param solver	Gives the solver to be used by the calling thread.
+	 * @return	The production batch.
+	 */
+	static ProductionBatch create(final Dough dough, final Ingredients ingredients, final Procedure procedure,
+			final Supplier<YeastSolver> solver){
+		return new ProductionBatch(dough, ingredients, procedure, solver);
+	}
+
+	private ProductionBatch(final Dough dough, final Ingredients ingredients, final Procedure procedure,
+			final Supplier<YeastSolver> solver){
+		this.dough = dough;
+		this.ingredients = ingredients;
+		this.procedure = procedure;
+		this.solver = solver;
+	}
+
+	/**
+	 * @param quantity	Number of pieces.
+	 * @param doughWeight	Dough weight of a single piece [g].
+	 * @return	This instance.
+	 */
+	public ProductionBatch withOrder(final int quantity, final double doughWeight){
+		if(quantity <= 0)
+			throw new IllegalArgumentException("Quantity must be positive");
+		if(doughWeight <= 0.)
+			throw new IllegalArgumentException("Dough weight must be positive");
+
+		if(lines == quantities.length){
+			quantities = Arrays.copyOf(quantities, lines << 1);
+			doughWeights = Arrays.copyOf(doughWeights, lines << 1);
+		}
+		quantities[lines] = quantity;
+		doughWeights[lines] = doughWeight;
+		lines ++;
+
+		return this;
+	}
+
+
+	/**
+	 * @return	The recipe of each order line and the bill of materials.
+	 */
+	public Result calculate() throws DoughException, YeastException{
+		if(lines == 0)
+			throw DoughException.create("At least one order must be given");
+
+		final double yeastFraction = dough.prepareRecipe(ingredients, procedure, solver.get());
+
+		//the times do not depend on the dough weight
+		final Recipe total = Dough.scheduleRecipe(Recipe.create(), procedure);
+
+		final Map<Double, Recipe> recipeByWeight = new HashMap<>();
+		final Recipe[] recipes = new Recipe[lines];
+		double totalDoughWeight = 0.;
+		double flour = 0.;
+		double water = 0.;
+		double waterHeat = 0.;
+		boolean waterTemperature = false;
+		double yeast = 0.;
+		double sugar = 0.;
+		double fat = 0.;
+		double salt = 0.;
+		for(int i = 0; i < lines; i ++){
+			final Recipe recipe = recipeByWeight.computeIfAbsent(doughWeights[i],
+				doughWeight -> Dough.scheduleRecipe(dough.calculateIngredients(ingredients, doughWeight, yeastFraction, null), procedure));
+			recipes[i] = recipe;
+
+			final int quantity = quantities[i];
+			totalDoughWeight += quantity * doughWeights[i];
+			flour += quantity * recipe.getFlour();
+			water += quantity * recipe.getWater();
+			if(recipe.getWaterTemperature() != null){
+				waterHeat += quantity * recipe.getWater() * recipe.getWaterTemperature();
+				waterTemperature = true;
+			}
+			yeast += quantity * recipe.getYeast();
+			sugar += quantity * recipe.getSugar();
+			fat += quantity * recipe.getFat();
+			salt += quantity * recipe.getSalt();
+		}
+
+		//the water temperature is the same for each piece, except for the rounding, so the mean weighted by water is taken (the pieces
+		//whose water is clamped to zero have no temperature, and weigh nothing)
+		total.withFlour(flour)
+			.withWater(water, (waterTemperature? waterHeat / water: null))
+			.withYeast(yeast)
+			.withSugar(sugar)
+			.withFat(fat)
+			.withSalt(salt);
+		return new Result(Arrays.copyOf(quantities, lines), recipes, total, totalDoughWeight, recipeByWeight.size());
+	}
+
+
+	public static final class Result{
+
+		private final int[] quantities;
+		private final Recipe[] recipes;
+		private final Recipe total;
+		/** Total dough weight [g]. */
+		private final double totalDoughWeight;
+		/** Number of distinct dough weights. */
+		private final int sizes;
+
+
+		private Result(final int[] quantities, final Recipe[] recipes, final Recipe total, final double totalDoughWeight,
+				final int sizes){
+			this.quantities = quantities;
+			this.recipes = recipes;
+			this.total = total;
+			this.totalDoughWeight = totalDoughWeight;
+			this.sizes = sizes;
+		}
+
+		/**
+		 * @return	The number of order lines.
+		 */
+		public int getLines(){
+			return recipes.length;
+		}
+
+		/**
+		 * @return	The number of distinct dough weights, that is the number of ingredients calculations done.
+		 */
+		public int getSizes(){
+			return sizes;
+		}
+
+		/**
+		 * @param line	The index of the order line.
+		 * @return	Number of pieces of the order line.
+		 */
+		public int getQuantity(final int line){
+			return quantities[line];
+		}
+
+		/**
+		 * NOTE: order lines with the same dough weight share the same recipe.
+		 *
+		 * @param line	The index of the order line.
+		 * @return	The recipe of a single piece of the order line.
+		 */
+		public Recipe getRecipe(final int line){
+			return recipes[line];
+		}
+
+		/**
+		 * @return	The bill of materials, that is the sum of the ingredients of all the pieces, with the times of the procedure.
+		 */
+		public Recipe getTotal(){
+			return total;
+		}
+
+		/**
+		 * @return	Total dough weight [g].
+		 */
+		public double getTotalDoughWeight(){
+			return totalDoughWeight;
+		}
+
+		@Override
+		public String toString(){
+			final StringBuilder sb = new StringBuilder();
+			for(int i = 0; i < recipes.length; i ++){
+				final Recipe recipe = recipes[i];
+				sb.append(quantities[i]).append(" x ")
+					.append(Helper.round(recipe.getFlour() + recipe.getWater() + recipe.getYeast() + recipe.getSugar() + recipe.getFat()
+						+ recipe.getSalt(), 1))
+					.append(" g, ");
+			}
+			return sb.append("total ").append(Helper.round(totalDoughWeight, 1)).append(" g: ").append(total)
+				.toString();
+		}
+
+	}
+
+}
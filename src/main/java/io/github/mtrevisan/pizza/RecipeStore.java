@@ -0,0 +1,375 @@
+/**
+ * Copyright (c) 2020 Mauro Trevisan
+ *
+ * Permission is hereby granted, free of charge, to any person
+ * obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without
+ * restriction, including without limitation the rights to use,
+ * copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the
+ * Software is furnished to do so, subject to the following
+ * conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES
+ * OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+ * WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ */
+package io.github.mtrevisan.pizza;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+
+/**
+ * Columnar store of many recipes, kept off-heap.
+ * <p>
+ * Every solved quantity of a recipe (see {@link Column}, the instants as seconds of the day), the start and end instants of a fixed
+ * number of stages, and any number of extra columns (e.g. the swept parameters, or the estimated lag) are stored as primitives, without
+ * an object per row; a missing value (e.g. the water temperature, or the instants of a missing stage) is stored as {@link Double#NaN}.
+ * <br />
+ * The rows are kept in chunks of {@value #CHUNK_ROWS}, each holding the values of a column contiguously, allocated in direct memory or
+ * mapped onto a file (whose previous content is lost) as the store grows. Values can be stored in single precision, halving the
+ * memory.<br />
+ * NOTE: {@link #close()} closes the backing file and makes the store unusable, but the memory of the chunks (direct or mapped) is
+ * released, and a mapped file unmapped, only when the chunks are garbage collected, as no API frees them deterministically.
+ * </p>
+ * <p>
+ * The instance is not thread-safe.
+ * </p>
+ */
+public final class RecipeStore implements Closeable{
+
+	private static final int CHUNK_SHIFT = 16;
+	private static final int CHUNK_ROWS = 1 << CHUNK_SHIFT;
+	private static final int CHUNK_MASK = CHUNK_ROWS - 1;
+
+
+	/** Solved quantities of a recipe. */
+	public enum Column{
+		/** Flour quantity [g]. */
+		FLOUR,
+		/** Water quantity [g]. */
+		WATER,
+		/** Water temperature [°C]. */
+		WATER_TEMPERATURE,
+		/** Yeast quantity [g]. */
+		YEAST,
+		/** Sugar quantity [g]. */
+		SUGAR,
+		/** Fat quantity [g]. */
+		FAT,
+		/** Salt quantity [g]. */
+		SALT,
+		/** Time to start making the dough [s of the day]. */
+		DOUGH_MAKING,
+		/** Time to start seasoning the pizza [s of the day]. */
+		SEASONING
+	}
+
+	private static final Column[] COLUMNS = Column.values();
+
+
+	/** Width of a stored value. */
+	public enum Precision{
+		DOUBLE(Double.BYTES),
+		FLOAT(Float.BYTES);
+
+		private final int bytes;
+
+		Precision(final int bytes){
+			this.bytes = bytes;
+		}
+	}
+
+
+	private final Precision precision;
+	private final int stages;
+	private final String[] extraColumns;
+	private final int columnCount;
+	private final long chunkBytes;
+	/** The file backing the store, {@code null} if kept in direct memory. */
+	private final FileChannel channel;
+	private final List<ByteBuffer> chunks = new ArrayList<>();
+	private long size;
+	private boolean closed;
+
+
+	/**
+	 * @param stages	The number of stages of each recipe.
+	 * @param extraColumns	The names of the extra columns.
+	 * @return	A store in direct memory, with double precision.
+	 */
+	public static RecipeStore create(final int stages, final String... extraColumns){
+		return create(Precision.DOUBLE, stages, extraColumns);
+	}
+
+	/**
+	 * @param precision	The precision of the stored values.
+	 * @param stages	The number of stages of each recipe.
+	 * @param extraColumns	The names of the extra columns.
+	 * @return	A store in direct memory.
+	 */
+	public static RecipeStore create(final Precision precision, final int stages, final String... extraColumns){
+		validate(precision, stages, extraColumns);
+
+		return new RecipeStore(precision, stages, extraColumns.clone(), null);
+	}
+
+	/**
+	 * @param file	The file backing the store, overwritten.
+	 * @param precision	The precision of the stored values.
+	 * @param stages	The number of stages of each recipe.
+	 * @param extraColumns	The names of the extra columns.
+	 * @return	A store mapped onto the given file.
+	 * @throws IOException	If the file cannot be opened.
+	 */
+	public static RecipeStore create(final Path file, final Precision precision, final int stages, final String... extraColumns)
+			throws IOException{
+		if(file == null)
+			throw new IllegalArgumentException("File must be valued");
+		validate(precision, stages, extraColumns);
+
+		final FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING,
+			StandardOpenOption.READ, StandardOpenOption.WRITE);
+		return new RecipeStore(precision, stages, extraColumns.clone(), channel);
+	}
+
+	private static void validate(final Precision precision, final int stages, final String[] extraColumns){
+		if(precision == null)
+			throw new IllegalArgumentException("Precision must be valued");
+		if(stages < 0)
+			throw new IllegalArgumentException("Stages must be non-negative");
+		if(extraColumns == null || Arrays.asList(extraColumns).contains(null))
+			throw new IllegalArgumentException("Extra columns must be valued");
+	}
+
+	private RecipeStore(final Precision precision, final int stages, final String[] extraColumns, final FileChannel channel){
+		this.precision = precision;
+		this.stages = stages;
+		this.extraColumns = extraColumns;
+		this.channel = channel;
+		columnCount = COLUMNS.length + (stages << 1) + extraColumns.length;
+		chunkBytes = (long)CHUNK_ROWS * columnCount * precision.bytes;
+	}
+
+
+	/**
+	 * @param recipe	The recipe, with at most as many stages as the store.
+	 * @param extras	The values of the extra columns.
+	 * @return	The index of the appended row.
+	 * @throws IOException	If the store is file-backed and the file cannot be extended.
+	 * @throws IllegalStateException	If the store is closed.
+	 */
+	public long append(final Recipe recipe, final double... extras) throws IOException{
+		validateOpen();
+		if(recipe == null)
+			throw new IllegalArgumentException("Recipe must be valued");
+		final LocalTime[][] stageInstants = recipe.getStageStartEndInstants();
+		if(stageInstants != null && stageInstants.length > stages)
+			throw new IllegalArgumentException("Recipe must have at most " + stages + " stages");
+		if(extras == null || extras.length != extraColumns.length)
+			throw new IllegalArgumentException("Extras must be " + extraColumns.length);
+
+		if((size & CHUNK_MASK) == 0 && (size >>> CHUNK_SHIFT) == chunks.size())
+			chunks.add(allocateChunk(chunks.size()));
+
+		final long row = size;
+		put(row, Column.FLOUR.ordinal(), recipe.getFlour());
+		put(row, Column.WATER.ordinal(), recipe.getWater());
+		final Double waterTemperature = recipe.getWaterTemperature();
+		put(row, Column.WATER_TEMPERATURE.ordinal(), (waterTemperature != null? waterTemperature: Double.NaN));
+		put(row, Column.YEAST.ordinal(), recipe.getYeast());
+		put(row, Column.SUGAR.ordinal(), recipe.getSugar());
+		put(row, Column.FAT.ordinal(), recipe.getFat());
+		put(row, Column.SALT.ordinal(), recipe.getSalt());
+		put(row, Column.DOUGH_MAKING.ordinal(), toSeconds(recipe.getDoughMakingInstant()));
+		put(row, Column.SEASONING.ordinal(), toSeconds(recipe.getSeasoningInstant()));
+		for(int i = 0; i < stages; i ++){
+			final LocalTime[] instants = (stageInstants != null && i < stageInstants.length? stageInstants[i]: null);
+			put(row, stageColumn(i), (instants != null? toSeconds(instants[0]): Double.NaN));
+			put(row, stageColumn(i) + 1, (instants != null? toSeconds(instants[1]): Double.NaN));
+		}
+		for(int i = 0; i < extras.length; i ++)
+			put(row, extraColumn(i), extras[i]);
+
+		size ++;
+		return row;
+	}
+
+	private ByteBuffer allocateChunk(final int index) throws IOException{
+		final ByteBuffer chunk = (channel != null
+			? channel.map(FileChannel.MapMode.READ_WRITE, index * chunkBytes, chunkBytes)
+			: ByteBuffer.allocateDirect(Math.toIntExact(chunkBytes)));
+		return chunk.order(ByteOrder.nativeOrder());
+	}
+
+	private static double toSeconds(final LocalTime instant){
+		return (instant != null? instant.toSecondOfDay(): Double.NaN);
+	}
+
+	/**
+	 * @return	The number of rows.
+	 */
+	public long size(){
+		return size;
+	}
+
+	/**
+	 * @return	The number of stages of each recipe.
+	 */
+	public int getStages(){
+		return stages;
+	}
+
+	/**
+	 * @param name	The name of an extra column.
+	 * @return	The index of the extra column, or {@code -1} if not present.
+	 */
+	public int indexOfExtra(final String name){
+		return Arrays.asList(extraColumns)
+			.indexOf(name);
+	}
+
+	/**
+	 * @param row	The index of the row.
+	 * @param column	The column.
+	 * @return	The value.
+	 */
+	public double get(final long row, final Column column){
+		return get(row, column.ordinal());
+	}
+
+	/**
+	 * @param row	The index of the row.
+	 * @param stage	The index of the stage.
+	 * @return	The start instant of the stage [s of the day].
+	 */
+	public double getStageStart(final long row, final int stage){
+		return get(row, stageColumn(validateStage(stage)));
+	}
+
+	/**
+	 * @param row	The index of the row.
+	 * @param stage	The index of the stage.
+	 * @return	The end instant of the stage [s of the day].
+	 */
+	public double getStageEnd(final long row, final int stage){
+		return get(row, stageColumn(validateStage(stage)) + 1);
+	}
+
+	/**
+	 * @param row	The index of the row.
+	 * @param extra	The index of the extra column (see {@link #indexOfExtra(String)}).
+	 * @return	The value.
+	 */
+	public double getExtra(final long row, final int extra){
+		if(extra < 0 || extra >= extraColumns.length)
+			throw new IndexOutOfBoundsException("Extra column " + extra + " out of bounds for length " + extraColumns.length);
+
+		return get(row, extraColumn(extra));
+	}
+
+	/**
+	 * @param row	The index of the row.
+	 * @return	The recipe, reconstructed from the stored values.
+	 */
+	public Recipe getRecipe(final long row){
+		final double waterTemperature = get(row, Column.WATER_TEMPERATURE);
+		final LocalTime[][] stageInstants = new LocalTime[stages][];
+		int stageCount = 0;
+		while(stageCount < stages && !Double.isNaN(getStageStart(row, stageCount))){
+			stageInstants[stageCount] = new LocalTime[]{toInstant(getStageStart(row, stageCount)),
+				toInstant(getStageEnd(row, stageCount))};
+			stageCount ++;
+		}
+
+		return Recipe.create()
+			.withFlour(get(row, Column.FLOUR))
+			.withWater(get(row, Column.WATER), (Double.isNaN(waterTemperature)? null: waterTemperature))
+			.withYeast(get(row, Column.YEAST))
+			.withSugar(get(row, Column.SUGAR))
+			.withFat(get(row, Column.FAT))
+			.withSalt(get(row, Column.SALT))
+			.withDoughMakingInstant(toInstant(get(row, Column.DOUGH_MAKING)))
+			.withStageStartEndInstants(Arrays.copyOf(stageInstants, stageCount))
+			.withSeasoningInstant(toInstant(get(row, Column.SEASONING)));
+	}
+
+	private static LocalTime toInstant(final double seconds){
+		return (Double.isNaN(seconds)? null: LocalTime.ofSecondOfDay(Math.round(seconds)));
+	}
+
+	/**
+	 * Closes the backing file (if any), and drops the chunks, whose memory is released when they are garbage collected.
+	 */
+	@Override
+	public void close() throws IOException{
+		if(closed)
+			return;
+
+		closed = true;
+		chunks.clear();
+		size = 0l;
+		if(channel != null)
+			channel.close();
+	}
+
+
+	private void validateOpen(){
+		if(closed)
+			throw new IllegalStateException("Store is closed");
+	}
+
+	private int validateStage(final int stage){
+		if(stage < 0 || stage >= stages)
+			throw new IndexOutOfBoundsException("Stage " + stage + " out of bounds for length " + stages);
+
+		return stage;
+	}
+
+	private int stageColumn(final int stage){
+		return COLUMNS.length + (stage << 1);
+	}
+
+	private int extraColumn(final int extra){
+		return COLUMNS.length + (stages << 1) + extra;
+	}
+
+	private void put(final long row, final int column, final double value){
+		final ByteBuffer chunk = chunks.get((int)(row >>> CHUNK_SHIFT));
+		final int index = column * CHUNK_ROWS + (int)(row & CHUNK_MASK);
+		if(precision == Precision.FLOAT)
+			chunk.putFloat(index * Float.BYTES, (float)value);
+		else
+			chunk.putDouble(index * Double.BYTES, value);
+	}
+
+	private double get(final long row, final int column){
+		if(row < 0l || row >= size){
+			validateOpen();
+			throw new IndexOutOfBoundsException("Row " + row + " out of bounds for length " + size);
+		}
+
+		final ByteBuffer chunk = chunks.get((int)(row >>> CHUNK_SHIFT));
+		final int index = column * CHUNK_ROWS + (int)(row & CHUNK_MASK);
+		return (precision == Precision.FLOAT? chunk.getFloat(index * Float.BYTES): chunk.getDouble(index * Double.BYTES));
+	}
+
+}
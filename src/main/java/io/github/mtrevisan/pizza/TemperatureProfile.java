@@ -0,0 +1,272 @@
+/**
+ * Copyright (c) 2020 Mauro Trevisan
+ *
+ * Permission is hereby granted, free of charge, to any person
+ * obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without
+ * restriction, including without limitation the rights to use,
+ * copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the
+ * Software is furnished to do so, subject to the following
+ * conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES
+ * OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+ * WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ */
+package io.github.mtrevisan.pizza;
+
+import io.github.mtrevisan.pizza.utils.Helper;
+import io.github.mtrevisan.pizza.yeasts.YeastModelAbstract;
+import org.apache.commons.math3.ode.FirstOrderDifferentialEquations;
+import org.apache.commons.math3.ode.FirstOrderIntegrator;
+import org.apache.commons.math3.ode.nonstiff.DormandPrince54Integrator;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.function.DoubleUnaryOperator;
+
+
+/**
+ * Temperature of a leavening stage varying over time, either as a piecewise-linear table or as a function of time.
+ * <p>
+ * The growth over the stage is integrated with an adaptive-step Dormand-Prince 5(4) integrator, each linear piece separately, so the
+ * cost depends on the number of pieces and on how much the temperature bends, not on the duration of the stage.
+ * </p>
+ */
+public final class TemperatureProfile{
+
+	/** Minimum step of the integrator [hrs]. */
+	private static final double INTEGRATOR_STEP_MIN = 0.000_001;
+	private static final double INTEGRATOR_ABSOLUTE_TOLERANCE = 0.000_000_01;
+	private static final double INTEGRATOR_RELATIVE_TOLERANCE = 0.000_000_01;
+	private static final double NANOS_PER_HOUR = 3_600_000_000_000.;
+	/** Number of intervals at which a function profile is sampled to find its extremes. */
+	private static final int FUNCTION_SAMPLES = 256;
+
+
+	/** Time of each node from the start of the stage [hrs], `null` for a function profile. */
+	private final double[] times;
+	/** Temperature at each node [°C], `null` for a function profile. */
+	private final double[] temperatures;
+	/** Temperature as a function of the time from the start of the stage [hrs → °C], `null` for a piecewise-linear profile. */
+	private final DoubleUnaryOperator temperature;
+	private final Duration duration;
+
+	private final double temperatureMin;
+	private final double temperatureMax;
+	/** Time-weighted mean temperature [°C]. */
+	private final double temperatureMean;
+
+
+	/**
+	 * @param times	Time of each node from the start of the stage, the first must be zero, the last is the duration of the stage.
+	 * @param temperatures	Temperature at each node [°C].
+	 * @return	The instance.
+	 */
+	public static TemperatureProfile createPiecewiseLinear(final Duration[] times, final double[] temperatures) throws DoughException{
+		if(times == null || temperatures == null || times.length != temperatures.length || times.length < 2)
+			throw DoughException.create("Temperature profile must have the same number of times and temperatures, at least two");
+		if(!times[0].isZero())
+			throw DoughException.create("Temperature profile must start at time zero");
+		final double[] hours = new double[times.length];
+		for(int i = 0; i < times.length; i ++){
+			hours[i] = times[i].toNanos() / NANOS_PER_HOUR;
+			if(i > 0 && hours[i] <= hours[i - 1])
+				throw DoughException.create("Temperature profile times must be strictly increasing");
+		}
+		return new TemperatureProfile(hours, temperatures.clone(), times[times.length - 1]);
+	}
+
+	/**
+	 * @param temperature	Temperature as a function of the time from the start of the stage [hrs → °C].
+	 * @param duration	Duration of the stage.
+	 * @return	The instance.
+	 */
+	public static TemperatureProfile create(final DoubleUnaryOperator temperature, final Duration duration) throws DoughException{
+		if(temperature == null)
+			throw DoughException.create("Temperature function should be present");
+		if(duration == null || duration.isNegative() || duration.isZero())
+			throw DoughException.create("Duration should be present and non-negative");
+
+		return new TemperatureProfile(temperature, duration);
+	}
+
+	private TemperatureProfile(final double[] times, final double[] temperatures, final Duration duration){
+		this.times = times;
+		this.temperatures = temperatures;
+		temperature = null;
+		this.duration = duration;
+
+		double min = Double.POSITIVE_INFINITY;
+		double max = Double.NEGATIVE_INFINITY;
+		for(final double t : temperatures){
+			min = Math.min(min, t);
+			max = Math.max(max, t);
+		}
+		temperatureMin = min;
+		temperatureMax = max;
+		//trapezoidal rule, exact for linear pieces
+		double area = 0.;
+		for(int i = 1; i < times.length; i ++)
+			area += (temperatures[i - 1] + temperatures[i]) * (times[i] - times[i - 1]) / 2.;
+		temperatureMean = area / times[times.length - 1];
+	}
+
+	private TemperatureProfile(final DoubleUnaryOperator temperature, final Duration duration){
+		times = null;
+		temperatures = null;
+		this.temperature = temperature;
+		this.duration = duration;
+
+		final double hours = duration.toNanos() / NANOS_PER_HOUR;
+		double min = Double.POSITIVE_INFINITY;
+		double max = Double.NEGATIVE_INFINITY;
+		for(int i = 0; i <= FUNCTION_SAMPLES; i ++){
+			final double t = temperature.applyAsDouble(hours * i / FUNCTION_SAMPLES);
+			min = Math.min(min, t);
+			max = Math.max(max, t);
+		}
+		temperatureMin = min;
+		temperatureMax = max;
+		final double[] area = integrate(new FirstOrderDifferentialEquations(){
+			@Override
+			public int getDimension(){
+				return 1;
+			}
+
+			@Override
+			public void computeDerivatives(final double time, final double[] y, final double[] yDot){
+				yDot[0] = temperature.applyAsDouble(time);
+			}
+		});
+		temperatureMean = area[0] / hours;
+	}
+
+	/**
+	 * @param temperatureChange	Change of temperature [°C].
+	 * @return	The same profile, with every temperature changed by the given amount.
+	 */
+	TemperatureProfile shift(final double temperatureChange){
+		if(temperature != null)
+			return new TemperatureProfile(time -> temperature.applyAsDouble(time) + temperatureChange, duration);
+
+		final double[] shiftedTemperatures = new double[temperatures.length];
+		for(int i = 0; i < temperatures.length; i ++)
+			shiftedTemperatures[i] = temperatures[i] + temperatureChange;
+		return new TemperatureProfile(times, shiftedTemperatures, duration);
+	}
+
+	/**
+	 * @param time	Time from the start of the stage [hrs].
+	 * @return	The temperature at the given time [°C].
+	 */
+	public double temperature(final double time){
+		if(temperature != null)
+			return temperature.applyAsDouble(time);
+
+		int index = Arrays.binarySearch(times, time);
+		if(index >= 0)
+			return temperatures[index];
+
+		index = Math.min(Math.max(-index - 2, 0), times.length - 2);
+		return temperatures[index] + (temperatures[index + 1] - temperatures[index]) * (time - times[index])
+			/ (times[index + 1] - times[index]);
+	}
+
+	public Duration getDuration(){
+		return duration;
+	}
+
+	public double getTemperatureMin(){
+		return temperatureMin;
+	}
+
+	public double getTemperatureMax(){
+		return temperatureMax;
+	}
+
+	/**
+	 * @return	The time-weighted mean temperature [°C].
+	 */
+	public double getTemperatureMean(){
+		return temperatureMean;
+	}
+
+	/**
+	 * @return	The values that identify a piecewise-linear profile, `null` for a function profile.
+	 */
+	double[] fingerprint(){
+		if(times == null)
+			return null;
+
+		final double[] values = new double[times.length << 1];
+		System.arraycopy(times, 0, values, 0, times.length);
+		System.arraycopy(temperatures, 0, values, times.length, times.length);
+		return values;
+	}
+
+	/**
+	 * Integrate the specific growth over the stage.
+	 *
+	 * @param dough	The dough.
+	 * @param yeastModel	The yeast model.
+	 * @return	The mean maximum specific growth corrected by the ingredients factor (at index 0) and the mean maximum specific growth
+	 * 	(at index 1) [hrs^-1].
+	 */
+	double[] meanSpecificGrowth(final Dough dough, final YeastModelAbstract yeastModel){
+		final double[] integral = integrate(new FirstOrderDifferentialEquations(){
+			@Override
+			public int getDimension(){
+				return 2;
+			}
+
+			@Override
+			public void computeDerivatives(final double time, final double[] y, final double[] yDot){
+				final double temperature = temperature(time);
+				final double maximumSpecificGrowth = yeastModel.maximumSpecificGrowth(temperature);
+				yDot[0] = dough.ingredientsFactor(temperature) * maximumSpecificGrowth;
+				yDot[1] = maximumSpecificGrowth;
+			}
+		});
+		final double hours = duration.toNanos() / NANOS_PER_HOUR;
+		integral[0] /= hours;
+		integral[1] /= hours;
+		return integral;
+	}
+
+	/**
+	 * Integrate the given equations over the whole profile, piece by piece, starting from zero.
+	 *
+	 * @param equations	The equations.
+	 * @return	The integral.
+	 */
+	private double[] integrate(final FirstOrderDifferentialEquations equations){
+		final double[] nodes = (times != null? times: new double[]{0., duration.toNanos() / NANOS_PER_HOUR});
+		final double[] y = new double[equations.getDimension()];
+		for(int i = 1; i < nodes.length; i ++){
+			final double start = nodes[i - 1];
+			final double end = nodes[i];
+			final FirstOrderIntegrator integrator = new DormandPrince54Integrator(INTEGRATOR_STEP_MIN, end - start,
+				INTEGRATOR_ABSOLUTE_TOLERANCE, INTEGRATOR_RELATIVE_TOLERANCE);
+			integrator.integrate(equations, start, y, end, y);
+		}
+		return y;
+	}
+
+	@Override
+	public String toString(){
+		return getClass().getSimpleName() + "{" + (times != null? times.length + " nodes": "function") + ", "
+			+ Helper.round(temperatureMin, 1) + "-" + Helper.round(temperatureMax, 1) + " °C for "
+			+ Helper.round(duration.toNanos() / NANOS_PER_HOUR, 2) + " hrs}";
+	}
+
+}
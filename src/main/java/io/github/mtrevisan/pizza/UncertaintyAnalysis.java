@@ -0,0 +1,336 @@
+/**
+ * Copyright (c) 2020 Mauro Trevisan
+ *
+ * Permission is hereby granted, free of charge, to any person
+ * obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without
+ * restriction, including without limitation the rights to use,
+ * copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the
+ * Software is furnished to do so, subject to the following
+ * conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES
+ * OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+ * WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ */
+package io.github.mtrevisan.pizza;
+
+import io.github.mtrevisan.pizza.utils.Helper;
+import io.github.mtrevisan.pizza.utils.QuantileSketch;
+import io.github.mtrevisan.pizza.yeasts.YeastModelAbstract;
+
+import java.util.Arrays;
+import java.util.Objects;
+import java.util.SplittableRandom;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+
+/**
+ * Monte Carlo propagation of the uncertainties of the yeast model parameters and of the stage temperatures to the yeast quantity, or
+ * to the time to reach the target volume expansion ratio.
+ * <p>
+ * Each sample draws a yeast model (see {@link YeastModelAbstract#sample(SplittableRandom)}) and the temperature of every stage
+ * (normally distributed around the planned one, a temperature profile being shifted as a whole), then solves it; the results are
+ * collected into mergeable quantile sketches, so the memory is bounded regardless of the number of samples.<br />
+ * The samples are split between the threads of the pool, each part with its own random generator split from the one of its parent,
+ * so the results depend only on the seed and not on the number of threads.
+ * </p>
+ */
+public final class UncertaintyAnalysis{
+
+	/** Number of samples under which the work is no longer split. */
+	private static final int SPLIT_THRESHOLD = 64;
+	private static final int SAMPLES_DEFAULT = 10_000;
+
+
+	/** Computes the value of a sample, {@link Double#NaN} if it has no solution. */
+	@FunctionalInterface
+	private interface Sampler{
+		double value(YeastModelAbstract yeastModel, Procedure procedure);
+	}
+
+
+	private final Dough dough;
+	private final YeastModelAbstract yeastModel;
+	private final Procedure procedure;
+	private final ThreadLocal<YeastSolver> solvers = ThreadLocal.withInitial(YeastSolver::create);
+
+	private int samples = SAMPLES_DEFAULT;
+	private long seed;
+	private boolean yeastModelUncertainty = true;
+	/** Standard deviation of the temperature of each stage [°C]. */
+	private double[] stageTemperatureUncertainty;
+	private ForkJoinPool pool = ForkJoinPool.commonPool();
+
+
+	/**
+	 * @param dough	The dough.
+	 * @param yeastModel	The yeast model.
+	 * @param procedure	The procedure.
+	 * @return	The analysis.
+	 */
+	static UncertaintyAnalysis create(final Dough dough, final YeastModelAbstract yeastModel, final Procedure procedure){
+		return new UncertaintyAnalysis(dough, yeastModel, procedure);
+	}
+
+	private UncertaintyAnalysis(final Dough dough, final YeastModelAbstract yeastModel, final Procedure procedure){
+		this.dough = dough;
+		this.yeastModel = yeastModel;
+		this.procedure = procedure;
+		stageTemperatureUncertainty = new double[procedure.leaveningStages.length];
+	}
+
+	/**
+	 * @param samples	Number of samples (default is 10 000).
+	 * @return	This instance.
+	 */
+	public UncertaintyAnalysis withSamples(final int samples){
+		if(samples <= 0)
+			throw new IllegalArgumentException("Samples must be positive");
+
+		this.samples = samples;
+
+		return this;
+	}
+
+	/**
+	 * @param seed	Seed of the random generator (default is zero).
+	 * @return	This instance.
+	 */
+	public UncertaintyAnalysis withSeed(final long seed){
+		this.seed = seed;
+
+		return this;
+	}
+
+	/**
+	 * Use the nominal parameters of the yeast model in every sample.
+	 *
+	 * @return	This instance.
+	 */
+	public UncertaintyAnalysis withoutYeastModelUncertainty(){
+		yeastModelUncertainty = false;
+
+		return this;
+	}
+
+	/**
+	 * @param standardDeviations	Standard deviation of the temperature of each stage [°C], or a single one for every stage (default is
+	 * 	zero).
+	 * @return	This instance.
+	 */
+	public UncertaintyAnalysis withStageTemperatureUncertainty(final double... standardDeviations){
+		final int stages = procedure.leaveningStages.length;
+		if(standardDeviations == null || standardDeviations.length != 1 && standardDeviations.length != stages)
+			throw new IllegalArgumentException("Standard deviations must be one or as many as the leavening stages");
+		for(final double standardDeviation : standardDeviations)
+			if(!(standardDeviation >= 0.))
+				throw new IllegalArgumentException("Standard deviations must be non-negative");
+
+		stageTemperatureUncertainty = (standardDeviations.length == stages? standardDeviations.clone():
+			filled(stages, standardDeviations[0]));
+
+		return this;
+	}
+
+	private static double[] filled(final int length, final double value){
+		final double[] array = new double[length];
+		Arrays.fill(array, value);
+		return array;
+	}
+
+	/**
+	 * @param pool	The pool to run the samples into (default is the common pool).
+	 * @return	This instance.
+	 */
+	public UncertaintyAnalysis withPool(final ForkJoinPool pool){
+		Objects.requireNonNull(pool, "Pool must be valued");
+
+		this.pool = pool;
+
+		return this;
+	}
+
+
+	/**
+	 * @return	The distribution of the yeast quantity [% w/w].
+	 */
+	public Distribution calculateYeast(){
+		//every search starts from the nominal yeast quantity, that is usually near the solution
+		double nominalYeast;
+		try{
+			nominalYeast = dough.solveYeast(procedure, yeastModel, solvers.get(), Double.NaN);
+		}
+		catch(final YeastException e){
+			nominalYeast = Double.NaN;
+		}
+
+		final double previousYeast = nominalYeast;
+		return run((sampledYeastModel, sampledProcedure) -> {
+			try{
+				return dough.solveYeast(sampledProcedure, sampledYeastModel, solvers.get(), previousYeast);
+			}
+			catch(final YeastException e){
+				return Double.NaN;
+			}
+		});
+	}
+
+	/**
+	 * @param yeast	Quantity of yeast [% w/w].
+	 * @return	The distribution of the time at which the target volume expansion ratio is reached [hrs].
+	 * @throws DoughException	If the yeast quantity is not valid.
+	 * @see Dough#calculateTimeToTarget(Procedure, double)
+	 */
+	public Distribution calculateTimeToTarget(final double yeast) throws DoughException{
+		if(yeast <= 0. || yeast > Dough.SOLVER_YEAST_MAX)
+			throw DoughException.create("Yeast [% w/w] must be between 0 and {}%", Helper.round(Dough.SOLVER_YEAST_MAX * 100., 1));
+
+		return run((sampledYeastModel, sampledProcedure) -> FermentationSimulator.create(dough, sampledYeastModel, sampledProcedure, yeast)
+			.timeToVolumeExpansionRatio(sampledProcedure.targetDoughVolumeExpansionRatio));
+	}
+
+	private Distribution run(final Sampler sampler){
+		final Tally tally = pool.invoke(new SampleTask(sampler, samples, new SplittableRandom(seed)));
+		return new Distribution(samples, tally.failures, tally.sketch);
+	}
+
+	private double sample(final Sampler sampler, final SplittableRandom random){
+		final YeastModelAbstract sampledYeastModel = (yeastModelUncertainty? yeastModel.sample(random): yeastModel);
+
+		Procedure sampledProcedure = procedure;
+		final LeaveningStage[] stages = procedure.leaveningStages;
+		for(int i = 0; i < stages.length; i ++)
+			if(stageTemperatureUncertainty[i] > 0.){
+				if(sampledProcedure == procedure)
+					sampledProcedure = procedure.withLeaveningStages(stages.clone());
+				sampledProcedure.leaveningStages[i] = stages[i].shift(stageTemperatureUncertainty[i] * Helper.nextGaussian(random));
+			}
+
+		return sampler.value(sampledYeastModel, sampledProcedure);
+	}
+
+
+	/** Partial result of a part of the samples. */
+	private static final class Tally{
+
+		private final QuantileSketch sketch = QuantileSketch.create();
+		private int failures;
+
+
+		Tally merge(final Tally other){
+			sketch.merge(other.sketch);
+			failures += other.failures;
+			return this;
+		}
+
+	}
+
+	private final class SampleTask extends RecursiveTask<Tally>{
+
+		private final Sampler sampler;
+		private final int samples;
+		private final SplittableRandom random;
+
+
+		SampleTask(final Sampler sampler, final int samples, final SplittableRandom random){
+			this.sampler = sampler;
+			this.samples = samples;
+			this.random = random;
+		}
+
+		@Override
+		protected Tally compute(){
+			if(samples <= SPLIT_THRESHOLD){
+				final Tally tally = new Tally();
+				for(int i = 0; i < samples; i ++){
+					final double value = sample(sampler, random);
+					if(value >= 0. && value < Double.POSITIVE_INFINITY)
+						tally.sketch.add(value);
+					else
+						tally.failures ++;
+				}
+				return tally;
+			}
+
+			//split the generator before forking, so that each part draws the same numbers whatever thread runs it
+			final int half = samples >>> 1;
+			final SampleTask left = new SampleTask(sampler, half, random.split());
+			left.fork();
+			final Tally tally = new SampleTask(sampler, samples - half, random)
+				.compute();
+			return tally.merge(left.join());
+		}
+
+	}
+
+
+	/** Distribution of the results of the samples. */
+	public static final class Distribution{
+
+		private final int samples;
+		private final int failures;
+		private final QuantileSketch sketch;
+
+
+		private Distribution(final int samples, final int failures, final QuantileSketch sketch){
+			this.samples = samples;
+			this.failures = failures;
+			this.sketch = sketch;
+		}
+
+		/**
+		 * @return	The number of samples drawn.
+		 */
+		public int getSamples(){
+			return samples;
+		}
+
+		/**
+		 * @return	The number of samples without a solution (excluded from the quantiles).
+		 */
+		public int getFailures(){
+			return failures;
+		}
+
+		/**
+		 * @param quantile	The quantile, between 0 and 1.
+		 * @return	The estimated value at the given quantile (within 0.5%), {@link Double#NaN} if every sample has failed.
+		 */
+		public double quantile(final double quantile){
+			return sketch.quantile(quantile);
+		}
+
+		/**
+		 * @return	The minimum value.
+		 */
+		public double getMin(){
+			return sketch.getMin();
+		}
+
+		/**
+		 * @return	The maximum value.
+		 */
+		public double getMax(){
+			return sketch.getMax();
+		}
+
+		@Override
+		public String toString(){
+			return "P5: " + quantile(0.05) + ", P50: " + quantile(0.5) + ", P95: " + quantile(0.95)
+				+ (failures > 0? ", failures: " + failures + "/" + samples: "");
+		}
+
+	}
+
+}
@@ -63,11 +63,23 @@ public class Water{
 	}
 
 
+	/**
+	 * @see <a href="https://doi.org/10.1088/0026-1394/38/4/3">Tanaka, Girard, Davis, Peuto, Bignell. Recommended table for the density of water between 0 °C and 40 °C based on recent experimental reports. 2001.</a>
+	 *
+	 * @param temperature	Temperature [°C].
+	 * @return	The density of air-free pure water [kg/l].
+	 */
+	public static double pureWaterDensity(final double temperature){
+		return 0.999_974_950 * (1. - (temperature - 3.983_035) * (temperature - 3.983_035) * (temperature + 301.797)
+			/ (522_528.9 * (temperature + 69.348_81)));
+	}
+
 	/**
 	 * @see "Simion, Grigoras, Rosu, Gavrila. Mathematical modelling of density and viscosity of NaCl aqueous solutions. 2014."
 	 * @see <a href="https://www.translatorscafe.com/unit-converter/en-US/calculator/salt-water-density/">Salt Water Density Calculator</a>
 	 * @see <a href="https://www.engineeringtoolbox.com/density-aqueous-solution-organic-sugar-alcohol-concentration-d_1954.html">Density of aqueous solutions of organic substances as sugars and alcohols</a>
 	 *
+	 * @param pureWaterDensity	Density of pure water [kg/l].
 	 * @param water	Hydration [% w/w].
 	 * @param salt	Salt quantity [% w/w].
 	 * @param sugar	Sugar quantity [% w/w].
@@ -79,11 +91,11 @@ public class Water{
 		//molar mass of glucose: 180.156 g/mol
 		//molar mass of sucrose/maltose: 342.29648 g/mol
 		//molar mass of salt: 58.44277 g/mol
-		//convert salt and sugar to [g/l]
+		//convert salt and sugar to [% w/v]
 		return pureWaterDensity
 			+ ((0.020391744 * salt + 0.003443681 * sugar)
 			+ (-0.000044231 * salt + 0.0000004195 * sugar) * (temperature + ABSOLUTE_ZERO)
-			) * 1000. / water;
+			) * 100. / water;
 	}
 
 
@@ -0,0 +1,384 @@
+/**
+ * Copyright (c) 2020 Mauro Trevisan
+ *
+ * Permission is hereby granted, free of charge, to any person
+ * obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without
+ * restriction, including without limitation the rights to use,
+ * copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the
+ * Software is furnished to do so, subject to the following
+ * conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES
+ * OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+ * WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ */
+package io.github.mtrevisan.pizza;
+
+import io.github.mtrevisan.pizza.yeasts.YeastModelAbstract;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.FloatBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+
+
+/**
+ * Precomputed yeast quantities over a grid of (temperature, duration, hydration, salt) of a single leavening stage, for each yeast
+ * model, at a given target volume expansion ratio.
+ * <p>
+ * The file is memory mapped and queried with a quadrilinear interpolation of the logarithm of the yeast quantity (the surface is
+ * almost a power law of the duration, that is a plane in log-log).<br />
+ * Near the feasibility boundary the yeast quantity diverges and cannot be interpolated: the generator checks the centre of each cell
+ * against the solver and marks as invalid the cells whose relative error exceeds {@value YeastAtlasGenerator#CELL_TOLERANCE}.<br />
+ * A query returns {@link Double#NaN} whenever it falls outside the grid, into an invalid cell, or any of the surrounding points is
+ * not feasible, so the caller can fall back to the exact solver.
+ * </p>
+ * <p>
+ * File layout (big-endian):
+ * <pre>
+ * int	magic number
+ * double	target volume expansion ratio
+ * 4 × (int count, double min, double step, byte logarithmic)	axes: temperature [°C], duration [hrs], hydration [% w/w], salt [% w/w]
+ * int	number of models
+ * n × (int length, UTF-8 bytes)	yeast model class names
+ * n × Π count float	ln(yeast [% w/w]) at each point, NaN if not feasible (salt index varies fastest)
+ * n × Π max(count - 1, 1) byte	whether each cell can be interpolated (salt index varies fastest)
+ * </pre>
+ * </p>
+ *
+ * @see YeastAtlasGenerator
+ */
+public final class YeastAtlas{
+
+	private static final int MAGIC_NUMBER = 0x5941_5432;
+
+	private static final int AXES = 4;
+	private static final int CORNERS = 1 << AXES;
+	private static final double HOURS_TO_NANOS = 3_600_000_000_000.;
+	/** Tolerance on the (fractional) index, to absorb the rounding of the points on the border of the grid. */
+	private static final double BORDER_TOLERANCE = 0.000_001;
+
+
+	private final double targetVolumeExpansionRatio;
+	private final Axis[] axes;
+	private final String[] modelNames;
+	private final Map<String, Integer> modelIndexes;
+	private final int pointCount;
+	private final int cellCount;
+	private final FloatBuffer values;
+	private final ByteBuffer cells;
+
+
+	/**
+	 * @param file	The atlas file.
+	 * @return	The memory mapped atlas.
+	 * @throws IOException	If the file cannot be read or is not an atlas.
+	 */
+	public static YeastAtlas load(final Path file) throws IOException{
+		final MappedByteBuffer buffer;
+		try(final FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)){
+			buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0l, channel.size());
+		}
+
+		if(buffer.remaining() < Integer.BYTES || buffer.getInt() != MAGIC_NUMBER)
+			throw new IOException("Not a yeast atlas: " + file);
+
+		final double targetVolumeExpansionRatio = buffer.getDouble();
+		final Axis[] axes = new Axis[AXES];
+		for(int i = 0; i < AXES; i ++)
+			axes[i] = Axis.read(buffer);
+		final String[] modelNames = new String[buffer.getInt()];
+		for(int i = 0; i < modelNames.length; i ++){
+			final byte[] name = new byte[buffer.getInt()];
+			buffer.get(name);
+			modelNames[i] = new String(name, StandardCharsets.UTF_8);
+		}
+
+		final int valuesSize = modelNames.length * pointCount(axes) * Float.BYTES;
+		final int cellsSize = modelNames.length * cellCount(axes);
+		if(buffer.remaining() != valuesSize + cellsSize)
+			throw new IOException("Corrupted yeast atlas: " + file);
+
+		final FloatBuffer values = buffer.slice(buffer.position(), valuesSize)
+			.asFloatBuffer();
+		final ByteBuffer cells = buffer.slice(buffer.position() + valuesSize, cellsSize);
+		return new YeastAtlas(targetVolumeExpansionRatio, axes, modelNames, values, cells);
+	}
+
+	/**
+	 * @param targetVolumeExpansionRatio	Target volume expansion ratio of all the entries.
+	 * @param axes	The axes: temperature [°C], duration [hrs], hydration [% w/w], salt [% w/w].
+	 * @param models	The yeast models.
+	 * @param yeasts	For each model, the yeast quantities [% w/w] (NaN if not feasible), with the salt index varying fastest.
+	 * @return	An in-memory atlas, with all the cells valid.
+	 */
+	static YeastAtlas create(final double targetVolumeExpansionRatio, final Axis[] axes, final YeastModelAbstract[] models,
+			final double[][] yeasts){
+		final int pointCount = pointCount(axes);
+		final String[] modelNames = new String[models.length];
+		final FloatBuffer values = FloatBuffer.allocate(models.length * pointCount);
+		for(int m = 0; m < models.length; m ++){
+			modelNames[m] = models[m].getClass().getName();
+			for(int i = 0; i < pointCount; i ++)
+				values.put((float)Math.log(yeasts[m][i]));
+		}
+		final ByteBuffer cells = ByteBuffer.allocate(models.length * cellCount(axes));
+		while(cells.hasRemaining())
+			cells.put((byte)1);
+		return new YeastAtlas(targetVolumeExpansionRatio, axes, modelNames, values.clear(), cells.clear());
+	}
+
+	private static int pointCount(final Axis[] axes){
+		int count = 1;
+		for(final Axis axis : axes)
+			count *= axis.count;
+		return count;
+	}
+
+	private static int cellCount(final Axis[] axes){
+		int count = 1;
+		for(final Axis axis : axes)
+			count *= axis.cellCount();
+		return count;
+	}
+
+	private YeastAtlas(final double targetVolumeExpansionRatio, final Axis[] axes, final String[] modelNames, final FloatBuffer values,
+			final ByteBuffer cells){
+		this.targetVolumeExpansionRatio = targetVolumeExpansionRatio;
+		this.axes = axes;
+		this.modelNames = modelNames;
+		modelIndexes = new HashMap<>(modelNames.length);
+		for(int i = 0; i < modelNames.length; i ++)
+			modelIndexes.put(modelNames[i], i);
+		pointCount = pointCount(axes);
+		cellCount = cellCount(axes);
+		this.values = values;
+		this.cells = cells;
+	}
+
+
+	/**
+	 * @param file	The atlas file.
+	 * @throws IOException	If the file cannot be written.
+	 */
+	void write(final Path file) throws IOException{
+		final byte[][] names = new byte[modelNames.length][];
+		int headerSize = Integer.BYTES + Double.BYTES + AXES * Axis.BYTES + Integer.BYTES;
+		for(int i = 0; i < modelNames.length; i ++){
+			names[i] = modelNames[i].getBytes(StandardCharsets.UTF_8);
+			headerSize += Integer.BYTES + names[i].length;
+		}
+
+		final ByteBuffer buffer = ByteBuffer.allocate(headerSize + values.capacity() * Float.BYTES + cells.capacity());
+		buffer.putInt(MAGIC_NUMBER)
+			.putDouble(targetVolumeExpansionRatio);
+		for(final Axis axis : axes)
+			axis.write(buffer);
+		buffer.putInt(modelNames.length);
+		for(final byte[] name : names)
+			buffer.putInt(name.length)
+				.put(name);
+		for(int i = 0; i < values.capacity(); i ++)
+			buffer.putFloat(values.get(i));
+		for(int i = 0; i < cells.capacity(); i ++)
+			buffer.put(cells.get(i));
+		buffer.flip();
+
+		try(final FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING,
+				StandardOpenOption.WRITE)){
+			while(buffer.hasRemaining())
+				channel.write(buffer);
+		}
+	}
+
+	/**
+	 * @param model	Index of the yeast model.
+	 * @param cell	Index of the cell (salt index varies fastest).
+	 */
+	void invalidateCell(final int model, final int cell){
+		cells.put(model * cellCount + cell, (byte)0);
+	}
+
+	/**
+	 * @return	Target volume expansion ratio of all the entries.
+	 */
+	public double getTargetVolumeExpansionRatio(){
+		return targetVolumeExpansionRatio;
+	}
+
+	/**
+	 * @param yeastModel	The yeast model.
+	 * @return	Whether the atlas has entries for the given yeast model.
+	 */
+	public boolean contains(final YeastModelAbstract yeastModel){
+		return modelIndexes.containsKey(yeastModel.getClass().getName());
+	}
+
+	/**
+	 * @param yeastModel	The yeast model.
+	 * @param temperature	Leavening temperature [°C].
+	 * @param duration	Leavening duration.
+	 * @param water	Water quantity w.r.t. flour [% w/w].
+	 * @param salt	Salt quantity w.r.t. flour [% w/w].
+	 * @return	The interpolated yeast quantity [% w/w], or {@link Double#NaN} if the point is not covered by the atlas.
+	 */
+	public double yeast(final YeastModelAbstract yeastModel, final double temperature, final Duration duration, final double water,
+			final double salt){
+		final Integer model = modelIndexes.get(yeastModel.getClass().getName());
+		if(model == null)
+			return Double.NaN;
+
+		final double[] point = {temperature, duration.toNanos() / HOURS_TO_NANOS, water, salt};
+		final int[] indexes = new int[AXES];
+		final double[] fractions = new double[AXES];
+		int cell = 0;
+		for(int i = 0; i < AXES; i ++){
+			final Axis axis = axes[i];
+			double x = axis.coordinate(point[i]);
+			if(!(x >= -BORDER_TOLERANCE && x <= axis.count - 1 + BORDER_TOLERANCE))
+				return Double.NaN;
+
+			x = Math.max(Math.min(x, axis.count - 1), 0.);
+			indexes[i] = Math.min((int)x, axis.cellCount() - 1);
+			fractions[i] = x - indexes[i];
+			cell = cell * axis.cellCount() + indexes[i];
+		}
+		if(cells.get(model * cellCount + cell) == 0)
+			return Double.NaN;
+
+		final int modelOffset = model * pointCount;
+		double logYeast = 0.;
+		for(int corner = 0; corner < CORNERS; corner ++){
+			double weight = 1.;
+			int offset = 0;
+			for(int i = 0; i < AXES; i ++){
+				//on a degenerate axis the upper corner coincides with the lower one, and has a null weight
+				final int upper = (axes[i].count > 1? (corner >> i) & 1: 0);
+				weight *= (((corner >> i) & 1) != 0? fractions[i]: 1. - fractions[i]);
+				offset = offset * axes[i].count + indexes[i] + upper;
+			}
+			if(weight == 0.)
+				continue;
+
+			final float value = values.get(modelOffset + offset);
+			if(Float.isNaN(value))
+				return Double.NaN;
+
+			logYeast += weight * value;
+		}
+		return Math.exp(logYeast);
+	}
+
+	@Override
+	public String toString(){
+		return getClass().getSimpleName() + "{ratio: " + targetVolumeExpansionRatio + ", models: " + modelIndexes.keySet() + "}";
+	}
+
+
+	/** Uniform grid axis, possibly on a logarithmic scale. */
+	static final class Axis{
+
+		private static final int BYTES = Integer.BYTES + Double.BYTES + Double.BYTES + Byte.BYTES;
+
+
+		private final int count;
+		private final double min;
+		private final double step;
+		private final boolean logarithmic;
+
+
+		/**
+		 * @param min	Minimum value.
+		 * @param max	Maximum value.
+		 * @param count	Number of points.
+		 * @return	An axis with points equally spaced.
+		 */
+		static Axis linear(final double min, final double max, final int count){
+			return create(min, max, count, false);
+		}
+
+		/**
+		 * @param min	Minimum value (must be positive).
+		 * @param max	Maximum value.
+		 * @param count	Number of points.
+		 * @return	An axis with points equally spaced on a logarithmic scale.
+		 */
+		static Axis logarithmic(final double min, final double max, final int count){
+			if(min <= 0.)
+				throw new IllegalArgumentException("Minimum of a logarithmic axis must be positive");
+
+			return create(Math.log(min), Math.log(max), count, true);
+		}
+
+		private static Axis create(final double min, final double max, final int count, final boolean logarithmic){
+			if(count <= 0)
+				throw new IllegalArgumentException("Number of points must be positive");
+			if(count > 1 && !(max > min))
+				throw new IllegalArgumentException("Maximum must be greater than minimum");
+
+			return new Axis(count, min, (count > 1? (max - min) / (count - 1): 1.), logarithmic);
+		}
+
+		private static Axis read(final ByteBuffer buffer){
+			return new Axis(buffer.getInt(), buffer.getDouble(), buffer.getDouble(), buffer.get() != 0);
+		}
+
+		private Axis(final int count, final double min, final double step, final boolean logarithmic){
+			this.count = count;
+			this.min = min;
+			this.step = step;
+			this.logarithmic = logarithmic;
+		}
+
+		int getCount(){
+			return count;
+		}
+
+		int cellCount(){
+			return Math.max(count - 1, 1);
+		}
+
+		/**
+		 * @param index	(Fractional) index of the point.
+		 * @return	The value at the given point.
+		 */
+		double value(final double index){
+			final double value = min + index * step;
+			return (logarithmic? Math.exp(value): value);
+		}
+
+		/**
+		 * @param value	The value.
+		 * @return	The (fractional) index of the given value.
+		 */
+		private double coordinate(final double value){
+			return ((logarithmic? Math.log(value): value) - min) / step;
+		}
+
+		private void write(final ByteBuffer buffer){
+			buffer.putInt(count)
+				.putDouble(min)
+				.putDouble(step)
+				.put((byte)(logarithmic? 1: 0));
+		}
+
+	}
+
+}
@@ -0,0 +1,200 @@
+/**
+ * Copyright (c) 2020 Mauro Trevisan
+ *
+ * Permission is hereby granted, free of charge, to any person
+ * obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without
+ * restriction, including without limitation the rights to use,
+ * copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the
+ * Software is furnished to do so, subject to the following
+ * conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES
+ * OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+ * WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ */
+package io.github.mtrevisan.pizza;
+
+import io.github.mtrevisan.pizza.yeasts.YeastModelAbstract;
+import io.github.mtrevisan.pizza.yeasts.YeastModels;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Duration;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.List;
+
+
+/**
+ * Build-time generator of the {@link YeastAtlas}.
+ * <p>
+ * Run with `mvn -P atlas process-classes`, the atlas is written into `target/yeast-atlas.bin`.
+ * </p>
+ */
+public final class YeastAtlasGenerator{
+
+	private static final Logger LOGGER = LoggerFactory.getLogger(YeastAtlasGenerator.class);
+
+
+	private static final double TARGET_VOLUME_EXPANSION_RATIO_DEFAULT = 2.;
+	/** Maximum relative error of the interpolation at the centre of a cell for the cell to be used. */
+	static final double CELL_TOLERANCE = 0.01;
+
+	/** Temperature [°C], duration [hrs], hydration [% w/w], salt [% w/w]. */
+	static final YeastAtlas.Axis[] AXES = {
+		YeastAtlas.Axis.linear(4., 40., 37),
+		YeastAtlas.Axis.logarithmic(1., 48., 32),
+		YeastAtlas.Axis.linear(0.5, 0.9, 9),
+		YeastAtlas.Axis.linear(0., 0.04, 9)
+	};
+
+	private static final YeastModelAbstract[] MODELS = YeastModels.names().stream()
+		.map(YeastModels::create)
+		.toArray(YeastModelAbstract[]::new);
+
+
+	private YeastAtlasGenerator(){}
+
+	/**
+	 * @param args	Output file, and optionally the target volume expansion ratio.
+	 */
+	public static void main(final String[] args) throws DoughException, IOException{
+		if(args.length < 1)
+			throw new IllegalArgumentException("Usage: YeastAtlasGenerator <output file> [<target volume expansion ratio>]");
+
+		final Path file = Paths.get(args[0]);
+		final double targetVolumeExpansionRatio = (args.length > 1? Double.parseDouble(args[1]): TARGET_VOLUME_EXPANSION_RATIO_DEFAULT);
+
+		final DoughBatchSolver solver = DoughBatchSolver.create();
+		try{
+			final long start = System.nanoTime();
+			generate(file, targetVolumeExpansionRatio, AXES, MODELS, solver);
+			LOGGER.info("Yeast atlas written into {} in {} s", file, (System.nanoTime() - start) / 1_000_000_000l);
+		}
+		finally{
+			solver.shutdown();
+		}
+	}
+
+	/**
+	 * @param file	The atlas file.
+	 * @param targetVolumeExpansionRatio	Target volume expansion ratio.
+	 * @param axes	The axes: temperature [°C], duration [hrs], hydration [% w/w], salt [% w/w].
+	 * @param models	The yeast models.
+	 * @param solver	The solver to be used.
+	 * @throws DoughException	If a grid point is not a valid dough or procedure.
+	 * @throws IOException	If the file cannot be written.
+	 */
+	static void generate(final Path file, final double targetVolumeExpansionRatio, final YeastAtlas.Axis[] axes,
+			final YeastModelAbstract[] models, final DoughBatchSolver solver) throws DoughException, IOException{
+		generate(targetVolumeExpansionRatio, axes, models, solver)
+			.write(file);
+	}
+
+	/**
+	 * @param targetVolumeExpansionRatio	Target volume expansion ratio.
+	 * @param axes	The axes: temperature [°C], duration [hrs], hydration [% w/w], salt [% w/w].
+	 * @param models	The yeast models.
+	 * @param solver	The solver to be used.
+	 * @return	The in-memory atlas.
+	 * @throws DoughException	If a grid point is not a valid dough or procedure.
+	 */
+	static YeastAtlas generate(final double targetVolumeExpansionRatio, final YeastAtlas.Axis[] axes, final YeastModelAbstract[] models,
+			final DoughBatchSolver solver) throws DoughException{
+		//solve the points of the grid
+		final double[][] yeasts = new double[models.length][];
+		for(int m = 0; m < models.length; m ++){
+			final List<DoughBatchSolver.Result> results = solver.solve(createJobs(models[m], axes, 0., targetVolumeExpansionRatio, null));
+			yeasts[m] = new double[results.size()];
+			for(int i = 0; i < yeasts[m].length; i ++)
+				yeasts[m][i] = results.get(i).getYeast();
+		}
+		final YeastAtlas atlas = YeastAtlas.create(targetVolumeExpansionRatio, axes, models, yeasts);
+
+		//check the centre of each cell against the solver
+		for(int m = 0; m < models.length; m ++){
+			final List<double[]> centres = new ArrayList<>();
+			final List<DoughBatchSolver.Result> results = solver.solve(createJobs(models[m], axes, 0.5, targetVolumeExpansionRatio,
+				centres));
+			int valid = 0;
+			for(int i = 0; i < centres.size(); i ++){
+				final double[] centre = centres.get(i);
+				final double exact = results.get(i).getYeast();
+				final double interpolated = atlas.yeast(models[m], centre[0], toDuration(centre[1]), centre[2], centre[3]);
+				if(Math.abs(interpolated - exact) <= CELL_TOLERANCE * exact)
+					valid ++;
+				else
+					atlas.invalidateCell(m, i);
+			}
+			LOGGER.info("{}: {} valid cells out of {}", models[m].getClass().getSimpleName(), valid, centres.size());
+		}
+		return atlas;
+	}
+
+	/**
+	 * @param model	The yeast model.
+	 * @param axes	The axes: temperature [°C], duration [hrs], hydration [% w/w], salt [% w/w].
+	 * @param offset	Offset from the grid points (0 for the points, 0.5 for the centre of the cells).
+	 * @param targetVolumeExpansionRatio	Target volume expansion ratio.
+	 * @param points	If not {@code null}, collects the (temperature, duration, hydration, salt) of each job.
+	 * @return	The jobs, with the salt index varying fastest.
+	 * @throws DoughException	If a point is not a valid dough or procedure.
+	 */
+	private static List<DoughBatchSolver.Job> createJobs(final YeastModelAbstract model, final YeastAtlas.Axis[] axes, final double offset,
+			final double targetVolumeExpansionRatio, final List<double[]> points) throws DoughException{
+		final int[] counts = new int[axes.length];
+		for(int i = 0; i < axes.length; i ++)
+			counts[i] = (offset == 0.? axes[i].getCount(): axes[i].cellCount());
+
+		final List<DoughBatchSolver.Job> jobs = new ArrayList<>(counts[0] * counts[1] * counts[2] * counts[3]);
+		for(int t = 0; t < counts[0]; t ++){
+			final double temperature = value(axes[0], t, offset);
+			for(int d = 0; d < counts[1]; d ++){
+				final double hours = value(axes[1], d, offset);
+				final Procedure procedure = createProcedure(temperature, hours, targetVolumeExpansionRatio);
+				for(int h = 0; h < counts[2]; h ++){
+					final double water = value(axes[2], h, offset);
+					for(int s = 0; s < counts[3]; s ++){
+						final double salt = value(axes[3], s, offset);
+						final Dough dough = Dough.create(model)
+							.addPureWater(water)
+							.addSalt(salt);
+						jobs.add(DoughBatchSolver.Job.create(dough, procedure));
+						if(points != null)
+							points.add(new double[]{temperature, hours, water, salt});
+					}
+				}
+			}
+		}
+		return jobs;
+	}
+
+	private static double value(final YeastAtlas.Axis axis, final int index, final double offset){
+		return axis.value(axis.getCount() > 1? index + offset: index);
+	}
+
+	private static Procedure createProcedure(final double temperature, final double hours, final double targetVolumeExpansionRatio)
+			throws DoughException{
+		final LeaveningStage stage = LeaveningStage.create(temperature, toDuration(hours));
+		return Procedure.create(new LeaveningStage[]{stage}, targetVolumeExpansionRatio, 0,
+			Duration.ZERO, new Duration[]{Duration.ZERO}, Duration.ZERO, LocalTime.NOON);
+	}
+
+	private static Duration toDuration(final double hours){
+		return Duration.ofNanos(Math.round(hours * 3_600_000_000_000.));
+	}
+
+}
@@ -0,0 +1,177 @@
+/**
+ * Copyright (c) 2020 Mauro Trevisan
+ *
+ * Permission is hereby granted, free of charge, to any person
+ * obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without
+ * restriction, including without limitation the rights to use,
+ * copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the
+ * Software is furnished to do so, subject to the following
+ * conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES
+ * OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+ * WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ */
+package io.github.mtrevisan.pizza;
+
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+
+/**
+ * Bounded LRU cache of the solved yeast quantities.
+ * <p>
+ * The key is a canonical fingerprint of the dough composition, the yeast model, and the leavening and stretch & fold stages of the
+ * procedure.<br />
+ * The cache is safe for concurrent access; the solve is done outside the lock, so two threads can possibly compute the same value.
+ * </p>
+ */
+public final class YeastCache{
+
+	private final Map<Key, Double> cache;
+
+	private final LongAdder hits = new LongAdder();
+	private final LongAdder misses = new LongAdder();
+	private final LongAdder evictions = new LongAdder();
+
+
+	/**
+	 * @param maximumSize	Maximum number of solutions to be retained.
+	 * @return	The instance.
+	 */
+	public static YeastCache create(final int maximumSize){
+		if(maximumSize <= 0)
+			throw new IllegalArgumentException("Maximum size must be positive");
+
+		return new YeastCache(maximumSize);
+	}
+
+	private YeastCache(final int maximumSize){
+		cache = new LinkedHashMap<>(16, 0.75f, true){
+			@Override
+			protected boolean removeEldestEntry(final Map.Entry<Key, Double> eldest){
+				final boolean evict = (size() > maximumSize);
+				if(evict)
+					evictions.increment();
+				return evict;
+			}
+		};
+	}
+
+
+	Double get(final Key key){
+		final Double yeast;
+		synchronized(cache){
+			yeast = cache.get(key);
+		}
+		if(yeast != null)
+			hits.increment();
+		else
+			misses.increment();
+		return yeast;
+	}
+
+	void put(final Key key, final double yeast){
+		synchronized(cache){
+			cache.put(key, yeast);
+		}
+	}
+
+	/**
+	 * Remove all the entries (counters are not reset).
+	 */
+	public void clear(){
+		synchronized(cache){
+			cache.clear();
+		}
+	}
+
+	/**
+	 * @return	The number of entries currently in the cache.
+	 */
+	public int size(){
+		synchronized(cache){
+			return cache.size();
+		}
+	}
+
+	/**
+	 * @return	The number of times a solution was found in the cache.
+	 */
+	public long getHitCount(){
+		return hits.sum();
+	}
+
+	/**
+	 * @return	The number of times a solution was not found in the cache.
+	 */
+	public long getMissCount(){
+		return misses.sum();
+	}
+
+	/**
+	 * @return	The number of entries removed to keep the cache within its maximum size.
+	 */
+	public long getEvictionCount(){
+		return evictions.sum();
+	}
+
+	@Override
+	public String toString(){
+		return getClass().getSimpleName() + "{size: " + size() + ", hits: " + getHitCount() + ", misses: " + getMissCount()
+			+ ", evictions: " + getEvictionCount() + "}";
+	}
+
+
+	static final class Key{
+
+		private final Object yeastModel;
+		private final long[] fingerprint;
+		private final int hashCode;
+
+
+		/**
+		 * @param yeastModel	The identity of the parameters of the yeast model (see
+		 * 	{@link io.github.mtrevisan.pizza.yeasts.YeastModelAbstract#getParametersIdentity()}).
+		 * @param values	The values that determine the solution (order matters).
+		 */
+		Key(final Object yeastModel, final double[] values){
+			this.yeastModel = yeastModel;
+			fingerprint = new long[values.length];
+			for(int i = 0; i < values.length; i ++)
+				//NOTE: `+ 0.` canonicalize the negative zero
+				fingerprint[i] = Double.doubleToLongBits(values[i] + 0.);
+			hashCode = 31 * yeastModel.hashCode() + Arrays.hashCode(fingerprint);
+		}
+
+		@Override
+		public boolean equals(final Object obj){
+			if(obj == this)
+				return true;
+			if(obj == null || getClass() != obj.getClass())
+				return false;
+
+			final Key other = (Key)obj;
+			return (yeastModel.equals(other.yeastModel) && Arrays.equals(fingerprint, other.fingerprint));
+		}
+
+		@Override
+		public int hashCode(){
+			return hashCode;
+		}
+
+	}
+
+}
@@ -0,0 +1,49 @@
+/**
+ * Copyright (c) 2020 Mauro Trevisan
+ *
+ * Permission is hereby granted, free of charge, to any person
+ * obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without
+ * restriction, including without limitation the rights to use,
+ * copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the
+ * Software is furnished to do so, subject to the following
+ * conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES
+ * OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+ * WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ */
+package io.github.mtrevisan.pizza;
+
+
+/** How a yeast quantity was obtained, or why it could not be. */
+public enum YeastOutcome{
+	/** Interpolated from the atlas. */
+	ATLAS,
+	/** Taken from the cache. */
+	CACHE,
+	/** Searched for, the solver converged. */
+	SOLVED,
+	/** Searched for, no yeast quantity can produce the target volume expansion ratio. */
+	NO_SOLUTION,
+	/** Searched for, the solver reached the maximum number of evaluations of the objective without converging. */
+	TOO_MANY_EVALUATIONS;
+
+
+	/**
+	 * @return	Whether the solver was run.
+	 */
+	public boolean isSearched(){
+		return (this != ATLAS && this != CACHE);
+	}
+
+}
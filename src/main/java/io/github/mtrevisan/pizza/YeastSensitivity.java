@@ -0,0 +1,257 @@
+/**
+ * Copyright (c) 2020 Mauro Trevisan
+ *
+ * Permission is hereby granted, free of charge, to any person
+ * obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without
+ * restriction, including without limitation the rights to use,
+ * copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the
+ * Software is furnished to do so, subject to the following
+ * conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES
+ * OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+ * WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ */
+package io.github.mtrevisan.pizza;
+
+import io.github.mtrevisan.pizza.utils.Helper;
+import io.github.mtrevisan.pizza.yeasts.YeastModelAbstract;
+import org.apache.commons.math3.analysis.differentiation.DerivativeStructure;
+
+import java.time.Duration;
+import java.util.Arrays;
+
+
+/**
+ * Sensitivity of the calculated yeast quantity to the temperature of each stage, the hydration, the salt, and the atmospheric
+ * pressure.
+ * <p>
+ * The objective of the yeast calculation (the difference between the volume expansion ratio reached at the end of the target stage and
+ * the target one) is evaluated once at the solution with forward-mode automatic differentiation, giving its partial derivatives
+ * w.r.t. the yeast and every other parameter; the derivative of the yeast w.r.t. a parameter <code>p</code> then follows from the
+ * implicit function theorem, <code>dy/dp = -(∂F/∂p) / (∂F/∂y)</code>.<br />
+ * The operations are the same as the ones done in the calculation of the yeast, so the values are exact up to rounding (no finite
+ * difference, and no other yeast calculation, is needed).
+ * </p>
+ * <p>
+ * NOTE: the temperature sensitivity of a stage with a temperature profile is not defined, and is reported as {@link Double#NaN}.<br />
+ * NOTE: consecutive stages at the same temperature are one stage for the lag, so changing the temperature of just one of them is
+ * not a small change of the yeast; their sensitivities hold for a change of both.
+ * </p>
+ */
+public final class YeastSensitivity{
+
+	private static final double MINUTES_PER_HOUR = 60.;
+
+
+	/** Quantity of yeast [% w/w]. */
+	private final double yeast;
+	/** Derivative of the yeast w.r.t. the temperature of each stage [% w/w / °C]. */
+	private final double[] stageTemperature;
+	/** Derivative of the yeast w.r.t. the hydration [% w/w / % w/w]. */
+	private final double hydration;
+	/** Derivative of the yeast w.r.t. the salt [% w/w / % w/w]. */
+	private final double salt;
+	/** Derivative of the yeast w.r.t. the atmospheric pressure [% w/w / hPa]. */
+	private final double atmosphericPressure;
+
+
+	/**
+	 * @param dough	The dough.
+	 * @param yeastModel	The yeast model.
+	 * @param procedure	The procedure.
+	 * @param yeast	Quantity of yeast solving the procedure [% w/w].
+	 * @return	The sensitivity report.
+	 */
+	static YeastSensitivity create(final Dough dough, final YeastModelAbstract yeastModel, final Procedure procedure,
+			final double yeast){
+		return new YeastSensitivity(dough, yeastModel, procedure, yeast);
+	}
+
+	private YeastSensitivity(final Dough dough, final YeastModelAbstract yeastModel, final Procedure procedure, final double yeast){
+		final LeaveningStage[] stages = procedure.leaveningStages;
+
+		//free parameters: yeast, temperature of each stage, hydration, salt, atmospheric pressure
+		final int hydrationIndex = 1 + stages.length;
+		final int parameters = hydrationIndex + 3;
+		final DerivativeStructure objective = objective(dough, yeastModel, procedure, yeast, parameters, hydrationIndex);
+
+		final double yeastDerivative = partialDerivative(objective, 0);
+		this.yeast = yeast;
+		stageTemperature = new double[stages.length];
+		for(int i = 0; i < stages.length; i ++)
+			stageTemperature[i] = (stages[i].temperatureProfile == null?
+				-partialDerivative(objective, 1 + i) / yeastDerivative: Double.NaN);
+		hydration = -partialDerivative(objective, hydrationIndex) / yeastDerivative;
+		salt = -partialDerivative(objective, hydrationIndex + 1) / yeastDerivative;
+		atmosphericPressure = -partialDerivative(objective, hydrationIndex + 2) / yeastDerivative;
+	}
+
+	/**
+	 * Same as {@link ProcedurePlan#value(double)}, with every parameter free.
+	 *
+	 * @return	The difference between the volume expansion ratio reached at the end of the target stage and the target one.
+	 */
+	private static DerivativeStructure objective(final Dough dough, final YeastModelAbstract yeastModel, final Procedure procedure,
+			final double yeast, final int parameters, final int hydrationIndex){
+		final LeaveningStage[] stages = procedure.leaveningStages;
+		final StretchAndFoldStage[] stretchAndFoldStages = (procedure.stretchAndFoldStages != null?
+			procedure.stretchAndFoldStages: new StretchAndFoldStage[0]);
+		final int transitions = procedure.targetVolumeExpansionRatioAtLeaveningStage;
+
+		final DerivativeStructure[] composition = dough.sensitivityParameters(parameters, hydrationIndex);
+		final DerivativeStructure compositionFactor = dough.compositionFactor(composition[0], composition[1], composition[2]);
+		final DerivativeStructure[] ingredientsFactor = new DerivativeStructure[transitions + 1];
+		final DerivativeStructure[] maximumSpecificGrowth = new DerivativeStructure[transitions + 1];
+		for(int i = 0; i <= transitions; i ++){
+			final LeaveningStage stage = stages[i];
+			if(stage.temperatureProfile == null){
+				final DerivativeStructure temperature = new DerivativeStructure(parameters, 1, 1 + i, stage.temperature);
+				ingredientsFactor[i] = dough.temperatureFactor(temperature)
+					.multiply(compositionFactor);
+				maximumSpecificGrowth[i] = temperature.compose(yeastModel.maximumSpecificGrowth(stage.temperature),
+					yeastModel.maximumSpecificGrowthDerivative(stage.temperature));
+			}
+			else{
+				//the factors depending on temperature are integrated over the profile, the others are the same as a constant temperature
+				final double[] growthFactors = stage.growthFactors(dough, yeastModel);
+				ingredientsFactor[i] = compositionFactor.multiply(growthFactors[0] / compositionFactor.getValue());
+				maximumSpecificGrowth[i] = new DerivativeStructure(parameters, 1, growthFactors[1]);
+			}
+		}
+
+		final DerivativeStructure y = new DerivativeStructure(parameters, 1, 0, yeast);
+		final DerivativeStructure alpha = y.compose(Dough.maximumRelativeVolumeExpansionRatio(yeast),
+			Dough.maximumRelativeVolumeExpansionRatioDerivative(yeast));
+		DerivativeStructure lambda = y.compose(Dough.estimatedYeastLag(yeast), Dough.estimatedYeastLagDerivative(yeast))
+			.add(dough.estimatedSaltLag(composition[0], composition[1]));
+		final DerivativeStructure zero = y.getField().getZero();
+		DerivativeStructure volumeExpansionRatio = zero;
+		Duration duration = Duration.ZERO;
+		int stretchAndFoldIndex = 0;
+		Duration stretchAndFoldDuration = Duration.ZERO;
+		for(int i = 1; i <= transitions; i ++){
+			final LeaveningStage previousStage = stages[i - 1];
+			final LeaveningStage currentStage = stages[i];
+			duration = duration.plus(previousStage.duration);
+			final double transitionTime = duration.toMinutes() / MINUTES_PER_HOUR;
+
+			DerivativeStructure currentVolume = zero;
+			if(!previousStage.hasSameTemperature(currentStage)){
+				final DerivativeStructure previousVolume = volumeExpansionRatio(transitionTime, lambda, alpha,
+					ingredientsFactor[i - 1].multiply(maximumSpecificGrowth[i - 1]));
+				final double previousStageDuration = previousStage.duration.toMinutes() / MINUTES_PER_HOUR;
+				lambda = (lambda.getValue() - previousStageDuration > 0.? lambda.subtract(previousStageDuration): zero);
+				currentVolume = volumeExpansionRatio(transitionTime, lambda, alpha,
+					ingredientsFactor[i - 1].multiply(maximumSpecificGrowth[i]));
+
+				volumeExpansionRatio = volumeExpansionRatio.add(previousVolume.subtract(currentVolume));
+			}
+			volumeExpansionRatio = volumeExpansionRatio.subtract(currentVolume.multiply(previousStage.volumeDecrease));
+
+			DerivativeStructure stretchAndFoldVolumeDecrease = zero;
+			final DerivativeStructure foldSpecificGrowth = ingredientsFactor[i].multiply(maximumSpecificGrowth[i]);
+			for(; stretchAndFoldIndex < stretchAndFoldStages.length; stretchAndFoldIndex ++){
+				final StretchAndFoldStage stretchAndFoldStage = stretchAndFoldStages[stretchAndFoldIndex];
+				if(stretchAndFoldDuration.plus(stretchAndFoldStage.lapse).compareTo(duration) > 0)
+					break;
+
+				stretchAndFoldDuration = stretchAndFoldDuration.plus(stretchAndFoldStage.lapse);
+				final double foldTime = duration.minus(previousStage.duration)
+					.plus(stretchAndFoldDuration).toMinutes() / MINUTES_PER_HOUR;
+				final DerivativeStructure volumeAtStretchAndFold = volumeExpansionRatio(foldTime, lambda, alpha, foldSpecificGrowth);
+				stretchAndFoldVolumeDecrease = stretchAndFoldVolumeDecrease.add(volumeAtStretchAndFold
+					.subtract(stretchAndFoldVolumeDecrease)
+					.multiply(stretchAndFoldStage.volumeDecrease));
+			}
+			volumeExpansionRatio = volumeExpansionRatio.subtract(stretchAndFoldVolumeDecrease);
+		}
+
+		//NOTE: last `stage.volumeDecrease` is NOT taken into consideration!
+		final LeaveningStage targetStage = stages[transitions];
+		final double targetTime = duration.plus(targetStage.duration).toMinutes() / MINUTES_PER_HOUR;
+		volumeExpansionRatio = volumeExpansionRatio.add(volumeExpansionRatio(targetTime, lambda, alpha,
+			ingredientsFactor[transitions].multiply(maximumSpecificGrowth[transitions])));
+		return volumeExpansionRatio.multiply(1. - targetStage.volumeDecrease)
+			.subtract(procedure.targetDoughVolumeExpansionRatio);
+	}
+
+	/** Same as {@link YeastModelAbstract#volumeExpansionRatio(double, double, double, double)}. */
+	private static DerivativeStructure volumeExpansionRatio(final double time, final DerivativeStructure lambda,
+			final DerivativeStructure alpha, final DerivativeStructure mu){
+		if(!(alpha.getValue() > 0. && time > 0.))
+			return alpha.getField().getZero();
+
+		return mu.multiply(Math.E).multiply(lambda.subtract(time)).divide(alpha).add(1.)
+			.exp().negate().exp()
+			.multiply(alpha);
+	}
+
+	private static double partialDerivative(final DerivativeStructure function, final int parameter){
+		final int[] orders = new int[function.getFreeParameters()];
+		orders[parameter] = 1;
+		return function.getPartialDerivative(orders);
+	}
+
+
+	/**
+	 * @return	The quantity of yeast [% w/w].
+	 */
+	public double getYeast(){
+		return yeast;
+	}
+
+	/**
+	 * @param stage	Index of the leavening stage.
+	 * @return	The derivative of the yeast w.r.t. the temperature of the stage [% w/w / °C], {@link Double#NaN} for a stage with a
+	 * 	temperature profile.
+	 */
+	public double getStageTemperatureSensitivity(final int stage){
+		return stageTemperature[stage];
+	}
+
+	/**
+	 * @return	The derivative of the yeast w.r.t. the hydration [% w/w / % w/w].
+	 */
+	public double getHydrationSensitivity(){
+		return hydration;
+	}
+
+	/**
+	 * @return	The derivative of the yeast w.r.t. the salt [% w/w / % w/w].
+	 */
+	public double getSaltSensitivity(){
+		return salt;
+	}
+
+	/**
+	 * @return	The derivative of the yeast w.r.t. the atmospheric pressure [% w/w / hPa].
+	 */
+	public double getAtmosphericPressureSensitivity(){
+		return atmosphericPressure;
+	}
+
+	@Override
+	public String toString(){
+		final double[] stageTemperatureChange = new double[stageTemperature.length];
+		for(int i = 0; i < stageTemperature.length; i ++)
+			stageTemperatureChange[i] = (Double.isNaN(stageTemperature[i])? Double.NaN: Helper.round(stageTemperature[i] * 100., 5));
+		return getClass().getSimpleName() + "{yeast " + Helper.round(yeast * 100., 5) + "%"
+			+ ", per +1 °C stage temperature " + Arrays.toString(stageTemperatureChange) + "%"
+			+ ", per +1% hydration " + Helper.round(hydration, 5) + "%"
+			+ ", per +0.1% salt " + Helper.round(salt * 0.1, 5) + "%"
+			+ ", per +10 hPa " + Helper.round(atmosphericPressure * 1000., 5) + "%"
+			+ "}";
+	}
+
+}
@@ -0,0 +1,310 @@
+/**
+ * Copyright (c) 2020 Mauro Trevisan
+ *
+ * Permission is hereby granted, free of charge, to any person
+ * obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without
+ * restriction, including without limitation the rights to use,
+ * copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the
+ * Software is furnished to do so, subject to the following
+ * conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES
+ * OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+ * WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ */
+package io.github.mtrevisan.pizza;
+
+import io.github.mtrevisan.pizza.utils.DifferentiableFunction;
+import io.github.mtrevisan.pizza.utils.NewtonSolver;
+import org.apache.commons.math3.analysis.UnivariateFunction;
+import org.apache.commons.math3.analysis.solvers.BaseUnivariateSolver;
+import org.apache.commons.math3.analysis.solvers.BracketingNthOrderBrentSolver;
+import org.apache.commons.math3.exception.NoBracketingException;
+import org.apache.commons.math3.exception.TooManyEvaluationsException;
+
+
+/**
+ * Solvers of the yeast quantity, along with the number of evaluations of the objective done by the last search, and its outcome.
+ * <p>
+ * NOTE: the solvers are stateful, an instance cannot be shared between threads.
+ * </p>
+ */
+final class YeastSolver{
+
+	/** Accuracy of the yeast quantity, ±0.001% [% w/w]. */
+	private static final double ABSOLUTE_ACCURACY = 0.000_01;
+	/** Start value for the Newton solver, a typical yeast quantity [% w/w]. */
+	private static final double NEWTON_START = 0.002;
+	/** Initial half-width of the bracket around a previous solution, relative to it. */
+	private static final double WARM_START_BRACKET = 0.05;
+	/** Growth factor of the bracket around a previous solution, each time it does not contain a root. */
+	private static final double WARM_START_GROWTH = 4.;
+
+
+	private final BaseUnivariateSolver<UnivariateFunction> brent = new BracketingNthOrderBrentSolver(ABSOLUTE_ACCURACY, 5);
+	private final NewtonSolver newton = NewtonSolver.create(ABSOLUTE_ACCURACY);
+	private final MemoizedObjective memoizedObjective = new MemoizedObjective();
+
+	private int evaluations;
+	private YeastOutcome outcome;
+	private ProcedurePlan plan;
+	private double root;
+
+
+	static YeastSolver create(){
+		return new YeastSolver();
+	}
+
+	private YeastSolver(){}
+
+
+	/**
+	 * @param plan	The compiled procedure.
+	 * @param type	The root finder to be used.
+	 * @return	The yeast quantity [% w/w].
+	 * @throws YeastException	If no yeast quantity can produce the target volume expansion ratio, or the solver does not converge.
+	 */
+	double solve(final ProcedurePlan plan, final YeastSolverType type) throws YeastException{
+		this.plan = plan;
+		return (type == YeastSolverType.NEWTON
+			? solveNewton(plan, 0., Dough.SOLVER_YEAST_MAX, NEWTON_START)
+			: solveBrent(plan, 0., Dough.SOLVER_YEAST_MAX));
+	}
+
+	/**
+	 * Search the root near a previous solution: the bracket starts narrow around it and is widened geometrically only if needed.
+	 *
+	 * @param plan	The compiled procedure.
+	 * @param type	The root finder to be used.
+	 * @param previousYeast	The previous solution [% w/w], ignored if not in {@code (0, }{@link Dough#SOLVER_YEAST_MAX}{@code )}.
+	 * @return	The yeast quantity [% w/w].
+	 * @throws YeastException	If no yeast quantity can produce the target volume expansion ratio, or the solver does not converge.
+	 */
+	double solve(final ProcedurePlan plan, final YeastSolverType type, final double previousYeast) throws YeastException{
+		if(!(previousYeast > 0. && previousYeast < Dough.SOLVER_YEAST_MAX))
+			return solve(plan, type);
+
+		this.plan = plan;
+		//the bracket endpoints are remembered, so that the solver does not evaluate them again
+		memoizedObjective.reset(plan, type == YeastSolverType.NEWTON);
+		double min = Math.max(previousYeast * (1. - WARM_START_BRACKET), 0.);
+		double max = Math.min(previousYeast * (1. + WARM_START_BRACKET), Dough.SOLVER_YEAST_MAX);
+		double fMin = memoizedObjective.value(min);
+		double fMax = memoizedObjective.value(max);
+		double width = max - min;
+		while(fMin > 0. && fMax > 0. || fMin < 0. && fMax < 0.){
+			//the objective usually increases with the yeast quantity
+			final boolean increasing = (fMin <= fMax);
+			final boolean rootBelow = (fMin > 0.? increasing: !increasing);
+			if(rootBelow && min == 0. || !rootBelow && max == Dough.SOLVER_YEAST_MAX){
+				//no root near the previous solution
+				final int warmStartEvaluations = memoizedObjective.getEvaluations();
+				final double yeast = solve(plan, type);
+				evaluations += warmStartEvaluations;
+				return yeast;
+			}
+
+			width *= WARM_START_GROWTH;
+			if(rootBelow){
+				max = min;
+				fMax = fMin;
+				min = Math.max(min - width, 0.);
+				fMin = memoizedObjective.value(min);
+			}
+			else{
+				min = max;
+				fMin = fMax;
+				max = Math.min(max + width, Dough.SOLVER_YEAST_MAX);
+				fMax = memoizedObjective.value(max);
+			}
+		}
+
+		final double start = (previousYeast > min && previousYeast < max? previousYeast: 0.5 * (min + max));
+		try{
+			return (type == YeastSolverType.NEWTON
+				? solveNewton(memoizedObjective, min, max, start)
+				: solveBrent(memoizedObjective, min, max));
+		}
+		finally{
+			evaluations = memoizedObjective.getEvaluations();
+		}
+	}
+
+	private double solveBrent(final UnivariateFunction objective, final double min, final double max) throws YeastException{
+		try{
+			root = brent.solve(Dough.SOLVER_EVALUATIONS_MAX, objective, min, max);
+			outcome = YeastOutcome.SOLVED;
+			return root;
+		}
+		catch(final NoBracketingException e){
+			outcome = YeastOutcome.NO_SOLUTION;
+			throw noBracketing();
+		}
+		catch(final TooManyEvaluationsException e){
+			outcome = YeastOutcome.TOO_MANY_EVALUATIONS;
+			throw tooManyEvaluations();
+		}
+		finally{
+			evaluations = brent.getEvaluations();
+		}
+	}
+
+	private double solveNewton(final DifferentiableFunction objective, final double min, final double max, final double start)
+			throws YeastException{
+		final int status = newton.solve(Dough.SOLVER_EVALUATIONS_MAX, objective, min, max, start);
+		evaluations = newton.getEvaluations();
+		switch(status){
+			case NewtonSolver.SUCCESS:
+				root = newton.getRoot();
+				outcome = YeastOutcome.SOLVED;
+				return root;
+
+			case NewtonSolver.NO_BRACKETING:
+				outcome = YeastOutcome.NO_SOLUTION;
+				throw noBracketing();
+
+			default:
+				outcome = YeastOutcome.TOO_MANY_EVALUATIONS;
+				throw tooManyEvaluations();
+		}
+	}
+
+	private static YeastException noBracketing(){
+		return YeastException.create("No yeast quantity will ever be able to produce the given expansion ratio");
+	}
+
+	private static YeastException tooManyEvaluations(){
+		return YeastException.create("Cannot calculate yeast quantity, try increasing maximum number of evaluations in the solver");
+	}
+
+	/**
+	 * Forget the evaluations and the outcome of the last search.
+	 */
+	void resetEvaluations(){
+		evaluations = 0;
+		outcome = null;
+		plan = null;
+	}
+
+	/**
+	 * Forget the evaluations of the last search, when the yeast quantity is not searched for.
+	 *
+	 * @param outcome	Where the yeast quantity was taken from, {@link YeastOutcome#ATLAS} or {@link YeastOutcome#CACHE}.
+	 */
+	void resetEvaluations(final YeastOutcome outcome){
+		resetEvaluations();
+		this.outcome = outcome;
+	}
+
+	/**
+	 * @return	The number of evaluations of the objective done by the last search.
+	 */
+	int getEvaluations(){
+		return evaluations;
+	}
+
+	/**
+	 * @return	The outcome of the last calculation, {@code null} if it was interrupted by an unexpected error.
+	 */
+	YeastOutcome getOutcome(){
+		return outcome;
+	}
+
+	/**
+	 * NOTE: the objective is evaluated once more (not counted in {@link #getEvaluations()}).
+	 *
+	 * @return	The absolute value of the objective at the root found by the last search, {@link Double#NaN} if the search did not
+	 * 	converge or was not done.
+	 */
+	double getResidual(){
+		return (outcome == YeastOutcome.SOLVED? Math.abs(plan.value(root)): Double.NaN);
+	}
+
+
+
+	/**
+	 * Objective that remembers the last few points evaluated, and counts the actual evaluations.
+	 * <p>
+	 * The derivative is calculated only if requested when reset (for a solver that uses it), as it roughly doubles the cost of an
+	 * evaluation.
+	 * </p>
+	 */
+	private static final class MemoizedObjective implements UnivariateFunction, DifferentiableFunction{
+
+		private static final int SIZE = 4;
+
+
+		private ProcedurePlan plan;
+		//whether to calculate also the derivative
+		private boolean withDerivative;
+		private final double[] x = new double[SIZE];
+		private final double[] value = new double[SIZE];
+		private final double[] derivative = new double[SIZE];
+		private int size;
+		private int next;
+		private int evaluations;
+		private final double[] valueAndDerivative = new double[2];
+
+
+		void reset(final ProcedurePlan plan, final boolean withDerivative){
+			this.plan = plan;
+			this.withDerivative = withDerivative;
+			size = 0;
+			next = 0;
+			evaluations = 0;
+		}
+
+		@Override
+		public double value(final double yeast){
+			return value[lookup(yeast)];
+		}
+
+		@Override
+		public void evaluate(final double yeast, final double[] valueAndDerivative){
+			final int index = lookup(yeast);
+			valueAndDerivative[0] = value[index];
+			valueAndDerivative[1] = derivative[index];
+		}
+
+		/**
+		 * @param yeast	Quantity of yeast [% w/w].
+		 * @return	The index of the remembered point, evaluated if not already present.
+		 */
+		private int lookup(final double yeast){
+			for(int i = 0; i < size; i ++)
+				if(x[i] == yeast)
+					return i;
+
+			evaluations ++;
+			if(withDerivative)
+				plan.evaluate(yeast, valueAndDerivative);
+			else{
+				valueAndDerivative[0] = plan.value(yeast);
+				valueAndDerivative[1] = Double.NaN;
+			}
+			final int index = next;
+			x[index] = yeast;
+			value[index] = valueAndDerivative[0];
+			derivative[index] = valueAndDerivative[1];
+			next = (next + 1) % SIZE;
+			size = Math.min(size + 1, SIZE);
+			return index;
+		}
+
+		int getEvaluations(){
+			return evaluations;
+		}
+
+	}
+
+}
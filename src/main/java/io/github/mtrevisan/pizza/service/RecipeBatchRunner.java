@@ -0,0 +1,304 @@
+/**
+ * Copyright (c) 2020 Mauro Trevisan
+ *
+ * Permission is hereby granted, free of charge, to any person
+ * obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without
+ * restriction, including without limitation the rights to use,
+ * copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the
+ * Software is furnished to do so, subject to the following
+ * conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES
+ * OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+ * WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ */
+package io.github.mtrevisan.pizza.service;
+
+import io.github.mtrevisan.pizza.DoughException;
+import io.github.mtrevisan.pizza.YeastException;
+import io.github.mtrevisan.pizza.utils.Json;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Writer;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+
+/**
+ * Streaming batch of recipe requests, read one per line and answered one per line (as JSON), in input order.
+ * <p>
+ * The jobs are solved in parallel by a {@link RecipeService}, with at most a given number of jobs in flight, so the memory used does not
+ * depend on the number of lines.<br />
+ * The input is either:
+ * <ul>
+ *    <li>{@link Format#JSONL}: a request (as described in {@link RecipeService}) on each non-blank line, or</li>
+ *    <li>{@link Format#CSV}: a header naming the field of each column as a dotted path (an array element being given by its index, e.g.
+ *    {@code procedure.stages.0.temperature}), then a request on each non-blank line; numbers and booleans are converted, an empty cell
+ *    leaves the field out. Cells may be enclosed in double quotes (a double quote being doubled), but cannot span more lines.</li>
+ * </ul>
+ * A failed request is answered with an object holding the {@code error} only.
+ * </p>
+ */
+public final class RecipeBatchRunner{
+
+	public enum Format{JSONL, CSV}
+
+	private static final String FIELD_ERROR = "error";
+	private static final int IN_FLIGHT_PER_THREAD = 4;
+
+
+	private final RecipeService service;
+	private final String endpoint;
+	private final int parallelism;
+	private final int maxInFlight;
+
+
+	/**
+	 * @param service	The service.
+	 * @param endpoint	The endpoint, one of {@link RecipeService#ENDPOINT_RECIPE}, {@link RecipeService#ENDPOINT_YEAST}, or
+	 * 	{@link RecipeService#ENDPOINT_TIME_TO_RISE}.
+	 * @param parallelism	The number of threads.
+	 * @return	A runner with at most four jobs per thread in flight.
+	 */
+	public static RecipeBatchRunner create(final RecipeService service, final String endpoint, final int parallelism){
+		return create(service, endpoint, parallelism, parallelism * IN_FLIGHT_PER_THREAD);
+	}
+
+	/**
+	 * @param service	The service.
+	 * @param endpoint	The endpoint, one of {@link RecipeService#ENDPOINT_RECIPE}, {@link RecipeService#ENDPOINT_YEAST}, or
+	 * 	{@link RecipeService#ENDPOINT_TIME_TO_RISE}.
+	 * @param parallelism	The number of threads.
+	 * @param maxInFlight	The maximum number of jobs read but not yet written.
+	 * @return	The runner.
+	 */
+	public static RecipeBatchRunner create(final RecipeService service, final String endpoint, final int parallelism,
+			final int maxInFlight){
+		if(service == null)
+			throw new IllegalArgumentException("Service must be valued");
+		if(!RecipeService.ENDPOINT_RECIPE.equals(endpoint) && !RecipeService.ENDPOINT_YEAST.equals(endpoint)
+				&& !RecipeService.ENDPOINT_TIME_TO_RISE.equals(endpoint))
+			throw new IllegalArgumentException("Unknown endpoint " + endpoint);
+		if(parallelism <= 0)
+			throw new IllegalArgumentException("Parallelism must be positive");
+		if(maxInFlight < parallelism)
+			throw new IllegalArgumentException("Maximum number of jobs in flight must be at least the parallelism");
+
+		return new RecipeBatchRunner(service, endpoint, parallelism, maxInFlight);
+	}
+
+	private RecipeBatchRunner(final RecipeService service, final String endpoint, final int parallelism, final int maxInFlight){
+		this.service = service;
+		this.endpoint = endpoint;
+		this.parallelism = parallelism;
+		this.maxInFlight = maxInFlight;
+	}
+
+
+	/**
+	 * @param reader	The input.
+	 * @param format	The format of the input.
+	 * @param writer	The output, a JSON response on each line (not closed).
+	 * @return	The number of jobs processed.
+	 * @throws IOException	If the input cannot be read, or the output cannot be written.
+	 * @throws IllegalArgumentException	If the CSV header is missing.
+	 */
+	public long run(final BufferedReader reader, final Format format, final Writer writer) throws IOException{
+		final String[][] columns;
+		if(format == Format.CSV){
+			final String header = reader.readLine();
+			if(header == null || header.isBlank())
+				throw new IllegalArgumentException("Missing CSV header");
+
+			columns = parseHeader(header);
+		}
+		else
+			columns = null;
+
+		final ExecutorService executor = Executors.newFixedThreadPool(parallelism);
+		final Queue<Future<Object>> inFlight = new ArrayDeque<>(maxInFlight);
+		long jobs = 0l;
+		try{
+			String line;
+			while((line = reader.readLine()) != null){
+				if(line.isBlank())
+					continue;
+
+				if(inFlight.size() == maxInFlight)
+					write(inFlight.remove(), writer);
+
+				final String job = line;
+				inFlight.add(executor.submit(() -> handle(job, columns)));
+				jobs ++;
+			}
+			while(!inFlight.isEmpty())
+				write(inFlight.remove(), writer);
+			writer.flush();
+		}
+		finally{
+			executor.shutdownNow();
+		}
+		return jobs;
+	}
+
+	private Object handle(final String line, final String[][] columns){
+		try{
+			final Object request = (columns != null? parseRecord(line, columns): Json.parse(line));
+			return service.handle(endpoint, request);
+		}
+		catch(final DoughException | YeastException | IllegalArgumentException | DateTimeParseException e){
+			return Collections.singletonMap(FIELD_ERROR, e.getMessage());
+		}
+	}
+
+	private static void write(final Future<Object> response, final Writer writer) throws IOException{
+		Object value;
+		try{
+			value = response.get();
+		}
+		catch(final ExecutionException e){
+			value = Collections.singletonMap(FIELD_ERROR, String.valueOf(e.getCause()));
+		}
+		catch(final InterruptedException e){
+			Thread.currentThread().interrupt();
+			throw new IOException("Interrupted while waiting for a job", e);
+		}
+
+		writer.write(Json.write(value));
+		writer.write('\n');
+	}
+
+
+	private static String[][] parseHeader(final String header){
+		final List<String> names = splitCsv(header);
+		final String[][] columns = new String[names.size()][];
+		for(int i = 0; i < columns.length; i ++){
+			final String name = names.get(i).trim();
+			if(name.isEmpty())
+				throw new IllegalArgumentException("Empty name of column " + (i + 1) + " in the CSV header");
+
+			columns[i] = name.split("\\.");
+		}
+		return columns;
+	}
+
+	/**
+	 * @param line	The CSV record.
+	 * @param columns	The path of each column.
+	 * @return	The request.
+	 */
+	static Map<String, Object> parseRecord(final String line, final String[][] columns){
+		final List<String> cells = splitCsv(line);
+		if(cells.size() > columns.length)
+			throw new IllegalArgumentException("Too many cells, expected at most " + columns.length);
+
+		final Map<String, Object> request = new LinkedHashMap<>();
+		for(int i = 0; i < cells.size(); i ++){
+			final String cell = cells.get(i);
+			if(!cell.isEmpty())
+				put(request, columns[i], parseCell(cell));
+		}
+		return request;
+	}
+
+	@SuppressWarnings("unchecked")
+	private static void put(final Map<String, Object> request, final String[] path, final Object value){
+		Object container = request;
+		for(int i = 0; i < path.length; i ++){
+			final boolean last = (i == path.length - 1);
+			final Object child = (last? value: (isIndex(path[i + 1])? new ArrayList<>(): new LinkedHashMap<>()));
+			if(container instanceof Map){
+				final Map<String, Object> map = (Map<String, Object>)container;
+				container = (last? map.put(path[i], child): map.computeIfAbsent(path[i], key -> child));
+			}
+			else{
+				final List<Object> list = (List<Object>)container;
+				final int index = Integer.parseInt(path[i]);
+				while(list.size() <= index)
+					list.add(null);
+				if(last || list.get(index) == null)
+					list.set(index, child);
+				container = list.get(index);
+			}
+			if(!last && !(container instanceof Map) && !(container instanceof List))
+				throw new IllegalArgumentException("Column " + String.join(".", path) + " conflicts with another column");
+		}
+	}
+
+	private static boolean isIndex(final String segment){
+		for(int i = 0; i < segment.length(); i ++)
+			if(!Character.isDigit(segment.charAt(i)))
+				return false;
+		return !segment.isEmpty();
+	}
+
+	private static Object parseCell(final String cell){
+		if("true".equals(cell))
+			return Boolean.TRUE;
+		if("false".equals(cell))
+			return Boolean.FALSE;
+		final char first = cell.charAt(0);
+		if(first == '-' || first == '+' || first == '.' || Character.isDigit(first)){
+			try{
+				return Double.valueOf(cell);
+			}
+			catch(final NumberFormatException ignored){
+				//not a number (e.g. a time like `20:00`)
+			}
+		}
+		return cell;
+	}
+
+	private static List<String> splitCsv(final String line){
+		final List<String> cells = new ArrayList<>();
+		final StringBuilder sb = new StringBuilder();
+		boolean quoted = false;
+		for(int i = 0; i < line.length(); i ++){
+			final char chr = line.charAt(i);
+			if(quoted){
+				if(chr != '"')
+					sb.append(chr);
+				else if(i + 1 < line.length() && line.charAt(i + 1) == '"'){
+					sb.append('"');
+					i ++;
+				}
+				else
+					quoted = false;
+			}
+			else if(chr == '"')
+				quoted = true;
+			else if(chr == ','){
+				cells.add(sb.toString().trim());
+				sb.setLength(0);
+			}
+			else
+				sb.append(chr);
+		}
+		if(quoted)
+			throw new IllegalArgumentException("Unterminated quoted cell");
+		cells.add(sb.toString().trim());
+		return cells;
+	}
+
+}
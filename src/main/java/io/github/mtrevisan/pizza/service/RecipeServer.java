@@ -0,0 +1,370 @@
+/**
+ * Copyright (c) 2020 Mauro Trevisan
+ *
+ * Permission is hereby granted, free of charge, to any person
+ * obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without
+ * restriction, including without limitation the rights to use,
+ * copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the
+ * Software is furnished to do so, subject to the following
+ * conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES
+ * OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+ * WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ */
+package io.github.mtrevisan.pizza.service;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import io.github.mtrevisan.pizza.DoughException;
+import io.github.mtrevisan.pizza.DoughMetrics;
+import io.github.mtrevisan.pizza.YeastCache;
+import io.github.mtrevisan.pizza.YeastException;
+import io.github.mtrevisan.pizza.YeastOutcome;
+import io.github.mtrevisan.pizza.utils.LogLinearHistogram;
+import io.github.mtrevisan.pizza.utils.Json;
+import io.github.mtrevisan.pizza.yeasts.YeastModelRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.time.format.DateTimeParseException;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+
+/**
+ * Embedded HTTP/JSON server of a {@link RecipeService}.
+ * <p>
+ * The endpoints {@value RecipeService#ENDPOINT_RECIPE}, {@value RecipeService#ENDPOINT_YEAST}, and
+ * {@value RecipeService#ENDPOINT_TIME_TO_RISE} accept a {@code POST} with a JSON request (or an array of requests, as a batch);
+ * {@value #ENDPOINT_METRICS} gives the latency quantiles and the error counts of each endpoint, along with the metrics of the yeast and
+ * ingredients calculations when measured (see {@link RecipeService#getDoughMetrics()}), in the Prometheus text format;
+ * {@value #ENDPOINT_RELOAD}, only if enabled (see {@link #withReloadEnabled()}), accepts a {@code POST} to reload the yeast models from
+ * their file (see {@link RecipeService#getYeastModels()}).<br />
+ * A request body larger than {@value #REQUEST_SIZE_MAX} bytes is refused with a 413, a batch of more than {@value #BATCH_SIZE_MAX}
+ * requests with a 400.<br />
+ * Each exchange runs on its own virtual thread when available (Java 21 onward), otherwise on a pool of platform threads.<br />
+ * NOTE: for a low latency over keep-alive connections, set {@link #NO_DELAY_PROPERTY} before creating the server.
+ * </p>
+ */
+public final class RecipeServer{
+
+	private static final Logger LOGGER = LoggerFactory.getLogger(RecipeServer.class);
+
+	public static final String ENDPOINT_METRICS = "/metrics";
+	public static final String ENDPOINT_RELOAD = "/reload";
+
+	private static final String[] ENDPOINTS = {RecipeService.ENDPOINT_RECIPE, RecipeService.ENDPOINT_YEAST,
+		RecipeService.ENDPOINT_TIME_TO_RISE};
+	private static final int BACKLOG = 1024;
+	private static final int STOP_DELAY = 1;
+	private static final String CONTENT_TYPE_JSON = "application/json; charset=utf-8";
+	private static final String CONTENT_TYPE_METRICS = "text/plain; version=0.0.4; charset=utf-8";
+	private static final double[] SUMMARY_QUANTILES = {0.5, 0.9, 0.99};
+	private static final double NANOS_PER_SECOND = 1_000_000_000.;
+
+	private static final int STATUS_OK = 200;
+	private static final int STATUS_BAD_REQUEST = 400;
+	private static final int STATUS_METHOD_NOT_ALLOWED = 405;
+	private static final int STATUS_PAYLOAD_TOO_LARGE = 413;
+	private static final int STATUS_INTERNAL_ERROR = 500;
+
+	/**
+	 * System property disabling Nagle's algorithm on the connections of the JDK HTTP server, read once, when the first server is created.
+	 * <p>
+	 * With Nagle's algorithm active (the default), each small response is delayed by up to 40 ms by the delayed ACK of the client,
+	 * capping a keep-alive connection to about 25 requests per second; launch with {@code -Dsun.net.httpserver.nodelay=true}
+	 * ({@link io.github.mtrevisan.pizza.Main} sets it if not given).
+	 * </p>
+	 */
+	public static final String NO_DELAY_PROPERTY = "sun.net.httpserver.nodelay";
+
+	/** Maximum size of a request body [B]. */
+	public static final int REQUEST_SIZE_MAX = 1 << 20;
+	/** Maximum number of requests in a batch. */
+	public static final int BATCH_SIZE_MAX = 1_000;
+
+
+	private final HttpServer server;
+	private final ExecutorService executor;
+	private final RecipeService service;
+	/** [ns] */
+	private final Map<String, LogLinearHistogram> latencies = new LinkedHashMap<>();
+	private final Map<String, LongAdder> errors = new LinkedHashMap<>();
+
+
+	/**
+	 * @param port	The port to listen to on the loopback interface, zero for an ephemeral one.
+	 * @return	The server, to be started, measuring the yeast and ingredients calculations.
+	 */
+	public static RecipeServer create(final int port) throws IOException{
+		return create(new InetSocketAddress(InetAddress.getLoopbackAddress(), port), RecipeService.create(YeastCache.create(RecipeService.YEAST_CACHE_SIZE_DEFAULT),
+			YeastModelRegistry.create(), DoughMetrics.create()));
+	}
+
+	/**
+	 * @param address	The address to listen to.
+	 * @param service	The service.
+	 * @return	The server, to be started.
+	 */
+	public static RecipeServer create(final InetSocketAddress address, final RecipeService service) throws IOException{
+		if(address == null)
+			throw new IllegalArgumentException("Address must be valued");
+		if(service == null)
+			throw new IllegalArgumentException("Service must be valued");
+
+		return new RecipeServer(address, service);
+	}
+
+	private RecipeServer(final InetSocketAddress address, final RecipeService service) throws IOException{
+		this.service = service;
+		server = HttpServer.create(address, BACKLOG);
+		executor = createExecutor();
+		server.setExecutor(executor);
+
+		for(final String endpoint : ENDPOINTS){
+			latencies.put(endpoint, LogLinearHistogram.create());
+			errors.put(endpoint, new LongAdder());
+			server.createContext(endpoint, exchange -> handle(endpoint, exchange));
+		}
+		server.createContext(ENDPOINT_METRICS, this::handleMetrics);
+	}
+
+	/**
+	 * Accept a {@code POST} to {@value #ENDPOINT_RELOAD}, without authentication: enable only if the server is reachable by trusted
+	 * hosts alone.
+	 *
+	 * @return	This instance.
+	 */
+	public RecipeServer withReloadEnabled(){
+		server.createContext(ENDPOINT_RELOAD, this::handleReload);
+
+		return this;
+	}
+
+	/**
+	 * @return	An executor that runs each task on a new virtual thread, if available, otherwise a pool of platform threads.
+	 */
+	static ExecutorService createExecutor(){
+		try{
+			//NOTE: virtual threads are available from Java 21 onward, while this code is compiled for an older one
+			return (ExecutorService)Executors.class.getMethod("newVirtualThreadPerTaskExecutor")
+				.invoke(null);
+		}
+		catch(final ReflectiveOperationException e){
+			LOGGER.debug("Virtual threads are not available, using a pool of platform threads");
+
+			return Executors.newFixedThreadPool(Runtime.getRuntime().availableProcessors() * 2);
+		}
+	}
+
+	/**
+	 * @return	This instance.
+	 */
+	public RecipeServer start(){
+		server.start();
+		LOGGER.info("Recipe service listening on port {}", getPort());
+
+		return this;
+	}
+
+	/**
+	 * Stop the server, waiting a bit for the exchanges in progress.
+	 */
+	public void stop(){
+		server.stop(STOP_DELAY);
+		executor.shutdown();
+		try{
+			executor.awaitTermination(STOP_DELAY, TimeUnit.SECONDS);
+		}
+		catch(final InterruptedException e){
+			Thread.currentThread().interrupt();
+		}
+	}
+
+	/**
+	 * @return	The port the server listens to.
+	 */
+	public int getPort(){
+		return server.getAddress().getPort();
+	}
+
+	/**
+	 * @param endpoint	The endpoint.
+	 * @return	The latency histogram of the endpoint [ns], or {@code null} if unknown.
+	 */
+	public LogLinearHistogram getLatencies(final String endpoint){
+		return latencies.get(endpoint);
+	}
+
+
+	private void handle(final String endpoint, final HttpExchange exchange) throws IOException{
+		final long start = System.nanoTime();
+		int status;
+		Object response;
+		if(!"POST".equals(exchange.getRequestMethod())){
+			status = STATUS_METHOD_NOT_ALLOWED;
+			response = error("Method must be POST");
+		}
+		else{
+			try(final InputStream is = exchange.getRequestBody()){
+				final byte[] body = is.readNBytes(REQUEST_SIZE_MAX + 1);
+				if(body.length > REQUEST_SIZE_MAX){
+					status = STATUS_PAYLOAD_TOO_LARGE;
+					response = error("Request must be at most " + REQUEST_SIZE_MAX + " bytes");
+				}
+				else{
+					final Object request = Json.parse(new String(body, StandardCharsets.UTF_8));
+					if(request instanceof List && ((List<?>)request).size() > BATCH_SIZE_MAX)
+						throw new IllegalArgumentException("Batch must have at most " + BATCH_SIZE_MAX + " requests");
+
+					response = service.handle(endpoint, request);
+					status = STATUS_OK;
+				}
+			}
+			catch(final DoughException | YeastException | IllegalArgumentException | DateTimeParseException e){
+				status = STATUS_BAD_REQUEST;
+				response = error(e.getMessage());
+			}
+			catch(final RuntimeException e){
+				LOGGER.error("Error while handling a request to {}", endpoint, e);
+
+				status = STATUS_INTERNAL_ERROR;
+				response = error("Internal error");
+			}
+		}
+
+		final String body = Json.write(response);
+		//record before sending, so that a client sees its own request in the metrics
+		if(status != STATUS_OK)
+			errors.get(endpoint).increment();
+		latencies.get(endpoint).record(System.nanoTime() - start);
+
+		send(exchange, status, CONTENT_TYPE_JSON, body);
+	}
+
+	private static Map<String, Object> error(final String message){
+		return Collections.singletonMap("error", message);
+	}
+
+	private void handleMetrics(final HttpExchange exchange) throws IOException{
+		final StringBuilder sb = new StringBuilder();
+		sb.append("# TYPE pizza_request_duration_seconds summary\n");
+		for(final Map.Entry<String, LogLinearHistogram> entry : latencies.entrySet())
+			writeSummary("pizza_request_duration_seconds", "endpoint=\"" + entry.getKey() + "\"", entry.getValue().snapshot(),
+				1. / NANOS_PER_SECOND, sb);
+		sb.append("# TYPE pizza_request_errors_total counter\n");
+		for(final Map.Entry<String, LongAdder> entry : errors.entrySet())
+			sb.append("pizza_request_errors_total{endpoint=\"").append(entry.getKey()).append("\"} ").append(entry.getValue().sum())
+				.append('\n');
+
+		final DoughMetrics metrics = service.getDoughMetrics();
+		if(metrics != null)
+			writeDoughMetrics(metrics.snapshot(), sb);
+
+		send(exchange, STATUS_OK, CONTENT_TYPE_METRICS, sb.toString());
+	}
+
+	private static void writeDoughMetrics(final DoughMetrics.Snapshot doughMetrics, final StringBuilder sb){
+		sb.append("# TYPE pizza_yeast_calculations_total counter\n");
+		for(final YeastOutcome outcome : YeastOutcome.values())
+			sb.append("pizza_yeast_calculations_total{outcome=\"").append(outcome.name().toLowerCase(Locale.ROOT)).append("\"} ")
+				.append(doughMetrics.getYeastOutcomes(outcome)).append('\n');
+		writeSummary("pizza_yeast_duration_seconds", doughMetrics.getYeastTimes(), 1. / NANOS_PER_SECOND, sb);
+		writeSummary("pizza_yeast_evaluations", doughMetrics.getYeastEvaluations(), 1., sb);
+		writeSummary("pizza_yeast_residual", doughMetrics.getYeastResiduals(), DoughMetrics.RESIDUAL_UNIT, sb);
+		writeSummary("pizza_ingredients_duration_seconds", doughMetrics.getIngredientsTimes(), 1. / NANOS_PER_SECOND, sb);
+		writeSummary("pizza_ingredients_iterations", doughMetrics.getIngredientsIterations(), 1., sb);
+	}
+
+	private static void writeSummary(final String name, final LogLinearHistogram.Snapshot snapshot, final double scale,
+			final StringBuilder sb){
+		sb.append("# TYPE ").append(name).append(" summary\n");
+		writeSummary(name, "", snapshot, scale, sb);
+	}
+
+	/**
+	 * Append a histogram as a summary in the Prometheus text format (the type line is not written).
+	 *
+	 * @param name	The name of the metric.
+	 * @param labels	The labels, as in {@code key="value"}, can be empty.
+	 * @param snapshot	The histogram.
+	 * @param scale	The factor converting the recorded values into the unit of the metric.
+	 * @param sb	Where to write the summary.
+	 */
+	private static void writeSummary(final String name, final String labels, final LogLinearHistogram.Snapshot snapshot,
+			final double scale, final StringBuilder sb){
+		final String separator = (labels.isEmpty()? "": ",");
+		for(final double quantile : SUMMARY_QUANTILES)
+			sb.append(name).append('{').append(labels).append(separator).append("quantile=\"").append(quantile).append("\"} ")
+				.append(snapshot.quantile(quantile) * scale).append('\n');
+		final String suffix = (labels.isEmpty()? " ": "{" + labels + "} ");
+		sb.append(name).append("_sum").append(suffix).append(snapshot.getSum() * scale).append('\n');
+		sb.append(name).append("_count").append(suffix).append(snapshot.getCount()).append('\n');
+	}
+
+	private void handleReload(final HttpExchange exchange) throws IOException{
+		int status;
+		Object response;
+		if(!"POST".equals(exchange.getRequestMethod())){
+			status = STATUS_METHOD_NOT_ALLOWED;
+			response = error("Method must be POST");
+		}
+		else{
+			try{
+				service.getYeastModels()
+					.reload();
+				LOGGER.info("Yeast models reloaded");
+
+				status = STATUS_OK;
+				response = Collections.singletonMap("yeastModels", service.getYeastModels().names());
+			}
+			catch(final IllegalArgumentException | IllegalStateException e){
+				status = STATUS_BAD_REQUEST;
+				response = error(e.getMessage());
+			}
+			catch(final IOException e){
+				LOGGER.error("Error while reloading the yeast models", e);
+
+				status = STATUS_INTERNAL_ERROR;
+				response = error("Cannot read the yeast models");
+			}
+		}
+
+		send(exchange, status, CONTENT_TYPE_JSON, Json.write(response));
+	}
+
+	private static void send(final HttpExchange exchange, final int status, final String contentType, final String body)
+			throws IOException{
+		final byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+		exchange.getResponseHeaders().set("Content-Type", contentType);
+		exchange.sendResponseHeaders(status, bytes.length);
+		try(final OutputStream os = exchange.getResponseBody()){
+			os.write(bytes);
+		}
+	}
+
+}
@@ -0,0 +1,416 @@
+/**
+ * Copyright (c) 2020 Mauro Trevisan
+ *
+ * Permission is hereby granted, free of charge, to any person
+ * obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without
+ * restriction, including without limitation the rights to use,
+ * copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the
+ * Software is furnished to do so, subject to the following
+ * conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES
+ * OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+ * WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ */
+package io.github.mtrevisan.pizza.service;
+
+import io.github.mtrevisan.pizza.Dough;
+import io.github.mtrevisan.pizza.DoughException;
+import io.github.mtrevisan.pizza.DoughMetrics;
+import io.github.mtrevisan.pizza.DoughMetricsListener;
+import io.github.mtrevisan.pizza.Flour;
+import io.github.mtrevisan.pizza.Ingredients;
+import io.github.mtrevisan.pizza.LeaveningStage;
+import io.github.mtrevisan.pizza.Procedure;
+import io.github.mtrevisan.pizza.Recipe;
+import io.github.mtrevisan.pizza.StretchAndFoldStage;
+import io.github.mtrevisan.pizza.SugarType;
+import io.github.mtrevisan.pizza.YeastCache;
+import io.github.mtrevisan.pizza.YeastException;
+import io.github.mtrevisan.pizza.YeastType;
+import io.github.mtrevisan.pizza.yeasts.YeastModelAbstract;
+import io.github.mtrevisan.pizza.yeasts.YeastModelRegistry;
+
+import java.time.Duration;
+import java.time.LocalTime;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+
+/**
+ * Transport-independent handling of the recipe requests, given and returned as parsed JSON values (see
+ * {@link io.github.mtrevisan.pizza.utils.Json}).
+ * <p>
+ * A request is a JSON object with the fields:
+ * <ul>
+ *    <li>{@code yeastModel}: the name of the yeast model (e.g. {@code SaccharomycesCerevisiaeCECT10131Yeast}, see
+ *    {@link YeastModelRegistry}),</li>
+ *    <li>{@code dough}: {@code water}, {@code salt}, {@code sugar}, {@code fat} [% w/w], {@code atmosphericPressure} [hPa],</li>
+ *    <li>{@code ingredients} (optional for yeast and time to rise): {@code flour} ({@code strength}, {@code saltContent},
+ *    {@code fatContent}), {@code water} ({@code chlorineDioxide}, {@code calciumCarbonate}, {@code fixedResidue}, {@code pH}),
+ *    {@code yeastType}, {@code rawYeast}, {@code sugarType}, {@code sugarContent}, {@code sugarWaterContent}, {@code fatContent},
+ *    {@code fatWaterContent}, {@code fatSaltContent}, {@code correctForIngredients}, {@code airRelativeHumidity},
+ *    {@code ingredientsTemperature}, {@code doughTemperature} [°C], {@code doughWeight} [g], {@code panArea} [cm²],
+ *    {@code targetPizzaHeight} [cm],</li>
+ *    <li>{@code procedure}: {@code stages} (each with {@code temperature} [°C], {@code duration}, {@code volumeDecrease}),
+ *    {@code targetVolumeExpansionRatio}, {@code targetStage}, {@code stretchAndFolds} (each with {@code lapse},
+ *    {@code volumeDecrease}), {@code doughMaking}, {@code stagesWork}, {@code seasoning}, {@code timeToBake} (as {@code HH:mm}),</li>
+ *    <li>{@code yeast}: the yeast quantity [% w/w] (only for the time to rise).</li>
+ * </ul>
+ * Durations are given either in ISO-8601 (e.g. {@code PT6H30M}) or as a number of hours.<br />
+ * A JSON array of requests is a batch, answered with an array of responses in the same order, a failed request being answered with
+ * an object holding the {@code error} only.
+ * </p>
+ * <p>
+ * The instance can be shared between threads.
+ * </p>
+ */
+public final class RecipeService{
+
+	public static final String ENDPOINT_RECIPE = "/recipe";
+	public static final String ENDPOINT_YEAST = "/yeast";
+	public static final String ENDPOINT_TIME_TO_RISE = "/time-to-rise";
+
+	static final int YEAST_CACHE_SIZE_DEFAULT = 10_000;
+	private static final String FIELD_ERROR = "error";
+
+
+	@FunctionalInterface
+	private interface Handler{
+		Map<String, Object> handle(Map<?, ?> request) throws DoughException, YeastException;
+	}
+
+
+	/** Shared between all the requests. */
+	private final YeastCache yeastCache;
+	private final YeastModelRegistry yeastModels;
+	private final DoughMetrics doughMetrics;
+
+
+	/**
+	 * @return	A service with a cache of the last 10 000 solved yeast quantities.
+	 */
+	public static RecipeService create(){
+		return create(YeastCache.create(YEAST_CACHE_SIZE_DEFAULT));
+	}
+
+	/**
+	 * @param yeastCache	Cache of the solved yeast quantities, can be {@code null}.
+	 * @return	The service.
+	 */
+	public static RecipeService create(final YeastCache yeastCache){
+		return create(yeastCache, YeastModelRegistry.create());
+	}
+
+	/**
+	 * @param yeastCache	Cache of the solved yeast quantities, can be {@code null}; cleared at each reload of the yeast models.
+	 * @param yeastModels	The yeast models.
+	 * @return	The service.
+	 */
+	public static RecipeService create(final YeastCache yeastCache, final YeastModelRegistry yeastModels){
+		return create(yeastCache, yeastModels, null);
+	}
+
+	/**
+	 * @param yeastCache	Cache of the solved yeast quantities, can be {@code null}; cleared at each reload of the yeast models.
+	 * @param yeastModels	The yeast models.
+	 * @param doughMetrics	The metrics of the yeast and ingredients calculations of all the requests, can be {@code null} (the
+	 * 	calculations are not measured).
+	 * @return	The service.
+	 */
+	public static RecipeService create(final YeastCache yeastCache, final YeastModelRegistry yeastModels,
+			final DoughMetrics doughMetrics){
+		if(yeastModels == null)
+			throw new IllegalArgumentException("Yeast models must be valued");
+
+		return new RecipeService(yeastCache, yeastModels, doughMetrics);
+	}
+
+	private RecipeService(final YeastCache yeastCache, final YeastModelRegistry yeastModels, final DoughMetrics doughMetrics){
+		this.yeastCache = yeastCache;
+		this.yeastModels = yeastModels;
+		this.doughMetrics = doughMetrics;
+
+		if(yeastCache != null)
+			//the solutions of the old models can no longer be hit, free the space
+			yeastModels.addReloadListener(yeastCache::clear);
+	}
+
+
+	/**
+	 * @return	The yeast models.
+	 */
+	public YeastModelRegistry getYeastModels(){
+		return yeastModels;
+	}
+
+	/**
+	 * @return	The metrics of the yeast and ingredients calculations of all the requests, {@code null} if not measured.
+	 */
+	public DoughMetrics getDoughMetrics(){
+		return doughMetrics;
+	}
+
+
+	/**
+	 * @param endpoint	The endpoint, one of {@link #ENDPOINT_RECIPE}, {@link #ENDPOINT_YEAST}, or {@link #ENDPOINT_TIME_TO_RISE}.
+	 * @param request	The parsed request, an object or an array of objects (a batch).
+	 * @return	The response, an object or an array of objects.
+	 * @throws IllegalArgumentException	If the endpoint is unknown, or the (single) request is malformed.
+	 */
+	public Object handle(final String endpoint, final Object request) throws DoughException, YeastException{
+		final Handler handler = handler(endpoint);
+		if(request instanceof List){
+			final List<?> requests = (List<?>)request;
+			final List<Map<String, Object>> responses = new ArrayList<>(requests.size());
+			for(final Object element : requests)
+				responses.add(handleBatchElement(handler, element));
+			return responses;
+		}
+
+		return handler.handle(asObject(request, "request"));
+	}
+
+	private Handler handler(final String endpoint){
+		if(ENDPOINT_RECIPE.equals(endpoint))
+			return this::createRecipe;
+		if(ENDPOINT_YEAST.equals(endpoint))
+			return this::calculateYeast;
+		if(ENDPOINT_TIME_TO_RISE.equals(endpoint))
+			return this::calculateTimeToRise;
+		throw new IllegalArgumentException("Unknown endpoint " + endpoint);
+	}
+
+	private static Map<String, Object> handleBatchElement(final Handler handler, final Object request){
+		try{
+			return handler.handle(asObject(request, "request"));
+		}
+		catch(final DoughException | YeastException | IllegalArgumentException | DateTimeParseException e){
+			return Collections.singletonMap(FIELD_ERROR, e.getMessage());
+		}
+	}
+
+
+	private Map<String, Object> createRecipe(final Map<?, ?> request) throws DoughException, YeastException{
+		final Ingredients ingredients = parseIngredients(asObject(request.get("ingredients"), "ingredients"));
+		final Dough dough = parseDough(request, yeastModel(request), ingredients);
+		final Procedure procedure = parseProcedure(request);
+
+		final Recipe recipe = dough.createRecipe(ingredients, procedure);
+
+		final Map<String, Object> response = new LinkedHashMap<>();
+		response.put("flour", recipe.getFlour());
+		response.put("water", recipe.getWater());
+		response.put("waterTemperature", recipe.getWaterTemperature());
+		response.put("yeast", recipe.getYeast());
+		response.put("sugar", recipe.getSugar());
+		response.put("fat", recipe.getFat());
+		response.put("salt", recipe.getSalt());
+		response.put("doughMaking", recipe.getDoughMakingInstant());
+		response.put("stages", recipe.getStageStartEndInstants());
+		response.put("seasoning", recipe.getSeasoningInstant());
+		return response;
+	}
+
+	private Map<String, Object> calculateYeast(final Map<?, ?> request) throws DoughException, YeastException{
+		final YeastModelAbstract yeastModel = yeastModel(request);
+		final Dough dough = parseDough(request, yeastModel, parseOptionalIngredients(request));
+		final Procedure procedure = parseProcedure(request);
+
+		//the dough is used once, no need for an engine: no previous solution, so the search is done over the whole range
+		final double yeast = dough.recalculateYeast(procedure, 0.);
+		return Collections.singletonMap("yeast", yeast);
+	}
+
+	private Map<String, Object> calculateTimeToRise(final Map<?, ?> request) throws DoughException, YeastException{
+		final YeastModelAbstract yeastModel = yeastModel(request);
+		final Dough dough = parseDough(request, yeastModel, parseOptionalIngredients(request));
+		final Procedure procedure = parseProcedure(request);
+
+		final double hours = dough.calculateTimeToTarget(procedure, getDouble(request, "yeast"));
+		return Collections.singletonMap("hours", hours);
+	}
+
+
+	/** The model is taken once per request, so a reload of the models does not affect a request in progress. */
+	private YeastModelAbstract yeastModel(final Map<?, ?> request){
+		final String name = getString(request, "yeastModel", null);
+		if(name == null)
+			throw new IllegalArgumentException("Missing field `yeastModel`");
+		final YeastModelAbstract yeastModel = yeastModels.get(name);
+		if(yeastModel == null)
+			throw new IllegalArgumentException("Unknown yeast model " + name + ", must be one of " + yeastModels.names());
+
+		return yeastModel;
+	}
+
+	private Dough parseDough(final Map<?, ?> request, final YeastModelAbstract yeastModel, final Ingredients ingredients)
+			throws DoughException{
+		final Map<?, ?> dough = asObject(request.get("dough"), "dough");
+		final Dough result = Dough.create(yeastModel)
+			.addWater(getDouble(dough, "water"), ingredients)
+			.addSugar(getDouble(dough, "sugar", 0.), ingredients)
+			.addSalt(getDouble(dough, "salt", 0.))
+			.addFat(getDouble(dough, "fat", 0.), ingredients)
+			.withYeastCache(yeastCache)
+			.withMetricsListener(doughMetrics != null? doughMetrics: DoughMetricsListener.NONE);
+		if(dough.containsKey("atmosphericPressure"))
+			result.withAtmosphericPressure(getDouble(dough, "atmosphericPressure"));
+		return result;
+	}
+
+	private static Ingredients parseOptionalIngredients(final Map<?, ?> request) throws DoughException{
+		final Object ingredients = request.get("ingredients");
+		return parseIngredients(ingredients != null? asObject(ingredients, "ingredients"): Collections.emptyMap());
+	}
+
+	private static Ingredients parseIngredients(final Map<?, ?> request) throws DoughException{
+		final Map<?, ?> flour = getObject(request, "flour");
+		final Map<?, ?> water = getObject(request, "water");
+		final Ingredients ingredients = new Ingredients()
+			.withFlour(flour.containsKey("strength")
+				? Flour.create(getDouble(flour, "strength"), getDouble(flour, "saltContent", 0.), getDouble(flour, "fatContent", 0.))
+				: Flour.create())
+			.withWater(getDouble(water, "chlorineDioxide", 0.), getDouble(water, "calciumCarbonate", 0.),
+				getDouble(water, "fixedResidue", 0.), getDouble(water, "pH", Dough.PURE_WATER_PH))
+			.withYeast(YeastType.valueOf(getString(request, "yeastType", YeastType.FRESH.name())), getDouble(request, "rawYeast", 1.))
+			.withSugar(SugarType.valueOf(getString(request, "sugarType", SugarType.SUCROSE.name())),
+				getDouble(request, "sugarContent", 1.), getDouble(request, "sugarWaterContent", 0.))
+			.withFat(getDouble(request, "fatContent", 1.), getDouble(request, "fatWaterContent", 0.),
+				getDouble(request, "fatSaltContent", 0.));
+		if(Boolean.TRUE.equals(request.get("correctForIngredients")))
+			ingredients.withCorrectForIngredients();
+		if(request.containsKey("airRelativeHumidity"))
+			ingredients.withCorrectForHumidity()
+				.withAirRelativeHumidity(getDouble(request, "airRelativeHumidity"));
+		if(request.containsKey("ingredientsTemperature"))
+			ingredients.withIngredientsTemperature(getDouble(request, "ingredientsTemperature"));
+		if(request.containsKey("doughTemperature"))
+			ingredients.withDoughTemperature(getDouble(request, "doughTemperature"));
+		if(request.containsKey("doughWeight"))
+			ingredients.withDoughWeight(getDouble(request, "doughWeight"));
+		if(request.containsKey("panArea"))
+			ingredients.withPanArea(getDouble(request, "panArea"));
+		if(request.containsKey("targetPizzaHeight"))
+			ingredients.withTargetPizzaHeight(getDouble(request, "targetPizzaHeight"));
+		return ingredients;
+	}
+
+	private static Procedure parseProcedure(final Map<?, ?> request) throws DoughException{
+		final Map<?, ?> procedure = asObject(request.get("procedure"), "procedure");
+		final List<?> stages = getArray(procedure, "stages");
+		if(stages.isEmpty())
+			throw new IllegalArgumentException("At least one stage must be given");
+		final LeaveningStage[] leaveningStages = new LeaveningStage[stages.size()];
+		for(int i = 0; i < leaveningStages.length; i ++){
+			final Map<?, ?> stage = asObject(stages.get(i), "stage");
+			leaveningStages[i] = LeaveningStage.create(getDouble(stage, "temperature"), getDuration(stage, "duration", null));
+			if(stage.containsKey("volumeDecrease"))
+				leaveningStages[i].withVolumeDecrease(getDouble(stage, "volumeDecrease"));
+		}
+		final Duration[] stagesWork = new Duration[leaveningStages.length];
+		final List<?> works = (procedure.containsKey("stagesWork")? getArray(procedure, "stagesWork"): Collections.emptyList());
+		for(int i = 0; i < stagesWork.length; i ++)
+			stagesWork[i] = (i < works.size()? parseDuration(works.get(i), "stagesWork"): Duration.ZERO);
+		final LocalTime timeToBake = LocalTime.parse(getString(procedure, "timeToBake", LocalTime.NOON.toString()));
+
+		final Procedure result = Procedure.create(leaveningStages, getDouble(procedure, "targetVolumeExpansionRatio"),
+			(int)getDouble(procedure, "targetStage", leaveningStages.length - 1), getDuration(procedure, "doughMaking", Duration.ZERO),
+			stagesWork, getDuration(procedure, "seasoning", Duration.ZERO), timeToBake);
+		if(procedure.containsKey("stretchAndFolds")){
+			final List<?> folds = getArray(procedure, "stretchAndFolds");
+			final StretchAndFoldStage[] stretchAndFoldStages = new StretchAndFoldStage[folds.size()];
+			for(int i = 0; i < stretchAndFoldStages.length; i ++){
+				final Map<?, ?> fold = asObject(folds.get(i), "stretch and fold");
+				stretchAndFoldStages[i] = StretchAndFoldStage.create(getDuration(fold, "lapse", null));
+				if(fold.containsKey("volumeDecrease"))
+					stretchAndFoldStages[i].withVolumeDecrease(getDouble(fold, "volumeDecrease"));
+			}
+			result.withStretchAndFoldStages(stretchAndFoldStages);
+		}
+		return result;
+	}
+
+
+	private static Map<?, ?> asObject(final Object value, final String name){
+		if(!(value instanceof Map))
+			throw new IllegalArgumentException("The " + name + " must be an object");
+
+		return (Map<?, ?>)value;
+	}
+
+	private static Map<?, ?> getObject(final Map<?, ?> object, final String key){
+		final Object value = object.get(key);
+		return (value != null? asObject(value, "field `" + key + "`"): Collections.emptyMap());
+	}
+
+	private static List<?> getArray(final Map<?, ?> object, final String key){
+		final Object value = object.get(key);
+		if(!(value instanceof List))
+			throw new IllegalArgumentException("Field `" + key + "` must be an array");
+
+		return (List<?>)value;
+	}
+
+	private static double getDouble(final Map<?, ?> object, final String key){
+		final Object value = object.get(key);
+		if(value == null)
+			throw new IllegalArgumentException("Missing field `" + key + "`");
+
+		return asDouble(value, key);
+	}
+
+	private static double getDouble(final Map<?, ?> object, final String key, final double defaultValue){
+		final Object value = object.get(key);
+		return (value != null? asDouble(value, key): defaultValue);
+	}
+
+	private static double asDouble(final Object value, final String key){
+		if(!(value instanceof Number))
+			throw new IllegalArgumentException("Field `" + key + "` must be a number");
+
+		return ((Number)value).doubleValue();
+	}
+
+	private static String getString(final Map<?, ?> object, final String key, final String defaultValue){
+		final Object value = object.get(key);
+		if(value != null && !(value instanceof String))
+			throw new IllegalArgumentException("Field `" + key + "` must be a string");
+
+		return (value != null? (String)value: defaultValue);
+	}
+
+	private static Duration getDuration(final Map<?, ?> object, final String key, final Duration defaultValue){
+		final Object value = object.get(key);
+		if(value == null){
+			if(defaultValue == null)
+				throw new IllegalArgumentException("Missing field `" + key + "`");
+
+			return defaultValue;
+		}
+		return parseDuration(value, key);
+	}
+
+	private static Duration parseDuration(final Object value, final String key){
+		if(value instanceof Number)
+			return Duration.ofMillis(Math.round(((Number)value).doubleValue() * 3_600_000.));
+		if(value instanceof String)
+			return Duration.parse((String)value);
+		throw new IllegalArgumentException("Field `" + key + "` must be a duration");
+	}
+
+}
@@ -28,21 +28,11 @@ import org.slf4j.helpers.MessageFormatter;
 
 import java.math.BigDecimal;
 import java.math.RoundingMode;
+import java.util.SplittableRandom;
 
 
 public final class Helper{
 
-	static{
-		try{
-			//check whether an optional SLF4J binding is available
-			Class.forName("org.slf4j.impl.StaticLoggerBinder");
-		}
-		catch(final LinkageError | ClassNotFoundException ignored){
-			System.out.println("[WARN] SLF4J: No logger is defined, NO LOG will be printed!");
-		}
-	}
-
-
 	private Helper(){}
 
 
@@ -67,6 +57,22 @@ public final class Helper{
 		return y;
 	}
 
+	/**
+	 * Draw a standard normally distributed value (Marsaglia polar method).
+	 *
+	 * @param random	The random generator.
+	 * @return	A value with mean 0 and standard deviation 1.
+	 */
+	public static double nextGaussian(final SplittableRandom random){
+		double u, v, s;
+		do{
+			u = 2. * random.nextDouble() - 1.;
+			v = 2. * random.nextDouble() - 1.;
+			s = u * u + v * v;
+		}while(s >= 1. || s == 0.);
+		return u * Math.sqrt(-2. * Math.log(s) / s);
+	}
+
 	public static double round(final double value, final int decimalPlaces){
 		return BigDecimal.valueOf(value)
 			.setScale(decimalPlaces, RoundingMode.HALF_UP)
@@ -0,0 +1,324 @@
+/**
+ * Copyright (c) 2020 Mauro Trevisan
+ *
+ * Permission is hereby granted, free of charge, to any person
+ * obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without
+ * restriction, including without limitation the rights to use,
+ * copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the
+ * Software is furnished to do so, subject to the following
+ * conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES
+ * OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+ * WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ */
+package io.github.mtrevisan.pizza.utils;
+
+import java.lang.reflect.Array;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+
+/**
+ * Minimal JSON reader and writer.
+ * <p>
+ * Objects are read into {@link Map}s (keeping the order of the keys), arrays into {@link List}s, numbers into {@link Double}s.<br />
+ * Besides those types, the writer accepts Java arrays and writes any other object as the string given by its {@code toString}; not
+ * finite numbers are written as {@code null}.<br />
+ * The objects and arrays can be nested at most {@value #DEPTH_MAX} levels deep, so that the (recursive) reader cannot overflow the
+ * stack.
+ * </p>
+ */
+public final class Json{
+
+	/** Maximum number of nested objects and arrays. */
+	public static final int DEPTH_MAX = 64;
+
+
+	private final String text;
+	private int index;
+	private int depth;
+
+
+	private Json(final String text){
+		this.text = text;
+	}
+
+	/**
+	 * @param text	The JSON text.
+	 * @return	The parsed value.
+	 * @throws IllegalArgumentException	If the text is not valid JSON, or is nested too deep.
+	 */
+	public static Object parse(final String text){
+		if(text == null)
+			throw new IllegalArgumentException("Text must be valued");
+
+		final Json parser = new Json(text);
+		final Object value = parser.readValue();
+		parser.skipWhitespaces();
+		if(parser.index < text.length())
+			throw parser.error("Unexpected content");
+		return value;
+	}
+
+	/**
+	 * @param value	The value to be written.
+	 * @return	The JSON text.
+	 */
+	public static String write(final Object value){
+		final StringBuilder sb = new StringBuilder();
+		write(value, sb);
+		return sb.toString();
+	}
+
+	/**
+	 * @param value	The value to be written.
+	 * @param sb	Where to write the JSON text.
+	 */
+	public static void write(final Object value, final StringBuilder sb){
+		if(value == null)
+			sb.append("null");
+		else if(value instanceof Number){
+			final double number = ((Number)value).doubleValue();
+			if(!Double.isFinite(number))
+				sb.append("null");
+			else if(value instanceof Integer || value instanceof Long)
+				sb.append(((Number)value).longValue());
+			else
+				sb.append(number);
+		}
+		else if(value instanceof Boolean)
+			sb.append(value);
+		else if(value instanceof Map){
+			sb.append('{');
+			boolean first = true;
+			for(final Map.Entry<?, ?> entry : ((Map<?, ?>)value).entrySet()){
+				if(!first)
+					sb.append(',');
+				writeString(String.valueOf(entry.getKey()), sb);
+				sb.append(':');
+				write(entry.getValue(), sb);
+				first = false;
+			}
+			sb.append('}');
+		}
+		else if(value instanceof Collection){
+			sb.append('[');
+			boolean first = true;
+			for(final Object element : (Collection<?>)value){
+				if(!first)
+					sb.append(',');
+				write(element, sb);
+				first = false;
+			}
+			sb.append(']');
+		}
+		else if(value.getClass().isArray()){
+			sb.append('[');
+			for(int i = 0, length = Array.getLength(value); i < length; i ++){
+				if(i > 0)
+					sb.append(',');
+				write(Array.get(value, i), sb);
+			}
+			sb.append(']');
+		}
+		else
+			writeString(value.toString(), sb);
+	}
+
+	private static void writeString(final String value, final StringBuilder sb){
+		sb.append('"');
+		for(int i = 0; i < value.length(); i ++){
+			final char chr = value.charAt(i);
+			switch(chr){
+				case '"' -> sb.append("\\\"");
+				case '\\' -> sb.append("\\\\");
+				case '\n' -> sb.append("\\n");
+				case '\r' -> sb.append("\\r");
+				case '\t' -> sb.append("\\t");
+				default -> {
+					if(chr < 0x20)
+						sb.append(String.format("\\u%04x", (int)chr));
+					else
+						sb.append(chr);
+				}
+			}
+		}
+		sb.append('"');
+	}
+
+
+	private Object readValue(){
+		skipWhitespaces();
+		if(index >= text.length())
+			throw error("Unexpected end of text");
+
+		final char chr = text.charAt(index);
+		return switch(chr){
+			case '{', '[' -> readNested(chr);
+			case '"' -> readString();
+			case 't' -> readLiteral("true", Boolean.TRUE);
+			case 'f' -> readLiteral("false", Boolean.FALSE);
+			case 'n' -> readLiteral("null", null);
+			default -> readNumber();
+		};
+	}
+
+	private Object readNested(final char chr){
+		if(++ depth > DEPTH_MAX)
+			throw error("Nesting must be at most " + DEPTH_MAX + " levels deep");
+
+		final Object value = (chr == '{'? readObject(): readArray());
+		depth --;
+		return value;
+	}
+
+	private Map<String, Object> readObject(){
+		final Map<String, Object> object = new LinkedHashMap<>();
+		index ++;
+		skipWhitespaces();
+		if(peek() == '}'){
+			index ++;
+			return object;
+		}
+
+		while(true){
+			skipWhitespaces();
+			if(peek() != '"')
+				throw error("Expected a key");
+			final String key = readString();
+			skipWhitespaces();
+			expect(':');
+			object.put(key, readValue());
+			skipWhitespaces();
+			if(peek() == ','){
+				index ++;
+				continue;
+			}
+			expect('}');
+			return object;
+		}
+	}
+
+	private List<Object> readArray(){
+		final List<Object> array = new ArrayList<>();
+		index ++;
+		skipWhitespaces();
+		if(peek() == ']'){
+			index ++;
+			return array;
+		}
+
+		while(true){
+			array.add(readValue());
+			skipWhitespaces();
+			if(peek() == ','){
+				index ++;
+				continue;
+			}
+			expect(']');
+			return array;
+		}
+	}
+
+	private String readString(){
+		index ++;
+		final StringBuilder sb = new StringBuilder();
+		while(true){
+			if(index >= text.length())
+				throw error("Unterminated string");
+
+			final char chr = text.charAt(index ++);
+			if(chr == '"')
+				return sb.toString();
+			if(chr != '\\'){
+				sb.append(chr);
+				continue;
+			}
+
+			if(index >= text.length())
+				throw error("Unterminated string");
+			final char escaped = text.charAt(index ++);
+			switch(escaped){
+				case '"', '\\', '/' -> sb.append(escaped);
+				case 'b' -> sb.append('\b');
+				case 'f' -> sb.append('\f');
+				case 'n' -> sb.append('\n');
+				case 'r' -> sb.append('\r');
+				case 't' -> sb.append('\t');
+				case 'u' -> {
+					if(index + 4 > text.length())
+						throw error("Invalid unicode escape");
+					try{
+						sb.append((char)Integer.parseInt(text, index, index + 4, 16));
+					}
+					catch(final NumberFormatException e){
+						throw error("Invalid unicode escape");
+					}
+					index += 4;
+				}
+				default -> throw error("Invalid escape");
+			}
+		}
+	}
+
+	private Object readLiteral(final String literal, final Object value){
+		if(!text.startsWith(literal, index))
+			throw error("Unexpected token");
+
+		index += literal.length();
+		return value;
+	}
+
+	private Double readNumber(){
+		final int start = index;
+		while(index < text.length() && "+-0123456789.eE".indexOf(text.charAt(index)) >= 0)
+			index ++;
+		if(start == index)
+			throw error("Unexpected character");
+
+		try{
+			return Double.valueOf(text.substring(start, index));
+		}
+		catch(final NumberFormatException e){
+			throw error("Invalid number");
+		}
+	}
+
+	private void skipWhitespaces(){
+		while(index < text.length() && Character.isWhitespace(text.charAt(index)))
+			index ++;
+	}
+
+	private char peek(){
+		if(index >= text.length())
+			throw error("Unexpected end of text");
+
+		return text.charAt(index);
+	}
+
+	private void expect(final char chr){
+		if(peek() != chr)
+			throw error("Expected '" + chr + "'");
+
+		index ++;
+	}
+
+	private IllegalArgumentException error(final String message){
+		return new IllegalArgumentException(message + " at position " + index);
+	}
+
+}
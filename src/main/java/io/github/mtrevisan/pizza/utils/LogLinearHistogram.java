@@ -0,0 +1,180 @@
+/**
+ * Copyright (c) 2020 Mauro Trevisan
+ *
+ * Permission is hereby granted, free of charge, to any person
+ * obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without
+ * restriction, including without limitation the rights to use,
+ * copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the
+ * Software is furnished to do so, subject to the following
+ * conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES
+ * OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+ * WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ */
+package io.github.mtrevisan.pizza.utils;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+
+/**
+ * Lock-free histogram of non-negative integer values (latencies, counts) with log-linear buckets, as in HdrHistogram.
+ * <p>
+ * Values less than 32 are counted exactly, then each power of two is split into 16 buckets, so any quantile is estimated within a
+ * relative error of 1/16 over the whole range of {@code long}, with a fixed memory.<br />
+ * It can be shared between threads; a snapshot taken while values are being recorded can be slightly inconsistent (the sum can be
+ * ahead of the buckets), as usual for metrics.
+ * </p>
+ *
+ * @see <a href="http://hdrhistogram.org/">HdrHistogram</a>
+ */
+public final class LogLinearHistogram{
+
+	private static final int SUB_BUCKET_BITS = 4;
+	private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+	/** Values under this one have a bucket each. */
+	private static final int EXACT_LIMIT = SUB_BUCKETS << 1;
+	/** The highest bit of a non-negative {@code long} is the 62nd. */
+	private static final int BUCKETS = EXACT_LIMIT + (Long.SIZE - 2 - SUB_BUCKET_BITS) * SUB_BUCKETS;
+
+
+	private final AtomicLongArray counts = new AtomicLongArray(BUCKETS);
+	private final LongAdder sum = new LongAdder();
+	private final LongAccumulator max = new LongAccumulator(Math::max, 0l);
+
+
+	public static LogLinearHistogram create(){
+		return new LogLinearHistogram();
+	}
+
+	private LogLinearHistogram(){}
+
+
+	/**
+	 * @param value	The value, negative ones are recorded as zero.
+	 */
+	public void record(final long value){
+		final long clamped = Math.max(value, 0l);
+		counts.incrementAndGet(bucketIndex(clamped));
+		sum.add(clamped);
+		max.accumulate(clamped);
+	}
+
+	static int bucketIndex(final long value){
+		if(value < EXACT_LIMIT)
+			return (int)value;
+
+		//keep the highest `SUB_BUCKET_BITS + 1` bits
+		final int shift = Long.SIZE - 1 - Long.numberOfLeadingZeros(value) - SUB_BUCKET_BITS;
+		final int mantissa = (int)(value >>> shift);
+		return EXACT_LIMIT + (shift - 1) * SUB_BUCKETS + mantissa - SUB_BUCKETS;
+	}
+
+	/**
+	 * @param index	The index of the bucket.
+	 * @return	The greatest value counted in the bucket.
+	 */
+	static long upperBound(final int index){
+		if(index < EXACT_LIMIT)
+			return index;
+
+		final int shift = (index - EXACT_LIMIT) / SUB_BUCKETS + 1;
+		final long mantissa = (index - EXACT_LIMIT) % SUB_BUCKETS + SUB_BUCKETS;
+		//NOTE: for the last bucket the shift overflows to `Long.MIN_VALUE`, so the result is `Long.MAX_VALUE`
+		return ((mantissa + 1) << shift) - 1;
+	}
+
+	/**
+	 * @return	A copy of the current state.
+	 */
+	public Snapshot snapshot(){
+		final long[] copy = new long[BUCKETS];
+		long count = 0l;
+		for(int i = 0; i < BUCKETS; i ++){
+			copy[i] = counts.get(i);
+			count += copy[i];
+		}
+		return new Snapshot(copy, count, sum.sum(), max.get());
+	}
+
+
+	/** Immutable state of a histogram. */
+	public static final class Snapshot{
+
+		private final long[] counts;
+		private final long count;
+		private final long sum;
+		private final long max;
+
+
+		private Snapshot(final long[] counts, final long count, final long sum, final long max){
+			this.counts = counts;
+			this.count = count;
+			this.sum = sum;
+			this.max = max;
+		}
+
+		/**
+		 * @return	The number of recorded values.
+		 */
+		public long getCount(){
+			return count;
+		}
+
+		/**
+		 * @return	The sum of the recorded values.
+		 */
+		public long getSum(){
+			return sum;
+		}
+
+		/**
+		 * @return	The greatest recorded value (zero if nothing was recorded).
+		 */
+		public long getMax(){
+			return max;
+		}
+
+		/**
+		 * @return	The mean of the recorded values ({@link Double#NaN} if nothing was recorded).
+		 */
+		public double getMean(){
+			return (count > 0l? (double)sum / count: Double.NaN);
+		}
+
+		/**
+		 * @param quantile	The quantile, between 0 and 1.
+		 * @return	The upper bound of the bucket containing the quantile, capped at the greatest recorded value (zero if nothing was
+		 * 	recorded).
+		 */
+		public long quantile(final double quantile){
+			if(quantile < 0. || quantile > 1.)
+				throw new IllegalArgumentException("Quantile must be between 0 and 1");
+			if(count == 0l)
+				return 0l;
+
+			final long rank = Math.max((long)Math.ceil(quantile * count), 1l);
+			long cumulated = 0l;
+			for(int i = 0; i < counts.length; i ++){
+				cumulated += counts[i];
+				if(cumulated >= rank)
+					return Math.min(upperBound(i), max);
+			}
+			return max;
+		}
+
+	}
+
+}
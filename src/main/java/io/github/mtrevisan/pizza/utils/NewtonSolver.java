@@ -0,0 +1,174 @@
+/**
+ * Copyright (c) 2020 Mauro Trevisan
+ *
+ * Permission is hereby granted, free of charge, to any person
+ * obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without
+ * restriction, including without limitation the rights to use,
+ * copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the
+ * Software is furnished to do so, subject to the following
+ * conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES
+ * OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+ * WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ */
+package io.github.mtrevisan.pizza.utils;
+
+
+/**
+ * Safeguarded Newton-Raphson root finder: a Newton step is taken whenever it falls inside the current bracket and reduces it fast
+ * enough, otherwise a bisection step is taken.
+ * <p>
+ * Failures are reported through a status code instead of exceptions.<br />
+ * NOTE: the solver is stateful, an instance cannot be shared between threads.
+ * </p>
+ *
+ * @see "Press, Teukolsky, Vetterling, Flannery. Numerical Recipes. 3rd ed. 2007. §9.4 (rtsafe)."
+ */
+public final class NewtonSolver{
+
+	/** A root was found. */
+	public static final int SUCCESS = 0;
+	/** The function has the same sign at both ends of the interval. */
+	public static final int NO_BRACKETING = 1;
+	/** The maximum number of evaluations was reached before convergence. */
+	public static final int TOO_MANY_EVALUATIONS = 2;
+
+
+	private final double absoluteAccuracy;
+	private final double[] valueAndDerivative = new double[2];
+
+	private double root = Double.NaN;
+	private int evaluations;
+
+
+	/**
+	 * @param absoluteAccuracy	Absolute accuracy on the root.
+	 * @return	The solver.
+	 */
+	public static NewtonSolver create(final double absoluteAccuracy){
+		if(!(absoluteAccuracy > 0.))
+			throw new IllegalArgumentException("Absolute accuracy must be positive");
+
+		return new NewtonSolver(absoluteAccuracy);
+	}
+
+	private NewtonSolver(final double absoluteAccuracy){
+		this.absoluteAccuracy = absoluteAccuracy;
+	}
+
+
+	/**
+	 * @param maxEvaluations	Maximum number of function evaluations.
+	 * @param function	The function whose root is to be found.
+	 * @param min	Lower bound of the interval.
+	 * @param max	Upper bound of the interval.
+	 * @return	The status code, one of {@link #SUCCESS}, {@link #NO_BRACKETING}, or {@link #TOO_MANY_EVALUATIONS}.
+	 */
+	public int solve(final int maxEvaluations, final DifferentiableFunction function, final double min, final double max){
+		return solve(maxEvaluations, function, min, max, 0.5 * (min + max));
+	}
+
+	/**
+	 * @param maxEvaluations	Maximum number of function evaluations.
+	 * @param function	The function whose root is to be found.
+	 * @param min	Lower bound of the interval.
+	 * @param max	Upper bound of the interval.
+	 * @param startValue	Start value (if outside the interval, the midpoint is used).
+	 * @return	The status code, one of {@link #SUCCESS}, {@link #NO_BRACKETING}, or {@link #TOO_MANY_EVALUATIONS}.
+	 */
+	public int solve(final int maxEvaluations, final DifferentiableFunction function, final double min, final double max,
+			final double startValue){
+		root = Double.NaN;
+		evaluations = 0;
+
+		final double fMin = evaluate(function, min);
+		if(fMin == 0.)
+			return found(min);
+		final double fMax = evaluate(function, max);
+		if(fMax == 0.)
+			return found(max);
+		if(!(fMin < 0. && fMax > 0. || fMin > 0. && fMax < 0.))
+			return NO_BRACKETING;
+
+		//orient the bracket so that f(low) < 0
+		double low = (fMin < 0.? min: max);
+		double high = (fMin < 0.? max: min);
+		double x = (startValue > min && startValue < max? startValue: 0.5 * (min + max));
+		double previousStep = Math.abs(max - min);
+		double step = previousStep;
+		double f = evaluate(function, x);
+		double df = valueAndDerivative[1];
+		while(evaluations < maxEvaluations){
+			if(f == 0.)
+				return found(x);
+
+			final boolean outOfBracket = (((x - high) * df - f) * ((x - low) * df - f) > 0.);
+			final boolean tooSlow = (Math.abs(2. * f) > Math.abs(previousStep * df));
+			if(!Double.isFinite(df) || df == 0. || outOfBracket || tooSlow){
+				//bisection
+				previousStep = step;
+				step = 0.5 * (high - low);
+				x = low + step;
+				if(x == low)
+					return found(x);
+			}
+			else{
+				//Newton
+				previousStep = step;
+				step = f / df;
+				final double previousX = x;
+				x -= step;
+				if(x == previousX)
+					return found(x);
+			}
+			if(Math.abs(step) < absoluteAccuracy)
+				return found(x);
+
+			f = evaluate(function, x);
+			df = valueAndDerivative[1];
+			if(f < 0.)
+				low = x;
+			else
+				high = x;
+		}
+		return TOO_MANY_EVALUATIONS;
+	}
+
+	private double evaluate(final DifferentiableFunction function, final double x){
+		evaluations ++;
+		function.evaluate(x, valueAndDerivative);
+		return valueAndDerivative[0];
+	}
+
+	private int found(final double root){
+		this.root = root;
+		return SUCCESS;
+	}
+
+	/**
+	 * @return	The root found by the last successful call to {@link #solve(int, DifferentiableFunction, double, double)}, or
+	 * 	{@link Double#NaN}.
+	 */
+	public double getRoot(){
+		return root;
+	}
+
+	/**
+	 * @return	The number of function evaluations done by the last call to {@link #solve(int, DifferentiableFunction, double, double)}.
+	 */
+	public int getEvaluations(){
+		return evaluations;
+	}
+
+}
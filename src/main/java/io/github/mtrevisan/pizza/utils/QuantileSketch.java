@@ -0,0 +1,192 @@
+/**
+ * Copyright (c) 2020 Mauro Trevisan
+ *
+ * Permission is hereby granted, free of charge, to any person
+ * obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without
+ * restriction, including without limitation the rights to use,
+ * copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the
+ * Software is furnished to do so, subject to the following
+ * conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES
+ * OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+ * WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ */
+package io.github.mtrevisan.pizza.utils;
+
+
+/**
+ * Mergeable sketch of the quantiles of a stream of non-negative values, with a bounded relative error and a bounded memory.
+ * <p>
+ * Values are counted into buckets whose bounds grow geometrically, so any quantile is estimated within the given relative accuracy
+ * regardless of the number of values (as in DDSketch); the number of buckets is bounded, collapsing the lowest ones if the values
+ * span too many orders of magnitude (only the accuracy of the lowest quantiles is then lost).<br />
+ * Two sketches with the same accuracy can be merged, the result being the same as the one of a single sketch fed with all the values.
+ * </p>
+ * <p>
+ * NOTE: an instance cannot be shared between threads, use one per thread and merge them.
+ * </p>
+ *
+ * @see <a href="https://arxiv.org/abs/1908.10693">Masson, Rim, Lee. DDSketch: a fast and fully-mergeable quantile sketch with relative-error guarantees. 2019.</a>
+ */
+public final class QuantileSketch{
+
+	private static final double RELATIVE_ACCURACY_DEFAULT = 0.005;
+	private static final int BUCKETS_MAX = 2048;
+	/** Values under this one are counted as zero. */
+	private static final double MIN_INDEXABLE_VALUE = Double.MIN_NORMAL;
+
+
+	private final double relativeAccuracy;
+	private final double gamma;
+	private final double logGamma;
+
+	/** Count of each bucket, the first one having index {@link #offset}. */
+	private long[] counts = new long[0];
+	private int offset;
+	private long zeroCount;
+	private long count;
+	private double min = Double.POSITIVE_INFINITY;
+	private double max = Double.NEGATIVE_INFINITY;
+
+
+	/**
+	 * @return	A sketch with a relative accuracy of 0.5%.
+	 */
+	public static QuantileSketch create(){
+		return create(RELATIVE_ACCURACY_DEFAULT);
+	}
+
+	/**
+	 * @param relativeAccuracy	Relative accuracy of the quantiles.
+	 * @return	The sketch.
+	 */
+	public static QuantileSketch create(final double relativeAccuracy){
+		if(!(relativeAccuracy > 0. && relativeAccuracy < 1.))
+			throw new IllegalArgumentException("Relative accuracy must be between 0 and 1");
+
+		return new QuantileSketch(relativeAccuracy);
+	}
+
+	private QuantileSketch(final double relativeAccuracy){
+		this.relativeAccuracy = relativeAccuracy;
+		gamma = (1. + relativeAccuracy) / (1. - relativeAccuracy);
+		logGamma = Math.log(gamma);
+	}
+
+
+	/**
+	 * @param value	The value to be added, non-negative and finite.
+	 */
+	public void add(final double value){
+		if(!(value >= 0. && value < Double.POSITIVE_INFINITY))
+			throw new IllegalArgumentException("Value must be non-negative and finite");
+
+		count ++;
+		min = Math.min(min, value);
+		max = Math.max(max, value);
+		if(value < MIN_INDEXABLE_VALUE)
+			zeroCount ++;
+		else
+			increment((int)Math.ceil(Math.log(value) / logGamma), 1l);
+	}
+
+	/**
+	 * @param other	The sketch to be merged into this one, with the same relative accuracy.
+	 * @return	This instance.
+	 */
+	public QuantileSketch merge(final QuantileSketch other){
+		if(other.relativeAccuracy != relativeAccuracy)
+			throw new IllegalArgumentException("Sketches with different relative accuracies cannot be merged");
+
+		for(int i = 0; i < other.counts.length; i ++)
+			if(other.counts[i] > 0l)
+				increment(other.offset + i, other.counts[i]);
+		zeroCount += other.zeroCount;
+		count += other.count;
+		min = Math.min(min, other.min);
+		max = Math.max(max, other.max);
+		return this;
+	}
+
+	private void increment(final int index, final long increment){
+		if(counts.length == 0){
+			counts = new long[1];
+			offset = index;
+		}
+		else if(index < offset || index >= offset + counts.length)
+			extend(index);
+
+		counts[Math.max(index, offset) - offset] += increment;
+	}
+
+	/** Extend the buckets to cover the given index, collapsing the lowest ones if there are too many. */
+	private void extend(final int index){
+		final int high = Math.max(offset + counts.length - 1, index);
+		final int low = Math.max(Math.min(offset, index), high - BUCKETS_MAX + 1);
+		final long[] extended = new long[high - low + 1];
+		for(int i = 0; i < counts.length; i ++)
+			extended[Math.max(offset + i, low) - low] += counts[i];
+		counts = extended;
+		offset = low;
+	}
+
+
+	/**
+	 * @return	The number of values added.
+	 */
+	public long getCount(){
+		return count;
+	}
+
+	/**
+	 * @return	The minimum value added, {@link Double#NaN} if none.
+	 */
+	public double getMin(){
+		return (count > 0l? min: Double.NaN);
+	}
+
+	/**
+	 * @return	The maximum value added, {@link Double#NaN} if none.
+	 */
+	public double getMax(){
+		return (count > 0l? max: Double.NaN);
+	}
+
+	/**
+	 * @param quantile	The quantile, between 0 and 1.
+	 * @return	The estimated value at the given quantile, {@link Double#NaN} if no value was added.
+	 */
+	public double quantile(final double quantile){
+		if(!(quantile >= 0. && quantile <= 1.))
+			throw new IllegalArgumentException("Quantile must be between 0 and 1");
+		if(count == 0l)
+			return Double.NaN;
+
+		final long rank = (long)(quantile * (count - 1));
+		long seen = zeroCount;
+		if(rank < seen)
+			return min;
+
+		for(int i = 0; i < counts.length; i ++){
+			seen += counts[i];
+			if(rank < seen){
+				//the value that is within the relative accuracy from both bounds of the bucket
+				final double value = 2. * Math.pow(gamma, offset + i) / (gamma + 1.);
+				return Math.max(Math.min(value, max), min);
+			}
+		}
+		return max;
+	}
+
+}
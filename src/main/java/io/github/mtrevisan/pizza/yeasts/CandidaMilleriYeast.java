@@ -30,28 +30,16 @@ package io.github.mtrevisan.pizza.yeasts;
  *
  * @see <a href="https://aem.asm.org/content/aem/77/7/2292.full.pdf">Temperature adaptation markedly determines evolution within the genus Saccharomyces</a>
  */
-public class CandidaMilleriYeast extends YeastModelAbstract{
+public final class CandidaMilleriYeast extends YeastModelAbstract{
 
-	@Override
-	public double getTemperatureMin(){
-		//± 1 °C
-		return 8.0;
-	}
-
-	@Override
-	double getTemperatureOpt(){
-		return 27.0;
-	}
-
-	@Override
-	public double getTemperatureMax(){
-		//± 0.3 °C
-		return 35.9;
-	}
-
-	@Override
-	double getMaximumSpecificGrowthRate(){
-		return 0.42;
+	public CandidaMilleriYeast(){
+		super(
+			//± 1 °C
+			8.0, 1.,
+			27.0, 0.,
+			//± 0.3 °C
+			35.9, 0.3,
+			0.42, 0.);
 	}
 
 }
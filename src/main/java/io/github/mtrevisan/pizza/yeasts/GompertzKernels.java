@@ -0,0 +1,147 @@
+/**
+ * Copyright (c) 2020 Mauro Trevisan
+ *
+ * Permission is hereby granted, free of charge, to any person
+ * obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without
+ * restriction, including without limitation the rights to use,
+ * copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the
+ * Software is furnished to do so, subject to the following
+ * conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES
+ * OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+ * WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ */
+package io.github.mtrevisan.pizza.yeasts;
+
+import java.util.Arrays;
+
+
+/**
+ * Bulk evaluation of the Gompertz model over arrays.
+ * <p>
+ * When the module `jdk.incubator.vector` is available (i.e. the JVM is started with `--add-modules jdk.incubator.vector`) the
+ * kernels of {@link VectorGompertzKernels} are used, otherwise every element is evaluated by a plain scalar loop.
+ * </p>
+ */
+final class GompertzKernels{
+
+	private static final String VECTOR_MODULE = "jdk.incubator.vector";
+
+	static final boolean VECTORIZED = isVectorModuleAvailable();
+
+
+	private GompertzKernels(){}
+
+	private static boolean isVectorModuleAvailable(){
+		if(ModuleLayer.boot().findModule(VECTOR_MODULE).isEmpty())
+			return false;
+
+		try{
+			//force the loading of the vector classes
+			return (VectorGompertzKernels.laneCount() > 0);
+		}
+		catch(final LinkageError ignored){
+			return false;
+		}
+	}
+
+
+	static void volumeExpansionRatio(final double[] times, final double lambda, final double alpha, final double mu,
+			final double[] out){
+		if(VECTORIZED)
+			VectorGompertzKernels.volumeExpansionRatio(times, lambda, alpha, mu, out);
+		else
+			scalarVolumeExpansionRatio(times, 0, times.length, lambda, alpha, mu, out);
+	}
+
+	static void maximumSpecificGrowth(final double[] temperatures, final double temperatureMin, final double temperatureMax,
+			final double maximumSpecificGrowthRate, final double denominatorSlope, final double denominatorIntercept, final double[] out){
+		if(VECTORIZED)
+			VectorGompertzKernels.maximumSpecificGrowth(temperatures, temperatureMin, temperatureMax, maximumSpecificGrowthRate,
+				denominatorSlope, denominatorIntercept, out);
+		else
+			scalarMaximumSpecificGrowth(temperatures, 0, temperatures.length, temperatureMin, temperatureMax, maximumSpecificGrowthRate,
+				denominatorSlope, denominatorIntercept, out);
+	}
+
+
+	static void scalarVolumeExpansionRatio(final double[] times, final int from, final int to, final double lambda,
+			final double alpha, final double mu, final double[] out){
+		if(!(alpha > 0.)){
+			Arrays.fill(out, from, to, 0.);
+			return;
+		}
+
+		for(int i = from; i < to; i ++)
+			out[i] = YeastModelAbstract.volumeExpansionRatio(times[i], lambda, alpha, mu);
+	}
+
+	static void scalarMaximumSpecificGrowth(final double[] temperatures, final int from, final int to, final double temperatureMin,
+			final double temperatureMax, final double maximumSpecificGrowthRate, final double denominatorSlope,
+			final double denominatorIntercept, final double[] out){
+		for(int i = from; i < to; i ++)
+			out[i] = maximumSpecificGrowth(temperatures[i], temperatureMin, temperatureMax, maximumSpecificGrowthRate, denominatorSlope,
+				denominatorIntercept);
+	}
+
+	/**
+	 * The denominator of the maximum specific growth, (Topt - Tmin) · ((Topt - Tmin) · (T - Topt) - (Topt - Tmax) · (Topt + Tmin - 2 · T)),
+	 * is linear in the temperature T.
+	 *
+	 * @return	The slope of the denominator.
+	 */
+	static double growthDenominatorSlope(final double temperatureMin, final double temperatureOpt, final double temperatureMax){
+		final double optMinusMin = temperatureOpt - temperatureMin;
+		return optMinusMin * (optMinusMin + 2. * (temperatureOpt - temperatureMax));
+	}
+
+	/**
+	 * @return	The intercept of the denominator.
+	 * @see #growthDenominatorSlope(double, double, double)
+	 */
+	static double growthDenominatorIntercept(final double temperatureMin, final double temperatureOpt, final double temperatureMax){
+		final double optMinusMin = temperatureOpt - temperatureMin;
+		return -optMinusMin * (optMinusMin * temperatureOpt + (temperatureOpt - temperatureMax) * (temperatureOpt + temperatureMin));
+	}
+
+	/**
+	 * Same as {@link YeastModelAbstract#exactMaximumSpecificGrowth(double)}, with the parameters of the model made explicit.
+	 */
+	static double maximumSpecificGrowth(final double temperature, final double temperatureMin, final double temperatureMax,
+			final double maximumSpecificGrowthRate, final double denominatorSlope, final double denominatorIntercept){
+		if(temperature <= temperatureMin || temperatureMax <= temperature)
+			return 0.;
+
+		final double aboveMin = temperature - temperatureMin;
+		final double d = (temperature - temperatureMax) * (aboveMin * aboveMin);
+		final double e = denominatorSlope * temperature + denominatorIntercept;
+		return maximumSpecificGrowthRate * (d / e);
+	}
+
+	/**
+	 * Same as {@link YeastModelAbstract#maximumSpecificGrowthDerivative(double)}, with the parameters of the model made explicit.
+	 */
+	static double maximumSpecificGrowthDerivative(final double temperature, final double temperatureMin, final double temperatureMax,
+			final double maximumSpecificGrowthRate, final double denominatorSlope, final double denominatorIntercept){
+		if(temperature <= temperatureMin || temperatureMax <= temperature)
+			return 0.;
+
+		final double aboveMin = temperature - temperatureMin;
+		final double d = (temperature - temperatureMax) * (aboveMin * aboveMin);
+		final double dDerivative = aboveMin * (3. * temperature - 2. * temperatureMax - temperatureMin);
+		final double e = denominatorSlope * temperature + denominatorIntercept;
+		return maximumSpecificGrowthRate * (dDerivative * e - d * denominatorSlope) / (e * e);
+	}
+
+}
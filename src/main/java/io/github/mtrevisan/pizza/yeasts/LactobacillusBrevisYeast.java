@@ -30,27 +30,14 @@ package io.github.mtrevisan.pizza.yeasts;
  *
  * @see <a href="https://www.ncbi.nlm.nih.gov/pmc/articles/PMC5192527/">Munanga, Loiseau, Grabulos, Mestres. Modeling Lactic Fermentation of Gowé Using Lactobacillus Starter Culture. 2016</a>
  */
-public class LactobacillusBrevisYeast extends YeastModelAbstract{
+public final class LactobacillusBrevisYeast extends YeastModelAbstract{
 
-	@Override
-	public double getTemperatureMin(){
-		return 15.0;
-	}
-
-	@Override
-	double getTemperatureOpt(){
-		return 44.6;
-	}
-
-	@Override
-	public double getTemperatureMax(){
-		return 53.0;
-	}
-
-	@Override
-	double getMaximumSpecificGrowthRate(){
-		//± 0.2 hrs^-1
-		return 1.8;
+	public LactobacillusBrevisYeast(){
+		super(15.0, 0.,
+			44.6, 0.,
+			53.0, 0.,
+			//± 0.2 hrs^-1
+			1.8, 0.2);
 	}
 
 }
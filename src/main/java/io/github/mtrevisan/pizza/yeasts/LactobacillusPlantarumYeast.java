@@ -31,32 +31,18 @@ package io.github.mtrevisan.pizza.yeasts;
  * @see <a href="https://www.researchgate.net/profile/Lubomir-Valik/publication/332879137_Modelling_growth_of_Lactobacillus_plantarum_as_a_function_of_temperature_Effects_of_media/links/5cd08131a6fdccc9dd91e29d/Modelling-growth-of-Lactobacillus-plantarum-as-a-function-of-temperature-Effects-of-media.pdf">Matejčeková, Spodniaková, Dujmić, Liptáková, Valík. Modelling growth of Lactobacillus plantarum as a function of temperature: Effects of media. 2019</a>
  * @see <a href="https://www.ncbi.nlm.nih.gov/pmc/articles/PMC5192527/">Munanga, Loiseau, Grabulos, Mestres. Modeling Lactic Fermentation of Gowé Using Lactobacillus Starter Culture. 2016</a>
  */
-public class LactobacillusPlantarumYeast extends YeastModelAbstract{
+public final class LactobacillusPlantarumYeast extends YeastModelAbstract{
 
-	@Override
-	public double getTemperatureMin(){
-		return 0.9;
-//		return 12.;
-	}
-
-	@Override
-	double getTemperatureOpt(){
-		return 36.6;
-		//± 3.2 °C
-//		return 37.1;
-	}
-
-	@Override
-	public double getTemperatureMax(){
-		return 41.6;
-//		return 52.;
-	}
-
-	@Override
-	double getMaximumSpecificGrowthRate(){
-		return 0.81;
-		//± 0.2 hrs^-1
-//		return 1.4;
+	public LactobacillusPlantarumYeast(){
+		super(
+			//alternative 12 °C
+			0.9, 0.,
+			//± 3.2 °C (alternative 37.1 °C)
+			36.6, 3.2,
+			//alternative 52 °C
+			41.6, 0.,
+			//± 0.2 hrs^-1 (alternative 1.4 hrs^-1)
+			0.81, 0.2);
 	}
 
 }
@@ -30,27 +30,14 @@ package io.github.mtrevisan.pizza.yeasts;
  *
  * @see <a href="https://sfamjournals.onlinelibrary.wiley.com/doi/epdf/10.1111/j.1365-2672.2010.04904.x">Mihhalevski, Sarand, Viiard, Salumets, Paalme. Growth characterization of individual rye sourdough bacteria by isothermal microcalorimetry. 2010.</a>
  */
-public class LactobacillusPontisN131Yeast extends YeastModelAbstract{
+public final class LactobacillusPontisN131Yeast extends YeastModelAbstract{
 
-	@Override
-	public double getTemperatureMin(){
-		return 0.0;
-	}
-
-	@Override
-	double getTemperatureOpt(){
-		return 0.0;
-	}
-
-	@Override
-	public double getTemperatureMax(){
-		return 0.0;
-	}
-
-	@Override
-	double getMaximumSpecificGrowthRate(){
-		//± 0.01 hrs^-1
-		return 0.45;
+	public LactobacillusPontisN131Yeast(){
+		super(0.0, 0.,
+			0.0, 0.,
+			0.0, 0.,
+			//± 0.01 hrs^-1
+			0.45, 0.01);
 	}
 
 }
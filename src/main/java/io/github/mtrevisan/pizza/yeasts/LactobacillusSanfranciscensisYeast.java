@@ -30,29 +30,17 @@ package io.github.mtrevisan.pizza.yeasts;
  *
  * @see <a href="https://aem.asm.org/content/aem/77/7/2292.full.pdf">Temperature adaptation markedly determines evolution within the genus Saccharomyces</a>
  */
-public class LactobacillusSanfranciscensisYeast extends YeastModelAbstract{
+public final class LactobacillusSanfranciscensisYeast extends YeastModelAbstract{
 
-	@Override
-	public double getTemperatureMin(){
-		//± 1.5 °C
-		return 4.5;
-	}
-
-	@Override
-	double getTemperatureOpt(){
-		//± 0.5 °C
-		return 32.5;
-	}
-
-	@Override
-	public double getTemperatureMax(){
-		//± 0.1 °C
-		return 41.0;
-	}
-
-	@Override
-	double getMaximumSpecificGrowthRate(){
-		return 0.71;
+	public LactobacillusSanfranciscensisYeast(){
+		super(
+			//± 1.5 °C
+			4.5, 1.5,
+			//± 0.5 °C
+			32.5, 0.5,
+			//± 0.1 °C
+			41.0, 0.1,
+			0.71, 0.);
 	}
 
 }
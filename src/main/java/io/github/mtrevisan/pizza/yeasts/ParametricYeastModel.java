@@ -0,0 +1,109 @@
+/**
+ * Copyright (c) 2020 Mauro Trevisan
+ *
+ * Permission is hereby granted, free of charge, to any person
+ * obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without
+ * restriction, including without limitation the rights to use,
+ * copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the
+ * Software is furnished to do so, subject to the following
+ * conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES
+ * OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+ * WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ */
+package io.github.mtrevisan.pizza.yeasts;
+
+
+/**
+ * Immutable yeast model whose parameters are given as data.
+ *
+ * @see YeastModelRegistry
+ */
+public final class ParametricYeastModel extends YeastModelAbstract{
+
+	private final String name;
+
+
+	/**
+	 * @param name	The name of the model.
+	 * @param temperatureMin	Temperature below which no growth occurs [°C].
+	 * @param temperatureOpt	Temperature at which the maximum specific growth rate equals its optimal value [°C].
+	 * @param temperatureMax	Temperature above which no growth occurs [°C].
+	 * @param maximumSpecificGrowthRate	Maximum specific growth rate [hrs^-1].
+	 * @return	The model, without uncertainties.
+	 */
+	public static ParametricYeastModel create(final String name, final double temperatureMin, final double temperatureOpt,
+			final double temperatureMax, final double maximumSpecificGrowthRate){
+		return create(name, temperatureMin, temperatureOpt, temperatureMax, maximumSpecificGrowthRate, 0., 0., 0., 0.);
+	}
+
+	/**
+	 * @param name	The name of the model.
+	 * @param temperatureMin	Temperature below which no growth occurs [°C].
+	 * @param temperatureOpt	Temperature at which the maximum specific growth rate equals its optimal value [°C].
+	 * @param temperatureMax	Temperature above which no growth occurs [°C].
+	 * @param maximumSpecificGrowthRate	Maximum specific growth rate [hrs^-1].
+	 * @param temperatureMinUncertainty	Uncertainty (standard deviation) of the minimum temperature [°C].
+	 * @param temperatureOptUncertainty	Uncertainty (standard deviation) of the optimal temperature [°C].
+	 * @param temperatureMaxUncertainty	Uncertainty (standard deviation) of the maximum temperature [°C].
+	 * @param maximumSpecificGrowthRateUncertainty	Uncertainty (standard deviation) of the maximum specific growth rate [hrs^-1].
+	 * @return	The model.
+	 */
+	public static ParametricYeastModel create(final String name, final double temperatureMin, final double temperatureOpt,
+			final double temperatureMax, final double maximumSpecificGrowthRate, final double temperatureMinUncertainty,
+			final double temperatureOptUncertainty, final double temperatureMaxUncertainty,
+			final double maximumSpecificGrowthRateUncertainty){
+		if(name == null || name.isBlank())
+			throw new IllegalArgumentException("Name must be valued");
+		if(!(temperatureMin < temperatureOpt && temperatureOpt < temperatureMax))
+			throw new IllegalArgumentException("Temperatures of " + name + " must be ordered (min < opt < max)");
+		if(!(maximumSpecificGrowthRate > 0.) || Double.isInfinite(maximumSpecificGrowthRate))
+			throw new IllegalArgumentException("Maximum specific growth rate of " + name + " must be positive");
+		if(!(temperatureMinUncertainty >= 0. && temperatureOptUncertainty >= 0. && temperatureMaxUncertainty >= 0.
+				&& maximumSpecificGrowthRateUncertainty >= 0.))
+			throw new IllegalArgumentException("Uncertainties of " + name + " must be non-negative");
+
+		return new ParametricYeastModel(name, temperatureMin, temperatureOpt, temperatureMax, maximumSpecificGrowthRate,
+			temperatureMinUncertainty, temperatureOptUncertainty, temperatureMaxUncertainty, maximumSpecificGrowthRateUncertainty);
+	}
+
+	private ParametricYeastModel(final String name, final double temperatureMin, final double temperatureOpt,
+			final double temperatureMax, final double maximumSpecificGrowthRate, final double temperatureMinUncertainty,
+			final double temperatureOptUncertainty, final double temperatureMaxUncertainty,
+			final double maximumSpecificGrowthRateUncertainty){
+		super(temperatureMin, temperatureMinUncertainty, temperatureOpt, temperatureOptUncertainty, temperatureMax,
+			temperatureMaxUncertainty, maximumSpecificGrowthRate, maximumSpecificGrowthRateUncertainty);
+
+		this.name = name;
+	}
+
+	public String getName(){
+		return name;
+	}
+
+	/**
+	 * @return	This instance, as each (re)load creates new models.
+	 */
+	@Override
+	public Object getParametersIdentity(){
+		return this;
+	}
+
+	@Override
+	public String toString(){
+		return name + "{T(" + getTemperatureMin() + ", " + getTemperatureOpt() + ", " + getTemperatureMax() + "), μ: "
+			+ getMaximumSpecificGrowthRate() + "}";
+	}
+
+}
@@ -30,26 +30,10 @@ package io.github.mtrevisan.pizza.yeasts;
  *
  * @see <a href="https://aem.asm.org/content/aem/77/7/2292.full.pdf">Temperature adaptation markedly determines evolution within the genus Saccharomyces</a>
  */
-public class SaccharomycesBayanusUvarumNCAIM789Yeast extends YeastModelAbstract{
+public final class SaccharomycesBayanusUvarumNCAIM789Yeast extends YeastModelAbstract{
 
-	@Override
-	public double getTemperatureMin(){
-		return 2.84;
-	}
-
-	@Override
-	double getTemperatureOpt(){
-		return 32.27;
-	}
-
-	@Override
-	public double getTemperatureMax(){
-		return 45.39;
-	}
-
-	@Override
-	double getMaximumSpecificGrowthRate(){
-		return 0.295;
+	public SaccharomycesBayanusUvarumNCAIM789Yeast(){
+		super(2.84, 32.27, 45.39, 0.295);
 	}
 
 }
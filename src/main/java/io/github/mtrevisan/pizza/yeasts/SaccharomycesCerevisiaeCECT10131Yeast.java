@@ -30,27 +30,12 @@ package io.github.mtrevisan.pizza.yeasts;
  *
  * @see <a href="https://aem.asm.org/content/aem/77/7/2292.full.pdf">Temperature adaptation markedly determines evolution within the genus Saccharomyces</a>
  */
-public class SaccharomycesCerevisiaeCECT10131Yeast extends YeastModelAbstract{
+public final class SaccharomycesCerevisiaeCECT10131Yeast extends YeastModelAbstract{
 
-	@Override
-	public double getTemperatureMin(){
-		return 0.74;
-	}
-
-	@Override
-	double getTemperatureOpt(){
-		return 32.8;
-	}
-
-	@Override
-	public double getTemperatureMax(){
-		return 45.9;
-	}
-
-	@Override
-	double getMaximumSpecificGrowthRate(){
-		//base is pH 5.4±0.1, 20 mg/l glucose
-		return 0.449;
+	public SaccharomycesCerevisiaeCECT10131Yeast(){
+		super(0.74, 32.8, 45.9,
+			//base is pH 5.4±0.1, 20 mg/l glucose
+			0.449);
 	}
 
 }
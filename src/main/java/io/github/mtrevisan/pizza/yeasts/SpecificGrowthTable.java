@@ -0,0 +1,138 @@
+/**
+ * Copyright (c) 2020 Mauro Trevisan
+ *
+ * Permission is hereby granted, free of charge, to any person
+ * obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without
+ * restriction, including without limitation the rights to use,
+ * copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the
+ * Software is furnished to do so, subject to the following
+ * conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES
+ * OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+ * WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ */
+package io.github.mtrevisan.pizza.yeasts;
+
+
+/**
+ * Uniform lookup table, with linear interpolation, of the maximum specific growth of a yeast model over its temperature range.
+ * <p>
+ * The table starts with {@value #INTERVALS_MIN} intervals and is doubled until the maximum absolute error, sampled at three inner
+ * points of every interval, falls below {@value #MAXIMUM_ABSOLUTE_ERROR} hrs^-1 (or {@value #INTERVALS_MAX} intervals are reached).
+ * </p>
+ */
+final class SpecificGrowthTable{
+
+	/** Maximum absolute error of the interpolated maximum specific growth [hrs^-1]. */
+	static final double MAXIMUM_ABSOLUTE_ERROR = 0.000_001;
+
+	private static final int INTERVALS_MIN = 256;
+	private static final int INTERVALS_MAX = 1 << 16;
+	private static final double[] ERROR_SAMPLES = {0.25, 0.5, 0.75};
+
+
+	private final double temperatureMin;
+	private final double temperatureMax;
+	private final double inverseStep;
+	private final int intervals;
+	//couples (value, slope) for each interval
+	private final double[] table;
+	private final double maximumError;
+
+
+	static SpecificGrowthTable create(final YeastModelAbstract model){
+		final double temperatureMin = model.getTemperatureMin();
+		final double temperatureMax = model.getTemperatureMax();
+		if(!(temperatureMin < temperatureMax))
+			//no growth at any temperature
+			return new SpecificGrowthTable(temperatureMin, temperatureMax, 1, new double[4], 0.);
+
+		int intervals = INTERVALS_MIN;
+		while(true){
+			final double step = (temperatureMax - temperatureMin) / intervals;
+			final double[] values = new double[intervals + 1];
+			for(int i = 0; i <= intervals; i ++)
+				values[i] = model.exactMaximumSpecificGrowth(temperatureMin + i * step);
+
+			double maximumError = 0.;
+			for(int i = 0; i < intervals; i ++)
+				for(final double fraction : ERROR_SAMPLES){
+					final double interpolated = values[i] + (values[i + 1] - values[i]) * fraction;
+					final double exact = model.exactMaximumSpecificGrowth(temperatureMin + (i + fraction) * step);
+					maximumError = Math.max(maximumError, Math.abs(interpolated - exact));
+				}
+
+			if(maximumError <= MAXIMUM_ABSOLUTE_ERROR || intervals == INTERVALS_MAX)
+				return new SpecificGrowthTable(temperatureMin, temperatureMax, intervals, interleave(values), maximumError);
+
+			intervals <<= 1;
+		}
+	}
+
+	/**
+	 * Store value and slope of each interval next to each other, plus a trailing interval to absorb the rounding at the upper bound.
+	 *
+	 * @param values	The values at the nodes.
+	 * @return	The couples (value, slope) of each interval.
+	 */
+	private static double[] interleave(final double[] values){
+		final int intervals = values.length - 1;
+		final double[] table = new double[(intervals + 1) << 1];
+		for(int i = 0; i < intervals; i ++){
+			table[i << 1] = values[i];
+			table[(i << 1) + 1] = values[i + 1] - values[i];
+		}
+		table[intervals << 1] = values[intervals];
+		return table;
+	}
+
+	private SpecificGrowthTable(final double temperatureMin, final double temperatureMax, final int intervals, final double[] table,
+			final double maximumError){
+		this.temperatureMin = temperatureMin;
+		this.temperatureMax = temperatureMax;
+		this.intervals = intervals;
+		inverseStep = (temperatureMin < temperatureMax? intervals / (temperatureMax - temperatureMin): 0.);
+		this.table = table;
+		this.maximumError = maximumError;
+	}
+
+	/**
+	 * @param temperature	Temperature [°C].
+	 * @return	Interpolated maximum specific growth [hrs^-1].
+	 */
+	double evaluate(final double temperature){
+		if(temperature <= temperatureMin || temperatureMax <= temperature)
+			return 0.;
+
+		final double x = (temperature - temperatureMin) * inverseStep;
+		final int index = (int)x;
+		final int offset = index << 1;
+		return table[offset] + table[offset + 1] * (x - index);
+	}
+
+	/**
+	 * @return	The sampled maximum absolute error of the table [hrs^-1].
+	 */
+	double getMaximumError(){
+		return maximumError;
+	}
+
+	/**
+	 * @return	The number of intervals of the table.
+	 */
+	int getIntervals(){
+		return intervals;
+	}
+
+}
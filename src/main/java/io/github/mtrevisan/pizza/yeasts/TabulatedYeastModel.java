@@ -0,0 +1,59 @@
+/**
+ * Copyright (c) 2020 Mauro Trevisan
+ *
+ * Permission is hereby granted, free of charge, to any person
+ * obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without
+ * restriction, including without limitation the rights to use,
+ * copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the
+ * Software is furnished to do so, subject to the following
+ * conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES
+ * OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+ * WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ */
+package io.github.mtrevisan.pizza.yeasts;
+
+import java.util.List;
+
+
+/**
+ * Yeast model with the parameters of another one, that evaluates the maximum specific growth through a lookup table.
+ *
+ * @see YeastModelAbstract#toFastMaximumSpecificGrowth()
+ */
+final class TabulatedYeastModel extends YeastModelAbstract{
+
+	private final YeastModelAbstract exactModel;
+
+
+	TabulatedYeastModel(final YeastModelAbstract exactModel){
+		super(exactModel);
+
+		this.exactModel = exactModel;
+	}
+
+	/**
+	 * @return	The identity of the exact model, marked as tabulated (the lookup table gives slightly different results).
+	 */
+	@Override
+	public Object getParametersIdentity(){
+		return List.of(TabulatedYeastModel.class, exactModel.getParametersIdentity());
+	}
+
+	@Override
+	public String toString(){
+		return exactModel + " (lookup table)";
+	}
+
+}
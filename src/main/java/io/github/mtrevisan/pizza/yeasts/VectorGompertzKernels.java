@@ -0,0 +1,104 @@
+/**
+ * Copyright (c) 2020 Mauro Trevisan
+ *
+ * Permission is hereby granted, free of charge, to any person
+ * obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without
+ * restriction, including without limitation the rights to use,
+ * copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the
+ * Software is furnished to do so, subject to the following
+ * conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES
+ * OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+ * WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ */
+package io.github.mtrevisan.pizza.yeasts;
+
+import jdk.incubator.vector.DoubleVector;
+import jdk.incubator.vector.VectorMask;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorSpecies;
+
+
+/**
+ * SIMD kernels of {@link GompertzKernels}, loaded only if the module `jdk.incubator.vector` is available.
+ * <p>
+ * The arithmetic follows the scalar formulas operation by operation, except for the exponential whose vectorized implementation
+ * may differ from {@link Math#exp(double)} in the last ulp.
+ * </p>
+ */
+final class VectorGompertzKernels{
+
+	private static final VectorSpecies<Double> SPECIES = DoubleVector.SPECIES_PREFERRED;
+
+
+	private VectorGompertzKernels(){}
+
+	static int laneCount(){
+		return SPECIES.length();
+	}
+
+	static void volumeExpansionRatio(final double[] times, final double lambda, final double alpha, final double mu,
+			final double[] out){
+		final int length = times.length;
+		if(!(alpha > 0.)){
+			GompertzKernels.scalarVolumeExpansionRatio(times, 0, length, lambda, alpha, mu, out);
+			return;
+		}
+
+		final double rate = mu * Math.E;
+		final DoubleVector lambdaVector = DoubleVector.broadcast(SPECIES, lambda);
+		final int upperBound = SPECIES.loopBound(length);
+		int i = 0;
+		for(; i < upperBound; i += SPECIES.length()){
+			final DoubleVector time = DoubleVector.fromArray(SPECIES, times, i);
+			final DoubleVector exponent = lambdaVector.sub(time)
+				.mul(rate)
+				.div(alpha)
+				.add(1.);
+			final DoubleVector volumeExpansionRatio = exponent.lanewise(VectorOperators.EXP)
+				.neg()
+				.lanewise(VectorOperators.EXP)
+				.mul(alpha);
+			final VectorMask<Double> notStarted = time.compare(VectorOperators.GT, 0.)
+				.not();
+			volumeExpansionRatio.blend(0., notStarted)
+				.intoArray(out, i);
+		}
+		GompertzKernels.scalarVolumeExpansionRatio(times, i, length, lambda, alpha, mu, out);
+	}
+
+	static void maximumSpecificGrowth(final double[] temperatures, final double temperatureMin, final double temperatureMax,
+			final double maximumSpecificGrowthRate, final double denominatorSlope, final double denominatorIntercept, final double[] out){
+		final int length = temperatures.length;
+		final int upperBound = SPECIES.loopBound(length);
+		int i = 0;
+		for(; i < upperBound; i += SPECIES.length()){
+			final DoubleVector temperature = DoubleVector.fromArray(SPECIES, temperatures, i);
+			final DoubleVector aboveMin = temperature.sub(temperatureMin);
+			final DoubleVector d = temperature.sub(temperatureMax)
+				.mul(aboveMin.mul(aboveMin));
+			final DoubleVector e = temperature.mul(denominatorSlope)
+				.add(denominatorIntercept);
+			final VectorMask<Double> noGrowth = temperature.compare(VectorOperators.LE, temperatureMin)
+				.or(temperature.compare(VectorOperators.GE, temperatureMax));
+			d.div(e)
+				.mul(maximumSpecificGrowthRate)
+				.blend(0., noGrowth)
+				.intoArray(out, i);
+		}
+		GompertzKernels.scalarMaximumSpecificGrowth(temperatures, i, length, temperatureMin, temperatureMax, maximumSpecificGrowthRate,
+			denominatorSlope, denominatorIntercept, out);
+	}
+
+}
@@ -0,0 +1,198 @@
+/**
+ * Copyright (c) 2020 Mauro Trevisan
+ *
+ * Permission is hereby granted, free of charge, to any person
+ * obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without
+ * restriction, including without limitation the rights to use,
+ * copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the
+ * Software is furnished to do so, subject to the following
+ * conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES
+ * OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+ * WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ */
+package io.github.mtrevisan.pizza.yeasts;
+
+import io.github.mtrevisan.pizza.utils.Json;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicReference;
+
+
+/**
+ * Set of yeast models by name, whose parameters can be loaded from a file and reloaded at runtime.
+ * <p>
+ * The file is a JSON object whose keys are the names of the models, each valued with an object of parameters: {@code temperatureMin},
+ * {@code temperatureOpt}, {@code temperatureMax} [°C], {@code maximumSpecificGrowthRate} [hrs^-1], and the optional
+ * {@code temperatureMinUncertainty}, {@code temperatureOptUncertainty}, {@code temperatureMaxUncertainty} [°C],
+ * {@code maximumSpecificGrowthRateUncertainty} [hrs^-1]. A model of {@link YeastModels} can be recalibrated by giving only the
+ * parameters that change, the others being taken from it; the models not in the file are the ones of {@link YeastModels}.
+ * </p>
+ * <p>
+ * A (re)load builds a whole new set of immutable models, then publishes it with an atomic swap: readers never lock, and a model obtained
+ * before a reload keeps its parameters, so a solve in progress sees a consistent snapshot. The solutions cached for the old models are
+ * not reused, because each load creates new models (see {@link YeastModelAbstract#getParametersIdentity()}); the reload listeners can
+ * drop any other derived state.
+ * </p>
+ */
+public final class YeastModelRegistry{
+
+	private static final String TEMPERATURE_MIN = "temperatureMin";
+	private static final String TEMPERATURE_OPT = "temperatureOpt";
+	private static final String TEMPERATURE_MAX = "temperatureMax";
+	private static final String MAXIMUM_SPECIFIC_GROWTH_RATE = "maximumSpecificGrowthRate";
+	private static final String UNCERTAINTY_SUFFIX = "Uncertainty";
+
+
+	/** The file of the parameters, {@code null} to use the models of {@link YeastModels} only. */
+	private final Path file;
+	private final AtomicReference<Map<String, YeastModelAbstract>> models;
+	private final List<Runnable> reloadListeners = new CopyOnWriteArrayList<>();
+
+
+	/**
+	 * @return	A registry of the models of {@link YeastModels}.
+	 */
+	public static YeastModelRegistry create(){
+		return new YeastModelRegistry(null, builtInModels());
+	}
+
+	/**
+	 * @param file	The file of the parameters.
+	 * @return	A registry of the models of {@link YeastModels}, overridden and extended by the ones defined in the file.
+	 * @throws IOException	If the file cannot be read.
+	 * @throws IllegalArgumentException	If the content of the file is not valid.
+	 */
+	public static YeastModelRegistry load(final Path file) throws IOException{
+		if(file == null)
+			throw new IllegalArgumentException("File must be valued");
+
+		return new YeastModelRegistry(file, readModels(file));
+	}
+
+	private YeastModelRegistry(final Path file, final Map<String, YeastModelAbstract> models){
+		this.file = file;
+		this.models = new AtomicReference<>(models);
+	}
+
+
+	/**
+	 * @param name	The name of the model.
+	 * @return	The current model with the given name, or {@code null} if unknown.
+	 */
+	public YeastModelAbstract get(final String name){
+		return models.get()
+			.get(name);
+	}
+
+	/**
+	 * @return	The names of the current models.
+	 */
+	public Set<String> names(){
+		return models.get()
+			.keySet();
+	}
+
+	/**
+	 * @param listener	Called after each successful reload.
+	 */
+	public void addReloadListener(final Runnable listener){
+		if(listener == null)
+			throw new IllegalArgumentException("Listener must be valued");
+
+		reloadListeners.add(listener);
+	}
+
+	/**
+	 * Read again the file of the parameters and publish the new models; if the file is not valid the current models are kept.
+	 *
+	 * @throws IOException	If the file cannot be read.
+	 * @throws IllegalArgumentException	If the content of the file is not valid.
+	 * @throws IllegalStateException	If the registry was not loaded from a file.
+	 */
+	public synchronized void reload() throws IOException{
+		if(file == null)
+			throw new IllegalStateException("Registry was not loaded from a file");
+
+		models.set(readModels(file));
+
+		for(final Runnable listener : reloadListeners)
+			listener.run();
+	}
+
+
+	private static Map<String, YeastModelAbstract> builtInModels(){
+		final Map<String, YeastModelAbstract> models = new LinkedHashMap<>();
+		for(final String name : YeastModels.names())
+			models.put(name, YeastModels.create(name));
+		return Collections.unmodifiableMap(models);
+	}
+
+	private static Map<String, YeastModelAbstract> readModels(final Path file) throws IOException{
+		final Object content = Json.parse(Files.readString(file, StandardCharsets.UTF_8));
+		if(!(content instanceof Map))
+			throw new IllegalArgumentException("Yeast models must be an object: " + file);
+
+		final Map<String, YeastModelAbstract> models = new LinkedHashMap<>(builtInModels());
+		for(final Map.Entry<?, ?> entry : ((Map<?, ?>)content).entrySet()){
+			final String name = (String)entry.getKey();
+			if(!(entry.getValue() instanceof Map))
+				throw new IllegalArgumentException("Parameters of " + name + " must be an object: " + file);
+
+			models.put(name, parseModel(name, (Map<?, ?>)entry.getValue(), YeastModels.create(name)));
+		}
+		return Collections.unmodifiableMap(models);
+	}
+
+	private static ParametricYeastModel parseModel(final String name, final Map<?, ?> parameters, final YeastModelAbstract defaults){
+		return ParametricYeastModel.create(name,
+			getParameter(name, parameters, TEMPERATURE_MIN, (defaults != null? defaults.getTemperatureMin(): Double.NaN)),
+			getParameter(name, parameters, TEMPERATURE_OPT, (defaults != null? defaults.getTemperatureOpt(): Double.NaN)),
+			getParameter(name, parameters, TEMPERATURE_MAX, (defaults != null? defaults.getTemperatureMax(): Double.NaN)),
+			getParameter(name, parameters, MAXIMUM_SPECIFIC_GROWTH_RATE,
+				(defaults != null? defaults.getMaximumSpecificGrowthRate(): Double.NaN)),
+			getParameter(name, parameters, TEMPERATURE_MIN + UNCERTAINTY_SUFFIX,
+				(defaults != null? defaults.getTemperatureMinUncertainty(): 0.)),
+			getParameter(name, parameters, TEMPERATURE_OPT + UNCERTAINTY_SUFFIX,
+				(defaults != null? defaults.getTemperatureOptUncertainty(): 0.)),
+			getParameter(name, parameters, TEMPERATURE_MAX + UNCERTAINTY_SUFFIX,
+				(defaults != null? defaults.getTemperatureMaxUncertainty(): 0.)),
+			getParameter(name, parameters, MAXIMUM_SPECIFIC_GROWTH_RATE + UNCERTAINTY_SUFFIX,
+				(defaults != null? defaults.getMaximumSpecificGrowthRateUncertainty(): 0.)));
+	}
+
+	private static double getParameter(final String name, final Map<?, ?> parameters, final String key, final double defaultValue){
+		final Object value = parameters.get(key);
+		if(value == null){
+			if(Double.isNaN(defaultValue))
+				throw new IllegalArgumentException("Missing parameter `" + key + "` of " + name);
+
+			return defaultValue;
+		}
+		if(!(value instanceof Number))
+			throw new IllegalArgumentException("Parameter `" + key + "` of " + name + " must be a number");
+
+		return ((Number)value).doubleValue();
+	}
+
+}
@@ -0,0 +1,83 @@
+/**
+ * Copyright (c) 2019-2020 Mauro Trevisan
+ *
+ * Permission is hereby granted, free of charge, to any person
+ * obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without
+ * restriction, including without limitation the rights to use,
+ * copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the
+ * Software is furnished to do so, subject to the following
+ * conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES
+ * OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+ * WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ */
+package io.github.mtrevisan.pizza.yeasts;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+
+/**
+ * Registry of the yeast models of this package, by the simple name of their class.
+ * <p>
+ * The models are listed explicitly (no class path scanning nor reflection), so the registry is cheap to initialize and needs no
+ * configuration to run in a native image.
+ * </p>
+ */
+public final class YeastModels{
+
+	private static final List<String> NAMES = Collections.unmodifiableList(Arrays.asList(
+		"SaccharomycesCerevisiaeCECT10131Yeast",
+		"SaccharomycesCerevisiaeAverageYeast",
+		"SaccharomycesBayanusUvarumNCAIM789Yeast",
+		"CandidaMilleriYeast",
+		"LactobacillusBrevisYeast",
+		"LactobacillusPlantarumYeast",
+		"LactobacillusPontisN131Yeast",
+		"LactobacillusSanfranciscensisYeast"));
+
+
+	private YeastModels(){}
+
+
+	/**
+	 * @return	The names of the known yeast models.
+	 */
+	public static List<String> names(){
+		return NAMES;
+	}
+
+	/**
+	 * @param name	The simple name of the class of the yeast model (e.g. {@code SaccharomycesCerevisiaeCECT10131Yeast}).
+	 * @return	A new instance of the yeast model, or {@code null} if unknown.
+	 */
+	public static YeastModelAbstract create(final String name){
+		if(name == null)
+			return null;
+
+		return switch(name){
+			case "SaccharomycesCerevisiaeCECT10131Yeast" -> new SaccharomycesCerevisiaeCECT10131Yeast();
+			case "SaccharomycesCerevisiaeAverageYeast" -> new SaccharomycesCerevisiaeAverageYeast();
+			case "SaccharomycesBayanusUvarumNCAIM789Yeast" -> new SaccharomycesBayanusUvarumNCAIM789Yeast();
+			case "CandidaMilleriYeast" -> new CandidaMilleriYeast();
+			case "LactobacillusBrevisYeast" -> new LactobacillusBrevisYeast();
+			case "LactobacillusPlantarumYeast" -> new LactobacillusPlantarumYeast();
+			case "LactobacillusPontisN131Yeast" -> new LactobacillusPontisN131Yeast();
+			case "LactobacillusSanfranciscensisYeast" -> new LactobacillusSanfranciscensisYeast();
+			default -> null;
+		};
+	}
+
+}
@@ -0,0 +1,120 @@
+/**
+ * Copyright (c) 2020 Mauro Trevisan
+ *
+ * Permission is hereby granted, free of charge, to any person
+ * obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without
+ * restriction, including without limitation the rights to use,
+ * copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the
+ * Software is furnished to do so, subject to the following
+ * conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES
+ * OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+ * WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ */
+package io.github.mtrevisan.pizza;
+
+import io.github.mtrevisan.pizza.yeasts.SaccharomycesCerevisiaeCECT10131Yeast;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.List;
+
+
+class DoughBatchSolverTest{
+
+	@Test
+	void sameResultsAsSequential() throws DoughException, YeastException{
+		final Dough dough = Dough.create(new SaccharomycesCerevisiaeCECT10131Yeast());
+		dough.addPureWater(0.6);
+		final List<DoughBatchSolver.Job> jobs = new ArrayList<>();
+		final List<Procedure> procedures = new ArrayList<>();
+		for(int i = 0; i < 100; i ++){
+			final LeaveningStage stage1 = LeaveningStage.create(25. + (i % 10), Duration.ofHours(5l));
+			final LeaveningStage stage2 = LeaveningStage.create(25., Duration.ofHours(1l));
+			final Procedure procedure = Procedure.create(new LeaveningStage[]{stage1, stage2}, 1.5 + (i % 7) / 10., 1,
+				Duration.ZERO, new Duration[]{Duration.ZERO, Duration.ZERO}, Duration.ZERO, LocalTime.NOON);
+			procedures.add(procedure);
+			jobs.add(DoughBatchSolver.Job.create(dough, procedure));
+		}
+
+		final DoughBatchSolver solver = DoughBatchSolver.create(4);
+		final List<DoughBatchSolver.Result> results = solver.solve(jobs);
+		solver.shutdown();
+
+		Assertions.assertEquals(jobs.size(), results.size());
+		for(int i = 0; i < procedures.size(); i ++){
+			dough.calculateYeast(procedures.get(i));
+
+			Assertions.assertTrue(results.get(i).isSuccess());
+			Assertions.assertEquals(dough.yeast, results.get(i).getYeast(), 0.);
+		}
+	}
+
+	@Test
+	void failuresDoNotAbortTheBatch() throws DoughException{
+		final Dough dough = Dough.create(new SaccharomycesCerevisiaeCECT10131Yeast());
+		dough.addPureWater(0.6);
+		final LeaveningStage shortStage = LeaveningStage.create(35., Duration.ofHours(1l));
+		final LeaveningStage longStage = LeaveningStage.create(35., Duration.ofHours(5l));
+		final Procedure impossible = Procedure.create(new LeaveningStage[]{shortStage}, 2., 0,
+			Duration.ZERO, new Duration[]{Duration.ZERO}, Duration.ZERO, LocalTime.NOON);
+		final Procedure possible = Procedure.create(new LeaveningStage[]{longStage}, 2., 0,
+			Duration.ZERO, new Duration[]{Duration.ZERO}, Duration.ZERO, LocalTime.NOON);
+
+		final DoughBatchSolver solver = DoughBatchSolver.create(2);
+		final List<DoughBatchSolver.Result> results = solver.solve(List.of(
+			DoughBatchSolver.Job.create(dough, possible),
+			DoughBatchSolver.Job.create(dough, impossible),
+			DoughBatchSolver.Job.create(dough, possible)));
+		solver.shutdown();
+
+		Assertions.assertEquals(3, results.size());
+		Assertions.assertTrue(results.get(0).isSuccess());
+		Assertions.assertEquals(0.011_83, results.get(0).getYeast(), 0.000_01);
+		Assertions.assertFalse(results.get(1).isSuccess());
+		Assertions.assertEquals(YeastException.class, results.get(1).getError().getClass());
+		Assertions.assertTrue(Double.isNaN(results.get(1).getYeast()));
+		Assertions.assertTrue(results.get(2).isSuccess());
+	}
+
+	@Test
+	void invalidJobsAreRejected() throws DoughException{
+		final Dough dough = Dough.create(new SaccharomycesCerevisiaeCECT10131Yeast());
+		dough.addPureWater(0.6);
+		final Dough tooDry = Dough.create(new SaccharomycesCerevisiaeCECT10131Yeast());
+		tooDry.addPureWater(0.1);
+		final Procedure valid = Procedure.create(new LeaveningStage[]{LeaveningStage.create(35., Duration.ofHours(5l))}, 2., 0,
+			Duration.ZERO, new Duration[]{Duration.ZERO}, Duration.ZERO, LocalTime.NOON);
+		final Procedure tooHot = Procedure.create(new LeaveningStage[]{LeaveningStage.create(60., Duration.ofHours(5l))}, 2., 0,
+			Duration.ZERO, new Duration[]{Duration.ZERO}, Duration.ZERO, LocalTime.NOON);
+
+		final DoughBatchSolver solver = DoughBatchSolver.create(2);
+		final List<DoughBatchSolver.Result> results = solver.solve(List.of(
+			DoughBatchSolver.Job.create(tooDry, valid),
+			DoughBatchSolver.Job.create(dough, tooHot),
+			DoughBatchSolver.Job.create(dough, valid)));
+		solver.shutdown();
+
+		Assertions.assertEquals(DoughException.class, results.get(0).getError().getClass());
+		Assertions.assertTrue(results.get(0).getError().getMessage().startsWith("Hydration"));
+		Assertions.assertEquals(DoughException.class, results.get(1).getError().getClass());
+		Assertions.assertTrue(results.get(1).getError().getMessage().startsWith("Stage temperature"));
+		Assertions.assertEquals(0, results.get(1).getEvaluations());
+		Assertions.assertTrue(results.get(2).isSuccess());
+	}
+
+}
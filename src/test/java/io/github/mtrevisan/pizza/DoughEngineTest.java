@@ -0,0 +1,140 @@
+/**
+ * Copyright (c) 2020 Mauro Trevisan
+ *
+ * Permission is hereby granted, free of charge, to any person
+ * obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without
+ * restriction, including without limitation the rights to use,
+ * copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the
+ * Software is furnished to do so, subject to the following
+ * conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES
+ * OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+ * WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ */
+package io.github.mtrevisan.pizza;
+
+import io.github.mtrevisan.pizza.yeasts.SaccharomycesCerevisiaeCECT10131Yeast;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+
+class DoughEngineTest{
+
+	@Test
+	void concurrentSameAsSequential() throws Exception{
+		final Dough dough = Dough.create(new SaccharomycesCerevisiaeCECT10131Yeast())
+			.addPureWater(0.6)
+			.addSalt(0.02);
+		final DoughEngine engine = dough.toEngine();
+		final Procedure[] procedures = new Procedure[64];
+		final double[] expected = new double[procedures.length];
+		for(int i = 0; i < procedures.length; i ++){
+			procedures[i] = createProcedure(25. + (i % 10), 1.5 + (i % 7) / 10.);
+			dough.calculateYeast(procedures[i]);
+			expected[i] = dough.yeast;
+		}
+
+		final ExecutorService executor = Executors.newFixedThreadPool(4);
+		try{
+			final List<Future<Double>> results = new ArrayList<>();
+			for(int repetition = 0; repetition < 4; repetition ++)
+				for(final Procedure procedure : procedures)
+					results.add(executor.submit(() -> engine.calculateYeast(procedure)));
+
+			for(int i = 0; i < results.size(); i ++)
+				Assertions.assertEquals(expected[i % procedures.length], results.get(i).get(), 0.);
+		}
+		finally{
+			executor.shutdown();
+		}
+	}
+
+	@Test
+	void snapshotIsIndependent() throws DoughException, YeastException{
+		final Dough dough = Dough.create(new SaccharomycesCerevisiaeCECT10131Yeast())
+			.addPureWater(0.6);
+		final DoughEngine engine = dough.toEngine();
+		final Procedure procedure = createProcedure(27., 1.8);
+		dough.calculateYeast(procedure);
+		final double yeast = dough.yeast;
+
+		dough.addPureWater(0.1);
+
+		Assertions.assertEquals(yeast, engine.calculateYeast(procedure), 0.);
+		Assertions.assertEquals(yeast, engine.recalculateYeast(procedure, yeast * 1.1), 0.000_01);
+		Assertions.assertNotEquals(yeast, dough.recalculateYeast(procedure), 0.000_01);
+	}
+
+	@Test
+	void invalidProcedure() throws DoughException{
+		final DoughEngine engine = Dough.create(new SaccharomycesCerevisiaeCECT10131Yeast())
+			.addPureWater(0.6)
+			.toEngine();
+		final Procedure procedure = createProcedure(80., 1.8);
+
+		Assertions.assertThrows(DoughException.class, () -> engine.calculateYeast(procedure));
+		Assertions.assertThrows(DoughException.class, () -> engine.recalculateYeast(procedure, 0.004));
+	}
+
+	@Test
+	void sameRecipe() throws DoughException, YeastException{
+		final Ingredients ingredients = new Ingredients()
+			.withIngredientsTemperature(16.7)
+			.withDoughTemperature(27.)
+			.withWater(0.02)
+			.withFlour(Flour.create(260.))
+			.withYeast(YeastType.INSTANT_DRY)
+			.withSugar(SugarType.SUCROSE)
+			.withFat(0.913)
+			.withDoughWeight(741.3);
+		final Dough dough = Dough.create(new SaccharomycesCerevisiaeCECT10131Yeast())
+			.addWater(0.65, ingredients)
+			.addSugar(0.003, ingredients)
+			.addSalt(0.016)
+			.addFat(0.016, ingredients)
+			.withAtmosphericPressure(1012.1);
+		final Procedure procedure = createProcedure(35., 1.8);
+
+		final Recipe expected = dough.createRecipe(ingredients, procedure);
+		final Recipe recipe = dough.toEngine()
+			.createRecipe(ingredients, procedure);
+
+		Assertions.assertEquals(expected.getFlour(), recipe.getFlour(), 0.);
+		Assertions.assertEquals(expected.getWater(), recipe.getWater(), 0.);
+		Assertions.assertEquals(expected.getWaterTemperature(), recipe.getWaterTemperature(), 0.);
+		Assertions.assertEquals(expected.getYeast(), recipe.getYeast(), 0.);
+		Assertions.assertEquals(expected.getSugar(), recipe.getSugar(), 0.);
+		Assertions.assertEquals(expected.getFat(), recipe.getFat(), 0.);
+		Assertions.assertEquals(expected.getSalt(), recipe.getSalt(), 0.);
+		Assertions.assertEquals(expected.getDoughMakingInstant(), recipe.getDoughMakingInstant());
+		Assertions.assertArrayEquals(expected.getStageStartEndInstants(), recipe.getStageStartEndInstants());
+	}
+
+
+	private static Procedure createProcedure(final double temperature, final double targetVolumeExpansionRatio) throws DoughException{
+		final LeaveningStage stage1 = LeaveningStage.create(temperature, Duration.ofHours(5l));
+		final LeaveningStage stage2 = LeaveningStage.create(25., Duration.ofHours(1l));
+		return Procedure.create(new LeaveningStage[]{stage1, stage2}, targetVolumeExpansionRatio, 1,
+			Duration.ofMinutes(10l), new Duration[]{Duration.ZERO, Duration.ZERO}, Duration.ofMinutes(15l), LocalTime.NOON);
+	}
+
+}
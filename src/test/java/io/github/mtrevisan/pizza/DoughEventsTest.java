@@ -0,0 +1,148 @@
+/**
+ * Copyright (c) 2020 Mauro Trevisan
+ *
+ * Permission is hereby granted, free of charge, to any person
+ * obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without
+ * restriction, including without limitation the rights to use,
+ * copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the
+ * Software is furnished to do so, subject to the following
+ * conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES
+ * OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+ * WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ */
+package io.github.mtrevisan.pizza;
+
+import io.github.mtrevisan.pizza.yeasts.SaccharomycesCerevisiaeCECT10131Yeast;
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.LocalTime;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+
+class DoughEventsTest{
+
+	@Test
+	void recipePhases() throws DoughException, YeastException, IOException{
+		final Ingredients ingredients = new Ingredients()
+			.withFlour(Flour.create(260.))
+			.withYeast(YeastType.INSTANT_DRY, 1.)
+			.withSugar(SugarType.SUCROSE)
+			.withDoughWeight(1_000.);
+		final Dough dough = Dough.create(new SaccharomycesCerevisiaeCECT10131Yeast())
+			.addPureWater(0.6)
+			.addSalt(0.02);
+		final LeaveningStage stage1 = LeaveningStage.create(35., Duration.ofHours(5l));
+		final LeaveningStage stage2 = LeaveningStage.create(25., Duration.ofHours(1l));
+		final Procedure procedure = Procedure.create(new LeaveningStage[]{stage1, stage2}, 1.5, 0,
+			Duration.ZERO, new Duration[]{Duration.ZERO, Duration.ZERO}, Duration.ZERO, LocalTime.NOON);
+
+		final List<RecordedEvent> events = record(() -> dough.createRecipe(ingredients, procedure));
+
+		final Map<String, RecordedEvent> byName = events.stream()
+			.collect(Collectors.toMap(event -> event.getEventType().getName(), Function.identity()));
+		Assertions.assertEquals(4, byName.size(), byName.keySet().toString());
+		final RecordedEvent validation = byName.get("io.github.mtrevisan.pizza.DoughValidation");
+		Assertions.assertEquals("SUCCESS", validation.getString("outcome"));
+		Assertions.assertTrue(validation.getString("yeastModel").startsWith("SaccharomycesCerevisiaeCECT10131Yeast"));
+		final RecordedEvent yeast = byName.get("io.github.mtrevisan.pizza.YeastCalculation");
+		Assertions.assertEquals("SOLVED", yeast.getString("outcome"));
+		Assertions.assertEquals(2, yeast.getInt("stages"));
+		Assertions.assertEquals(dough.getYeastEvaluations(), yeast.getInt("evaluations"));
+		final RecordedEvent ingredientsEvent = byName.get("io.github.mtrevisan.pizza.IngredientsCalculation");
+		Assertions.assertEquals(dough.getIngredientsEvaluations(), ingredientsEvent.getInt("iterations"));
+		final RecordedEvent recipe = byName.get("io.github.mtrevisan.pizza.RecipeCreation");
+		Assertions.assertEquals("SUCCESS", recipe.getString("outcome"));
+		Assertions.assertEquals(dough.getYeastEvaluations(), recipe.getInt("evaluations"));
+		//the whole contains its phases
+		Assertions.assertTrue(recipe.getDuration().compareTo(yeast.getDuration()) >= 0);
+	}
+
+	@Test
+	void failedValidation() throws DoughException, YeastException, IOException{
+		final Dough dough = Dough.create(new SaccharomycesCerevisiaeCECT10131Yeast())
+			.addPureWater(0.1);
+
+		final List<RecordedEvent> events = record(() -> Assertions.assertThrows(DoughException.class, dough::validate));
+
+		Assertions.assertEquals(1, events.size());
+		Assertions.assertEquals("FAILURE", events.get(0).getString("outcome"));
+	}
+
+	@Test
+	void disabledEvents() throws DoughException, YeastException, IOException{
+		final Dough dough = Dough.create(new SaccharomycesCerevisiaeCECT10131Yeast())
+			.addPureWater(0.6);
+		final LeaveningStage stage = LeaveningStage.create(35., Duration.ofHours(5l));
+		final Procedure procedure = Procedure.create(new LeaveningStage[]{stage}, 1.5, 0,
+			Duration.ZERO, new Duration[]{Duration.ZERO}, Duration.ZERO, LocalTime.NOON);
+		//outside a recording
+		dough.calculateYeast(procedure);
+
+		//events are enabled by default, disable one through the settings
+		try(final Recording recording = new Recording(Map.of("io.github.mtrevisan.pizza.YeastCalculation#enabled", "false"))){
+			recording.start();
+			dough.calculateYeast(procedure);
+			dough.validate();
+			recording.stop();
+
+			final List<RecordedEvent> events = read(recording);
+			Assertions.assertEquals(1, events.size());
+			Assertions.assertEquals("io.github.mtrevisan.pizza.DoughValidation", events.get(0).getEventType().getName());
+		}
+	}
+
+
+	@FunctionalInterface
+	private interface Action{
+		void run() throws DoughException, YeastException;
+	}
+
+	private static List<RecordedEvent> record(final Action action) throws DoughException, YeastException, IOException{
+		try(final Recording recording = new Recording()){
+			recording.enable(DoughEvents.Validation.class);
+			recording.enable(DoughEvents.YeastCalculation.class);
+			recording.enable(DoughEvents.IngredientsCalculation.class);
+			recording.enable(DoughEvents.RecipeCreation.class);
+			recording.start();
+			action.run();
+			recording.stop();
+
+			return read(recording);
+		}
+	}
+
+	private static List<RecordedEvent> read(final Recording recording) throws IOException{
+		final Path file = Files.createTempFile("pizza", ".jfr");
+		try{
+			recording.dump(file);
+			return RecordingFile.readAllEvents(file);
+		}
+		finally{
+			Files.delete(file);
+		}
+	}
+
+}
@@ -0,0 +1,104 @@
+/**
+ * Copyright (c) 2020 Mauro Trevisan
+ *
+ * Permission is hereby granted, free of charge, to any person
+ * obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without
+ * restriction, including without limitation the rights to use,
+ * copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the
+ * Software is furnished to do so, subject to the following
+ * conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES
+ * OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+ * WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ */
+package io.github.mtrevisan.pizza;
+
+import io.github.mtrevisan.pizza.yeasts.YeastModelAbstract;
+
+import java.time.Duration;
+import java.time.LocalTime;
+
+
+/** Doughs and procedures shared between the tests. */
+final class DoughFixtures{
+
+	private DoughFixtures(){}
+
+
+	/**
+	 * @param yeastModel	The yeast model.
+	 * @return	A dough with 62% water, 2% salt, and 0.4% sucrose.
+	 */
+	static Dough createDough(final YeastModelAbstract yeastModel) throws DoughException{
+		return createDough(yeastModel, 0.62, 0.02, 0.004);
+	}
+
+	/**
+	 * @param yeastModel	The yeast model.
+	 * @param water	The pure water [% w/w].
+	 * @param salt	The salt [% w/w].
+	 * @param sugar	The sucrose [% w/w], not added if zero.
+	 * @return	The dough.
+	 */
+	static Dough createDough(final YeastModelAbstract yeastModel, final double water, final double salt, final double sugar)
+			throws DoughException{
+		final Dough dough = Dough.create(yeastModel)
+			.addPureWater(water)
+			.addSalt(salt);
+		if(sugar > 0.)
+			dough.addSugar(sugar, SugarType.SUCROSE, 1., 0.);
+		return dough;
+	}
+
+	/**
+	 * @param temperature	The temperature of the stage [°C].
+	 * @param duration	The duration of the stage.
+	 * @return	A procedure of a single stage, with a target volume expansion ratio of 1.5, without works.
+	 */
+	static Procedure createProcedure(final double temperature, final Duration duration) throws DoughException{
+		final LeaveningStage stage = LeaveningStage.create(temperature, duration);
+		return Procedure.create(new LeaveningStage[]{stage}, 1.5, 0,
+			Duration.ZERO, new Duration[]{Duration.ZERO}, Duration.ZERO, LocalTime.NOON);
+	}
+
+	/**
+	 * @param temperatures	The temperatures of the stages [°C].
+	 * @param hours	The durations of the stages [hrs].
+	 * @param targetStage	The index of the stage at which the target volume expansion ratio of 1.2 is to be reached.
+	 * @param volumeDecrease	The volume decrease at the end of every stage but the last [% v/v], none if zero.
+	 * @param stretchAndFoldLapses	The lapses of the stretch and folds, each with a volume decrease of 5%.
+	 * @return	The procedure, without works.
+	 */
+	static Procedure createProcedure(final double[] temperatures, final long[] hours, final int targetStage,
+			final double volumeDecrease, final Duration... stretchAndFoldLapses) throws DoughException{
+		final LeaveningStage[] stages = new LeaveningStage[temperatures.length];
+		final Duration[] stagesWork = new Duration[temperatures.length];
+		for(int i = 0; i < stages.length; i ++){
+			stages[i] = LeaveningStage.create(temperatures[i], Duration.ofHours(hours[i]));
+			if(volumeDecrease > 0. && i < stages.length - 1)
+				stages[i].withVolumeDecrease(volumeDecrease);
+			stagesWork[i] = Duration.ZERO;
+		}
+		final Procedure procedure = Procedure.create(stages, 1.2, targetStage, Duration.ZERO, stagesWork, Duration.ZERO, LocalTime.NOON);
+		if(stretchAndFoldLapses.length > 0){
+			final StretchAndFoldStage[] stretchAndFoldStages = new StretchAndFoldStage[stretchAndFoldLapses.length];
+			for(int i = 0; i < stretchAndFoldStages.length; i ++)
+				stretchAndFoldStages[i] = StretchAndFoldStage.create(stretchAndFoldLapses[i])
+					.withVolumeDecrease(0.05);
+			procedure.withStretchAndFoldStages(stretchAndFoldStages);
+		}
+		return procedure;
+	}
+
+}
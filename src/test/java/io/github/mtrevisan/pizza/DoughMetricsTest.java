@@ -0,0 +1,96 @@
+/**
+ * Copyright (c) 2020 Mauro Trevisan
+ *
+ * Permission is hereby granted, free of charge, to any person
+ * obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without
+ * restriction, including without limitation the rights to use,
+ * copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the
+ * Software is furnished to do so, subject to the following
+ * conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES
+ * OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+ * WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ */
+package io.github.mtrevisan.pizza;
+
+import io.github.mtrevisan.pizza.yeasts.SaccharomycesCerevisiaeCECT10131Yeast;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+
+
+class DoughMetricsTest{
+
+	@Test
+	void searchAndCacheHit() throws DoughException, YeastException{
+		final DoughMetrics metrics = DoughMetrics.create();
+		final Dough dough = Dough.create(new SaccharomycesCerevisiaeCECT10131Yeast())
+			.addPureWater(0.6)
+			.withYeastCache(YeastCache.create(10))
+			.withMetricsListener(metrics);
+		dough.calculateYeast(DoughFixtures.createProcedure(35., Duration.ofHours(5l)));
+		final int evaluations = dough.getYeastEvaluations();
+		dough.calculateYeast(DoughFixtures.createProcedure(35., Duration.ofHours(5l)));
+
+		final DoughMetrics.Snapshot snapshot = metrics.snapshot();
+		Assertions.assertEquals(1, snapshot.getYeastOutcomes(YeastOutcome.SOLVED));
+		Assertions.assertEquals(1, snapshot.getYeastOutcomes(YeastOutcome.CACHE));
+		Assertions.assertEquals(0, snapshot.getYeastOutcomes(YeastOutcome.TOO_MANY_EVALUATIONS));
+		Assertions.assertEquals(2, snapshot.getYeastTimes().getCount());
+		//cache hits are not searches
+		Assertions.assertEquals(1, snapshot.getYeastEvaluations().getCount());
+		Assertions.assertEquals(evaluations, snapshot.getYeastEvaluations().getMax());
+		Assertions.assertEquals(1, snapshot.getYeastResiduals().getCount());
+		//within the target volume expansion ratio to about a thousandth
+		Assertions.assertTrue(snapshot.getYeastResiduals().getMax() * DoughMetrics.RESIDUAL_UNIT < 0.001);
+	}
+
+	@Test
+	void failedSearch() throws DoughException{
+		final DoughMetrics metrics = DoughMetrics.create();
+		final Dough dough = Dough.create(new SaccharomycesCerevisiaeCECT10131Yeast())
+			.addPureWater(0.6)
+			.withMetricsListener(metrics);
+
+		final Procedure tooShort = DoughFixtures.createProcedure(35., Duration.ofMinutes(1l));
+		Assertions.assertThrows(YeastException.class, () -> dough.calculateYeast(tooShort));
+
+		final DoughMetrics.Snapshot snapshot = metrics.snapshot();
+		Assertions.assertEquals(1, snapshot.getYeastOutcomes(YeastOutcome.NO_SOLUTION));
+		Assertions.assertEquals(1, snapshot.getYeastEvaluations().getCount());
+		Assertions.assertEquals(0, snapshot.getYeastResiduals().getCount());
+	}
+
+	@Test
+	void ingredients() throws DoughException, YeastException{
+		final DoughMetrics metrics = DoughMetrics.create();
+		final Ingredients ingredients = new Ingredients()
+			.withFlour(Flour.create(260.))
+			.withYeast(YeastType.INSTANT_DRY, 1.)
+			.withSugar(SugarType.SUCROSE)
+			.withDoughWeight(1_000.);
+		final Dough dough = Dough.create(new SaccharomycesCerevisiaeCECT10131Yeast())
+			.addPureWater(0.6)
+			.addSalt(0.02)
+			.withMetricsListener(metrics);
+		dough.createRecipe(ingredients, DoughFixtures.createProcedure(35., Duration.ofHours(5l)));
+
+		final DoughMetrics.Snapshot snapshot = metrics.snapshot();
+		Assertions.assertEquals(1, snapshot.getYeastOutcomes(YeastOutcome.SOLVED));
+		Assertions.assertEquals(1, snapshot.getIngredientsTimes().getCount());
+		Assertions.assertEquals(dough.getIngredientsEvaluations(), snapshot.getIngredientsIterations().getMax());
+	}
+
+}
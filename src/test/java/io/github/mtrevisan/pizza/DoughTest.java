@@ -146,7 +146,8 @@ class DoughTest{
 			.withFlour(Flour.create(260.))
 			.withYeast(YeastType.INSTANT_DRY)
 			.withSugar(SugarType.SUCROSE)
-			.withFat(0.913);
+			.withFat(0.913)
+			.withDoughWeight(741.3);
 		final Dough dough = Dough.create(new SaccharomycesCerevisiaeCECT10131Yeast())
 			.addWater(0.65, ingredients)
 			.addSugar(0.003, ingredients)
@@ -192,7 +193,8 @@ class DoughTest{
 			.withWater(0.02, 0., 237., 7.9)
 			.withYeast(YeastType.INSTANT_DRY, 1.)
 			.withSugar(SugarType.SUCROSE, 0.998, 0.0005)
-			.withFat(0.913, 0., 0.002);
+			.withFat(0.913, 0., 0.002)
+			.withDoughWeight(741.3);
 
 		final Dough dough = Dough.create(new SaccharomycesCerevisiaeCECT10131Yeast())
 			.addWater(0.65, ingredients)
@@ -222,6 +224,73 @@ class DoughTest{
 		Assertions.assertEquals(5.79, recipe.getFat(), 0.01);
 	}
 
+	@Test
+	void recipeFromPan() throws DoughException, YeastException{
+		final Ingredients ingredients = new Ingredients()
+			.withIngredientsTemperature(16.7)
+			.withDoughTemperature(27.)
+			.withWater(0.02)
+			.withFlour(Flour.create(260.))
+			.withYeast(YeastType.INSTANT_DRY)
+			.withSugar(SugarType.SUCROSE)
+			.withFat(0.913)
+			.withPanArea(35. * 25.)
+			.withTargetPizzaHeight(0.7);
+		final Dough dough = Dough.create(new SaccharomycesCerevisiaeCECT10131Yeast())
+			.addWater(0.65, ingredients)
+			.addSugar(0.003, ingredients)
+			.addSalt(0.016)
+			.addFat(0.016, ingredients)
+			.withAtmosphericPressure(1012.1);
+		final LeaveningStage stage1 = LeaveningStage.create(35., Duration.ofHours(6l));
+		final LeaveningStage stage2 = LeaveningStage.create(35., Duration.ofHours(1l));
+		final Procedure procedure = Procedure.create(new LeaveningStage[]{stage1, stage2}, 1.8, 0,
+			Duration.ofMinutes(10l), new Duration[]{Duration.ofMinutes(10l), Duration.ZERO}, Duration.ofMinutes(15l), LocalTime.of(20, 0));
+		final Recipe recipe = dough.createRecipe(ingredients, procedure);
+
+		Assertions.assertEquals(1.235, dough.doughDensity(27., dough.yeast), 0.001);
+		Assertions.assertEquals(35. * 25. * 0.7 * dough.doughDensity(27., dough.yeast), recipe.getFlour() + recipe.getWater() + recipe.getYeast()
+			+ recipe.getSugar() + recipe.getSalt() + recipe.getFat(), 0.000_001);
+		Assertions.assertEquals(1, dough.getIngredientsEvaluations());
+	}
+
+	@Test
+	void recipeWithoutDoughWeight() throws DoughException{
+		final Ingredients ingredients = new Ingredients()
+			.withFlour(Flour.create(260.))
+			.withTargetPizzaHeight(0.7);
+		final Dough dough = Dough.create(new SaccharomycesCerevisiaeCECT10131Yeast())
+			.addPureWater(0.65);
+		final Procedure procedure = Procedure.create(new LeaveningStage[]{LeaveningStage.create(35., Duration.ofHours(6l))}, 1.8, 0,
+			Duration.ofMinutes(10l), new Duration[]{Duration.ZERO}, Duration.ofMinutes(15l), LocalTime.of(20, 0));
+
+		Assertions.assertThrows(DoughException.class, () -> dough.createRecipe(ingredients, procedure));
+	}
+
+	@Test
+	void ingredientsWithClampedWater() throws DoughException{
+		final Ingredients ingredients = new Ingredients()
+			.withCorrectForIngredients()
+			.withFlour(Flour.create(230., 0.001, 0.0008))
+			.withYeast(YeastType.INSTANT_DRY, 1.)
+			.withSugar(SugarType.SUCROSE, 0.998, 0.0005)
+			.withFat(0.5, 0.5, 0.002);
+		//the water correction exceeds the required water for light doughs
+		final Dough dough = Dough.create(new SaccharomycesCerevisiaeCECT10131Yeast())
+			.addPureWater(0.05)
+			.addFat(0.2, ingredients)
+			.addSalt(0.015);
+
+		final Recipe heavy = dough.calculateIngredients(ingredients, 2_000.);
+		Assertions.assertEquals(2_000., heavy.getFlour() + heavy.getWater() + heavy.getYeast() + heavy.getSugar() + heavy.getSalt()
+			+ heavy.getFat(), 0.000_001);
+		final Recipe light = dough.calculateIngredients(ingredients, 0.2);
+		Assertions.assertEquals(0., light.getWater(), 0.);
+		Assertions.assertEquals(0.2, light.getFlour() + light.getWater() + light.getYeast() + light.getSugar() + light.getSalt()
+			+ light.getFat(), 0.000_001);
+		Assertions.assertEquals(2, dough.getIngredientsEvaluations());
+	}
+
 
 	@Test
 	void sugarFactorMin() throws DoughException{
@@ -0,0 +1,166 @@
+/**
+ * Copyright (c) 2020 Mauro Trevisan
+ *
+ * Permission is hereby granted, free of charge, to any person
+ * obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without
+ * restriction, including without limitation the rights to use,
+ * copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the
+ * Software is furnished to do so, subject to the following
+ * conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES
+ * OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+ * WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ */
+package io.github.mtrevisan.pizza;
+
+import io.github.mtrevisan.pizza.yeasts.SaccharomycesCerevisiaeCECT10131Yeast;
+import io.github.mtrevisan.pizza.yeasts.YeastModelAbstract;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+
+
+class FermentationSimulatorTest{
+
+	private static final Duration[] STRETCH_AND_FOLD_LAPSES = {Duration.ofMinutes(30l), Duration.ofMinutes(30l),
+		Duration.ofHours(3l)};
+
+
+	@Test
+	void reachesTargetAsTheYeastCalculation() throws DoughException, YeastException{
+		final Procedure[] procedures = {
+			DoughFixtures.createProcedure(new double[]{35.}, new long[]{5l}, 0, 0.05),
+			DoughFixtures.createProcedure(new double[]{35., 25.}, new long[]{5l, 1l}, 1, 0.05),
+			DoughFixtures.createProcedure(new double[]{30., 4., 25.}, new long[]{3l, 24l, 3l}, 2, 0.05, STRETCH_AND_FOLD_LAPSES),
+			DoughFixtures.createProcedure(new double[]{20., 6., 6., 22.}, new long[]{2l, 20l, 20l, 4l}, 3, 0.05, STRETCH_AND_FOLD_LAPSES),
+			DoughFixtures.createProcedure(new double[]{20., 25., 6.}, new long[]{2l, 4l, 20l}, 1, 0.05, STRETCH_AND_FOLD_LAPSES)
+		};
+		for(final Procedure procedure : procedures){
+			final YeastModelAbstract yeastModel = new SaccharomycesCerevisiaeCECT10131Yeast();
+			final Dough dough = DoughFixtures.createDough(yeastModel);
+			dough.calculateYeast(procedure);
+
+			final FermentationSimulator simulator = dough.simulateFermentation(procedure);
+			final int targetStage = procedure.targetVolumeExpansionRatioAtLeaveningStage;
+			Duration targetTime = Duration.ZERO;
+			for(int i = 0; i <= targetStage; i ++)
+				targetTime = targetTime.plus(procedure.leaveningStages[i].duration);
+			final double targetVolumeExpansionRatio = simulator.volumeExpansionRatio(targetTime.toMinutes() / 60.)
+				* (1. - procedure.leaveningStages[targetStage].volumeDecrease) - procedure.targetDoughVolumeExpansionRatio;
+
+			final double expected = ProcedurePlan.compile(dough, yeastModel, procedure)
+				.value(dough.yeast);
+			Assertions.assertEquals(expected, targetVolumeExpansionRatio, 0.000_000_000_01);
+			Assertions.assertEquals(0., simulator.volumeExpansionRatio(0.), 0.);
+		}
+	}
+
+	@Test
+	void buffersMatchSink() throws DoughException, YeastException{
+		final Procedure procedure = DoughFixtures.createProcedure(new double[]{20., 6., 6., 22.}, new long[]{2l, 20l, 20l, 4l}, 3, 0.05,
+			STRETCH_AND_FOLD_LAPSES);
+		final Dough dough = DoughFixtures.createDough(new SaccharomycesCerevisiaeCECT10131Yeast());
+		dough.calculateYeast(procedure);
+		final FermentationSimulator simulator = dough.simulateFermentation(procedure)
+			.withStep(Duration.ofMinutes(7l));
+
+		final int sampleCount = simulator.getSampleCount();
+		Assertions.assertEquals(46 * 60 / 7 + 1, sampleCount);
+		final double[] sinkTimes = new double[sampleCount];
+		final double[] sinkVolumeExpansionRatios = new double[sampleCount];
+		final int[] index = new int[1];
+		simulator.simulate((time, volumeExpansionRatio) -> {
+			sinkTimes[index[0]] = time;
+			sinkVolumeExpansionRatios[index[0]] = volumeExpansionRatio;
+			index[0] ++;
+		});
+		Assertions.assertEquals(sampleCount, index[0]);
+
+		//read in chunks that do not divide the number of samples
+		final double[] times = new double[50];
+		final double[] volumeExpansionRatios = new double[50];
+		int sample = 0;
+		int count;
+		while((count = simulator.simulate(sample, times, volumeExpansionRatios)) > 0){
+			for(int i = 0; i < count; i ++){
+				Assertions.assertEquals(sinkTimes[sample + i], times[i], 0.);
+				Assertions.assertEquals(sinkVolumeExpansionRatios[sample + i], volumeExpansionRatios[i], 0.);
+				Assertions.assertEquals(simulator.volumeExpansionRatio(times[i]), volumeExpansionRatios[i], 0.);
+			}
+			sample += count;
+		}
+		Assertions.assertEquals(sampleCount, sample);
+		Assertions.assertTrue(sinkTimes[sampleCount - 1] <= simulator.getDuration());
+	}
+
+	@Test
+	void timeToTarget() throws DoughException, YeastException{
+		final Procedure[] procedures = {
+			DoughFixtures.createProcedure(new double[]{35.}, new long[]{5l}, 0, 0.05),
+			DoughFixtures.createProcedure(new double[]{35., 25.}, new long[]{5l, 1l}, 1, 0.05),
+			DoughFixtures.createProcedure(new double[]{30., 4., 25.}, new long[]{3l, 24l, 3l}, 2, 0.05, STRETCH_AND_FOLD_LAPSES),
+			DoughFixtures.createProcedure(new double[]{20., 6., 6., 22.}, new long[]{2l, 20l, 20l, 4l}, 3, 0.05, STRETCH_AND_FOLD_LAPSES)
+		};
+		for(final Procedure procedure : procedures){
+			final Dough dough = DoughFixtures.createDough(new SaccharomycesCerevisiaeCECT10131Yeast());
+			dough.calculateYeast(procedure);
+			Duration duration = Duration.ZERO;
+			for(final LeaveningStage stage : procedure.leaveningStages)
+				duration = duration.plus(stage.duration);
+
+			final double time = dough.calculateTimeToTarget(procedure, dough.yeast);
+
+			final FermentationSimulator simulator = dough.simulateFermentation(procedure);
+			Assertions.assertEquals(procedure.targetDoughVolumeExpansionRatio, simulator.volumeExpansionRatio(time), 0.000_000_001);
+			Assertions.assertTrue(time <= duration.toMinutes() / 60. + 0.01, "time " + time);
+		}
+	}
+
+	@Test
+	void timeToTargetAfterTheLastStage() throws DoughException, YeastException{
+		final Procedure procedure = DoughFixtures.createProcedure(new double[]{35.}, new long[]{5l}, 0, 0.05);
+		final Dough dough = DoughFixtures.createDough(new SaccharomycesCerevisiaeCECT10131Yeast());
+		dough.calculateYeast(procedure);
+
+		final double time = dough.calculateTimeToTarget(procedure, dough.yeast * 0.97);
+
+		Assertions.assertTrue(time > 5., "time " + time);
+		final FermentationSimulator simulator = FermentationSimulator.create(dough, new SaccharomycesCerevisiaeCECT10131Yeast(), procedure,
+			dough.yeast * 0.97);
+		Assertions.assertEquals(procedure.targetDoughVolumeExpansionRatio, simulator.volumeExpansionRatio(time), 0.000_000_001);
+		Assertions.assertThrows(YeastException.class, () -> dough.calculateTimeToTarget(procedure, 0.000_001));
+		Assertions.assertThrows(DoughException.class, () -> dough.calculateTimeToTarget(procedure, 0.));
+	}
+
+	@Test
+	void timeToTargetOfAnInvalidDough() throws DoughException{
+		final Procedure procedure = DoughFixtures.createProcedure(new double[]{35.}, new long[]{5l}, 0, 0.05);
+		final Dough dough = Dough.create(new SaccharomycesCerevisiaeCECT10131Yeast())
+			.addPureWater(0.05);
+
+		final DoughException exception = Assertions.assertThrows(DoughException.class,
+			() -> dough.calculateTimeToTarget(procedure, 0.004));
+		Assertions.assertTrue(exception.getMessage().startsWith("Hydration"), exception.getMessage());
+	}
+
+	@Test
+	void yeastNotCalculated() throws DoughException{
+		final Procedure procedure = DoughFixtures.createProcedure(new double[]{35.}, new long[]{5l}, 0, 0.05);
+		final Dough dough = DoughFixtures.createDough(new SaccharomycesCerevisiaeCECT10131Yeast());
+
+		Assertions.assertThrows(DoughException.class, () -> dough.simulateFermentation(procedure));
+	}
+
+}
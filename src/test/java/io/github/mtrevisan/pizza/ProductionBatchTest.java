@@ -0,0 +1,160 @@
+/**
+ * Copyright (c) 2020 Mauro Trevisan
+ *
+ * Permission is hereby granted, free of charge, to any person
+ * obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without
+ * restriction, including without limitation the rights to use,
+ * copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the
+ * Software is furnished to do so, subject to the following
+ * conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES
+ * OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+ * WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ */
+package io.github.mtrevisan.pizza;
+
+import io.github.mtrevisan.pizza.yeasts.SaccharomycesCerevisiaeCECT10131Yeast;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.time.LocalTime;
+
+
+class ProductionBatchTest{
+
+	@Test
+	void sameAsSingleRecipes() throws DoughException, YeastException{
+		final Ingredients ingredients = createIngredients();
+		final Dough dough = createDough(ingredients);
+		final Procedure procedure = createProcedure();
+
+		final ProductionBatch.Result result = dough.createProductionBatch(ingredients, procedure)
+			.withOrder(180, 250.)
+			.withOrder(40, 900.)
+			.calculate();
+
+		Assertions.assertEquals(2, result.getLines());
+		Assertions.assertEquals(2, result.getSizes());
+		Assertions.assertEquals(180. * 250. + 40. * 900., result.getTotalDoughWeight(), 0.);
+		final Recipe ball = dough.createRecipe(ingredients.withDoughWeight(250.), procedure);
+		final Recipe tray = dough.createRecipe(ingredients.withDoughWeight(900.), procedure);
+		assertSameIngredients(ball, result.getRecipe(0));
+		assertSameIngredients(tray, result.getRecipe(1));
+		Assertions.assertEquals(ball.getWaterTemperature(), result.getRecipe(0).getWaterTemperature(), 0.000_001);
+		Assertions.assertEquals(ball.getDoughMakingInstant(), result.getTotal().getDoughMakingInstant());
+		Assertions.assertArrayEquals(ball.getStageStartEndInstants(), result.getTotal().getStageStartEndInstants());
+		Assertions.assertEquals(ball.getSeasoningInstant(), result.getTotal().getSeasoningInstant());
+
+		final Recipe total = result.getTotal();
+		Assertions.assertEquals(180. * ball.getFlour() + 40. * tray.getFlour(), total.getFlour(), 0.000_001);
+		Assertions.assertEquals(180. * ball.getWater() + 40. * tray.getWater(), total.getWater(), 0.000_001);
+		Assertions.assertEquals(180. * ball.getYeast() + 40. * tray.getYeast(), total.getYeast(), 0.000_001);
+		Assertions.assertEquals(180. * ball.getSugar() + 40. * tray.getSugar(), total.getSugar(), 0.000_001);
+		Assertions.assertEquals(180. * ball.getFat() + 40. * tray.getFat(), total.getFat(), 0.000_001);
+		Assertions.assertEquals(180. * ball.getSalt() + 40. * tray.getSalt(), total.getSalt(), 0.000_001);
+		Assertions.assertEquals(ball.getWaterTemperature(), total.getWaterTemperature(), 0.000_001);
+	}
+
+	@Test
+	void manyOrderLines() throws DoughException, YeastException{
+		final Ingredients ingredients = createIngredients();
+		final Dough dough = createDough(ingredients);
+		final ProductionBatch batch = dough.createProductionBatch(ingredients, createProcedure());
+		for(int i = 0; i < 5_000; i ++)
+			batch.withOrder(1 + i % 3, 200. + 50. * (i % 4));
+
+		final ProductionBatch.Result result = batch.calculate();
+
+		Assertions.assertEquals(5_000, result.getLines());
+		Assertions.assertEquals(4, result.getSizes());
+		Assertions.assertSame(result.getRecipe(0), result.getRecipe(4));
+		final Recipe total = result.getTotal();
+		Assertions.assertEquals(result.getTotalDoughWeight(), total.getFlour() + total.getWater() + total.getYeast() + total.getSugar()
+			+ total.getFat() + total.getSalt(), 0.000_01);
+	}
+
+	@Test
+	void clampedWater() throws DoughException, YeastException{
+		final Ingredients ingredients = createIngredients()
+			.withCorrectForIngredients()
+			.withFat(0.5, 0.5, 0.);
+		//the water correction exceeds the required water for light doughs
+		final Dough dough = Dough.create(new SaccharomycesCerevisiaeCECT10131Yeast())
+			.addWater(0.65, ingredients)
+			.addSalt(0.016)
+			.addFat(0.2, ingredients)
+			.withAtmosphericPressure(1012.1);
+
+		final ProductionBatch.Result result = dough.createProductionBatch(ingredients, createProcedure())
+			.withOrder(10, 0.02)
+			.withOrder(5, 0.01)
+			.calculate();
+
+		Assertions.assertNull(result.getRecipe(0).getWaterTemperature());
+		final Recipe total = result.getTotal();
+		Assertions.assertEquals(0., total.getWater(), 0.);
+		Assertions.assertNull(total.getWaterTemperature());
+		Assertions.assertEquals(result.getTotalDoughWeight(), total.getFlour() + total.getWater() + total.getYeast() + total.getSugar()
+			+ total.getFat() + total.getSalt(), 0.000_001);
+	}
+
+	@Test
+	void noOrders() throws DoughException{
+		final Ingredients ingredients = createIngredients();
+		final Dough dough = createDough(ingredients);
+		final ProductionBatch batch = dough.createProductionBatch(ingredients, createProcedure());
+
+		Assertions.assertThrows(DoughException.class, batch::calculate);
+		Assertions.assertThrows(IllegalArgumentException.class, () -> batch.withOrder(0, 250.));
+	}
+
+
+	private static Ingredients createIngredients() throws DoughException{
+		return new Ingredients()
+			.withIngredientsTemperature(16.7)
+			.withDoughTemperature(27.)
+			.withWater(0.02)
+			.withFlour(Flour.create(260.))
+			.withYeast(YeastType.INSTANT_DRY)
+			.withSugar(SugarType.SUCROSE)
+			.withFat(0.913);
+	}
+
+	private static Dough createDough(final Ingredients ingredients) throws DoughException{
+		return Dough.create(new SaccharomycesCerevisiaeCECT10131Yeast())
+			.addWater(0.65, ingredients)
+			.addSugar(0.003, ingredients)
+			.addSalt(0.016)
+			.addFat(0.016, ingredients)
+			.withAtmosphericPressure(1012.1);
+	}
+
+	private static Procedure createProcedure() throws DoughException{
+		final LeaveningStage stage1 = LeaveningStage.create(35., Duration.ofHours(6l));
+		final LeaveningStage stage2 = LeaveningStage.create(35., Duration.ofHours(1l));
+		return Procedure.create(new LeaveningStage[]{stage1, stage2}, 1.8, 0,
+			Duration.ofMinutes(10l), new Duration[]{Duration.ofMinutes(10l), Duration.ZERO}, Duration.ofMinutes(15l), LocalTime.of(20, 0));
+	}
+
+	private static void assertSameIngredients(final Recipe expected, final Recipe actual){
+		Assertions.assertEquals(expected.getFlour(), actual.getFlour(), 0.000_001);
+		Assertions.assertEquals(expected.getWater(), actual.getWater(), 0.000_001);
+		Assertions.assertEquals(expected.getYeast(), actual.getYeast(), 0.000_001);
+		Assertions.assertEquals(expected.getSugar(), actual.getSugar(), 0.000_001);
+		Assertions.assertEquals(expected.getFat(), actual.getFat(), 0.000_001);
+		Assertions.assertEquals(expected.getSalt(), actual.getSalt(), 0.000_001);
+	}
+
+}
@@ -0,0 +1,99 @@
+/**
+ * Copyright (c) 2020 Mauro Trevisan
+ *
+ * Permission is hereby granted, free of charge, to any person
+ * obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without
+ * restriction, including without limitation the rights to use,
+ * copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the
+ * Software is furnished to do so, subject to the following
+ * conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES
+ * OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+ * WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ */
+package io.github.mtrevisan.pizza;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.LocalTime;
+
+
+class RecipeStoreTest{
+
+	private static Recipe recipe(final int i){
+		return Recipe.create()
+			.withFlour(400. + i)
+			.withWater(260. + i, (i % 2 == 0? 20.5: null))
+			.withYeast(0.001 * i)
+			.withSalt(8.)
+			.withDoughMakingInstant(LocalTime.of(8, 0).plusMinutes(i % 600))
+			.withStageStartEndInstants(new LocalTime[][]{
+				new LocalTime[]{LocalTime.of(9, 0), LocalTime.of(15, 30)},
+				new LocalTime[]{LocalTime.of(15, 45), LocalTime.of(18, 0)}
+			})
+			.withSeasoningInstant(LocalTime.of(19, 0));
+	}
+
+
+	@Test
+	void appendAndRead() throws IOException{
+		try(final RecipeStore store = RecipeStore.create(3, "temperature", "lag")){
+			final int rows = 100_000;
+			for(int i = 0; i < rows; i ++)
+				Assertions.assertEquals(i, store.append(recipe(i), 20. + i % 10, 0.5));
+
+			Assertions.assertEquals(rows, store.size());
+			Assertions.assertEquals(400. + 70_123, store.get(70_123, RecipeStore.Column.FLOUR));
+			Assertions.assertEquals(20.5, store.get(70_122, RecipeStore.Column.WATER_TEMPERATURE));
+			Assertions.assertTrue(Double.isNaN(store.get(70_123, RecipeStore.Column.WATER_TEMPERATURE)));
+			Assertions.assertEquals(LocalTime.of(15, 45).toSecondOfDay(), store.getStageStart(99_999, 1));
+			Assertions.assertTrue(Double.isNaN(store.getStageEnd(99_999, 2)));
+			Assertions.assertEquals(23., store.getExtra(70_123, store.indexOfExtra("temperature")));
+
+			final Recipe recipe = store.getRecipe(70_123);
+			Assertions.assertEquals(recipe(70_123).toString(), recipe.toString());
+			Assertions.assertThrows(IndexOutOfBoundsException.class, () -> store.get(rows, RecipeStore.Column.YEAST));
+		}
+	}
+
+	@Test
+	void fileBackedSinglePrecision(@TempDir final Path directory) throws IOException{
+		try(final RecipeStore store = RecipeStore.create(directory.resolve("recipes.bin"), RecipeStore.Precision.FLOAT, 2)){
+			for(int i = 0; i < 70_000; i ++)
+				store.append(recipe(i));
+
+			Assertions.assertEquals(0.001 * 69_999, store.get(69_999, RecipeStore.Column.YEAST), 0.000_01);
+			Assertions.assertEquals(LocalTime.of(19, 0), store.getRecipe(69_999).getSeasoningInstant());
+			Assertions.assertThrows(IllegalArgumentException.class, () -> store.append(recipe(0), 1.));
+		}
+	}
+
+	@Test
+	void closed(@TempDir final Path directory) throws IOException{
+		final RecipeStore store = RecipeStore.create(directory.resolve("recipes.bin"), RecipeStore.Precision.DOUBLE, 2);
+		store.append(recipe(0));
+
+		store.close();
+		store.close();
+
+		Assertions.assertEquals(0l, store.size());
+		Assertions.assertThrows(IllegalStateException.class, () -> store.get(0, RecipeStore.Column.FLOUR));
+		Assertions.assertThrows(IllegalStateException.class, () -> store.append(recipe(1)));
+	}
+
+}
@@ -0,0 +1,158 @@
+/**
+ * Copyright (c) 2020 Mauro Trevisan
+ *
+ * Permission is hereby granted, free of charge, to any person
+ * obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without
+ * restriction, including without limitation the rights to use,
+ * copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the
+ * Software is furnished to do so, subject to the following
+ * conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES
+ * OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+ * WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ */
+package io.github.mtrevisan.pizza;
+
+import io.github.mtrevisan.pizza.yeasts.SaccharomycesCerevisiaeCECT10131Yeast;
+import io.github.mtrevisan.pizza.yeasts.YeastModelAbstract;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.time.LocalTime;
+
+
+class TemperatureProfileTest{
+
+	/** Cooling in a fridge from 24 °C to 4 °C in 3 hrs, then 21 hrs at 4 °C, then warming up to 22 °C in 2 hrs. */
+	private static final Duration[] FRIDGE_TIMES = {Duration.ZERO, Duration.ofHours(3l), Duration.ofHours(24l), Duration.ofHours(26l)};
+	private static final double[] FRIDGE_TEMPERATURES = {24., 4., 4., 22.};
+
+
+	@Test
+	void constantProfileAsConstantStage() throws DoughException, YeastException{
+		final TemperatureProfile profile = TemperatureProfile.createPiecewiseLinear(new Duration[]{Duration.ZERO, Duration.ofHours(6l)},
+			new double[]{25., 25.});
+		final Dough constant = createDough();
+		constant.calculateYeast(createProcedure(LeaveningStage.create(25., Duration.ofHours(6l))));
+		final Dough profiled = createDough();
+		profiled.calculateYeast(createProcedure(LeaveningStage.create(profile)));
+
+		Assertions.assertEquals(25., profile.getTemperatureMean(), 0.);
+		Assertions.assertEquals(constant.yeast, profiled.yeast, 0.000_000_01);
+	}
+
+	@Test
+	void meanSpecificGrowth() throws DoughException{
+		final YeastModelAbstract yeastModel = new SaccharomycesCerevisiaeCECT10131Yeast();
+		final Dough dough = createDough();
+		final TemperatureProfile profile = TemperatureProfile.createPiecewiseLinear(FRIDGE_TIMES, FRIDGE_TEMPERATURES);
+
+		final double[] meanSpecificGrowth = profile.meanSpecificGrowth(dough, yeastModel);
+
+		//composite Simpson's rule
+		final int intervals = 260_000;
+		final double hours = 26.;
+		double specificGrowth = 0.;
+		double maximumSpecificGrowth = 0.;
+		for(int i = 0; i <= intervals; i ++){
+			final double temperature = profile.temperature(hours * i / intervals);
+			final double weight = (i == 0 || i == intervals? 1.: (i % 2 == 1? 4.: 2.));
+			final double mu = yeastModel.maximumSpecificGrowth(temperature);
+			specificGrowth += weight * dough.ingredientsFactor(temperature) * mu;
+			maximumSpecificGrowth += weight * mu;
+		}
+		specificGrowth /= 3. * intervals;
+		maximumSpecificGrowth /= 3. * intervals;
+		Assertions.assertEquals(specificGrowth, meanSpecificGrowth[0], specificGrowth * 0.000_001);
+		Assertions.assertEquals(maximumSpecificGrowth, meanSpecificGrowth[1], maximumSpecificGrowth * 0.000_001);
+		Assertions.assertEquals((24. + 4.) / 2. * 3. / 26. + 4. * 21. / 26. + (4. + 22.) / 2. * 2. / 26., profile.getTemperatureMean(),
+			0.000_000_001);
+	}
+
+	@Test
+	void functionAsPiecewiseLinear() throws DoughException{
+		final YeastModelAbstract yeastModel = new SaccharomycesCerevisiaeCECT10131Yeast();
+		final Dough dough = createDough();
+		final TemperatureProfile function = TemperatureProfile.create(time -> 4. + 20. * Math.exp(-time / 2.), Duration.ofHours(12l));
+		final int nodes = 1_441;
+		final Duration[] times = new Duration[nodes];
+		final double[] temperatures = new double[nodes];
+		for(int i = 0; i < nodes; i ++){
+			times[i] = Duration.ofMinutes(i / 2l).plusSeconds(30l * (i % 2));
+			temperatures[i] = function.temperature(i / 120.);
+		}
+		final TemperatureProfile piecewiseLinear = TemperatureProfile.createPiecewiseLinear(times, temperatures);
+
+		final double[] expected = piecewiseLinear.meanSpecificGrowth(dough, yeastModel);
+		final double[] actual = function.meanSpecificGrowth(dough, yeastModel);
+		Assertions.assertEquals(expected[0], actual[0], expected[0] * 0.000_01);
+		Assertions.assertEquals(expected[1], actual[1], expected[1] * 0.000_01);
+		Assertions.assertEquals(4. + 20. * Math.exp(-6.), function.getTemperatureMin(), 0.000_000_001);
+		Assertions.assertEquals(24., function.getTemperatureMax(), 0.);
+	}
+
+	@Test
+	void calculateYeast() throws DoughException, YeastException{
+		final Procedure procedure = createProcedure(LeaveningStage.create(TemperatureProfile.createPiecewiseLinear(FRIDGE_TIMES,
+			FRIDGE_TEMPERATURES)));
+		final Dough dough = createDough()
+			.withYeastCache(YeastCache.create(16));
+		dough.calculateYeast(procedure);
+		final double yeast = dough.yeast;
+
+		//warmer fridge, less yeast
+		final Procedure warmerProcedure = createProcedure(LeaveningStage.create(TemperatureProfile.createPiecewiseLinear(FRIDGE_TIMES,
+			new double[]{24., 6., 6., 22.})));
+		dough.calculateYeast(warmerProcedure);
+		Assertions.assertTrue(dough.yeast < yeast);
+
+		//function profiles are not cached
+		final Procedure functionProcedure = createProcedure(LeaveningStage.create(TemperatureProfile.create(
+			procedure.leaveningStages[0].temperatureProfile::temperature, Duration.ofHours(26l))));
+		dough.calculateYeast(functionProcedure);
+		Assertions.assertEquals(yeast, dough.yeast, 0.000_01);
+		Assertions.assertTrue(dough.getYeastEvaluations() > 0);
+	}
+
+	@Test
+	void invalidProfiles() throws DoughException{
+		Assertions.assertThrows(DoughException.class, () -> TemperatureProfile.createPiecewiseLinear(
+			new Duration[]{Duration.ZERO, Duration.ofHours(2l), Duration.ofHours(2l)}, new double[]{24., 4., 4.}));
+		Assertions.assertThrows(DoughException.class, () -> TemperatureProfile.createPiecewiseLinear(
+			new Duration[]{Duration.ofHours(1l), Duration.ofHours(2l)}, new double[]{24., 4.}));
+		Assertions.assertThrows(DoughException.class, () -> TemperatureProfile.createPiecewiseLinear(
+			new Duration[]{Duration.ZERO, Duration.ofHours(2l)}, new double[]{24.}));
+
+		final Procedure procedure = createProcedure(LeaveningStage.create(TemperatureProfile.createPiecewiseLinear(
+			new Duration[]{Duration.ZERO, Duration.ofHours(2l)}, new double[]{24., 48.})));
+		final DoughException exception = Assertions.assertThrows(DoughException.class,
+			() -> procedure.validate(new SaccharomycesCerevisiaeCECT10131Yeast()));
+		Assertions.assertTrue(exception.getMessage().endsWith("was 48.0 °C"), exception.getMessage());
+	}
+
+
+	private static Dough createDough() throws DoughException{
+		return Dough.create(new SaccharomycesCerevisiaeCECT10131Yeast())
+			.addPureWater(0.65)
+			.addSalt(0.025)
+			.addSugar(0.004, SugarType.SUCROSE, 1., 0.);
+	}
+
+	private static Procedure createProcedure(final LeaveningStage stage) throws DoughException{
+		return Procedure.create(new LeaveningStage[]{stage}, 0.8, 0, Duration.ZERO, new Duration[]{Duration.ZERO}, Duration.ZERO,
+			LocalTime.NOON);
+	}
+
+}
@@ -0,0 +1,122 @@
+/**
+ * Copyright (c) 2020 Mauro Trevisan
+ *
+ * Permission is hereby granted, free of charge, to any person
+ * obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without
+ * restriction, including without limitation the rights to use,
+ * copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the
+ * Software is furnished to do so, subject to the following
+ * conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES
+ * OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+ * WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ */
+package io.github.mtrevisan.pizza;
+
+import io.github.mtrevisan.pizza.yeasts.LactobacillusPlantarumYeast;
+import io.github.mtrevisan.pizza.yeasts.SaccharomycesCerevisiaeCECT10131Yeast;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.time.LocalTime;
+import java.util.concurrent.ForkJoinPool;
+
+
+class UncertaintyAnalysisTest{
+
+	@Test
+	void withoutUncertaintyIsTheNominalSolution() throws DoughException, YeastException{
+		final Procedure procedure = createProcedure();
+		final Dough dough = DoughFixtures.createDough(new SaccharomycesCerevisiaeCECT10131Yeast());
+		dough.calculateYeast(procedure);
+
+		final UncertaintyAnalysis.Distribution distribution = dough.analyzeUncertainty(procedure)
+			.withSamples(200)
+			.calculateYeast();
+
+		Assertions.assertEquals(200, distribution.getSamples());
+		Assertions.assertEquals(0, distribution.getFailures());
+		//every sample is the same search (warm-started from the nominal solution)
+		Assertions.assertEquals(distribution.getMin(), distribution.getMax(), 0.);
+		Assertions.assertEquals(dough.yeast, distribution.quantile(0.5), 0.000_01);
+	}
+
+	@Test
+	void reproducibleWhateverTheParallelism() throws DoughException{
+		final Procedure procedure = createProcedure();
+		final Dough dough = DoughFixtures.createDough(new LactobacillusPlantarumYeast());
+
+		final ForkJoinPool single = new ForkJoinPool(1);
+		final ForkJoinPool many = new ForkJoinPool(4);
+		try{
+			final UncertaintyAnalysis.Distribution first = dough.analyzeUncertainty(procedure)
+				.withSamples(1_000)
+				.withSeed(123l)
+				.withStageTemperatureUncertainty(0.5, 1.5, 0.5)
+				.withPool(single)
+				.calculateYeast();
+			final UncertaintyAnalysis.Distribution second = dough.analyzeUncertainty(procedure)
+				.withSamples(1_000)
+				.withSeed(123l)
+				.withStageTemperatureUncertainty(0.5, 1.5, 0.5)
+				.withPool(many)
+				.calculateYeast();
+
+			Assertions.assertEquals(first.getFailures(), second.getFailures());
+			for(double quantile = 0.; quantile <= 1.; quantile += 0.05)
+				Assertions.assertEquals(first.quantile(quantile), second.quantile(quantile), 0.);
+		}
+		finally{
+			single.shutdown();
+			many.shutdown();
+		}
+	}
+
+	@Test
+	void spreadAroundTheNominalSolution() throws DoughException, YeastException{
+		final Procedure procedure = createProcedure();
+		final Dough dough = DoughFixtures.createDough(new SaccharomycesCerevisiaeCECT10131Yeast());
+		dough.calculateYeast(procedure);
+
+		final UncertaintyAnalysis.Distribution yeast = dough.analyzeUncertainty(procedure)
+			.withSamples(2_000)
+			.withStageTemperatureUncertainty(1.5)
+			.calculateYeast();
+		final UncertaintyAnalysis.Distribution time = dough.analyzeUncertainty(procedure)
+			.withSamples(2_000)
+			.withStageTemperatureUncertainty(1.5)
+			.calculateTimeToTarget(dough.yeast);
+
+		Assertions.assertTrue(yeast.quantile(0.05) < dough.yeast && dough.yeast < yeast.quantile(0.95), yeast.toString());
+		Assertions.assertEquals(dough.yeast, yeast.quantile(0.5), dough.yeast * 0.05);
+		final double nominalTime = dough.calculateTimeToTarget(procedure, dough.yeast);
+		Assertions.assertTrue(time.quantile(0.05) < nominalTime && nominalTime < time.quantile(0.95), time.toString());
+		Assertions.assertThrows(DoughException.class, () -> dough.analyzeUncertainty(procedure).calculateTimeToTarget(0.));
+		Assertions.assertThrows(IllegalArgumentException.class, () -> dough.analyzeUncertainty(procedure)
+			.withStageTemperatureUncertainty(1., 2.));
+	}
+
+
+	private static Procedure createProcedure() throws DoughException{
+		final LeaveningStage[] stages = {
+			LeaveningStage.create(30., Duration.ofHours(3l)).withVolumeDecrease(0.05),
+			LeaveningStage.create(4., Duration.ofHours(24l)).withVolumeDecrease(0.05),
+			LeaveningStage.create(25., Duration.ofHours(3l))
+		};
+		final Duration[] stagesWork = {Duration.ZERO, Duration.ZERO, Duration.ZERO};
+		return Procedure.create(stages, 1.2, 2, Duration.ZERO, stagesWork, Duration.ZERO, LocalTime.NOON);
+	}
+
+}
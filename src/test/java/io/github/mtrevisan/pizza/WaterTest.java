@@ -55,4 +55,18 @@ class WaterTest{
 		Assertions.assertEquals(5_188.7, temperature, 0.1);
 	}
 
+	@Test
+	void pureWaterDensity(){
+		final double density = Water.pureWaterDensity(20.);
+
+		Assertions.assertEquals(0.998_207, density, 0.000_001);
+	}
+
+	@Test
+	void brineDensity(){
+		final double density = Water.brineDensity(Water.pureWaterDensity(25.), 0.65, 0.025, 0.004, 25.);
+
+		Assertions.assertEquals(1.027_0, density, 0.000_1);
+	}
+
 }
@@ -0,0 +1,127 @@
+/**
+ * Copyright (c) 2020 Mauro Trevisan
+ *
+ * Permission is hereby granted, free of charge, to any person
+ * obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without
+ * restriction, including without limitation the rights to use,
+ * copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the
+ * Software is furnished to do so, subject to the following
+ * conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES
+ * OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+ * WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ */
+package io.github.mtrevisan.pizza;
+
+import io.github.mtrevisan.pizza.yeasts.SaccharomycesCerevisiaeAverageYeast;
+import io.github.mtrevisan.pizza.yeasts.SaccharomycesCerevisiaeCECT10131Yeast;
+import io.github.mtrevisan.pizza.yeasts.YeastModelAbstract;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+
+
+class YeastAtlasTest{
+
+	private static final YeastAtlas.Axis[] AXES = {
+		YeastAtlas.Axis.linear(21., 27., 7),
+		YeastAtlas.Axis.logarithmic(8., 16., 7),
+		YeastAtlas.Axis.linear(0.6, 0.7, 3),
+		YeastAtlas.Axis.linear(0., 0.02, 3)
+	};
+
+	@TempDir
+	static Path folder;
+	private static Path file;
+
+
+	@BeforeAll
+	static void generate() throws DoughException, IOException{
+		file = folder.resolve("yeast-atlas.bin");
+		final DoughBatchSolver solver = DoughBatchSolver.create(1);
+		try{
+			YeastAtlasGenerator.generate(file, 1.5, AXES, new YeastModelAbstract[]{new SaccharomycesCerevisiaeCECT10131Yeast()}, solver);
+		}
+		finally{
+			solver.shutdown();
+		}
+	}
+
+
+	@Test
+	void interpolateInsideGrid() throws DoughException, IOException, YeastException{
+		final YeastAtlas atlas = YeastAtlas.load(file);
+		final YeastModelAbstract yeastModel = new SaccharomycesCerevisiaeCECT10131Yeast();
+		final double yeast = atlas.yeast(yeastModel, 23.3, Duration.ofMinutes(655l), 0.63, 0.013);
+
+		final Dough dough = Dough.create(yeastModel)
+			.addPureWater(0.63)
+			.addSalt(0.013);
+		dough.calculateYeast(DoughFixtures.createProcedure(23.3, Duration.ofMinutes(655l)));
+		Assertions.assertEquals(dough.yeast, yeast, dough.yeast * YeastAtlasGenerator.CELL_TOLERANCE);
+	}
+
+	@Test
+	void notCovered() throws IOException{
+		final YeastAtlas atlas = YeastAtlas.load(file);
+		final YeastModelAbstract yeastModel = new SaccharomycesCerevisiaeCECT10131Yeast();
+
+		Assertions.assertTrue(Double.isNaN(atlas.yeast(yeastModel, 28., Duration.ofHours(12l), 0.65, 0.01)));
+		Assertions.assertTrue(Double.isNaN(atlas.yeast(yeastModel, 25., Duration.ofHours(2l), 0.65, 0.01)));
+		Assertions.assertTrue(Double.isNaN(atlas.yeast(yeastModel, 25., Duration.ofHours(12l), 0.55, 0.01)));
+		Assertions.assertFalse(atlas.contains(new SaccharomycesCerevisiaeAverageYeast()));
+		Assertions.assertTrue(Double.isNaN(atlas.yeast(new SaccharomycesCerevisiaeAverageYeast(), 25., Duration.ofHours(12l), 0.65,
+			0.01)));
+	}
+
+	@Test
+	void doughFallsBackToSolver() throws DoughException, IOException, YeastException{
+		final YeastAtlas atlas = YeastAtlas.load(file);
+		final Dough exact = Dough.create(new SaccharomycesCerevisiaeCECT10131Yeast())
+			.addPureWater(0.65)
+			.addSalt(0.01);
+		final Dough approximated = Dough.create(new SaccharomycesCerevisiaeCECT10131Yeast())
+			.addPureWater(0.65)
+			.addSalt(0.01)
+			.withYeastAtlas(atlas);
+
+		//inside the grid
+		Procedure procedure = DoughFixtures.createProcedure(25., Duration.ofHours(12l));
+		exact.calculateYeast(procedure);
+		approximated.calculateYeast(procedure);
+		Assertions.assertNotEquals(exact.yeast, approximated.yeast, 0.);
+		Assertions.assertEquals(exact.yeast, approximated.yeast, exact.yeast * YeastAtlasGenerator.CELL_TOLERANCE);
+
+		//outside the grid
+		procedure = DoughFixtures.createProcedure(32., Duration.ofHours(12l));
+		exact.calculateYeast(procedure);
+		approximated.calculateYeast(procedure);
+		Assertions.assertEquals(exact.yeast, approximated.yeast, 0.);
+	}
+
+	@Test
+	void rejectInvalidFile() throws IOException{
+		final Path invalid = folder.resolve("invalid.bin");
+		Files.write(invalid, new byte[]{1, 2, 3, 4, 5, 6, 7, 8});
+
+		Assertions.assertThrows(IOException.class, () -> YeastAtlas.load(invalid));
+	}
+
+}
@@ -0,0 +1,113 @@
+/**
+ * Copyright (c) 2020 Mauro Trevisan
+ *
+ * Permission is hereby granted, free of charge, to any person
+ * obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without
+ * restriction, including without limitation the rights to use,
+ * copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the
+ * Software is furnished to do so, subject to the following
+ * conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES
+ * OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+ * WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ */
+package io.github.mtrevisan.pizza;
+
+import io.github.mtrevisan.pizza.yeasts.SaccharomycesCerevisiaeAverageYeast;
+import io.github.mtrevisan.pizza.yeasts.SaccharomycesCerevisiaeCECT10131Yeast;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+
+
+class YeastCacheTest{
+
+	@Test
+	void hitOnSameDoughAndProcedure() throws DoughException, YeastException{
+		final YeastCache cache = YeastCache.create(10);
+		final Dough dough1 = Dough.create(new SaccharomycesCerevisiaeCECT10131Yeast())
+			.addPureWater(0.6)
+			.withYeastCache(cache);
+		final Dough dough2 = Dough.create(new SaccharomycesCerevisiaeCECT10131Yeast())
+			.addPureWater(0.6)
+			.withYeastCache(cache);
+		dough1.calculateYeast(DoughFixtures.createProcedure(35., Duration.ofHours(5l)));
+		dough2.calculateYeast(DoughFixtures.createProcedure(35., Duration.ofHours(5l)));
+
+		Assertions.assertEquals(dough1.yeast, dough2.yeast, 0.);
+		Assertions.assertEquals(1, cache.getHitCount());
+		Assertions.assertEquals(1, cache.getMissCount());
+		Assertions.assertEquals(1, cache.size());
+	}
+
+	@Test
+	void missOnDifferentInputs() throws DoughException, YeastException{
+		final YeastCache cache = YeastCache.create(10);
+		final Dough dough = Dough.create(new SaccharomycesCerevisiaeCECT10131Yeast())
+			.addPureWater(0.6)
+			.withYeastCache(cache);
+		dough.calculateYeast(DoughFixtures.createProcedure(35., Duration.ofHours(5l)));
+		dough.calculateYeast(DoughFixtures.createProcedure(35., Duration.ofHours(6l)));
+		dough.calculateYeast(DoughFixtures.createProcedure(34., Duration.ofHours(5l)));
+		dough.addSalt(0.01);
+		dough.calculateYeast(DoughFixtures.createProcedure(35., Duration.ofHours(5l)));
+		Dough.create(new SaccharomycesCerevisiaeAverageYeast())
+			.addPureWater(0.6)
+			.withYeastCache(cache)
+			.calculateYeast(DoughFixtures.createProcedure(35., Duration.ofHours(5l)));
+
+		Assertions.assertEquals(0, cache.getHitCount());
+		Assertions.assertEquals(5, cache.getMissCount());
+		Assertions.assertEquals(5, cache.size());
+	}
+
+	@Test
+	void missOnDifferentEvaluationMode() throws DoughException, YeastException{
+		final YeastCache cache = YeastCache.create(10);
+		final SaccharomycesCerevisiaeCECT10131Yeast model = new SaccharomycesCerevisiaeCECT10131Yeast();
+		Dough.create(model)
+			.addPureWater(0.6)
+			.withYeastCache(cache)
+			.calculateYeast(DoughFixtures.createProcedure(35., Duration.ofHours(5l)));
+		Dough.create(model.toFastMaximumSpecificGrowth())
+			.addPureWater(0.6)
+			.withYeastCache(cache)
+			.calculateYeast(DoughFixtures.createProcedure(35., Duration.ofHours(5l)));
+
+		Assertions.assertEquals(0, cache.getHitCount());
+		Assertions.assertEquals(2, cache.getMissCount());
+	}
+
+	@Test
+	void evictLeastRecentlyUsed() throws DoughException, YeastException{
+		final YeastCache cache = YeastCache.create(2);
+		final Dough dough = Dough.create(new SaccharomycesCerevisiaeCECT10131Yeast())
+			.addPureWater(0.6)
+			.withYeastCache(cache);
+		dough.calculateYeast(DoughFixtures.createProcedure(35., Duration.ofHours(5l)));
+		dough.calculateYeast(DoughFixtures.createProcedure(35., Duration.ofHours(6l)));
+		//refresh the first one
+		dough.calculateYeast(DoughFixtures.createProcedure(35., Duration.ofHours(5l)));
+		dough.calculateYeast(DoughFixtures.createProcedure(35., Duration.ofHours(7l)));
+		//the first is still there
+		dough.calculateYeast(DoughFixtures.createProcedure(35., Duration.ofHours(5l)));
+
+		Assertions.assertEquals(2, cache.getHitCount());
+		Assertions.assertEquals(3, cache.getMissCount());
+		Assertions.assertEquals(1, cache.getEvictionCount());
+		Assertions.assertEquals(2, cache.size());
+	}
+
+}
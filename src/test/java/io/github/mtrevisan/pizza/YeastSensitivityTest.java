@@ -0,0 +1,127 @@
+/**
+ * Copyright (c) 2020 Mauro Trevisan
+ *
+ * Permission is hereby granted, free of charge, to any person
+ * obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without
+ * restriction, including without limitation the rights to use,
+ * copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the
+ * Software is furnished to do so, subject to the following
+ * conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES
+ * OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+ * WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ */
+package io.github.mtrevisan.pizza;
+
+import io.github.mtrevisan.pizza.yeasts.SaccharomycesCerevisiaeCECT10131Yeast;
+import io.github.mtrevisan.pizza.yeasts.YeastModelAbstract;
+import org.apache.commons.math3.analysis.solvers.BrentSolver;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.time.LocalTime;
+
+
+class YeastSensitivityTest{
+
+	private static final YeastModelAbstract YEAST_MODEL = new SaccharomycesCerevisiaeCECT10131Yeast();
+	private static final Duration[] STRETCH_AND_FOLD_LAPSES = {Duration.ofMinutes(30l), Duration.ofMinutes(30l)};
+
+
+	@Test
+	void matchesFiniteDifferences() throws DoughException, YeastException{
+		final double[][] temperatures = {{35.}, {30., 4., 25.}, {20., 6., 8., 22.}};
+		final long[][] hours = {{5l}, {3l, 24l, 3l}, {2l, 20l, 20l, 4l}};
+		for(int p = 0; p < temperatures.length; p ++){
+			final int targetStage = temperatures[p].length - 1;
+			final Procedure procedure = DoughFixtures.createProcedure(temperatures[p], hours[p], targetStage, 0.05, STRETCH_AND_FOLD_LAPSES);
+			final Dough dough = DoughFixtures.createDough(YEAST_MODEL, 0.62, 0.02, 0.004);
+			dough.calculateYeast(procedure);
+
+			final YeastSensitivity sensitivity = dough.calculateYeastSensitivity(procedure);
+
+			for(int i = 0; i < temperatures[p].length; i ++){
+				final double[] higher = temperatures[p].clone();
+				final double[] lower = temperatures[p].clone();
+				higher[i] += 0.01;
+				lower[i] -= 0.01;
+				final Procedure higherProcedure = DoughFixtures.createProcedure(higher, hours[p], targetStage, 0.05, STRETCH_AND_FOLD_LAPSES);
+				final Procedure lowerProcedure = DoughFixtures.createProcedure(lower, hours[p], targetStage, 0.05, STRETCH_AND_FOLD_LAPSES);
+				final double expected = (preciseYeast(dough, higherProcedure, dough.yeast) - preciseYeast(dough, lowerProcedure, dough.yeast))
+					/ 0.02;
+				assertRelativeEquals(expected, sensitivity.getStageTemperatureSensitivity(i));
+			}
+			assertRelativeEquals((preciseYeast(DoughFixtures.createDough(YEAST_MODEL, 0.621, 0.02, 0.004), procedure, dough.yeast)
+					- preciseYeast(DoughFixtures.createDough(YEAST_MODEL, 0.619, 0.02, 0.004), procedure, dough.yeast)) / 0.002,
+				sensitivity.getHydrationSensitivity());
+			assertRelativeEquals((preciseYeast(DoughFixtures.createDough(YEAST_MODEL, 0.62, 0.0201, 0.004), procedure, dough.yeast)
+					- preciseYeast(DoughFixtures.createDough(YEAST_MODEL, 0.62, 0.0199, 0.004), procedure, dough.yeast)) / 0.0002,
+				sensitivity.getSaltSensitivity());
+			final Dough higherPressure = DoughFixtures.createDough(YEAST_MODEL, 0.62, 0.02, 0.004)
+				.withAtmosphericPressure(Dough.ONE_ATMOSPHERE + 10.);
+			final Dough lowerPressure = DoughFixtures.createDough(YEAST_MODEL, 0.62, 0.02, 0.004)
+				.withAtmosphericPressure(Dough.ONE_ATMOSPHERE - 10.);
+			assertRelativeEquals((preciseYeast(higherPressure, procedure, dough.yeast) - preciseYeast(lowerPressure, procedure, dough.yeast))
+				/ 20., sensitivity.getAtmosphericPressureSensitivity());
+			Assertions.assertEquals(dough.yeast, sensitivity.getYeast(), 0.);
+		}
+	}
+
+	@Test
+	void stagesAfterTheTargetOrWithAProfile() throws DoughException, YeastException{
+		final LeaveningStage[] stages = {
+			LeaveningStage.create(TemperatureProfile.createPiecewiseLinear(new Duration[]{Duration.ZERO, Duration.ofHours(4l)},
+				new double[]{20., 30.})),
+			LeaveningStage.create(25., Duration.ofHours(2l)),
+			LeaveningStage.create(6., Duration.ofHours(10l))
+		};
+		final Duration[] stagesWork = {Duration.ZERO, Duration.ZERO, Duration.ZERO};
+		final Procedure procedure = Procedure.create(stages, 0.8, 1, Duration.ZERO, stagesWork, Duration.ZERO, LocalTime.NOON);
+		final Dough dough = DoughFixtures.createDough(YEAST_MODEL, 0.62, 0.02, 0.004);
+		dough.calculateYeast(procedure);
+
+		final YeastSensitivity sensitivity = dough.calculateYeastSensitivity(procedure);
+
+		Assertions.assertTrue(Double.isNaN(sensitivity.getStageTemperatureSensitivity(0)));
+		Assertions.assertTrue(Double.isFinite(sensitivity.getStageTemperatureSensitivity(1)));
+		Assertions.assertEquals(0., sensitivity.getStageTemperatureSensitivity(2), 0.);
+		Assertions.assertTrue(Double.isFinite(sensitivity.getHydrationSensitivity()));
+		Assertions.assertTrue(Double.isFinite(sensitivity.getSaltSensitivity()));
+		Assertions.assertTrue(Double.isFinite(sensitivity.getAtmosphericPressureSensitivity()));
+	}
+
+	@Test
+	void yeastNotCalculated() throws DoughException{
+		final Procedure procedure = DoughFixtures.createProcedure(new double[]{35.}, new long[]{5l}, 0, 0.05, STRETCH_AND_FOLD_LAPSES);
+		final Dough dough = DoughFixtures.createDough(YEAST_MODEL, 0.62, 0.02, 0.004);
+
+		Assertions.assertThrows(DoughException.class, () -> dough.calculateYeastSensitivity(procedure));
+	}
+
+
+	private static void assertRelativeEquals(final double expected, final double actual){
+		Assertions.assertEquals(expected, actual, Math.abs(expected) * 0.001 + 0.000_000_000_1, "expected " + expected + ", actual " + actual);
+	}
+
+	/**
+	 * Solve the yeast far beyond the accuracy of the yeast calculation, so that the finite differences are meaningful (near the given
+	 * yeast, since the objective may have more than one root).
+	 */
+	private static double preciseYeast(final Dough dough, final Procedure procedure, final double yeast){
+		return new BrentSolver(0.000_000_000_000_1)
+			.solve(Dough.SOLVER_EVALUATIONS_MAX, ProcedurePlan.compile(dough, YEAST_MODEL, procedure), yeast * 0.8, yeast * 1.2);
+	}
+
+}
@@ -0,0 +1,144 @@
+/**
+ * Copyright (c) 2020 Mauro Trevisan
+ *
+ * Permission is hereby granted, free of charge, to any person
+ * obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without
+ * restriction, including without limitation the rights to use,
+ * copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the
+ * Software is furnished to do so, subject to the following
+ * conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES
+ * OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+ * WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ */
+package io.github.mtrevisan.pizza;
+
+import io.github.mtrevisan.pizza.yeasts.SaccharomycesCerevisiaeCECT10131Yeast;
+import io.github.mtrevisan.pizza.yeasts.YeastModelAbstract;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+
+
+class YeastSolverTest{
+
+	private static final YeastModelAbstract YEAST_MODEL = new SaccharomycesCerevisiaeCECT10131Yeast();
+	private static final Duration[] STRETCH_AND_FOLD_LAPSES = {Duration.ofMinutes(30l), Duration.ofMinutes(30l)};
+
+
+	@Test
+	void newtonAgreesWithBrent() throws DoughException, YeastException{
+		final Procedure[] procedures = {
+			DoughFixtures.createProcedure(new double[]{35.}, new long[]{5l}, 0, 0.),
+			DoughFixtures.createProcedure(new double[]{35., 25.}, new long[]{5l, 1l}, 1, 0.),
+			DoughFixtures.createProcedure(new double[]{30., 4., 25.}, new long[]{3l, 24l, 3l}, 2, 0., STRETCH_AND_FOLD_LAPSES),
+			DoughFixtures.createProcedure(new double[]{20., 6., 6., 22.}, new long[]{2l, 20l, 20l, 4l}, 3, 0., STRETCH_AND_FOLD_LAPSES)
+		};
+		int brentEvaluations = 0;
+		int newtonEvaluations = 0;
+		for(final Procedure procedure : procedures){
+			final Dough brent = DoughFixtures.createDough(YEAST_MODEL, 0.62, 0.02, 0.);
+			final Dough newton = DoughFixtures.createDough(YEAST_MODEL, 0.62, 0.02, 0.)
+				.withYeastSolverType(YeastSolverType.NEWTON);
+			brent.calculateYeast(procedure);
+			newton.calculateYeast(procedure);
+
+			Assertions.assertEquals(brent.yeast, newton.yeast, 0.000_01);
+			brentEvaluations += brent.getYeastEvaluations();
+			newtonEvaluations += newton.getYeastEvaluations();
+		}
+		Assertions.assertTrue(newtonEvaluations < brentEvaluations);
+	}
+
+	@Test
+	void newtonFailsLikeBrent() throws DoughException{
+		final Procedure procedure = DoughFixtures.createProcedure(new double[]{35.}, new long[]{1l}, 0, 0.);
+		final Dough brent = DoughFixtures.createDough(YEAST_MODEL, 0.62, 0.02, 0.);
+		final Dough newton = DoughFixtures.createDough(YEAST_MODEL, 0.62, 0.02, 0.)
+			.withYeastSolverType(YeastSolverType.NEWTON);
+
+		final YeastException brentException = Assertions.assertThrows(YeastException.class, () -> brent.calculateYeast(procedure));
+		final YeastException newtonException = Assertions.assertThrows(YeastException.class, () -> newton.calculateYeast(procedure));
+		Assertions.assertEquals(brentException.getMessage(), newtonException.getMessage());
+	}
+
+	@Test
+	void recalculateNearPreviousSolution() throws DoughException, YeastException{
+		final Procedure procedure = DoughFixtures.createProcedure(new double[]{30., 4., 25.}, new long[]{3l, 24l, 3l}, 2, 0.,
+			STRETCH_AND_FOLD_LAPSES);
+		final Procedure changedProcedure = DoughFixtures.createProcedure(new double[]{30., 4., 25.5}, new long[]{3l, 24l, 3l}, 2, 0.,
+			STRETCH_AND_FOLD_LAPSES);
+		for(final YeastSolverType solverType : YeastSolverType.values()){
+			final Dough full = DoughFixtures.createDough(YEAST_MODEL, 0.62, 0.02, 0.)
+				.withYeastSolverType(solverType);
+			full.calculateYeast(changedProcedure);
+
+			final Dough incremental = DoughFixtures.createDough(YEAST_MODEL, 0.62, 0.02, 0.)
+				.withYeastSolverType(solverType);
+			incremental.calculateYeast(procedure);
+			final double previousYeast = incremental.yeast;
+			final double yeast = incremental.recalculateYeast(changedProcedure);
+
+			Assertions.assertNotEquals(previousYeast, yeast);
+			Assertions.assertEquals(full.yeast, yeast, 0.000_01);
+			Assertions.assertTrue(incremental.getYeastEvaluations() < full.getYeastEvaluations());
+		}
+	}
+
+	@Test
+	void recalculateFarFromPreviousSolution() throws DoughException, YeastException{
+		final Procedure procedure = DoughFixtures.createProcedure(new double[]{35., 25.}, new long[]{5l, 1l}, 1, 0.);
+		final Dough full = DoughFixtures.createDough(YEAST_MODEL, 0.62, 0.02, 0.);
+		full.calculateYeast(procedure);
+
+		final Dough incremental = DoughFixtures.createDough(YEAST_MODEL, 0.62, 0.02, 0.);
+		incremental.recalculateYeast(procedure, Dough.SOLVER_YEAST_MAX);
+
+		Assertions.assertEquals(full.yeast, incremental.yeast, 0.000_01);
+	}
+
+	@Test
+	void recalculateInvalid() throws DoughException{
+		final Procedure procedure = DoughFixtures.createProcedure(new double[]{35.}, new long[]{5l}, 0, 0.);
+		final Procedure tooHot = DoughFixtures.createProcedure(new double[]{80.}, new long[]{5l}, 0, 0.);
+		final Dough tooDry = Dough.create(new SaccharomycesCerevisiaeCECT10131Yeast())
+			.addPureWater(0.05);
+
+		final DoughException compositionException = Assertions.assertThrows(DoughException.class,
+			() -> tooDry.recalculateYeast(procedure, 0.004));
+		final DoughException temperatureException = Assertions.assertThrows(DoughException.class,
+			() -> DoughFixtures.createDough(YEAST_MODEL, 0.62, 0.02, 0.).recalculateYeast(tooHot, 0.004));
+		Assertions.assertTrue(compositionException.getMessage().startsWith("Hydration"), compositionException.getMessage());
+		Assertions.assertTrue(temperatureException.getMessage().startsWith("Stage temperature"), temperatureException.getMessage());
+	}
+
+	@Test
+	void analyticDerivative() throws DoughException{
+		final Procedure procedure = DoughFixtures.createProcedure(new double[]{30., 4., 25.}, new long[]{3l, 24l, 3l}, 2, 0.,
+			STRETCH_AND_FOLD_LAPSES);
+		final ProcedurePlan plan = ProcedurePlan.compile(DoughFixtures.createDough(YEAST_MODEL, 0.62, 0.02, 0.), YEAST_MODEL, procedure);
+
+		final double[] valueAndDerivative = new double[2];
+		for(final double yeast : new double[]{0.000_5, 0.001, 0.004, 0.009, 0.015}){
+			plan.evaluate(yeast, valueAndDerivative);
+			final double h = yeast * 0.000_001;
+			final double finiteDifference = (plan.value(yeast + h) - plan.value(yeast - h)) / (2. * h);
+
+			Assertions.assertEquals(plan.value(yeast), valueAndDerivative[0], 0.);
+			Assertions.assertEquals(finiteDifference, valueAndDerivative[1], Math.abs(finiteDifference) * 0.000_1 + 0.000_001);
+		}
+	}
+
+}
@@ -0,0 +1,102 @@
+/**
+ * Copyright (c) 2020 Mauro Trevisan
+ *
+ * Permission is hereby granted, free of charge, to any person
+ * obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without
+ * restriction, including without limitation the rights to use,
+ * copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the
+ * Software is furnished to do so, subject to the following
+ * conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES
+ * OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+ * WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ */
+package io.github.mtrevisan.pizza.service;
+
+import io.github.mtrevisan.pizza.utils.Json;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.util.List;
+import java.util.Map;
+
+
+class RecipeBatchRunnerTest{
+
+	private static final String CSV_HEADER = "yeastModel,dough.water,dough.salt,dough.atmosphericPressure,procedure.stages.0.temperature,"
+		+ "procedure.stages.0.duration,procedure.stages.1.temperature,procedure.stages.1.duration,procedure.targetVolumeExpansionRatio,"
+		+ "procedure.targetStage,procedure.timeToBake";
+
+
+	@Test
+	void jsonlInInputOrder() throws IOException{
+		final RecipeBatchRunner runner = RecipeBatchRunner.create(RecipeService.create(), RecipeService.ENDPOINT_YEAST, 2, 2);
+		final StringBuilder input = new StringBuilder();
+		for(int i = 0; i < 10; i ++)
+			input.append(i % 3 == 1? "{\"yeastModel\": \"Unknown\"}": RecipeServiceTest.RECIPE_REQUEST.replace('\n', ' '))
+				.append("\n\n");
+		final StringWriter output = new StringWriter();
+
+		final long jobs = runner.run(new BufferedReader(new StringReader(input.toString())), RecipeBatchRunner.Format.JSONL, output);
+
+		Assertions.assertEquals(10, jobs);
+		final String[] lines = output.toString().split("\n");
+		Assertions.assertEquals(10, lines.length);
+		for(int i = 0; i < lines.length; i ++){
+			final Map<?, ?> response = (Map<?, ?>)Json.parse(lines[i]);
+			if(i % 3 == 1)
+				Assertions.assertTrue(((String)response.get("error")).startsWith("Unknown yeast model Unknown"));
+			else
+				Assertions.assertEquals(0.004_9, (Double)response.get("yeast"), 0.000_1);
+		}
+	}
+
+	@Test
+	void csv() throws IOException{
+		final RecipeBatchRunner runner = RecipeBatchRunner.create(RecipeService.create(), RecipeService.ENDPOINT_YEAST, 2);
+		final String input = CSV_HEADER + "\n"
+			+ "SaccharomycesCerevisiaeCECT10131Yeast,0.65,0.016,1012.1,35,PT6H,35,1,1.8,0,\"20:00\"\n"
+			+ "SaccharomycesCerevisiaeCECT10131Yeast,0.65,0.016,,35,PT6H,,,1.8,0,20:00\n"
+			+ "SaccharomycesCerevisiaeCECT10131Yeast,0.65\n";
+		final StringWriter output = new StringWriter();
+
+		runner.run(new BufferedReader(new StringReader(input)), RecipeBatchRunner.Format.CSV, output);
+
+		final String[] lines = output.toString().split("\n");
+		Assertions.assertEquals(3, lines.length);
+		final double twoStagesYeast = (Double)((Map<?, ?>)Json.parse(lines[0])).get("yeast");
+		final double oneStageYeast = (Double)((Map<?, ?>)Json.parse(lines[1])).get("yeast");
+		Assertions.assertTrue(twoStagesYeast > 0.);
+		Assertions.assertTrue(oneStageYeast > 0.);
+		Assertions.assertTrue(((Map<?, ?>)Json.parse(lines[2])).containsKey("error"));
+	}
+
+	@Test
+	void parseRecord(){
+		final String[][] columns = {{"a", "b"}, {"a", "c", "1", "d"}, {"a", "c", "0"}, {"e"}};
+
+		final Map<String, Object> record = RecipeBatchRunner.parseRecord("1.5, \"x, \"\"y\"\"\",true,", columns);
+
+		Assertions.assertEquals(1.5, ((Map<?, ?>)record.get("a")).get("b"));
+		final List<?> c = (List<?>)((Map<?, ?>)record.get("a")).get("c");
+		Assertions.assertEquals(Boolean.TRUE, c.get(0));
+		Assertions.assertEquals("x, \"y\"", ((Map<?, ?>)c.get(1)).get("d"));
+		Assertions.assertFalse(record.containsKey("e"));
+	}
+
+}
@@ -0,0 +1,128 @@
+/**
+ * Copyright (c) 2020 Mauro Trevisan
+ *
+ * Permission is hereby granted, free of charge, to any person
+ * obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without
+ * restriction, including without limitation the rights to use,
+ * copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the
+ * Software is furnished to do so, subject to the following
+ * conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES
+ * OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+ * WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ */
+package io.github.mtrevisan.pizza.service;
+
+import io.github.mtrevisan.pizza.utils.Json;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import java.util.Map;
+
+
+class RecipeServerTest{
+
+	private RecipeServer server;
+
+
+	@BeforeEach
+	void setUp() throws IOException{
+		server = RecipeServer.create(0)
+			.start();
+	}
+
+	@AfterEach
+	void tearDown(){
+		server.stop();
+	}
+
+
+	@Test
+	void solveYeast() throws IOException{
+		final HttpURLConnection connection = post(RecipeService.ENDPOINT_YEAST, RecipeServiceTest.RECIPE_REQUEST);
+
+		Assertions.assertEquals(200, connection.getResponseCode());
+		final Map<?, ?> response = (Map<?, ?>)Json.parse(read(connection.getInputStream()));
+		Assertions.assertEquals(0.004_9, (Double)response.get("yeast"), 0.000_1);
+		Assertions.assertEquals(1, server.getLatencies(RecipeService.ENDPOINT_YEAST).snapshot().getCount());
+	}
+
+	@Test
+	void errorsAndMetrics() throws IOException{
+		final HttpURLConnection badRequest = post(RecipeService.ENDPOINT_RECIPE, "{\"yeastModel\": 1");
+		Assertions.assertEquals(400, badRequest.getResponseCode());
+		Assertions.assertTrue(((String)((Map<?, ?>)Json.parse(read(badRequest.getErrorStream()))).get("error"))
+			.startsWith("Unexpected end of text"));
+
+		final HttpURLConnection metrics = (HttpURLConnection)new URL("http://localhost:" + server.getPort()
+			+ RecipeServer.ENDPOINT_METRICS).openConnection();
+		Assertions.assertEquals(200, metrics.getResponseCode());
+		final String text = read(metrics.getInputStream());
+		Assertions.assertTrue(text.contains("pizza_request_duration_seconds_count{endpoint=\"/recipe\"} 1\n"), text);
+		Assertions.assertTrue(text.contains("pizza_request_errors_total{endpoint=\"/recipe\"} 1\n"), text);
+		Assertions.assertTrue(text.contains("pizza_request_duration_seconds_count{endpoint=\"/yeast\"} 0\n"), text);
+		Assertions.assertTrue(text.contains("pizza_request_duration_seconds{endpoint=\"/yeast\",quantile=\"0.5\"} 0.0\n"), text);
+		Assertions.assertTrue(text.contains("pizza_yeast_calculations_total{outcome=\"solved\"} 0\n"), text);
+		Assertions.assertTrue(text.contains("pizza_yeast_evaluations_count 0\n"), text);
+	}
+
+	@Test
+	void limits() throws IOException{
+		final HttpURLConnection tooLarge = post(RecipeService.ENDPOINT_YEAST, " ".repeat(RecipeServer.REQUEST_SIZE_MAX + 1));
+		Assertions.assertEquals(413, tooLarge.getResponseCode());
+
+		final HttpURLConnection tooManyRequests = post(RecipeService.ENDPOINT_YEAST,
+			"[" + String.join(",", Collections.nCopies(RecipeServer.BATCH_SIZE_MAX + 1, "{}")) + "]");
+		Assertions.assertEquals(400, tooManyRequests.getResponseCode());
+		Assertions.assertTrue(((String)((Map<?, ?>)Json.parse(read(tooManyRequests.getErrorStream()))).get("error"))
+			.startsWith("Batch must have at most"));
+	}
+
+	@Test
+	void reloadDisabledByDefault() throws IOException{
+		Assertions.assertEquals(404, post(RecipeServer.ENDPOINT_RELOAD, "").getResponseCode());
+
+		server.withReloadEnabled();
+		//the default yeast models are not loaded from a file
+		Assertions.assertEquals(400, post(RecipeServer.ENDPOINT_RELOAD, "").getResponseCode());
+	}
+
+
+	private HttpURLConnection post(final String endpoint, final String body) throws IOException{
+		final HttpURLConnection connection = (HttpURLConnection)new URL("http://localhost:" + server.getPort() + endpoint)
+			.openConnection();
+		connection.setRequestMethod("POST");
+		connection.setDoOutput(true);
+		try(final OutputStream os = connection.getOutputStream()){
+			os.write(body.getBytes(StandardCharsets.UTF_8));
+		}
+		return connection;
+	}
+
+	private static String read(final InputStream is) throws IOException{
+		try(is){
+			return new String(is.readAllBytes(), StandardCharsets.UTF_8);
+		}
+	}
+
+}
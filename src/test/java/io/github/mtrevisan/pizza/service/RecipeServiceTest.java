@@ -0,0 +1,149 @@
+/**
+ * Copyright (c) 2020 Mauro Trevisan
+ *
+ * Permission is hereby granted, free of charge, to any person
+ * obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without
+ * restriction, including without limitation the rights to use,
+ * copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the
+ * Software is furnished to do so, subject to the following
+ * conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES
+ * OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+ * WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ */
+package io.github.mtrevisan.pizza.service;
+
+import io.github.mtrevisan.pizza.DoughException;
+import io.github.mtrevisan.pizza.DoughMetrics;
+import io.github.mtrevisan.pizza.YeastCache;
+import io.github.mtrevisan.pizza.YeastException;
+import io.github.mtrevisan.pizza.YeastOutcome;
+import io.github.mtrevisan.pizza.utils.Json;
+import io.github.mtrevisan.pizza.yeasts.YeastModelRegistry;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalTime;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+
+class RecipeServiceTest{
+
+	static final String RECIPE_REQUEST = "{\"yeastModel\": \"SaccharomycesCerevisiaeCECT10131Yeast\","
+		+ " \"dough\": {\"water\": 0.65, \"sugar\": 0.003, \"salt\": 0.016, \"fat\": 0.016, \"atmosphericPressure\": 1012.1},"
+		+ " \"ingredients\": {\"flour\": {\"strength\": 260}, \"water\": {\"chlorineDioxide\": 0.02}, \"yeastType\": \"INSTANT_DRY\","
+		+ " \"sugarType\": \"SUCROSE\", \"fatContent\": 0.913, \"ingredientsTemperature\": 16.7, \"doughTemperature\": 27,"
+		+ " \"doughWeight\": 741.3},"
+		+ " \"procedure\": {\"stages\": [{\"temperature\": 35, \"duration\": \"PT6H\"}, {\"temperature\": 35, \"duration\": 1}],"
+		+ " \"targetVolumeExpansionRatio\": 1.8, \"targetStage\": 0, \"doughMaking\": \"PT10M\", \"stagesWork\": [\"PT10M\", 0],"
+		+ " \"seasoning\": \"PT15M\", \"timeToBake\": \"20:00\", \"stretchAndFolds\": [{\"lapse\": \"PT30M\", \"volumeDecrease\": 0.05},"
+		+ " {\"lapse\": \"PT30M\", \"volumeDecrease\": 0.05}, {\"lapse\": \"PT30M\", \"volumeDecrease\": 0.05}]}}";
+
+
+	@Test
+	void createRecipe() throws DoughException, YeastException{
+		final RecipeService service = RecipeService.create();
+
+		final Map<?, ?> response = (Map<?, ?>)service.handle(RecipeService.ENDPOINT_RECIPE, Json.parse(RECIPE_REQUEST));
+
+		Assertions.assertEquals(439.6, (Double)response.get("flour"), 0.1);
+		Assertions.assertEquals(285.7, (Double)response.get("water"), 0.1);
+		Assertions.assertEquals(43.4, (Double)response.get("waterTemperature"), 0.1);
+		Assertions.assertEquals(0.69, (Double)response.get("yeast"), 0.01);
+		Assertions.assertEquals(LocalTime.of(12, 25), response.get("doughMaking"));
+		Assertions.assertArrayEquals(new LocalTime[][]{
+				new LocalTime[]{LocalTime.of(12, 35), LocalTime.of(18, 35)},
+				new LocalTime[]{LocalTime.of(18, 45), LocalTime.of(19, 45)}
+			},
+			(LocalTime[][])response.get("stages"));
+		Assertions.assertEquals(LocalTime.of(19, 45), response.get("seasoning"));
+	}
+
+	@Test
+	void yeastAndTimeToRise() throws DoughException, YeastException{
+		final RecipeService service = RecipeService.create();
+		final Map<?, ?> request = (Map<?, ?>)Json.parse(RECIPE_REQUEST);
+
+		final double yeast = (Double)((Map<?, ?>)service.handle(RecipeService.ENDPOINT_YEAST, request)).get("yeast");
+		final Map<String, Object> timeRequest = new LinkedHashMap<>();
+		for(final Map.Entry<?, ?> entry : request.entrySet())
+			timeRequest.put((String)entry.getKey(), entry.getValue());
+		timeRequest.put("yeast", yeast);
+		final double hours = (Double)((Map<?, ?>)service.handle(RecipeService.ENDPOINT_TIME_TO_RISE, timeRequest)).get("hours");
+		timeRequest.put("yeast", yeast * 1.2);
+		final double fasterHours = (Double)((Map<?, ?>)service.handle(RecipeService.ENDPOINT_TIME_TO_RISE, timeRequest))
+			.get("hours");
+
+		Assertions.assertEquals(0.004_9, yeast, 0.000_1);
+		Assertions.assertTrue(fasterHours > 0. && fasterHours < hours);
+	}
+
+	@Test
+	void batch() throws DoughException, YeastException{
+		final RecipeService service = RecipeService.create();
+
+		final List<?> responses = (List<?>)service.handle(RecipeService.ENDPOINT_YEAST,
+			Json.parse("[" + RECIPE_REQUEST + ", {\"yeastModel\": \"Unknown\"}, " + RECIPE_REQUEST + "]"));
+
+		Assertions.assertEquals(3, responses.size());
+		Assertions.assertEquals(((Map<?, ?>)responses.get(0)).get("yeast"), ((Map<?, ?>)responses.get(2)).get("yeast"));
+		Assertions.assertTrue(((String)((Map<?, ?>)responses.get(1)).get("error")).startsWith("Unknown yeast model Unknown"));
+	}
+
+	@Test
+	void doughMetrics() throws DoughException, YeastException{
+		final RecipeService unmeasured = RecipeService.create();
+		final RecipeService measured = RecipeService.create(null, YeastModelRegistry.create(), DoughMetrics.create());
+
+		unmeasured.handle(RecipeService.ENDPOINT_YEAST, Json.parse(RECIPE_REQUEST));
+		measured.handle(RecipeService.ENDPOINT_YEAST, Json.parse(RECIPE_REQUEST));
+
+		Assertions.assertNull(unmeasured.getDoughMetrics());
+		Assertions.assertEquals(1, measured.getDoughMetrics().snapshot().getYeastOutcomes(YeastOutcome.SOLVED));
+	}
+
+	@Test
+	void reloadYeastModels(@TempDir final Path directory) throws IOException, DoughException, YeastException{
+		final Path file = directory.resolve("yeast-models.json");
+		Files.writeString(file, "{}");
+		final YeastCache yeastCache = YeastCache.create(10);
+		final RecipeService service = RecipeService.create(yeastCache, YeastModelRegistry.load(file));
+		final Object request = Json.parse(RECIPE_REQUEST);
+
+		final double yeast = (Double)((Map<?, ?>)service.handle(RecipeService.ENDPOINT_YEAST, request)).get("yeast");
+		Files.writeString(file, "{\"SaccharomycesCerevisiaeCECT10131Yeast\": {\"maximumSpecificGrowthRate\": 0.5}}");
+		service.getYeastModels()
+			.reload();
+		Assertions.assertEquals(0, yeastCache.size());
+		final double fasterYeast = (Double)((Map<?, ?>)service.handle(RecipeService.ENDPOINT_YEAST, request)).get("yeast");
+
+		Assertions.assertTrue(fasterYeast < yeast);
+	}
+
+	@Test
+	void malformed(){
+		final RecipeService service = RecipeService.create();
+
+		Assertions.assertThrows(IllegalArgumentException.class,
+			() -> service.handle(RecipeService.ENDPOINT_YEAST, Json.parse("{\"yeastModel\": \"SaccharomycesCerevisiaeCECT10131Yeast\"}")));
+		Assertions.assertThrows(IllegalArgumentException.class, () -> service.handle("/unknown", Json.parse(RECIPE_REQUEST)));
+	}
+
+}
@@ -0,0 +1,77 @@
+/**
+ * Copyright (c) 2020 Mauro Trevisan
+ *
+ * Permission is hereby granted, free of charge, to any person
+ * obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without
+ * restriction, including without limitation the rights to use,
+ * copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the
+ * Software is furnished to do so, subject to the following
+ * conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES
+ * OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+ * WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ */
+package io.github.mtrevisan.pizza.utils;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalTime;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+
+class JsonTest{
+
+	@Test
+	void parse(){
+		final Object value = Json.parse(" {\"a\": [1, -2.5e1, true, null], \"b\": {\"c\": \"x\\\"y\\u0041\"}, \"d\": []} ");
+
+		final Map<String, Object> expected = new LinkedHashMap<>();
+		expected.put("a", Arrays.asList(1., -25., true, null));
+		expected.put("b", Map.of("c", "x\"yA"));
+		expected.put("d", List.of());
+		Assertions.assertEquals(expected, value);
+	}
+
+	@Test
+	void write(){
+		final Map<String, Object> value = new LinkedHashMap<>();
+		value.put("a", new double[]{1.5, Double.NaN});
+		value.put("b", 3);
+		value.put("c", "line\n\"quoted\"");
+		value.put("d", new LocalTime[][]{{LocalTime.of(12, 25)}});
+		value.put("e", null);
+
+		final String text = Json.write(value);
+
+		Assertions.assertEquals("{\"a\":[1.5,null],\"b\":3,\"c\":\"line\\n\\\"quoted\\\"\",\"d\":[[\"12:25\"]],\"e\":null}", text);
+	}
+
+	@Test
+	void invalid(){
+		Assertions.assertThrows(IllegalArgumentException.class, () -> Json.parse("{\"a\": 1"));
+		Assertions.assertThrows(IllegalArgumentException.class, () -> Json.parse("{\"a\": 1} x"));
+		Assertions.assertThrows(IllegalArgumentException.class, () -> Json.parse("[1, }"));
+	}
+
+	@Test
+	void tooDeep(){
+		Assertions.assertNotNull(Json.parse("[".repeat(Json.DEPTH_MAX) + "]".repeat(Json.DEPTH_MAX)));
+		Assertions.assertThrows(IllegalArgumentException.class, () -> Json.parse("[".repeat(100_000)));
+	}
+
+}
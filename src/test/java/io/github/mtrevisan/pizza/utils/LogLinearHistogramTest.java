@@ -0,0 +1,95 @@
+/**
+ * Copyright (c) 2020 Mauro Trevisan
+ *
+ * Permission is hereby granted, free of charge, to any person
+ * obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without
+ * restriction, including without limitation the rights to use,
+ * copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the
+ * Software is furnished to do so, subject to the following
+ * conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES
+ * OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+ * WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ */
+package io.github.mtrevisan.pizza.utils;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.SplittableRandom;
+
+
+class LogLinearHistogramTest{
+
+	@Test
+	void contiguousBuckets(){
+		Assertions.assertEquals(0, LogLinearHistogram.bucketIndex(0l));
+		for(int i = 0; LogLinearHistogram.upperBound(i) < Long.MAX_VALUE; i ++){
+			final long upperBound = LogLinearHistogram.upperBound(i);
+			Assertions.assertEquals(i, LogLinearHistogram.bucketIndex(upperBound), "bucket " + i);
+			Assertions.assertEquals(i + 1, LogLinearHistogram.bucketIndex(upperBound + 1), "bucket " + i);
+		}
+		Assertions.assertEquals(Long.MAX_VALUE,
+			LogLinearHistogram.upperBound(LogLinearHistogram.bucketIndex(Long.MAX_VALUE)));
+	}
+
+	@Test
+	void exactSmallValues(){
+		final LogLinearHistogram histogram = LogLinearHistogram.create();
+		for(int value = 1; value <= 20; value ++)
+			histogram.record(value);
+		histogram.record(-5l);
+
+		final LogLinearHistogram.Snapshot snapshot = histogram.snapshot();
+		Assertions.assertEquals(21, snapshot.getCount());
+		Assertions.assertEquals(210, snapshot.getSum());
+		Assertions.assertEquals(20, snapshot.getMax());
+		Assertions.assertEquals(0, snapshot.quantile(0.));
+		Assertions.assertEquals(10, snapshot.quantile(0.5));
+		Assertions.assertEquals(20, snapshot.quantile(1.));
+	}
+
+	@Test
+	void withinRelativeError(){
+		final SplittableRandom random = new SplittableRandom(42l);
+		final long[] values = new long[100_000];
+		final LogLinearHistogram histogram = LogLinearHistogram.create();
+		for(int i = 0; i < values.length; i ++){
+			values[i] = (long)Math.exp(random.nextDouble() * 30.);
+			histogram.record(values[i]);
+		}
+		Arrays.sort(values);
+
+		final LogLinearHistogram.Snapshot snapshot = histogram.snapshot();
+		Assertions.assertEquals(values.length, snapshot.getCount());
+		Assertions.assertEquals(values[values.length - 1], snapshot.getMax());
+		for(final double quantile : new double[]{0.05, 0.25, 0.5, 0.75, 0.95, 0.99}){
+			final long expected = values[(int)Math.ceil(quantile * values.length) - 1];
+			final long actual = snapshot.quantile(quantile);
+			Assertions.assertTrue(actual >= expected && actual <= expected + expected / 16, "quantile " + quantile);
+		}
+	}
+
+	@Test
+	void emptySnapshot(){
+		final LogLinearHistogram.Snapshot snapshot = LogLinearHistogram.create().snapshot();
+
+		Assertions.assertEquals(0, snapshot.getCount());
+		Assertions.assertEquals(0, snapshot.quantile(0.99));
+		Assertions.assertTrue(Double.isNaN(snapshot.getMean()));
+		Assertions.assertThrows(IllegalArgumentException.class, () -> snapshot.quantile(1.5));
+	}
+
+}
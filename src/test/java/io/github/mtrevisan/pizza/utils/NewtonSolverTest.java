@@ -0,0 +1,79 @@
+/**
+ * Copyright (c) 2020 Mauro Trevisan
+ *
+ * Permission is hereby granted, free of charge, to any person
+ * obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without
+ * restriction, including without limitation the rights to use,
+ * copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the
+ * Software is furnished to do so, subject to the following
+ * conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES
+ * OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+ * WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ */
+package io.github.mtrevisan.pizza.utils;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+
+class NewtonSolverTest{
+
+	//f(x) = x^3 - 2x - 5, root at 2.0945514815423265
+	private static final DifferentiableFunction CUBIC = (x, valueAndDerivative) -> {
+		valueAndDerivative[0] = (x * x - 2.) * x - 5.;
+		valueAndDerivative[1] = 3. * x * x - 2.;
+	};
+
+
+	@Test
+	void findRoot(){
+		final NewtonSolver solver = NewtonSolver.create(0.000_000_01);
+		final int status = solver.solve(100, CUBIC, 0., 10.);
+
+		Assertions.assertEquals(NewtonSolver.SUCCESS, status);
+		Assertions.assertEquals(2.094_551_481_542_326_5, solver.getRoot(), 0.000_000_01);
+		Assertions.assertTrue(solver.getEvaluations() < 20);
+	}
+
+	@Test
+	void fallBackToBisection(){
+		//the derivative vanishes at the start value, Newton alone would diverge
+		final NewtonSolver solver = NewtonSolver.create(0.000_000_01);
+		final int status = solver.solve(100, CUBIC, -5., 10., Math.sqrt(2. / 3.));
+
+		Assertions.assertEquals(NewtonSolver.SUCCESS, status);
+		Assertions.assertEquals(2.094_551_481_542_326_5, solver.getRoot(), 0.000_000_01);
+	}
+
+	@Test
+	void noBracketing(){
+		final NewtonSolver solver = NewtonSolver.create(0.000_000_01);
+		final int status = solver.solve(100, CUBIC, 3., 10.);
+
+		Assertions.assertEquals(NewtonSolver.NO_BRACKETING, status);
+		Assertions.assertTrue(Double.isNaN(solver.getRoot()));
+		Assertions.assertEquals(2, solver.getEvaluations());
+	}
+
+	@Test
+	void tooManyEvaluations(){
+		final NewtonSolver solver = NewtonSolver.create(0.000_000_01);
+		final int status = solver.solve(4, CUBIC, 0., 10.);
+
+		Assertions.assertEquals(NewtonSolver.TOO_MANY_EVALUATIONS, status);
+		Assertions.assertEquals(4, solver.getEvaluations());
+	}
+
+}
@@ -0,0 +1,91 @@
+/**
+ * Copyright (c) 2020 Mauro Trevisan
+ *
+ * Permission is hereby granted, free of charge, to any person
+ * obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without
+ * restriction, including without limitation the rights to use,
+ * copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the
+ * Software is furnished to do so, subject to the following
+ * conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES
+ * OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+ * WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ */
+package io.github.mtrevisan.pizza.utils;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.SplittableRandom;
+
+
+class QuantileSketchTest{
+
+	@Test
+	void withinRelativeAccuracy(){
+		final SplittableRandom random = new SplittableRandom(42l);
+		final double[] values = new double[100_000];
+		final QuantileSketch sketch = QuantileSketch.create(0.01);
+		for(int i = 0; i < values.length; i ++){
+			values[i] = Math.exp(Helper.nextGaussian(random));
+			sketch.add(values[i]);
+		}
+		Arrays.sort(values);
+
+		Assertions.assertEquals(values.length, sketch.getCount());
+		for(final double quantile : new double[]{0., 0.05, 0.25, 0.5, 0.75, 0.95, 1.}){
+			final double expected = values[(int)(quantile * (values.length - 1))];
+			Assertions.assertEquals(expected, sketch.quantile(quantile), expected * 0.01, "quantile " + quantile);
+		}
+		Assertions.assertEquals(values[0], sketch.getMin(), 0.);
+		Assertions.assertEquals(values[values.length - 1], sketch.getMax(), 0.);
+	}
+
+	@Test
+	void mergeIsTheSameAsASingleSketch(){
+		final SplittableRandom random = new SplittableRandom(7l);
+		final QuantileSketch whole = QuantileSketch.create();
+		final QuantileSketch first = QuantileSketch.create();
+		final QuantileSketch second = QuantileSketch.create();
+		for(int i = 0; i < 10_000; i ++){
+			final double value = random.nextDouble() * (i % 2 == 0? 10.: 1000.);
+			whole.add(value);
+			(i % 2 == 0? first: second).add(value);
+		}
+
+		first.merge(second);
+
+		Assertions.assertEquals(whole.getCount(), first.getCount());
+		for(double quantile = 0.; quantile <= 1.; quantile += 0.01)
+			Assertions.assertEquals(whole.quantile(quantile), first.quantile(quantile), 0.);
+		Assertions.assertThrows(IllegalArgumentException.class, () -> first.merge(QuantileSketch.create(0.01)));
+	}
+
+	@Test
+	void boundedBuckets(){
+		final QuantileSketch sketch = QuantileSketch.create(0.01);
+		//far more orders of magnitude than the buckets can cover: only the lowest quantiles lose accuracy
+		for(int exponent = -300; exponent <= 300; exponent ++)
+			sketch.add(Math.pow(10., exponent));
+		sketch.add(0.);
+
+		Assertions.assertEquals(0., sketch.quantile(0.), 0.);
+		Assertions.assertEquals(1e300, sketch.quantile(1.), 1e300 * 0.01);
+		Assertions.assertEquals(1e290, sketch.quantile(591.5 / 601.), 1e290 * 0.01);
+		Assertions.assertTrue(Double.isNaN(QuantileSketch.create().quantile(0.5)));
+		Assertions.assertThrows(IllegalArgumentException.class, () -> sketch.add(-1.));
+	}
+
+}
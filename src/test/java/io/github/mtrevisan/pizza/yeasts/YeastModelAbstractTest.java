@@ -0,0 +1,209 @@
+/**
+ * Copyright (c) 2020 Mauro Trevisan
+ *
+ * Permission is hereby granted, free of charge, to any person
+ * obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without
+ * restriction, including without limitation the rights to use,
+ * copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the
+ * Software is furnished to do so, subject to the following
+ * conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES
+ * OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+ * WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ */
+package io.github.mtrevisan.pizza.yeasts;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.SplittableRandom;
+
+
+class YeastModelAbstractTest{
+
+	private static final YeastModelAbstract[] MODELS = {
+		new SaccharomycesCerevisiaeCECT10131Yeast(),
+		new SaccharomycesCerevisiaeAverageYeast(),
+		new SaccharomycesBayanusUvarumNCAIM789Yeast(),
+		new CandidaMilleriYeast(),
+		new LactobacillusBrevisYeast(),
+		new LactobacillusPlantarumYeast(),
+		new LactobacillusPontisN131Yeast(),
+		new LactobacillusSanfranciscensisYeast()
+	};
+
+
+	@Test
+	void exactByDefault(){
+		final YeastModelAbstract model = new SaccharomycesCerevisiaeCECT10131Yeast();
+
+		Assertions.assertFalse(model.isFastMaximumSpecificGrowth());
+		Assertions.assertEquals(0., model.getMaximumSpecificGrowthError(), 0.);
+		Assertions.assertEquals(model.exactMaximumSpecificGrowth(27.), model.maximumSpecificGrowth(27.), 0.);
+	}
+
+	@Test
+	void fastWithinDocumentedError(){
+		for(final YeastModelAbstract exactModel : MODELS){
+			final YeastModelAbstract model = exactModel.toFastMaximumSpecificGrowth();
+
+			final double error = model.getMaximumSpecificGrowthError();
+			Assertions.assertTrue(error <= SpecificGrowthTable.MAXIMUM_ABSOLUTE_ERROR, model.toString());
+			final double temperatureMin = model.getTemperatureMin() - 1.;
+			final double temperatureMax = model.getTemperatureMax() + 1.;
+			for(int i = 0; i <= 100_000; i ++){
+				final double temperature = temperatureMin + (temperatureMax - temperatureMin) * i / 100_000.;
+				Assertions.assertEquals(model.exactMaximumSpecificGrowth(temperature), model.maximumSpecificGrowth(temperature),
+					SpecificGrowthTable.MAXIMUM_ABSOLUTE_ERROR, model + " at " + temperature);
+			}
+		}
+	}
+
+	@Test
+	void fastIsAnotherModel(){
+		final YeastModelAbstract model = new SaccharomycesCerevisiaeCECT10131Yeast();
+		final YeastModelAbstract fastModel = model.toFastMaximumSpecificGrowth();
+
+		Assertions.assertNotSame(model, fastModel);
+		Assertions.assertFalse(model.isFastMaximumSpecificGrowth());
+		Assertions.assertTrue(fastModel.isFastMaximumSpecificGrowth());
+		Assertions.assertSame(fastModel, fastModel.toFastMaximumSpecificGrowth());
+		Assertions.assertNotEquals(model.getParametersIdentity(), fastModel.getParametersIdentity());
+		Assertions.assertEquals(fastModel.getParametersIdentity(),
+			new SaccharomycesCerevisiaeCECT10131Yeast().toFastMaximumSpecificGrowth().getParametersIdentity());
+		Assertions.assertEquals(model.getTemperatureMax(), fastModel.getTemperatureMax(), 0.);
+	}
+
+	@Test
+	void zeroOutsideTemperatureRange(){
+		final YeastModelAbstract model = new SaccharomycesCerevisiaeCECT10131Yeast()
+			.toFastMaximumSpecificGrowth();
+
+		Assertions.assertEquals(0., model.maximumSpecificGrowth(model.getTemperatureMin()), 0.);
+		Assertions.assertEquals(0., model.maximumSpecificGrowth(model.getTemperatureMax()), 0.);
+		Assertions.assertEquals(0., model.maximumSpecificGrowth(-5.), 0.);
+		Assertions.assertEquals(0., model.maximumSpecificGrowth(60.), 0.);
+	}
+
+	@Test
+	void bulkMatchesScalar(){
+		//the build runs the tests with the vector module, so that the SIMD kernels are exercised
+		Assertions.assertTrue(GompertzKernels.VECTORIZED);
+
+		//odd length to exercise the scalar tail
+		final double[] times = new double[1_001];
+		for(int i = 0; i < times.length; i ++)
+			times[i] = -1. + 30. * i / (times.length - 1);
+		final double[] volumeExpansionRatios = new double[times.length];
+		final double[] temperatures = new double[times.length];
+		final double[] maximumSpecificGrowths = new double[times.length];
+		for(final YeastModelAbstract model : MODELS){
+			model.volumeExpansionRatio(times, 0.8, 2.97, 27., 0.98, volumeExpansionRatios);
+			for(int i = 0; i < times.length; i ++){
+				final double expected = model.volumeExpansionRatio(times[i], 0.8, 2.97, 27., 0.98);
+				Assertions.assertEquals(expected, volumeExpansionRatios[i], Math.ulp(expected) * 4., model + " at " + times[i]);
+			}
+
+			final double temperatureMin = model.getTemperatureMin() - 1.;
+			final double temperatureMax = model.getTemperatureMax() + 1.;
+			for(int i = 0; i < temperatures.length; i ++)
+				temperatures[i] = temperatureMin + (temperatureMax - temperatureMin) * i / (temperatures.length - 1);
+			temperatures[1] = model.getTemperatureMin();
+			temperatures[2] = model.getTemperatureMax();
+			model.maximumSpecificGrowth(temperatures, maximumSpecificGrowths);
+			for(int i = 0; i < temperatures.length; i ++)
+				Assertions.assertEquals(model.exactMaximumSpecificGrowth(temperatures[i]), maximumSpecificGrowths[i], 0.,
+					model + " at " + temperatures[i]);
+		}
+	}
+
+	@Test
+	void matchesTheCardinalModel(){
+		for(final YeastModelAbstract model : MODELS){
+			final double temperatureMin = model.getTemperatureMin();
+			final double temperatureOpt = model.getTemperatureOpt();
+			final double temperatureMax = model.getTemperatureMax();
+			//a model without a temperature range never grows
+			if(temperatureMin == temperatureMax)
+				continue;
+
+			for(int i = 1; i < 10_000; i ++){
+				final double temperature = temperatureMin + (temperatureMax - temperatureMin) * i / 10_000.;
+				//the cardinal model as originally written, before its denominator was reassociated into slope · T + intercept
+				final double d = (temperature - temperatureMax) * Math.pow(temperature - temperatureMin, 2.);
+				final double e = (temperatureOpt - temperatureMin) * ((temperatureOpt - temperatureMin) * (temperature - temperatureOpt)
+					- (temperatureOpt - temperatureMax) * (temperatureOpt + temperatureMin - 2. * temperature));
+				final double expected = model.getMaximumSpecificGrowthRate() * (d / e);
+
+				//the reassociation changes the last ulps only (up to about 30)
+				Assertions.assertEquals(expected, model.exactMaximumSpecificGrowth(temperature), Math.abs(expected) * 1.e-13,
+					model + " at " + temperature);
+			}
+		}
+	}
+
+	@Test
+	void maximumSpecificGrowthDerivative(){
+		for(final YeastModelAbstract model : MODELS){
+			final double step = 0.000_1;
+			for(double temperature = model.getTemperatureMin() + 0.5; temperature < model.getTemperatureMax() - 0.5; temperature += 0.7){
+				final double expected = (model.exactMaximumSpecificGrowth(temperature + step)
+					- model.exactMaximumSpecificGrowth(temperature - step)) / (2. * step);
+
+				Assertions.assertEquals(expected, model.maximumSpecificGrowthDerivative(temperature), 0.000_001,
+					model + " at " + temperature);
+			}
+			Assertions.assertEquals(0., model.maximumSpecificGrowthDerivative(model.getTemperatureMax() + 1.), 0.);
+		}
+	}
+
+	@Test
+	void sampleWithinUncertainties(){
+		final SplittableRandom random = new SplittableRandom(1l);
+		for(final YeastModelAbstract model : MODELS)
+			for(int i = 0; i < 100; i ++){
+				final YeastModelAbstract sample = model.sample(random);
+
+				Assertions.assertTrue(sample.getTemperatureMin() < sample.getTemperatureOpt()
+					&& sample.getTemperatureOpt() < sample.getTemperatureMax() || model.getTemperatureMin() == model.getTemperatureMax(),
+					sample.toString());
+				Assertions.assertEquals(model.getTemperatureMin(), sample.getTemperatureMin(), 6. * model.getTemperatureMinUncertainty());
+				Assertions.assertEquals(model.getTemperatureOpt(), sample.getTemperatureOpt(), 6. * model.getTemperatureOptUncertainty());
+				Assertions.assertEquals(model.getMaximumSpecificGrowthRate(), sample.getMaximumSpecificGrowthRate(),
+					6. * model.getMaximumSpecificGrowthRateUncertainty());
+			}
+	}
+
+	@Test
+	void timeToVolumeExpansionRatio(){
+		for(final double time : new double[]{0.5, 1., 3., 8., 20.}){
+			final double volumeExpansionRatio = YeastModelAbstract.volumeExpansionRatio(time, 0.8, 2.97, 0.35);
+
+			Assertions.assertEquals(time, YeastModelAbstract.timeToVolumeExpansionRatio(volumeExpansionRatio, 0.8, 2.97, 0.35),
+				0.000_000_001);
+		}
+		Assertions.assertTrue(Double.isNaN(YeastModelAbstract.timeToVolumeExpansionRatio(2.97, 0.8, 2.97, 0.35)));
+		Assertions.assertTrue(Double.isNaN(YeastModelAbstract.timeToVolumeExpansionRatio(1., 0.8, 2.97, 0.)));
+	}
+
+	@Test
+	void bulkWithoutGrowth(){
+		final double[] times = {-1., 0., 1., 5., 10., 20., 30., 40., 50.};
+		final double[] volumeExpansionRatios = new double[times.length];
+		YeastModelAbstract.volumeExpansionRatio(times, 0.8, 0., 0.5, volumeExpansionRatios);
+
+		Assertions.assertArrayEquals(new double[times.length], volumeExpansionRatios, 0.);
+	}
+
+}
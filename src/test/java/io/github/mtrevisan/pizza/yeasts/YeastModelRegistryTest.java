@@ -0,0 +1,84 @@
+/**
+ * Copyright (c) 2020 Mauro Trevisan
+ *
+ * Permission is hereby granted, free of charge, to any person
+ * obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without
+ * restriction, including without limitation the rights to use,
+ * copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the
+ * Software is furnished to do so, subject to the following
+ * conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES
+ * OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+ * WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ */
+package io.github.mtrevisan.pizza.yeasts;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.atomic.AtomicInteger;
+
+
+class YeastModelRegistryTest{
+
+	@Test
+	void builtIn(){
+		final YeastModelRegistry registry = YeastModelRegistry.create();
+
+		Assertions.assertEquals(YeastModels.names(), registry.names().stream().toList());
+		Assertions.assertEquals(SaccharomycesCerevisiaeCECT10131Yeast.class,
+			registry.get("SaccharomycesCerevisiaeCECT10131Yeast").getClass());
+		Assertions.assertThrows(IllegalStateException.class, registry::reload);
+	}
+
+	@Test
+	void reload(@TempDir final Path directory) throws IOException{
+		final Path file = directory.resolve("yeast-models.json");
+		Files.writeString(file, "{\"SaccharomycesCerevisiaeCECT10131Yeast\": {\"maximumSpecificGrowthRate\": 0.5},"
+			+ " \"Custom\": {\"temperatureMin\": 2, \"temperatureOpt\": 28, \"temperatureMax\": 40, \"maximumSpecificGrowthRate\": 0.3}}");
+		final YeastModelRegistry registry = YeastModelRegistry.load(file);
+		final AtomicInteger reloads = new AtomicInteger();
+		registry.addReloadListener(reloads::incrementAndGet);
+
+		final YeastModelAbstract recalibrated = registry.get("SaccharomycesCerevisiaeCECT10131Yeast");
+		final YeastModelAbstract builtIn = new SaccharomycesCerevisiaeCECT10131Yeast();
+		Assertions.assertEquals(0.5, recalibrated.getMaximumSpecificGrowthRate());
+		Assertions.assertEquals(builtIn.getTemperatureOpt(), recalibrated.getTemperatureOpt());
+		Assertions.assertEquals(builtIn.getTemperatureMinUncertainty(), recalibrated.getTemperatureMinUncertainty());
+		Assertions.assertEquals(28., registry.get("Custom").getTemperatureOpt());
+		Assertions.assertNotNull(registry.get("CandidaMilleriYeast"));
+
+		Files.writeString(file, "{\"Custom\": {\"temperatureMin\": 2, \"temperatureOpt\": 29, \"temperatureMax\": 40,"
+			+ " \"maximumSpecificGrowthRate\": 0.3}}");
+		final YeastModelAbstract previous = registry.get("Custom");
+		registry.reload();
+
+		Assertions.assertEquals(1, reloads.get());
+		Assertions.assertEquals(28., previous.getTemperatureOpt());
+		Assertions.assertEquals(29., registry.get("Custom").getTemperatureOpt());
+		Assertions.assertNotEquals(previous.getParametersIdentity(), registry.get("Custom").getParametersIdentity());
+		Assertions.assertEquals(SaccharomycesCerevisiaeCECT10131Yeast.class,
+			registry.get("SaccharomycesCerevisiaeCECT10131Yeast").getClass());
+
+		Files.writeString(file, "{\"Custom\": {\"temperatureMin\": 2}}");
+		Assertions.assertThrows(IllegalArgumentException.class, registry::reload);
+		Assertions.assertEquals(1, reloads.get());
+		Assertions.assertEquals(29., registry.get("Custom").getTemperatureOpt());
+	}
+
+}